@@ -44,6 +44,10 @@ public class DocumentIndex {
     @JsonProperty("score")
     private Float score;
 
+    // 标题和正文的 64 位 SimHash 指纹，索引时计算，用于结果近似去重
+    @JsonProperty("simhash")
+    private Long simhash;
+
     private Map<String, Object> metadata;
 
     // Default constructor
@@ -189,6 +193,14 @@ public class DocumentIndex {
         this.score = score;
     }
 
+    public Long getSimhash() {
+        return simhash;
+    }
+
+    public void setSimhash(Long simhash) {
+        this.simhash = simhash;
+    }
+
     public Map<String, Object> getMetadata() {
         return metadata;
     }
@@ -15,6 +15,7 @@ import co.elastic.clients.elasticsearch.core.bulk.BulkOperation;
 import com.deepsearch.elasticsearch.config.ElasticsearchIndexConfig;
 import com.deepsearch.elasticsearch.dto.DocumentIndex;
 import com.deepsearch.vector.service.VectorProcessingEngine;
+import com.deepsearch.vector.util.SimHash;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -53,6 +54,8 @@ public class DocumentIndexService {
                 document.setTitleVector(titleVector);
             }
 
+            ensureSimhash(document);
+
             // Update timestamp
             document.setUpdatedAt(LocalDateTime.now());
 
@@ -90,6 +93,8 @@ public class DocumentIndexService {
                     document.setTitleVector(titleVector);
                 }
 
+                ensureSimhash(document);
+
                 // Update timestamp
                 document.setUpdatedAt(LocalDateTime.now());
 
@@ -160,6 +165,8 @@ public class DocumentIndexService {
                 document.setTitleVector(titleVector);
             }
 
+            ensureSimhashForUpdate(document);
+
             // Update timestamp
             document.setUpdatedAt(LocalDateTime.now());
 
@@ -204,4 +211,28 @@ public class DocumentIndexService {
             throw new IOException("Failed to delete document", e);
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * 索引时按标题和正文重新计算 SimHash 指纹，检索结果去重时直接使用；内容变化后不沿用传入的旧指纹
+     */
+    private void ensureSimhash(DocumentIndex document) {
+        if (document.getTitle() != null || document.getContent() != null) {
+            document.setSimhash(SimHash.fingerprint(document.getTitle(), document.getContent()));
+        }
+    }
+
+    /**
+     * 局部更新不含正文时不写指纹，保留已索引的值；只含正文时用已索引的标题一起计算
+     */
+    private void ensureSimhashForUpdate(DocumentIndex document) throws IOException {
+        if (document.getContent() == null) {
+            document.setSimhash(null);
+            return;
+        }
+        String title = document.getTitle();
+        if (title == null) {
+            title = getDocument(document.getId()).map(DocumentIndex::getTitle).orElse(null);
+        }
+        document.setSimhash(SimHash.fingerprint(title, document.getContent()));
+    }
+}
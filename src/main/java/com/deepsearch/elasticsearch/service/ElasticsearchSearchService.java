@@ -4,6 +4,10 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -65,29 +69,61 @@ public class ElasticsearchSearchService {
 
     public List<DocumentIndex> vectorSearch(String query, String spaceId, List<String> channels,
                                           int from, int size) throws IOException {
+        List<Float> queryVector;
         try {
             // Generate query vector
-            List<Float> queryVector = vectorProcessingEngine.generateEmbedding(query);
-            
+            queryVector = vectorProcessingEngine.generateEmbedding(query);
+        } catch (Exception e) {
+            logger.error("Failed to generate embedding for query: {}", query, e);
+            return keywordSearch(query, spaceId, channels, from, size);
+        }
+        return vectorSearch(query, queryVector, spaceId, channels, from, size);
+    }
+
+    /**
+     * Non-blocking variant: the query embedding is produced on the HTTP client's threads,
+     * so no caller thread waits on the embedding API; the kNN request then runs on the given executor.
+     * Like the blocking variant, a failed or timed-out embedding falls back to keyword search;
+     * cancellation is not swallowed and still fails the returned future
+     */
+    public CompletableFuture<List<DocumentIndex>> vectorSearchAsync(String query, String spaceId, List<String> channels,
+                                                                  int from, int size, Executor executor) {
+        return vectorProcessingEngine.generateEmbeddingAsync(query)
+            .exceptionally(error -> {
+                Throwable cause = error instanceof CompletionException && error.getCause() != null
+                    ? error.getCause() : error;
+                if (cause instanceof CancellationException cancellation) {
+                    throw cancellation;
+                }
+                logger.error("Failed to generate embedding for query: {}", query, cause);
+                return null;
+            })
+            .thenApplyAsync(vector -> {
+                List<Float> queryVector = new ArrayList<>(vector != null ? vector.length : 0);
+                if (vector != null) {
+                    for (float value : vector) {
+                        queryVector.add(value);
+                    }
+                }
+                try {
+                    return vectorSearch(query, queryVector, spaceId, channels, from, size);
+                } catch (IOException e) {
+                    throw new CompletionException(e);
+                }
+            }, executor);
+    }
+
+    private List<DocumentIndex> vectorSearch(String query, List<Float> queryVector, String spaceId,
+                                           List<String> channels, int from, int size) throws IOException {
+        try {
             if (queryVector == null || queryVector.isEmpty()) {
                 logger.warn("Failed to generate embedding vector, falling back to keyword search");
                 return keywordSearch(query, spaceId, channels, from, size);
             }
 
-            // Build KNN search request with filters
-            SearchRequest.Builder searchBuilder = new SearchRequest.Builder()
-                .index(indexConfig.getDocumentIndexName())
-                .knn(k -> k
-                    .field("content_vector")
-                    .queryVector(queryVector)
-                    .k(size + from)
-                    .numCandidates(Math.max(100, (size + from) * 3))
-                )
-                .from(from)
-                .size(size)
-                .source(src -> src.filter(f -> f.excludes("*_vector")));
-
-            // Add filters for space and channels
+            // Space and channel filters are applied inside the kNN traversal (pre-filter),
+            // so the top k hits all satisfy the filter instead of being trimmed afterwards
+            Query filterQuery = null;
             if ((spaceId != null && !spaceId.isEmpty()) || (channels != null && !channels.isEmpty())) {
                 BoolQuery.Builder boolBuilder = new BoolQuery.Builder();
                 
@@ -104,8 +140,26 @@ public class ElasticsearchSearchService {
                     )));
                 }
                 
-                searchBuilder.postFilter(boolBuilder.build()._toQuery());
+                filterQuery = boolBuilder.build()._toQuery();
             }
+            Query knnFilter = filterQuery;
+
+            // Build KNN search request with filters
+            SearchRequest.Builder searchBuilder = new SearchRequest.Builder()
+                .index(indexConfig.getDocumentIndexName())
+                .knn(k -> {
+                    k.field("content_vector")
+                        .queryVector(queryVector)
+                        .k(size + from)
+                        .numCandidates(Math.max(100, (size + from) * 3));
+                    if (knnFilter != null) {
+                        k.filter(knnFilter);
+                    }
+                    return k;
+                })
+                .from(from)
+                .size(size)
+                .source(src -> src.filter(f -> f.excludes("*_vector")));
 
             SearchResponse<DocumentIndex> response = elasticsearchClient.search(searchBuilder.build(), DocumentIndex.class);
             List<DocumentIndex> results = extractDocumentsFromResponse(response);
@@ -1,5 +1,6 @@
 package com.deepsearch.entity;
 
+import com.deepsearch.service.DocumentAttributeListener;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
@@ -14,6 +15,7 @@ import java.time.LocalDateTime;
  */
 @Entity
 @Table(name = "documents")
+@EntityListeners(DocumentAttributeListener.class)
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
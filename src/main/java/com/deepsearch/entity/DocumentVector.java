@@ -1,5 +1,8 @@
 package com.deepsearch.entity;
 
+import com.deepsearch.service.DocumentVectorIndexListener;
+import com.deepsearch.vector.util.Float32VectorConverter;
+import com.deepsearch.vector.util.SimilarityKernels;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
@@ -11,6 +14,7 @@ import org.hibernate.type.SqlTypes;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -24,6 +28,7 @@ import java.util.List;
     @Index(name = "idx_quality_score", columnList = "quality_score"),
     @Index(name = "idx_created_at", columnList = "created_at")
 })
+@EntityListeners(DocumentVectorIndexListener.class)
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -47,6 +52,19 @@ public class DocumentVector {
     @Column(name = "vector_data", nullable = false, columnDefinition = "JSON")
     private List<Double> vectorData;
 
+    /**
+     * 归一化前的L2范数，写入时向量数据被缩放为单位向量；为空表示尚未归一化的历史数据
+     */
+    @Column(name = "vector_norm")
+    private Double vectorNorm;
+
+    /**
+     * 向量数据的小端 float32 二进制副本，与 vector_data 双写；为空表示尚未回填的历史数据
+     */
+    @Convert(converter = Float32VectorConverter.class)
+    @Column(name = "vector_blob", columnDefinition = "MEDIUMBLOB")
+    private float[] vectorBlob;
+
     @Column(name = "model_name", nullable = false, length = 100)
     private String modelName;
 
@@ -105,9 +123,84 @@ public class DocumentVector {
     }
 
     /**
-     * 获取向量的L2范数
+     * 替换向量数据，已持久化的范数和二进制副本随之失效，下次写入时重新生成
+     */
+    public void setVectorData(List<Double> vectorData) {
+        this.vectorData = vectorData;
+        this.vectorNorm = null;
+        this.vectorBlob = null;
+    }
+
+    /**
+     * 写入前将向量归一化为单位向量，记录原始L2范数，并同步二进制副本
+     */
+    @PrePersist
+    @PreUpdate
+    public void normalizeVectorData() {
+        normalize();
+        if (vectorBlob == null && vectorData != null && !vectorData.isEmpty()) {
+            this.vectorBlob = SimilarityKernels.toFloatArray(vectorData);
+        }
+    }
+
+    private void normalize() {
+        if (vectorNorm != null || vectorData == null || vectorData.isEmpty()) {
+            return;
+        }
+        float[] data = SimilarityKernels.toFloatArray(vectorData);
+        if (data == null) {
+            return;
+        }
+        double norm = Math.sqrt(SimilarityKernels.squaredNorm(data));
+        if (norm == 0.0 || Double.isNaN(norm) || Double.isInfinite(norm)) {
+            return;
+        }
+        List<Double> normalized = new ArrayList<>(data.length);
+        for (Double value : vectorData) {
+            normalized.add(value / norm);
+        }
+        this.vectorData = normalized;
+        this.vectorNorm = norm;
+        this.vectorBlob = null;
+    }
+
+    /**
+     * 向量数据是否已归一化为单位向量
+     */
+    public boolean isNormalized() {
+        return vectorNorm != null;
+    }
+
+    /**
+     * 转换为 float[]，有二进制副本时直接复制，数据无效时返回 null
+     *
+     * @param restoreScale 为 true 时把已归一化的数据乘回原始范数，用于点积、欧氏距离等依赖长度的算法
+     */
+    public float[] toFloatArray(boolean restoreScale) {
+        float[] data;
+        if (vectorBlob != null && vectorBlob.length > 0) {
+            data = vectorBlob.clone();
+        } else if (vectorData == null || vectorData.isEmpty()) {
+            return null;
+        } else {
+            data = SimilarityKernels.toFloatArray(vectorData);
+        }
+        if (data != null && restoreScale && vectorNorm != null) {
+            float scale = vectorNorm.floatValue();
+            for (int i = 0; i < data.length; i++) {
+                data[i] *= scale;
+            }
+        }
+        return data;
+    }
+
+    /**
+     * 获取向量的L2范数（已归一化的数据返回归一化前的范数）
      */
     public double getVectorNorm() {
+        if (vectorNorm != null) {
+            return vectorNorm;
+        }
         if (vectorData == null || vectorData.isEmpty()) {
             return 0.0;
         }
@@ -118,7 +211,7 @@ public class DocumentVector {
     }
 
     /**
-     * 计算与另一个向量的余弦相似度
+     * 计算与另一个向量的余弦相似度，两者都已归一化时只需一次点积
      */
     public double calculateCosineSimilarity(DocumentVector other) {
         if (other == null || other.vectorData == null || this.vectorData == null ||
@@ -126,6 +219,14 @@ public class DocumentVector {
             return 0.0;
         }
 
+        if (this.isNormalized() && other.isNormalized()) {
+            double dotProduct = 0.0;
+            for (int i = 0; i < vectorData.size(); i++) {
+                dotProduct += vectorData.get(i) * other.vectorData.get(i);
+            }
+            return dotProduct;
+        }
+
         double dotProduct = 0.0;
         double normA = 0.0;
         double normB = 0.0;
@@ -91,4 +91,12 @@ public interface DocumentRepository extends JpaRepository<Document, Long> {
      * 检查用户是否拥有指定标题的文档
      */
     Boolean existsByUserIdAndTitle(Long userId, String title);
+
+    /**
+     * 查询全部文档的ID和状态，用于构建属性位图索引
+     *
+     * @return 每行依次为 id、status
+     */
+    @Query("SELECT d.id, d.status FROM Document d")
+    List<Object[]> findAllIdAndStatus();
 }
\ No newline at end of file
@@ -11,14 +11,15 @@ import org.springframework.stereotype.Repository;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 /**
- * 文档向量数据访问层
+ * 文档向量数据访问层，批量删除见 {@link DocumentVectorRepositoryCustom}
  */
 @Repository
-public interface DocumentVectorRepository extends JpaRepository<DocumentVector, Long> {
+public interface DocumentVectorRepository extends JpaRepository<DocumentVector, Long>, DocumentVectorRepositoryCustom {
 
     /**
      * 根据文档ID查找向量
@@ -103,27 +104,6 @@ public interface DocumentVectorRepository extends JpaRepository<DocumentVector,
      */
     Boolean existsByDocumentIdAndModelNameAndChunkIndex(Long documentId, String modelName, Integer chunkIndex);
 
-    /**
-     * 删除文档的所有向量
-     */
-    @Modifying
-    @Query("DELETE FROM DocumentVector dv WHERE dv.documentId = :documentId")
-    void deleteByDocumentId(@Param("documentId") Long documentId);
-
-    /**
-     * 删除指定模型的所有向量
-     */
-    @Modifying
-    @Query("DELETE FROM DocumentVector dv WHERE dv.modelName = :modelName")
-    void deleteByModelName(@Param("modelName") String modelName);
-
-    /**
-     * 删除文档的指定模型向量
-     */
-    @Modifying
-    @Query("DELETE FROM DocumentVector dv WHERE dv.documentId = :documentId AND dv.modelName = :modelName")
-    void deleteByDocumentIdAndModelName(@Param("documentId") Long documentId, @Param("modelName") String modelName);
-
     /**
      * 查找最近创建的向量
      */
@@ -188,6 +168,78 @@ public interface DocumentVectorRepository extends JpaRepository<DocumentVector,
     @Query("SELECT dv FROM DocumentVector dv WHERE dv.documentId IN :documentIds")
     List<DocumentVector> findByDocumentIdIn(@Param("documentIds") List<Long> documentIds);
 
+    /**
+     * 批量读取文档向量的原始列（document_id, vector_data JSON文本, vector_norm, vector_blob），
+     * 不构造实体，同一文档按向量ID升序返回；已有二进制副本的行不再取回 JSON 文本
+     */
+    @Query(value = "SELECT dv.document_id, CASE WHEN dv.vector_blob IS NULL THEN dv.vector_data END, " +
+                   "dv.vector_norm, dv.vector_blob FROM document_vectors dv " +
+                   "WHERE dv.document_id IN (:documentIds) ORDER BY dv.document_id, dv.id",
+           nativeQuery = true)
+    List<Object[]> findVectorRowsByDocumentIdIn(@Param("documentIds") Collection<Long> documentIds);
+
+    /**
+     * 批量读取文档全部分块向量的原始列（document_id, id, vector_data JSON文本, vector_norm, vector_blob），
+     * 同一文档的分块连续返回；已有二进制副本的行不再取回 JSON 文本
+     */
+    @Query(value = "SELECT dv.document_id, dv.id, CASE WHEN dv.vector_blob IS NULL THEN dv.vector_data END, " +
+                   "dv.vector_norm, dv.vector_blob FROM document_vectors dv " +
+                   "WHERE dv.document_id IN (:documentIds) ORDER BY dv.document_id, dv.chunk_index, dv.id",
+           nativeQuery = true)
+    List<Object[]> findChunkRowsByDocumentIdIn(@Param("documentIds") Collection<Long> documentIds);
+
+    /**
+     * 按向量ID读取分块文本（id, chunk_index, chunk_text），用于返回命中分块的摘要
+     */
+    @Query(value = "SELECT dv.id, dv.chunk_index, dv.chunk_text FROM document_vectors dv WHERE dv.id IN (:ids)",
+           nativeQuery = true)
+    List<Object[]> findChunkTextsByIdIn(@Param("ids") Collection<Long> ids);
+
+    /**
+     * 按ID游标分页查找尚未归一化或尚未写入二进制副本的向量
+     */
+    @Query("SELECT dv FROM DocumentVector dv WHERE (dv.vectorNorm IS NULL OR dv.vectorBlob IS NULL) " +
+           "AND dv.id > :afterId ORDER BY dv.id")
+    List<DocumentVector> findBackfillPendingAfter(@Param("afterId") Long afterId, Pageable pageable);
+
+    /**
+     * 统计尚未归一化或尚未写入二进制副本的向量数量
+     */
+    @Query("SELECT COUNT(dv) FROM DocumentVector dv WHERE dv.vectorNorm IS NULL OR dv.vectorBlob IS NULL")
+    Long countBackfillPending();
+
+    /**
+     * 最近一次向量写入的更新时间，作为索引快照的水位
+     */
+    @Query("SELECT MAX(dv.updatedAt) FROM DocumentVector dv")
+    LocalDateTime findMaxUpdatedAt();
+
+    /**
+     * 按向量ID游标分页读取分块向量的原始列（document_id, id, vector_data JSON文本, vector_norm, vector_blob），
+     * 用于全量遍历，不构造实体；已有二进制副本的行不再取回 JSON 文本
+     */
+    @Query(value = "SELECT dv.document_id, dv.id, CASE WHEN dv.vector_blob IS NULL THEN dv.vector_data END, " +
+                   "dv.vector_norm, dv.vector_blob FROM document_vectors dv " +
+                   "WHERE dv.id > :afterId ORDER BY dv.id",
+           nativeQuery = true)
+    List<Object[]> findChunkRowsAfter(@Param("afterId") long afterId, Pageable pageable);
+
+    /**
+     * 按向量ID游标分页读取水位之后更新的分块向量原始列（列同 findChunkRowsAfter），用于快照加载后的增量重放
+     */
+    @Query(value = "SELECT dv.document_id, dv.id, CASE WHEN dv.vector_blob IS NULL THEN dv.vector_data END, " +
+                   "dv.vector_norm, dv.vector_blob FROM document_vectors dv " +
+                   "WHERE dv.updated_at > :since AND dv.id > :afterId ORDER BY dv.id",
+           nativeQuery = true)
+    List<Object[]> findChunkRowsUpdatedAfter(@Param("since") LocalDateTime since, @Param("afterId") long afterId,
+                                             Pageable pageable);
+
+    /**
+     * 查询全部向量ID，用于剔除快照中已被删除的向量
+     */
+    @Query("SELECT dv.id FROM DocumentVector dv")
+    List<Long> findAllIds();
+
     /**
      * 查找指定时间段内的向量统计
      */
@@ -204,14 +256,6 @@ public interface DocumentVectorRepository extends JpaRepository<DocumentVector,
            "(SELECT 1 FROM Document d WHERE d.id = dv.documentId)")
     List<DocumentVector> findOrphanVectors();
 
-    /**
-     * 清理孤儿向量
-     */
-    @Modifying
-    @Query("DELETE FROM DocumentVector dv WHERE NOT EXISTS " +
-           "(SELECT 1 FROM Document d WHERE d.id = dv.documentId)")
-    int deleteOrphanVectors();
-
     /**
      * 批量更新向量的质量评分
      */
@@ -0,0 +1,42 @@
+package com.deepsearch.repository;
+
+import java.util.List;
+
+import com.deepsearch.entity.DocumentVector;
+
+/**
+ * 文档向量批量写入 - 批量语句不会触发实体回调，
+ * 删除由实现在事务提交后发布到向量变更流，保证内存索引和向量存储同步
+ */
+public interface DocumentVectorRepositoryCustom {
+
+    /**
+     * 删除文档的所有向量
+     */
+    void deleteByDocumentId(Long documentId);
+
+    /**
+     * 删除指定模型的所有向量
+     */
+    void deleteByModelName(String modelName);
+
+    /**
+     * 删除文档的指定模型向量
+     */
+    void deleteByDocumentIdAndModelName(Long documentId, String modelName);
+
+    /**
+     * 清理孤儿向量
+     *
+     * @return 删除的向量数
+     */
+    int deleteOrphanVectors();
+
+    /**
+     * 只更新向量数据、范数和二进制副本这些派生列，用于历史数据回填。
+     * 向量本身不变，因此不触发实体回调、不更新 updated_at，也不发布变更
+     *
+     * @return 更新的行数
+     */
+    int updateDerivedColumns(List<DocumentVector> vectors);
+}
@@ -0,0 +1,98 @@
+package com.deepsearch.repository;
+
+import java.util.List;
+
+import org.springframework.context.annotation.Lazy;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.deepsearch.entity.DocumentVector;
+import com.deepsearch.service.TransactionCallbacks;
+import com.deepsearch.service.VectorChangeFeed;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+
+/**
+ * 文档向量批量写入实现：删除时先查出要删除的ID再按ID删除，提交后发布的墓碑与实际删除的行一致
+ */
+public class DocumentVectorRepositoryCustomImpl implements DocumentVectorRepositoryCustom {
+
+    // 按ID删除时每条语句的ID数
+    private static final int DELETE_BATCH_SIZE = 1000;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private final VectorChangeFeed vectorChangeFeed;
+
+    public DocumentVectorRepositoryCustomImpl(@Lazy VectorChangeFeed vectorChangeFeed) {
+        this.vectorChangeFeed = vectorChangeFeed;
+    }
+
+    @Override
+    @Transactional
+    public void deleteByDocumentId(Long documentId) {
+        entityManager.createQuery("DELETE FROM DocumentVector dv WHERE dv.documentId = :documentId")
+            .setParameter("documentId", documentId)
+            .executeUpdate();
+        TransactionCallbacks.afterCommit(() -> vectorChangeFeed.publishDocumentDelete(documentId));
+    }
+
+    @Override
+    @Transactional
+    public void deleteByModelName(String modelName) {
+        deleteByIds(entityManager.createQuery(
+                "SELECT dv.id FROM DocumentVector dv WHERE dv.modelName = :modelName", Long.class)
+            .setParameter("modelName", modelName)
+            .getResultList());
+    }
+
+    @Override
+    @Transactional
+    public void deleteByDocumentIdAndModelName(Long documentId, String modelName) {
+        deleteByIds(entityManager.createQuery(
+                "SELECT dv.id FROM DocumentVector dv WHERE dv.documentId = :documentId AND dv.modelName = :modelName",
+                Long.class)
+            .setParameter("documentId", documentId)
+            .setParameter("modelName", modelName)
+            .getResultList());
+    }
+
+    @Override
+    @Transactional
+    public int deleteOrphanVectors() {
+        return deleteByIds(entityManager.createQuery(
+                "SELECT dv.id FROM DocumentVector dv WHERE NOT EXISTS " +
+                "(SELECT 1 FROM Document d WHERE d.id = dv.documentId)", Long.class)
+            .getResultList());
+    }
+
+    @Override
+    @Transactional
+    public int updateDerivedColumns(List<DocumentVector> vectors) {
+        int updated = 0;
+        for (DocumentVector docVector : vectors) {
+            updated += entityManager.createQuery("UPDATE DocumentVector dv SET dv.vectorData = :vectorData, " +
+                    "dv.vectorNorm = :vectorNorm, dv.vectorBlob = :vectorBlob WHERE dv.id = :id")
+                .setParameter("vectorData", docVector.getVectorData())
+                .setParameter("vectorNorm", docVector.isNormalized() ? docVector.getVectorNorm() : null)
+                .setParameter("vectorBlob", docVector.getVectorBlob())
+                .setParameter("id", docVector.getId())
+                .executeUpdate();
+        }
+        return updated;
+    }
+
+    private int deleteByIds(List<Long> vectorIds) {
+        if (vectorIds.isEmpty()) {
+            return 0;
+        }
+        for (int start = 0; start < vectorIds.size(); start += DELETE_BATCH_SIZE) {
+            entityManager.createQuery("DELETE FROM DocumentVector dv WHERE dv.id IN :ids")
+                .setParameter("ids", vectorIds.subList(start, Math.min(start + DELETE_BATCH_SIZE, vectorIds.size())))
+                .executeUpdate();
+        }
+        TransactionCallbacks.afterCommit(() -> vectorIds.forEach(vectorChangeFeed::publishDelete));
+        return vectorIds.size();
+    }
+}
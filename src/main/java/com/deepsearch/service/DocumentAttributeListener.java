@@ -0,0 +1,47 @@
+package com.deepsearch.service;
+
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Component;
+
+import com.deepsearch.entity.Document;
+import com.deepsearch.vector.index.AttributeBitmapIndex.Attribute;
+
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+
+/**
+ * 文档实体监听器 - 文档保存或删除后同步更新属性位图索引中的状态
+ * 文档删除时数据库级联删除其向量，不会触发向量实体回调，因此在这里发布文档级删除
+ * 存在事务时延迟到提交后执行，避免回滚的数据进入索引
+ */
+@Component
+public class DocumentAttributeListener {
+
+    private final VectorIndexService vectorIndexService;
+    private final VectorChangeFeed vectorChangeFeed;
+
+    public DocumentAttributeListener(@Lazy VectorIndexService vectorIndexService,
+                                     @Lazy VectorChangeFeed vectorChangeFeed) {
+        this.vectorIndexService = vectorIndexService;
+        this.vectorChangeFeed = vectorChangeFeed;
+    }
+
+    @PostPersist
+    @PostUpdate
+    public void onSaved(Document document) {
+        Long documentId = document.getId();
+        String status = document.getStatus() != null ? document.getStatus().name() : null;
+        TransactionCallbacks.afterCommit(() ->
+            vectorIndexService.updateDocumentAttribute(documentId, Attribute.STATUS, status));
+    }
+
+    @PostRemove
+    public void onRemoved(Document document) {
+        Long documentId = document.getId();
+        TransactionCallbacks.afterCommit(() -> {
+            vectorIndexService.removeDocumentAttributes(documentId);
+            vectorChangeFeed.publishDocumentDelete(documentId);
+        });
+    }
+}
@@ -0,0 +1,36 @@
+package com.deepsearch.service;
+
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Component;
+
+import com.deepsearch.entity.DocumentVector;
+
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+
+/**
+ * 文档向量实体监听器 - 向量保存或删除后发布到向量变更流，由变更流异步更新内存索引
+ * 存在事务时延迟到提交后执行，避免回滚的数据进入索引
+ */
+@Component
+public class DocumentVectorIndexListener {
+
+    private final VectorChangeFeed vectorChangeFeed;
+
+    public DocumentVectorIndexListener(@Lazy VectorChangeFeed vectorChangeFeed) {
+        this.vectorChangeFeed = vectorChangeFeed;
+    }
+
+    @PostPersist
+    @PostUpdate
+    public void onSaved(DocumentVector docVector) {
+        TransactionCallbacks.afterCommit(() -> vectorChangeFeed.publishUpsert(docVector));
+    }
+
+    @PostRemove
+    public void onRemoved(DocumentVector docVector) {
+        Long vectorId = docVector.getId();
+        TransactionCallbacks.afterCommit(() -> vectorChangeFeed.publishDelete(vectorId));
+    }
+}
@@ -4,13 +4,13 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
-import java.util.stream.Collectors;
 
 import org.springframework.stereotype.Service;
 
@@ -18,6 +18,7 @@ import com.deepsearch.elasticsearch.dto.DocumentIndex;
 import com.deepsearch.elasticsearch.dto.SearchRequest;
 import com.deepsearch.elasticsearch.dto.SearchResult;
 import com.deepsearch.elasticsearch.service.ElasticsearchSearchService;
+import com.deepsearch.vector.util.TopKSelector;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -78,8 +79,9 @@ public class HybridSearchService {
             CompletableFuture<List<DocumentIndex>> keywordResults =
                 CompletableFuture.supplyAsync(() -> performKeywordSearch(searchRequest, expandedQueries), searchExecutor);
 
+            // 语义检索的查询向量化是异步的，等待嵌入API期间不占用检索线程
             CompletableFuture<List<DocumentIndex>> semanticResults =
-                CompletableFuture.supplyAsync(() -> performSemanticSearch(searchRequest, expandedQueries), searchExecutor);
+                performSemanticSearch(searchRequest, expandedQueries);
 
             // 4. 等待两个搜索完成并获取结果
             List<DocumentIndex> keywordDocs = keywordResults.join();
@@ -87,10 +89,11 @@ public class HybridSearchService {
 
             log.info("并行搜索完成: 关键词结果={}, 语义结果={}", keywordDocs.size(), semanticDocs.size());
 
-            // 5. 合并和重排序结果
+            // 5. 合并和重排序结果，只选出当前页及之前的 Top-K；总数为两路去重后的文档数
             SearchWeights weights = buildSearchWeights(searchRequest);
             List<DocumentIndex> mergedResults = relevanceService.mergeAndRank(
-                keywordDocs, semanticDocs, weights);
+                keywordDocs, semanticDocs, weights, searchRequest.getFrom() + searchRequest.getSize());
+            int totalResults = countDistinctDocuments(keywordDocs, semanticDocs);
 
             // 6. 应用分页
             List<DocumentIndex> pagedResults = applyPagination(mergedResults, searchRequest);
@@ -101,7 +104,7 @@ public class HybridSearchService {
             SearchResult result = new SearchResult(
                 originalQuery,
                 pagedResults,
-                mergedResults.size(),
+                totalResults,
                 searchRequest.getFrom() / searchRequest.getSize(),
                 searchRequest.getSize(),
                 responseTime,
@@ -112,7 +115,7 @@ public class HybridSearchService {
             result.setExpandedQueries(new ArrayList<>(expandedQueries));
             result.setQueryType(expansionResult.getQueryType().toString());
 
-            log.info("混合搜索完成: 总结果={}, 响应时间={}ms", mergedResults.size(), responseTime);
+            log.info("混合搜索完成: 总结果={}, 响应时间={}ms", totalResults, responseTime);
             return result;
 
         } catch (Exception e) {
@@ -166,34 +169,35 @@ public class HybridSearchService {
     }
 
     /**
-     * 执行语义搜索（支持查询扩展）
+     * 执行语义搜索（支持查询扩展），查询向量生成后在检索线程池上执行kNN检索
      */
-    private List<DocumentIndex> performSemanticSearch(SearchRequest searchRequest, Set<String> expandedQueries) {
-        try {
-            log.debug("执行语义搜索: 原始查询={}, 扩展查询数={}", 
-                     searchRequest.getQuery(), expandedQueries.size());
+    private CompletableFuture<List<DocumentIndex>> performSemanticSearch(SearchRequest searchRequest,
+                                                                       Set<String> expandedQueries) {
+        log.debug("执行语义搜索: 原始查询={}, 扩展查询数={}",
+                 searchRequest.getQuery(), expandedQueries.size());
 
-            List<DocumentIndex> allResults = new ArrayList<>();
+        // 对主要查询词执行语义搜索
+        String primaryQuery = buildCombinedQuery(expandedQueries, searchRequest.getQuery());
 
-            // 对主要查询词执行语义搜索
-            String primaryQuery = buildCombinedQuery(expandedQueries, searchRequest.getQuery());
-            
-            List<DocumentIndex> results = elasticsearchService.vectorSearch(
+        CompletableFuture<List<DocumentIndex>> results;
+        try {
+            results = elasticsearchService.vectorSearchAsync(
                 primaryQuery,
                 searchRequest.getSpaceId(),
                 searchRequest.getChannels(),
                 0,
-                Math.max(100, searchRequest.getSize() * 3)
+                Math.max(100, searchRequest.getSize() * 3),
+                searchExecutor
             );
-            
-            allResults.addAll(results);
-
-            return deduplicateAndSort(allResults);
-
-        } catch (IOException e) {
-            log.warn("语义搜索失败: {}", e.getMessage());
-            return Collections.emptyList();
+        } catch (Exception e) {
+            results = CompletableFuture.failedFuture(e);
         }
+        return results
+            .thenApply(docs -> deduplicateAndSort(new ArrayList<>(docs)))
+            .exceptionally(e -> {
+                log.warn("语义搜索失败: {}", e.getMessage());
+                return Collections.emptyList();
+            });
     }
 
     /**
@@ -245,11 +249,28 @@ public class HybridSearchService {
             }
         }
         
-        // 按评分降序排序
-        return uniqueResults.values()
-            .stream()
-            .sorted((a, b) -> Float.compare(b.getScore(), a.getScore()))
-            .collect(Collectors.toList());
+        // 按评分降序排序：结果位置会参与合并评分，需要完整顺序
+        List<DocumentIndex> candidates = new ArrayList<>(uniqueResults.values());
+        float[] scores = new float[candidates.size()];
+        for (int i = 0; i < scores.length; i++) {
+            Float score = candidates.get(i).getScore();
+            scores[i] = score == null || score.isNaN() ? Float.NEGATIVE_INFINITY : score;
+        }
+        List<DocumentIndex> sorted = new ArrayList<>(scores.length);
+        for (int index : TopKSelector.select(scores, scores.length)) {
+            sorted.add(candidates.get(index));
+        }
+        return sorted;
+    }
+
+    /**
+     * 两路结果按文档ID去重后的数量，即合并结果的总数
+     */
+    private int countDistinctDocuments(List<DocumentIndex> keywordDocs, List<DocumentIndex> semanticDocs) {
+        Set<String> documentIds = new HashSet<>();
+        keywordDocs.forEach(doc -> documentIds.add(doc.getId()));
+        semanticDocs.forEach(doc -> documentIds.add(doc.getId()));
+        return documentIds.size();
     }
 
     /**
@@ -1,6 +1,8 @@
 package com.deepsearch.service;
 
 import com.deepsearch.elasticsearch.dto.DocumentIndex;
+import com.deepsearch.vector.util.SimHash;
+import com.deepsearch.vector.util.TopKSelector;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
@@ -8,7 +10,6 @@ import org.springframework.stereotype.Service;
 import java.time.LocalDateTime;
 import java.time.temporal.ChronoUnit;
 import java.util.*;
-import java.util.stream.Collectors;
 
 /**
  * 搜索相关性服务 - 实现多维度评分模型和结果合并算法
@@ -28,6 +29,9 @@ public class SearchRelevanceService {
     // 时间衰减参数
     private static final long FRESHNESS_DECAY_DAYS = 365;
 
+    // SimHash 指纹海明距离不超过该值视为近似重复，不能超过分段数减一
+    private static final int NEAR_DUPLICATE_DISTANCE = 3;
+
     /**
      * 合并并重排序搜索结果
      *
@@ -39,6 +43,18 @@ public class SearchRelevanceService {
     public List<DocumentIndex> mergeAndRank(List<DocumentIndex> keywordResults,
                                           List<DocumentIndex> semanticResults,
                                           HybridSearchService.SearchWeights weights) {
+        return mergeAndRank(keywordResults, semanticResults, weights, Integer.MAX_VALUE);
+    }
+
+    /**
+     * 合并并重排序搜索结果，只返回得分最高的 limit 条
+     *
+     * @param limit 返回结果数上限，排序代价为 O(n log limit)
+     */
+    public List<DocumentIndex> mergeAndRank(List<DocumentIndex> keywordResults,
+                                          List<DocumentIndex> semanticResults,
+                                          HybridSearchService.SearchWeights weights,
+                                          int limit) {
 
         log.debug("开始合并搜索结果: 关键词={}, 语义={}", keywordResults.size(), semanticResults.size());
 
@@ -73,11 +89,18 @@ public class SearchRelevanceService {
             docScore.setFinalScore(relevanceScore);
         }
 
-        // 5. 按照最终分数排序并返回文档列表
-        List<DocumentIndex> rankedResults = documentScores.values().stream()
-            .sorted((a, b) -> Float.compare(b.getFinalScore(), a.getFinalScore()))
-            .map(DocumentScore::getDocument)
-            .collect(Collectors.toList());
+        // 5. 按照最终分数选出Top-K并返回文档列表
+        List<DocumentScore> candidates = new ArrayList<>(documentScores.values());
+        float[] finalScores = new float[candidates.size()];
+        for (int i = 0; i < finalScores.length; i++) {
+            float finalScore = candidates.get(i).getFinalScore();
+            finalScores[i] = Float.isNaN(finalScore) ? Float.NEGATIVE_INFINITY : finalScore;
+        }
+        int[] order = TopKSelector.select(finalScores, Math.min(limit, finalScores.length));
+        List<DocumentIndex> rankedResults = new ArrayList<>(order.length);
+        for (int index : order) {
+            rankedResults.add(candidates.get(index).getDocument());
+        }
 
         log.debug("搜索结果合并完成: 总结果={}", rankedResults.size());
         return rankedResults;
@@ -218,31 +241,37 @@ public class SearchRelevanceService {
 
     /**
      * 去重并合并相似文档
-     * 基于内容相似性去除重复文档
+     * 按ID去重，再用标题和正文的 SimHash 指纹去除近似重复：指纹按 16 位分段建表，
+     * 海明距离不超过阈值的指纹必有一个分段相同，每个文档只需检查同段的少量指纹，总代价 O(n)
      */
     public List<DocumentIndex> deduplicateResults(List<DocumentIndex> results) {
         Map<String, DocumentIndex> uniqueDocuments = new LinkedHashMap<>();
-        Set<String> seenTitles = new HashSet<>();
+        Map<Integer, List<Long>> bands = new HashMap<>();
 
         for (DocumentIndex doc : results) {
             String docId = doc.getId();
-            String title = doc.getTitle();
 
             // 基于ID去重
             if (uniqueDocuments.containsKey(docId)) {
                 continue;
             }
 
-            // 基于标题相似性去重
-            if (title != null && isNearDuplicateTitle(title, seenTitles)) {
-                log.debug("发现近似重复标题，跳过文档: {}", title);
-                continue;
+            // 基于内容指纹去重，没有文本的文档不参与
+            long fingerprint = doc.getSimhash() != null
+                ? doc.getSimhash()
+                : SimHash.fingerprint(doc.getTitle(), doc.getContent());
+            if (fingerprint != SimHash.EMPTY) {
+                if (isNearDuplicate(fingerprint, bands)) {
+                    log.debug("发现近似重复文档，跳过文档: {}", doc.getTitle());
+                    continue;
+                }
+                for (int band = 0; band < SimHash.BANDS; band++) {
+                    bands.computeIfAbsent(SimHash.bandKey(fingerprint, band), key -> new ArrayList<>(1))
+                        .add(fingerprint);
+                }
             }
 
             uniqueDocuments.put(docId, doc);
-            if (title != null) {
-                seenTitles.add(title.toLowerCase().trim());
-            }
         }
 
         log.debug("去重完成: 原始={}, 去重后={}", results.size(), uniqueDocuments.size());
@@ -250,39 +279,23 @@ public class SearchRelevanceService {
     }
 
     /**
-     * 检查标题是否为近似重复
+     * 检查指纹是否与已保留的文档近似重复
      */
-    private boolean isNearDuplicateTitle(String title, Set<String> seenTitles) {
-        String normalizedTitle = title.toLowerCase().trim();
-
-        for (String seenTitle : seenTitles) {
-            if (calculateStringSimilarity(normalizedTitle, seenTitle) > 0.8) {
-                return true;
+    private boolean isNearDuplicate(long fingerprint, Map<Integer, List<Long>> bands) {
+        for (int band = 0; band < SimHash.BANDS; band++) {
+            List<Long> candidates = bands.get(SimHash.bandKey(fingerprint, band));
+            if (candidates == null) {
+                continue;
+            }
+            for (long candidate : candidates) {
+                if (SimHash.distance(fingerprint, candidate) <= NEAR_DUPLICATE_DISTANCE) {
+                    return true;
+                }
             }
         }
         return false;
     }
 
-    /**
-     * 计算字符串相似度 (简单的Jaccard相似度)
-     */
-    private double calculateStringSimilarity(String str1, String str2) {
-        Set<String> words1 = new HashSet<>(Arrays.asList(str1.split("\\s+")));
-        Set<String> words2 = new HashSet<>(Arrays.asList(str2.split("\\s+")));
-
-        Set<String> intersection = new HashSet<>(words1);
-        intersection.retainAll(words2);
-
-        Set<String> union = new HashSet<>(words1);
-        union.addAll(words2);
-
-        if (union.isEmpty()) {
-            return 0.0;
-        }
-
-        return (double) intersection.size() / union.size();
-    }
-
     /**
      * 文档评分内部类
      */
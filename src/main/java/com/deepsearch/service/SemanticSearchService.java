@@ -21,7 +21,10 @@ import com.deepsearch.elasticsearch.dto.DocumentIndex;
 import com.deepsearch.elasticsearch.service.ElasticsearchSearchService;
 import com.deepsearch.entity.Document;
 import com.deepsearch.repository.DocumentRepository;
+import com.deepsearch.vector.index.AttributeBitmapIndex;
+import com.deepsearch.vector.index.ChunkAggregator;
 import com.deepsearch.vector.service.VectorProcessingEngine;
+import com.deepsearch.vector.util.SimilarityKernels;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -40,6 +43,9 @@ public class SemanticSearchService {
     private final ElasticsearchSearchService elasticsearchSearchService;
     private final DocumentRepository documentRepository;
 
+    private static final AttributeBitmapIndex.Filter INDEXED_FILTER =
+        new AttributeBitmapIndex.Filter(null, null, List.of(Document.Status.INDEXED.name()));
+
     @Value("${semantic.search.similarity.threshold:0.7}")
     private double similarityThreshold;
 
@@ -52,6 +58,17 @@ public class SemanticSearchService {
     @Value("${semantic.search.top.k:100}")
     private int defaultTopK;
 
+    // 扩展查询批量向量化后与原查询在同一次向量扫描中打分；多查询走精确扫描，不经过HNSW和结果缓存，默认关闭
+    @Value("${semantic.search.multi-query.enabled:false}")
+    private boolean multiQueryEnabled;
+
+    @Value("${semantic.search.multi-query.combination:MAX}")
+    private ChunkAggregator.Combination multiQueryCombination;
+
+    // 扩展查询相对原查询的权重
+    @Value("${semantic.search.multi-query.expansion-weight:0.8}")
+    private float expansionWeight;
+
     /**
      * 执行语义搜索
      */
@@ -72,9 +89,10 @@ public class SemanticSearchService {
             // 3. 场景关联查询
             SceneContext sceneContext = inferSearchScene(query, context);
 
-            // 4. 执行向量相似度搜索 - 使用VectorSimilarityService
-            List<VectorSearchResult> vectorResults = performVectorSimilaritySearch(
-                queryVector, sceneContext, defaultTopK);
+            // 4. 执行向量相似度搜索 - 使用VectorSimilarityService，有扩展查询时多查询一次扫描
+            List<VectorSearchResult> vectorResults = multiQueryEnabled && expandedQueries.size() > 1
+                ? performMultiQuerySearch(query, queryVector, expandedQueries, defaultTopK)
+                : performVectorSimilaritySearch(queryVector, sceneContext, defaultTopK);
 
             // 5. 语义重排序
             List<DocumentResponseDto> rankedResults = semanticRanking(
@@ -208,57 +226,127 @@ public class SemanticSearchService {
     }
 
     /**
-     * 执行向量相似度搜索 - 使用VectorSimilarityService
+     * 执行向量相似度搜索 - 使用VectorSimilarityService，检索前按属性位图只保留已索引的文档，
+     * 未索引的文档不会占用 topK 名额
      */
     private List<VectorSearchResult> performVectorSimilaritySearch(
             List<Float> queryVector, SceneContext sceneContext, int topK) {
 
         try {
-            // 使用VectorSimilarityService进行高效的相似度计算
+            // 使用VectorSimilarityService进行高效的相似度计算，查询向量只转换一次
             List<VectorSimilarityService.SimilarityResult> similarityResults = 
-                vectorSimilarityService.batchSimilaritySearch(
-                    queryVector, 
+                vectorSimilarityService.searchSimilar(
+                    SimilarityKernels.toFloatArray(queryVector), 
                     topK, 
                     VectorSimilarityService.SimilarityAlgorithm.COSINE, 
-                    similarityThreshold
+                    similarityThreshold,
+                    INDEXED_FILTER
                 );
 
-            // 转换为VectorSearchResult
-            List<VectorSearchResult> results = new ArrayList<>();
-            for (VectorSimilarityService.SimilarityResult simResult : similarityResults) {
-                try {
-                    Optional<Document> documentOpt = documentRepository.findById(simResult.getDocumentId());
-                    
-                    if (documentOpt.isPresent()) {
-                        Document document = documentOpt.get();
-                        
-                        if (document.getStatus() == Document.Status.INDEXED) {
-                            VectorSearchResult result = new VectorSearchResult();
-                            result.setDocument(new DocumentResponseDto(document));
-                            result.setSimilarityScore(simResult.getSimilarity());
-                            result.setVectorScore(simResult.getSimilarity());
-                            
-                            // 添加算法元数据
-                            result.getMetadata().put("algorithm", simResult.getAlgorithm().name());
-                            result.getMetadata().put("originalScore", simResult.getSimilarity());
-                            
-                            results.add(result);
-                        }
-                    }
-                } catch (Exception e) {
-                    log.warn("处理相似度结果失败: documentId={}", simResult.getDocumentId(), e);
+            List<VectorSearchResult> results = toVectorSearchResults(similarityResults);
+            log.debug("向量相似度搜索完成，找到{}条结果", results.size());
+            return results;
+
+        } catch (Exception e) {
+            log.error("向量相似度搜索失败", e);
+            return Collections.emptyList();
+        }
+    }
+
+    /**
+     * 多查询向量搜索：扩展查询一次批量向量化，与原查询向量在同一次扫描中打分，
+     * 扩展查询按较低权重参与合并。向量化失败的零向量不参与，否则会在 WEIGHTED_SUM 中稀释得分。
+     * 与单查询一致，扫描时只对已索引的文档打分
+     */
+    private List<VectorSearchResult> performMultiQuerySearch(
+            String query, List<Float> queryVector, List<String> expandedQueries, int topK) {
+
+        try {
+            List<String> variants = expandedQueries.stream()
+                .filter(term -> !term.equals(query))
+                .map(this::preprocessQuery)
+                .collect(Collectors.toList());
+            List<List<Float>> embeddings = vectorProcessingEngine.generateEmbeddings(variants);
+
+            List<float[]> queryVectors = new ArrayList<>();
+            List<Float> weights = new ArrayList<>();
+            queryVectors.add(SimilarityKernels.toFloatArray(queryVector));
+            weights.add(1.0f);
+            for (List<Float> embedding : embeddings) {
+                if (embedding == null || embedding.size() != queryVector.size()) {
+                    continue;
+                }
+                float[] data = SimilarityKernels.toFloatArray(embedding);
+                if (data == null || SimilarityKernels.squaredNorm(data) == 0f) {
+                    continue;
                 }
+                SimilarityKernels.normalize(data);
+                queryVectors.add(data);
+                weights.add(expansionWeight);
+            }
+            if (queryVectors.size() == 1) {
+                return performVectorSimilaritySearch(queryVector, null, topK);
+            }
+            float[] weightArray = new float[weights.size()];
+            for (int i = 0; i < weightArray.length; i++) {
+                weightArray[i] = weights.get(i);
             }
 
-            log.debug("向量相似度搜索完成，找到{}条结果", results.size());
+            List<VectorSimilarityService.SimilarityResult> similarityResults =
+                vectorSimilarityService.multiQuerySearch(
+                    queryVectors,
+                    weightArray,
+                    topK,
+                    VectorSimilarityService.SimilarityAlgorithm.COSINE,
+                    similarityThreshold,
+                    multiQueryCombination,
+                    INDEXED_FILTER
+                );
+
+            List<VectorSearchResult> results = toVectorSearchResults(similarityResults);
+            log.debug("多查询向量搜索完成，查询数{}，找到{}条结果", queryVectors.size(), results.size());
             return results;
 
         } catch (Exception e) {
-            log.error("向量相似度搜索失败", e);
+            log.error("多查询向量搜索失败", e);
             return Collections.emptyList();
         }
     }
 
+    /**
+     * 相似度结果转换为VectorSearchResult，只保留已索引的文档
+     */
+    private List<VectorSearchResult> toVectorSearchResults(
+            List<VectorSimilarityService.SimilarityResult> similarityResults) {
+
+        List<VectorSearchResult> results = new ArrayList<>();
+        for (VectorSimilarityService.SimilarityResult simResult : similarityResults) {
+            try {
+                Optional<Document> documentOpt = documentRepository.findById(simResult.getDocumentId());
+
+                if (documentOpt.isPresent()) {
+                    Document document = documentOpt.get();
+
+                    if (document.getStatus() == Document.Status.INDEXED) {
+                        VectorSearchResult result = new VectorSearchResult();
+                        result.setDocument(new DocumentResponseDto(document));
+                        result.setSimilarityScore(simResult.getSimilarity());
+                        result.setVectorScore(simResult.getSimilarity());
+
+                        // 添加算法元数据
+                        result.getMetadata().put("algorithm", simResult.getAlgorithm().name());
+                        result.getMetadata().put("originalScore", simResult.getSimilarity());
+
+                        results.add(result);
+                    }
+                }
+            } catch (Exception e) {
+                log.warn("处理相似度结果失败: documentId={}", simResult.getDocumentId(), e);
+            }
+        }
+        return results;
+    }
+
     /**
      * 执行关键词搜索
      */
@@ -402,21 +490,17 @@ public class SemanticSearchService {
             return vector;
         }
 
-        // 计算向量的模长
-        double magnitude = vector.stream()
-            .mapToDouble(Float::doubleValue)
-            .map(x -> x * x)
-            .sum();
-        final double finalMagnitude = Math.sqrt(magnitude);
-
-        if (finalMagnitude == 0) {
+        float[] data = SimilarityKernels.toFloatArray(vector);
+        if (data == null) {
             return vector;
         }
+        SimilarityKernels.normalize(data);
 
-        // 标准化
-        return vector.stream()
-            .map(x -> (float) (x / finalMagnitude))
-            .collect(Collectors.toList());
+        List<Float> normalized = new ArrayList<>(data.length);
+        for (float value : data) {
+            normalized.add(value);
+        }
+        return normalized;
     }
 
     /**
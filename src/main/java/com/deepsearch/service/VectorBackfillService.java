@@ -0,0 +1,106 @@
+package com.deepsearch.service;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import com.deepsearch.entity.DocumentVector;
+import com.deepsearch.repository.DocumentVectorRepository;
+
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 向量回填服务 - 把历史数据归一化为单位向量并写入 vector_norm 和 vector_blob
+ * 新写入的向量由实体回调归一化并双写，这里只处理迁移前已存在的行。
+ * 回填不改变向量本身（归一化后乘回范数即原向量），因此用批量更新语句写入，
+ * 不触发实体回调、不更新 updated_at，也不向变更流发布
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class VectorBackfillService {
+
+    private final DocumentVectorRepository documentVectorRepository;
+
+    private final ExecutorService backfillExecutor = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "vector-backfill");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @Value("${vector.backfill.enabled:true}")
+    private boolean backfillEnabled;
+
+    @Value("${vector.backfill.batch-size:500}")
+    private int batchSize;
+
+    private final AtomicBoolean running = new AtomicBoolean(false);
+
+    /**
+     * 应用启动完成后异步回填
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        if (!backfillEnabled) {
+            return;
+        }
+        CompletableFuture.runAsync(this::backfill, backfillExecutor);
+    }
+
+    /**
+     * 按ID顺序分批回填缺少范数或二进制副本的向量
+     *
+     * @return 本次回填的向量数量
+     */
+    public int backfill() {
+        if (!running.compareAndSet(false, true)) {
+            log.info("向量回填正在进行，跳过本次请求");
+            return 0;
+        }
+
+        long startTime = System.currentTimeMillis();
+        int backfilled = 0;
+        try {
+            Long pending = documentVectorRepository.countBackfillPending();
+            if (pending == null || pending == 0) {
+                return 0;
+            }
+            log.info("开始回填向量范数和二进制副本: 待处理={}", pending);
+
+            long lastId = 0L;
+            List<DocumentVector> batch;
+            do {
+                batch = documentVectorRepository.findBackfillPendingAfter(lastId, PageRequest.of(0, batchSize));
+                if (batch.isEmpty()) {
+                    break;
+                }
+                // 查询在事务外执行，实体已脱管，修改不会被自动刷回
+                batch.forEach(DocumentVector::normalizeVectorData);
+                backfilled += documentVectorRepository.updateDerivedColumns(batch);
+                lastId = batch.get(batch.size() - 1).getId();
+            } while (batch.size() == batchSize);
+
+            log.info("向量回填完成: 回填={}, 耗时={}ms", backfilled, System.currentTimeMillis() - startTime);
+        } catch (Exception e) {
+            log.error("向量回填失败: 已回填={}", backfilled, e);
+        } finally {
+            running.set(false);
+        }
+        return backfilled;
+    }
+
+    @PreDestroy
+    public void destroy() {
+        backfillExecutor.shutdownNow();
+    }
+}
@@ -0,0 +1,169 @@
+package com.deepsearch.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.deepsearch.entity.DocumentVector;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 向量变更流 - 接收 document_vectors 的写入、更新和删除（墓碑），由单个后台线程按顺序应用到内存索引
+ * 写入方只入队不等待，查询方读取的索引结构不加锁，变更应用和墓碑压缩都不会阻塞查询
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class VectorChangeFeed {
+
+    private final VectorIndexService vectorIndexService;
+
+    private final LinkedBlockingQueue<VectorChange> queue = new LinkedBlockingQueue<>();
+    private final AtomicLong appliedChanges = new AtomicLong();
+    // 已发布和已处理（含应用失败）的变更数，用于等待变更流排空
+    private final AtomicLong publishedChanges = new AtomicLong();
+    private final AtomicLong handledChanges = new AtomicLong();
+
+    private final ExecutorService applyExecutor = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "vector-change-feed");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @Value("${vector.index.change-feed.batch-size:256}")
+    private int batchSize;
+
+    @PostConstruct
+    public void start() {
+        applyExecutor.submit(this::applyLoop);
+    }
+
+    /**
+     * 向量新增或更新
+     */
+    public void publishUpsert(DocumentVector docVector) {
+        if (docVector == null || docVector.getId() == null || docVector.getDocumentId() == null) {
+            return;
+        }
+        float[] data = docVector.toFloatArray(true);
+        if (data == null) {
+            return;
+        }
+        offer(new VectorChange(ChangeType.UPSERT, docVector.getId(), docVector.getDocumentId(), data));
+    }
+
+    /**
+     * 单个向量删除
+     */
+    public void publishDelete(Long vectorId) {
+        if (vectorId != null) {
+            offer(new VectorChange(ChangeType.DELETE, vectorId, -1L, null));
+        }
+    }
+
+    /**
+     * 文档的全部向量删除，用于批量删除和文档级联删除
+     */
+    public void publishDocumentDelete(Long documentId) {
+        if (documentId != null) {
+            offer(new VectorChange(ChangeType.DELETE_DOCUMENT, -1L, documentId, null));
+        }
+    }
+
+    /**
+     * 尚未应用的变更数
+     */
+    public int getPendingChanges() {
+        return queue.size();
+    }
+
+    /**
+     * 已应用的变更数
+     */
+    public long getAppliedChanges() {
+        return appliedChanges.get();
+    }
+
+    /**
+     * 等待调用之前发布的变更全部处理完
+     *
+     * @return 是否已排空，变更流已停止、超时或被中断时返回 false
+     */
+    public boolean awaitDrained(long timeoutMillis) {
+        long target = publishedChanges.get();
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        while (handledChanges.get() < target) {
+            if (applyExecutor.isShutdown() || System.currentTimeMillis() >= deadline) {
+                return false;
+            }
+            try {
+                Thread.sleep(10);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @PreDestroy
+    public void destroy() {
+        applyExecutor.shutdownNow();
+    }
+
+    private void offer(VectorChange change) {
+        publishedChanges.incrementAndGet();
+        queue.offer(change);
+    }
+
+    /**
+     * 阻塞等待变更，每次取出一批按顺序应用
+     */
+    private void applyLoop() {
+        List<VectorChange> batch = new ArrayList<>();
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                batch.add(queue.take());
+                queue.drainTo(batch, Math.max(0, batchSize - 1));
+                vectorIndexService.applyChanges(batch);
+                appliedChanges.addAndGet(batch.size());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (Exception e) {
+                log.warn("向量变更应用失败: 变更数={}", batch.size(), e);
+            } finally {
+                handledChanges.addAndGet(batch.size());
+                batch.clear();
+            }
+        }
+    }
+
+    /**
+     * 变更类型
+     */
+    public enum ChangeType {
+        UPSERT,            // 新增或更新
+        DELETE,            // 删除单个向量
+        DELETE_DOCUMENT    // 删除文档的全部向量
+    }
+
+    /**
+     * 一条向量变更
+     *
+     * @param vectorId 向量ID，DELETE_DOCUMENT 时为 -1
+     * @param documentId 文档ID，DELETE 时为 -1
+     * @param vector 向量数据，仅 UPSERT 时有值
+     */
+    public record VectorChange(ChangeType type, long vectorId, long documentId, float[] vector) {
+    }
+}
@@ -0,0 +1,293 @@
+package com.deepsearch.service;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Blob;
+import java.sql.Clob;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.function.LongFunction;
+
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import com.deepsearch.repository.DocumentVectorRepository;
+import com.deepsearch.vector.util.Float32VectorConverter;
+import com.deepsearch.vector.util.JsonVectorParser;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 向量批量加载服务 - 一次查询取回整批文档的向量
+ * 优先按字节还原 vector_blob，尚未回填的行读取 vector_data 的 JSON 文本解析为 float[]，不构造实体、不经过 List&lt;Double&gt;
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class VectorHydrationService {
+
+    private final DocumentVectorRepository documentVectorRepository;
+
+    /**
+     * 加载一批文档的向量，每个文档取向量ID最小的一条（与单条查询取第一个向量一致）
+     */
+    public HydratedVectors hydrate(Collection<Long> documentIds) {
+        if (documentIds == null || documentIds.isEmpty()) {
+            return HydratedVectors.EMPTY;
+        }
+
+        List<Object[]> rows = documentVectorRepository.findVectorRowsByDocumentIdIn(documentIds);
+        long[] ids = new long[rows.size()];
+        float[][] vectors = new float[rows.size()][];
+        float[] norms = new float[rows.size()];
+        int count = 0;
+        long previousDocument = Long.MIN_VALUE;
+
+        for (Object[] row : rows) {
+            if (row == null || row.length < 3 || row[0] == null) {
+                continue;
+            }
+            long documentId = ((Number) row[0]).longValue();
+            if (documentId == previousDocument) {
+                continue;
+            }
+            float[] vector = toVector(row[1], row.length > 3 ? row[3] : null);
+            if (vector == null || vector.length == 0) {
+                log.warn("向量数据无法解析: documentId={}", documentId);
+                continue;
+            }
+            previousDocument = documentId;
+            ids[count] = documentId;
+            vectors[count] = vector;
+            norms[count] = row[2] != null ? ((Number) row[2]).floatValue() : Float.NaN;
+            count++;
+        }
+
+        if (count < ids.length) {
+            ids = Arrays.copyOf(ids, count);
+            vectors = Arrays.copyOf(vectors, count);
+            norms = Arrays.copyOf(norms, count);
+        }
+        return new HydratedVectors(ids, vectors, norms);
+    }
+
+    /**
+     * 加载一批文档的全部分块向量，同一文档的分块相邻
+     */
+    public HydratedChunks hydrateChunks(Collection<Long> documentIds) {
+        if (documentIds == null || documentIds.isEmpty()) {
+            return HydratedChunks.EMPTY;
+        }
+        return toChunks(documentVectorRepository.findChunkRowsByDocumentIdIn(documentIds));
+    }
+
+    /**
+     * 按向量ID顺序分页遍历全部分块向量，每页一次查询，不构造实体
+     */
+    public Iterable<HydratedChunks> chunkPages(int pageSize) {
+        return () -> new ChunkPageIterator(pageSize,
+            afterId -> documentVectorRepository.findChunkRowsAfter(afterId, PageRequest.of(0, pageSize)));
+    }
+
+    /**
+     * 按向量ID顺序分页遍历指定时间之后更新的分块向量
+     */
+    public Iterable<HydratedChunks> chunkPagesUpdatedAfter(LocalDateTime since, int pageSize) {
+        return () -> new ChunkPageIterator(pageSize,
+            afterId -> documentVectorRepository.findChunkRowsUpdatedAfter(since, afterId, PageRequest.of(0, pageSize)));
+    }
+
+    /**
+     * 按向量ID加载分块文本
+     */
+    public Map<Long, ChunkText> loadChunkTexts(Collection<Long> chunkIds) {
+        Map<Long, ChunkText> texts = new HashMap<>();
+        if (chunkIds == null || chunkIds.isEmpty()) {
+            return texts;
+        }
+        for (Object[] row : documentVectorRepository.findChunkTextsByIdIn(chunkIds)) {
+            if (row == null || row.length < 3 || row[0] == null) {
+                continue;
+            }
+            CharSequence text = toText(row[2]);
+            texts.put(((Number) row[0]).longValue(), new ChunkText(
+                row[1] != null ? ((Number) row[1]).intValue() : 0, text != null ? text.toString() : null));
+        }
+        return texts;
+    }
+
+    /**
+     * 解析 (document_id, id, vector_data, vector_norm, vector_blob) 行，跳过无法解析的向量
+     */
+    private static HydratedChunks toChunks(List<Object[]> rows) {
+        long[] ids = new long[rows.size()];
+        long[] chunkIds = new long[rows.size()];
+        float[][] vectors = new float[rows.size()][];
+        float[] norms = new float[rows.size()];
+        int count = 0;
+
+        for (Object[] row : rows) {
+            if (row == null || row.length < 4 || row[0] == null || row[1] == null) {
+                continue;
+            }
+            float[] vector = toVector(row[2], row.length > 4 ? row[4] : null);
+            if (vector == null || vector.length == 0) {
+                log.warn("向量数据无法解析: documentId={}, vectorId={}", row[0], row[1]);
+                continue;
+            }
+            ids[count] = ((Number) row[0]).longValue();
+            chunkIds[count] = ((Number) row[1]).longValue();
+            vectors[count] = vector;
+            norms[count] = row[3] != null ? ((Number) row[3]).floatValue() : Float.NaN;
+            count++;
+        }
+
+        if (count < ids.length) {
+            ids = Arrays.copyOf(ids, count);
+            chunkIds = Arrays.copyOf(chunkIds, count);
+            vectors = Arrays.copyOf(vectors, count);
+            norms = Arrays.copyOf(norms, count);
+        }
+        return new HydratedChunks(ids, chunkIds, vectors, norms);
+    }
+
+    /**
+     * 有二进制副本时直接解码，否则解析 JSON 文本
+     */
+    private static float[] toVector(Object json, Object blob) {
+        if (blob instanceof byte[] bytes) {
+            return Float32VectorConverter.decode(bytes);
+        }
+        if (blob instanceof Blob lob) {
+            try {
+                return Float32VectorConverter.decode(lob.getBytes(1, (int) lob.length()));
+            } catch (Exception e) {
+                return null;
+            }
+        }
+        return JsonVectorParser.parse(toText(json));
+    }
+
+    private static CharSequence toText(Object value) {
+        if (value == null) {
+            return null;
+        }
+        if (value instanceof CharSequence text) {
+            return text;
+        }
+        if (value instanceof byte[] bytes) {
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+        if (value instanceof Clob clob) {
+            try {
+                return clob.getSubString(1, (int) clob.length());
+            } catch (Exception e) {
+                return null;
+            }
+        }
+        return value.toString();
+    }
+
+    /**
+     * 分页迭代器，游标取每页原始行的最后一个向量ID，无法解析的行也会被越过
+     */
+    private static final class ChunkPageIterator implements Iterator<HydratedChunks> {
+
+        private final int pageSize;
+        private final LongFunction<List<Object[]>> query;
+        private long afterId;
+        private boolean exhausted;
+        private HydratedChunks next;
+
+        ChunkPageIterator(int pageSize, LongFunction<List<Object[]>> query) {
+            this.pageSize = pageSize;
+            this.query = query;
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (next == null && !exhausted) {
+                List<Object[]> rows = query.apply(afterId);
+                exhausted = rows.size() < pageSize;
+                if (rows.isEmpty()) {
+                    continue;
+                }
+                afterId = ((Number) rows.get(rows.size() - 1)[1]).longValue();
+                HydratedChunks chunks = toChunks(rows);
+                if (chunks.size() > 0) {
+                    next = chunks;
+                }
+            }
+            return next != null;
+        }
+
+        @Override
+        public HydratedChunks next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            HydratedChunks chunks = next;
+            next = null;
+            return chunks;
+        }
+    }
+
+    /**
+     * 一批已解析的向量，三个数组按下标一一对应
+     *
+     * @param documentIds 文档ID
+     * @param vectors 向量数据；norms 不为 NaN 时是写入时归一化后的单位向量
+     * @param norms 归一化前的L2范数，未归一化的历史数据为 NaN
+     */
+    public record HydratedVectors(long[] documentIds, float[][] vectors, float[] norms) {
+
+        public static final HydratedVectors EMPTY = new HydratedVectors(new long[0], new float[0][], new float[0]);
+
+        public int size() {
+            return documentIds.length;
+        }
+    }
+
+    /**
+     * 一批已解析的分块向量，四个数组按下标一一对应，同一文档的分块相邻
+     *
+     * @param documentIds 分块所属的文档ID
+     * @param chunkIds 分块的向量ID
+     * @param vectors 向量数据；norms 不为 NaN 时是写入时归一化后的单位向量
+     * @param norms 归一化前的L2范数，未归一化的历史数据为 NaN
+     */
+    public record HydratedChunks(long[] documentIds, long[] chunkIds, float[][] vectors, float[] norms) {
+
+        public static final HydratedChunks EMPTY =
+            new HydratedChunks(new long[0], new long[0], new float[0][], new float[0]);
+
+        public int size() {
+            return chunkIds.length;
+        }
+
+        /**
+         * 把第 i 个向量就地乘回原始范数并返回，用于点积、欧氏距离等依赖长度的算法
+         */
+        public float[] restoreScale(int i) {
+            float[] vector = vectors[i];
+            if (!Float.isNaN(norms[i])) {
+                for (int d = 0; d < vector.length; d++) {
+                    vector[d] *= norms[i];
+                }
+            }
+            return vector;
+        }
+    }
+
+    /**
+     * 分块在文档中的序号和文本
+     */
+    public record ChunkText(int chunkIndex, String text) {
+    }
+}
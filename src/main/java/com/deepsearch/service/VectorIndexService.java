@@ -0,0 +1,1459 @@
+package com.deepsearch.service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongPredicate;
+import java.util.function.ObjLongConsumer;
+import java.util.stream.IntStream;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.deepsearch.entity.Document;
+import com.deepsearch.entity.DocumentVector;
+import com.deepsearch.repository.DocumentRepository;
+import com.deepsearch.repository.DocumentVectorRepository;
+import com.deepsearch.service.VectorChangeFeed.ChangeType;
+import com.deepsearch.service.VectorChangeFeed.VectorChange;
+import com.deepsearch.service.VectorHydrationService.HydratedChunks;
+import com.deepsearch.service.VectorSimilarityService.SimilarityAlgorithm;
+import com.deepsearch.service.VectorSimilarityService.SimilarityResult;
+import com.deepsearch.service.VectorSimilarityService.SimilarityStatistics;
+import com.deepsearch.vector.index.AttributeBitmapIndex;
+import com.deepsearch.vector.index.AttributeBitmapIndex.Attribute;
+import com.deepsearch.vector.index.BinaryQuantizedIndex;
+import com.deepsearch.vector.index.DocumentBitmap;
+import com.deepsearch.vector.index.HnswIndex;
+import com.deepsearch.vector.index.IndexSnapshot;
+import com.deepsearch.vector.index.IvfPqIndex;
+import com.deepsearch.vector.index.LshIndex;
+import com.deepsearch.vector.index.Metric;
+import com.deepsearch.vector.index.PcaProjection;
+import com.deepsearch.vector.index.ProjectedVectorIndex;
+import com.deepsearch.vector.index.SearchHit;
+import com.deepsearch.vector.util.SimilarityKernels;
+
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 向量索引服务 - 维护常驻内存的HNSW近似最近邻索引、LSH候选索引和IVF-PQ压缩索引，
+ * 以及按 空间 / 渠道 / 状态 过滤文档的属性位图索引
+ * 应用启动后从document_vectors构建索引，之后由变更流增量应用写入、更新和删除，
+ * HNSW 删除先记墓碑，墓碑比例超过阈值时在变更流线程中压缩重建
+ * HNSW 图定期和停机时写入二进制快照，启动时优先加载快照并重放水位之后的变更，避免全量重建
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class VectorIndexService {
+
+    // HNSW 查询为分块去重多取候选的最大倍数
+    private static final int MAX_CHUNK_FANOUT = 8;
+
+    private final DocumentVectorRepository documentVectorRepository;
+    private final DocumentRepository documentRepository;
+    private final VectorStoreService vectorStoreService;
+    private final VectorHydrationService vectorHydrationService;
+    // 变更流依赖本服务，延迟获取
+    private final ObjectProvider<VectorChangeFeed> vectorChangeFeed;
+
+    // 文档属性位图，与向量索引独立维护，重建向量索引时不清空
+    private final AttributeBitmapIndex attributeIndex = new AttributeBitmapIndex();
+
+    // 索引构建执行器，避免阻塞应用启动
+    private final ExecutorService indexBuildExecutor = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "vector-index-build");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @Value("${vector.index.enabled:true}")
+    private boolean indexEnabled;
+
+    @Value("${vector.index.hnsw.enabled:true}")
+    private boolean hnswEnabled;
+
+    @Value("${vector.index.hnsw.m:16}")
+    private int hnswM;
+
+    @Value("${vector.index.hnsw.ef-construction:200}")
+    private int efConstruction;
+
+    @Value("${vector.index.hnsw.ef-search:64}")
+    private int efSearch;
+
+    // 带过滤条件的HNSW查询最多计算的节点数，满足条件的节点稀疏时限制遍历规模
+    @Value("${vector.index.hnsw.filtered-max-visits:20000}")
+    private int filteredMaxVisits;
+
+    @Value("${vector.index.hnsw.metric:COSINE}")
+    private Metric metric;
+
+    // HNSW 节点向量以 int8 保存，内存约为 1/4，召回略有下降
+    @Value("${vector.index.hnsw.int8:false}")
+    private boolean hnswInt8;
+
+    // 墓碑节点占比超过该值时压缩HNSW
+    @Value("${vector.index.hnsw.compaction-ratio:0.2}")
+    private double compactionRatio;
+
+    @Value("${vector.index.hnsw.compaction-min-deleted:256}")
+    private int compactionMinDeleted;
+
+    @Value("${vector.index.lsh.enabled:true}")
+    private boolean lshEnabled;
+
+    @Value("${vector.index.lsh.tables:8}")
+    private int lshTables;
+
+    @Value("${vector.index.lsh.bits:12}")
+    private int lshBits;
+
+    @Value("${vector.index.lsh.seed:42}")
+    private long lshSeed;
+
+    @Value("${vector.index.ivfpq.enabled:false}")
+    private boolean ivfPqEnabled;
+
+    // 0 表示按 sqrt(向量数) 自动选择
+    @Value("${vector.index.ivfpq.nlist:0}")
+    private int ivfPqNlist;
+
+    @Value("${vector.index.ivfpq.subspaces:96}")
+    private int ivfPqSubspaces;
+
+    @Value("${vector.index.ivfpq.nprobe:16}")
+    private int ivfPqNprobe;
+
+    @Value("${vector.index.ivfpq.rerank-factor:4}")
+    private int ivfPqRerankFactor;
+
+    @Value("${vector.index.ivfpq.training-sample:10000}")
+    private int ivfPqTrainingSample;
+
+    @Value("${vector.index.ivfpq.iterations:10}")
+    private int ivfPqIterations;
+
+    @Value("${vector.index.ivfpq.recall-queries:20}")
+    private int ivfPqRecallQueries;
+
+    @Value("${vector.index.binary.enabled:false}")
+    private boolean binaryEnabled;
+
+    // PCA 降维初筛 + 原始维度重排
+    @Value("${vector.index.pca.enabled:false}")
+    private boolean pcaEnabled;
+
+    // 初筛使用的目标维度，也是训练的主成分数
+    @Value("${vector.index.pca.dimension:256}")
+    private int pcaDimension;
+
+    @Value("${vector.index.pca.training-sample:10000}")
+    private int pcaTrainingSample;
+
+    @Value("${vector.index.pca.iterations:10}")
+    private int pcaIterations;
+
+    @Value("${vector.index.pca.rerank-factor:4}")
+    private int pcaRerankFactor;
+
+    @Value("${vector.index.pca.recall-queries:20}")
+    private int pcaRecallQueries;
+
+    @Value("${vector.index.pca.path:./data/vector-index/pca.model}")
+    private String pcaModelPath;
+
+    // 测量召回曲线的目标维度，超过主成分数的维度会被忽略
+    @Value("${vector.index.pca.recall-dimensions:32,64,128,256}")
+    private int[] pcaRecallDimensions;
+
+    @Value("${vector.index.load.page-size:1000}")
+    private int loadPageSize;
+
+    @Value("${vector.index.snapshot.enabled:true}")
+    private boolean snapshotEnabled;
+
+    @Value("${vector.index.snapshot.path:./data/vector-index/hnsw.snapshot}")
+    private String snapshotPath;
+
+    // 快照水位之前这段时间内的变更也重放，覆盖提交晚于水位查询的事务
+    @Value("${vector.index.snapshot.replay-margin-seconds:60}")
+    private long replayMarginSeconds;
+
+    // 写快照前等待变更流排空的最长时间，超时则跳过本次快照
+    @Value("${vector.index.snapshot.drain-timeout-ms:30000}")
+    private long snapshotDrainTimeoutMs;
+
+    private volatile HnswIndex hnswIndex;
+    private volatile LshIndex lshIndex;
+    private volatile IvfPqIndex ivfPqIndex;
+    private volatile double ivfPqRecall = -1.0;
+    private volatile BinaryQuantizedIndex binaryIndex;
+    private volatile double binaryRecall = -1.0;
+    private volatile PcaProjection pcaProjection;
+    private volatile ProjectedVectorIndex projectedIndex;
+    // 目标维度 -> 初筛候选经原始维度重排后的召回率
+    private volatile Map<Integer, Double> pcaRecallCurve = Map.of();
+    // 向量ID -> 文档ID，覆盖向量存储中的全部向量，重建或恢复索引时整体替换
+    private volatile Map<Long, Long> vectorDocumentIds = new ConcurrentHashMap<>();
+    // 每个文档平均的分块数，决定 HNSW 为去重多取的候选倍数
+    private volatile int chunksPerDocument = 1;
+    // 属性位图加载完成前不按属性过滤，避免把尚未登记的文档当作不满足条件
+    private volatile boolean attributesLoaded;
+    private final AtomicBoolean building = new AtomicBoolean(false);
+    // 构建期间到达的变更，新索引安装后按顺序重放；不在构建中时为 null
+    private List<VectorChange> pendingChanges;
+    private final Object pendingLock = new Object();
+    // 索引内容每次变化加一，快照据此判断是否需要重写
+    private final AtomicLong indexVersion = new AtomicLong();
+    // 属性位图每次变化加一，过滤检索的结果缓存据此失效
+    private final AtomicLong attributeVersion = new AtomicLong();
+    private volatile long snapshotVersion = -1L;
+
+    /**
+     * 应用启动完成后异步构建索引
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        CompletableFuture.runAsync(this::loadDocumentAttributes, indexBuildExecutor);
+        if (!indexEnabled) {
+            log.info("向量索引未启用，相似度搜索使用精确模式");
+            CompletableFuture.runAsync(this::syncStore, indexBuildExecutor);
+            return;
+        }
+        CompletableFuture.runAsync(() -> {
+            if (!loadSnapshot()) {
+                rebuildIndex();
+            }
+        }, indexBuildExecutor);
+    }
+
+    /**
+     * 从数据库全量重建HNSW和LSH索引，构建完成后原子替换
+     */
+    public void rebuildIndex() {
+        if (!building.compareAndSet(false, true)) {
+            log.info("向量索引正在构建中，忽略重复请求");
+            return;
+        }
+        bufferChanges(true);
+
+        long startTime = System.currentTimeMillis();
+        try {
+            HnswIndex newIndex = null;
+            LshIndex newLshIndex = null;
+            BinaryQuantizedIndex newBinaryIndex = null;
+            Map<Long, Long> newDocumentIds = new ConcurrentHashMap<>();
+            int dimension = -1;
+            int indexed = 0;
+            int skipped = 0;
+
+            for (HydratedChunks page : vectorHydrationService.chunkPages(loadPageSize)) {
+                for (int i = 0; i < page.size(); i++) {
+                    long vectorId = page.chunkIds()[i];
+                    long documentId = page.documentIds()[i];
+                    float[] data = page.restoreScale(i);
+                    if (dimension < 0) {
+                        dimension = data.length;
+                        newIndex = hnswEnabled ? new HnswIndex(dimension, metric, hnswM, efConstruction, 42L, hnswInt8) : null;
+                        newLshIndex = lshEnabled ? new LshIndex(dimension, lshTables, lshBits, lshSeed) : null;
+                        newBinaryIndex = binaryEnabled ? new BinaryQuantizedIndex(dimension) : null;
+                    }
+                    if (data.length != dimension) {
+                        skipped++;
+                        continue;
+                    }
+                    vectorStoreService.put(vectorId, documentId, data);
+                    if (newIndex != null) {
+                        newIndex.add(vectorId, data);
+                    }
+                    if (newLshIndex != null) {
+                        newLshIndex.add(vectorId, documentId, data);
+                    }
+                    if (newBinaryIndex != null) {
+                        newBinaryIndex.add(vectorId, data);
+                    }
+                    newDocumentIds.put(vectorId, documentId);
+                    indexed++;
+                }
+            }
+            reconcileStore();
+            vectorStoreService.markLoaded();
+
+            if (dimension < 0) {
+                log.warn("没有可索引的文档向量，向量索引保持为空");
+                return;
+            }
+
+            install(newIndex, newLshIndex, newBinaryIndex, newDocumentIds);
+
+            log.info("向量索引构建完成: 向量数={}, 跳过={}, 维度={}, HNSW={}, LSH={}, 二值量化={}, 耗时={}ms",
+                indexed, skipped, dimension, newIndex != null ? metric : "关闭",
+                newLshIndex != null ? lshTables + "x" + lshBits + "bit" : "关闭",
+                newBinaryIndex != null ? "开启" : "关闭",
+                System.currentTimeMillis() - startTime);
+
+            if (ivfPqEnabled) {
+                buildIvfPqIndex(dimension, indexed);
+            }
+            if (pcaEnabled) {
+                buildProjectedIndex(dimension, indexed);
+            }
+
+        } catch (Exception e) {
+            log.error("向量索引构建失败", e);
+        } finally {
+            bufferChanges(false);
+            building.set(false);
+        }
+        writeSnapshot();
+    }
+
+    /**
+     * 从快照恢复HNSW索引：剔除快照之后删除的向量，重放水位之后更新的向量，
+     * LSH 和二值量化索引由向量存储重建，全程不需要全量解析数据库中的JSON向量
+     *
+     * @return 是否恢复成功，失败时调用方应全量重建
+     */
+    public boolean loadSnapshot() {
+        Path file = Paths.get(snapshotPath);
+        if (!snapshotEnabled || !hnswEnabled || !Files.exists(file)) {
+            return false;
+        }
+        if (!building.compareAndSet(false, true)) {
+            return false;
+        }
+        bufferChanges(true);
+
+        long startTime = System.currentTimeMillis();
+        try {
+            IndexSnapshot snapshot = IndexSnapshot.read(file);
+            HnswIndex index = snapshot.index();
+            if (index.getMetric() != metric || index.isInt8() != hnswInt8) {
+                log.info("索引快照与当前配置不一致，全量重建: 快照度量={}, int8={}", index.getMetric(), index.isInt8());
+                return false;
+            }
+            if ((lshEnabled || binaryEnabled) && !vectorStoreService.isOpen()) {
+                log.info("向量存储不可用，无法由快照恢复LSH和二值量化索引，全量重建");
+                return false;
+            }
+            Map<Long, Long> documentIds = new ConcurrentHashMap<>(snapshot.documentIds());
+            int dimension = index.getDimension();
+
+            Set<Long> liveIds = reconcileStore();
+            int removed = 0;
+            for (Long vectorId : new ArrayList<>(documentIds.keySet())) {
+                if (!liveIds.contains(vectorId)) {
+                    index.remove(vectorId);
+                    documentIds.remove(vectorId);
+                    removed++;
+                }
+            }
+
+            LocalDateTime since = LocalDateTime.ofInstant(Instant.ofEpochMilli(snapshot.watermark()), ZoneId.systemDefault())
+                .minusSeconds(replayMarginSeconds);
+            int replayed = 0;
+            for (HydratedChunks page : vectorHydrationService.chunkPagesUpdatedAfter(since, loadPageSize)) {
+                for (int i = 0; i < page.size(); i++) {
+                    float[] data = page.restoreScale(i);
+                    if (data.length != dimension) {
+                        continue;
+                    }
+                    long vectorId = page.chunkIds()[i];
+                    vectorStoreService.put(vectorId, page.documentIds()[i], data);
+                    index.put(vectorId, data);
+                    documentIds.put(vectorId, page.documentIds()[i]);
+                    replayed++;
+                }
+            }
+
+            // 快照中的向量都应已在存储中，存储文件丢失或落后时全量重建
+            boolean storeOpen = vectorStoreService.isOpen();
+            if (storeOpen && !documentIds.keySet().stream().allMatch(vectorStoreService::contains)) {
+                log.info("向量存储缺少快照中的向量，全量重建");
+                return false;
+            }
+
+            LshIndex newLshIndex = lshEnabled ? new LshIndex(dimension, lshTables, lshBits, lshSeed) : null;
+            BinaryQuantizedIndex newBinaryIndex = binaryEnabled ? new BinaryQuantizedIndex(dimension) : null;
+            if (newLshIndex != null || newBinaryIndex != null) {
+                vectorStoreService.scan((vectorId, documentId, vector) -> {
+                    if (!documentIds.containsKey(vectorId) || vector.remaining() != dimension) {
+                        return;
+                    }
+                    float[] data = new float[dimension];
+                    vector.get(0, data);
+                    if (newLshIndex != null) {
+                        newLshIndex.add(vectorId, documentId, data);
+                    }
+                    if (newBinaryIndex != null) {
+                        newBinaryIndex.add(vectorId, data);
+                    }
+                });
+            }
+
+            install(index, newLshIndex, newBinaryIndex, documentIds);
+            if (storeOpen) {
+                vectorStoreService.markLoaded();
+            }
+            log.info("向量索引由快照恢复: 向量数={}, 重放={}, 剔除={}, 快照时间={}, 耗时={}ms",
+                index.size(), replayed, removed, Instant.ofEpochMilli(snapshot.createdAt()),
+                System.currentTimeMillis() - startTime);
+
+            if (ivfPqEnabled) {
+                buildIvfPqIndex(dimension, index.size());
+            }
+            if (pcaEnabled) {
+                buildProjectedIndex(dimension, index.size());
+            }
+            return true;
+
+        } catch (Exception e) {
+            log.warn("索引快照加载失败，全量重建: {}", file, e);
+            return false;
+        } finally {
+            bufferChanges(false);
+            building.set(false);
+        }
+    }
+
+    /**
+     * 索引未启用时把数据库中的向量同步到向量存储，同步完成前相似度计算从数据库读取
+     */
+    private void syncStore() {
+        if (!vectorStoreService.isOpen()) {
+            return;
+        }
+        long startTime = System.currentTimeMillis();
+        try {
+            int synced = 0;
+            for (HydratedChunks page : vectorHydrationService.chunkPages(loadPageSize)) {
+                for (int i = 0; i < page.size(); i++) {
+                    vectorStoreService.put(page.chunkIds()[i], page.documentIds()[i], page.restoreScale(i));
+                    vectorDocumentIds.put(page.chunkIds()[i], page.documentIds()[i]);
+                    synced++;
+                }
+            }
+            reconcileStore();
+            vectorStoreService.markLoaded();
+            log.info("向量存储同步完成: 向量数={}, 耗时={}ms", synced, System.currentTimeMillis() - startTime);
+        } catch (Exception e) {
+            log.error("向量存储同步失败，相似度计算继续从数据库读取", e);
+        }
+    }
+
+    /**
+     * 从向量存储中删除数据库已不存在的向量。先取存储中的ID再查询数据库，
+     * 期间由变更流新写入的向量不在候选中，不会被误删
+     *
+     * @return 数据库中全部向量ID
+     */
+    private Set<Long> reconcileStore() {
+        long[] storedIds = vectorStoreService.ids();
+        Set<Long> liveIds = new HashSet<>(documentVectorRepository.findAllIds());
+        int removed = 0;
+        for (long vectorId : storedIds) {
+            if (!liveIds.contains(vectorId)) {
+                vectorStoreService.remove(vectorId);
+                vectorDocumentIds.remove(vectorId);
+                removed++;
+            }
+        }
+        if (removed > 0) {
+            log.info("向量存储剔除数据库中已删除的向量: {}", removed);
+        }
+        return liveIds;
+    }
+
+    /**
+     * 写入索引快照，索引自上次快照后没有变化时跳过。
+     * 先查询水位，再等待变更流把此前提交的变更全部应用到图中，最后序列化：
+     * 水位之前的写入都已在快照中，水位之后的写入即使已进入图中也会在下次启动时被重放，重放是幂等的
+     *
+     * @return 是否写入了新快照
+     */
+    public synchronized boolean writeSnapshot() {
+        HnswIndex index = hnswIndex;
+        if (!snapshotEnabled || index == null || building.get()) {
+            return false;
+        }
+        long version = indexVersion.get();
+        if (version == snapshotVersion) {
+            return false;
+        }
+
+        long startTime = System.currentTimeMillis();
+        try {
+            LocalDateTime maxUpdatedAt = documentVectorRepository.findMaxUpdatedAt();
+            long watermark = maxUpdatedAt != null
+                ? maxUpdatedAt.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli()
+                : 0L;
+            VectorChangeFeed feed = vectorChangeFeed.getIfAvailable();
+            if (feed != null && !feed.awaitDrained(snapshotDrainTimeoutMs)) {
+                log.info("向量变更流未在{}ms内排空，跳过本次快照", snapshotDrainTimeoutMs);
+                return false;
+            }
+            version = indexVersion.get();
+            Path file = Paths.get(snapshotPath);
+            IndexSnapshot.write(file, index, vectorDocumentIds, watermark);
+            snapshotVersion = version;
+            log.info("索引快照写入完成: 向量数={}, 文件大小={}KB, 耗时={}ms",
+                index.size(), Files.size(file) / 1024, System.currentTimeMillis() - startTime);
+            return true;
+        } catch (Exception e) {
+            log.error("索引快照写入失败: {}", snapshotPath, e);
+            return false;
+        }
+    }
+
+    /**
+     * 定期写入索引快照
+     */
+    @Scheduled(fixedDelayString = "${vector.index.snapshot.interval-ms:600000}",
+               initialDelayString = "${vector.index.snapshot.interval-ms:600000}")
+    public void scheduledSnapshot() {
+        writeSnapshot();
+    }
+
+    /**
+     * 索引内容版本，每次写入、删除或重建后递增
+     */
+    public long getIndexVersion() {
+        return indexVersion.get();
+    }
+
+    /**
+     * 检索结果版本：索引内容或属性位图变化后递增，两者都只增不减，之和变化即任一方变化
+     */
+    public long getResultVersion() {
+        return indexVersion.get() + attributeVersion.get();
+    }
+
+    /**
+     * 按顺序应用一批向量变更，应用完成后按墓碑比例决定是否压缩HNSW
+     */
+    public void applyChanges(List<VectorChange> changes) {
+        for (VectorChange change : changes) {
+            apply(change);
+        }
+        compactIfNeeded();
+    }
+
+    /**
+     * 向量写入后增量更新索引
+     */
+    public void indexVector(DocumentVector docVector) {
+        if (docVector == null || docVector.getId() == null || docVector.getDocumentId() == null) {
+            return;
+        }
+        float[] data = docVector.toFloatArray(true);
+        if (data == null) {
+            return;
+        }
+        upsertVector(docVector.getId(), docVector.getDocumentId(), data);
+    }
+
+    /**
+     * 写入或更新向量：HNSW 中已存在的节点记墓碑后重新插入
+     */
+    public void upsertVector(long vectorId, long documentId, float[] data) {
+        recordDuringBuild(new VectorChange(ChangeType.UPSERT, vectorId, documentId, data));
+        vectorStoreService.put(vectorId, documentId, data);
+        // 与存储同步登记，索引尚未构建时按文档删除也能找到存储中的向量
+        vectorDocumentIds.put(vectorId, documentId);
+        indexVersion.incrementAndGet();
+
+        try {
+            HnswIndex index = hnswIndex;
+            LshIndex lsh = lshIndex;
+            if (index != null && data.length == index.getDimension()) {
+                index.put(vectorId, data);
+            }
+            if (lsh != null && data.length == lsh.getDimension()) {
+                lsh.add(vectorId, documentId, data);
+            }
+            IvfPqIndex ivfPq = ivfPqIndex;
+            if (ivfPq != null && data.length == ivfPq.getDimension()) {
+                // 旧编码留在倒排表中，重排时以向量存储中的最新数据为准
+                ivfPq.add(vectorId, data);
+            }
+            BinaryQuantizedIndex binary = binaryIndex;
+            if (binary != null && data.length == binary.getDimension()) {
+                binary.add(vectorId, data);
+            }
+            PcaProjection projection = pcaProjection;
+            ProjectedVectorIndex projected = projectedIndex;
+            if (projection != null && projected != null && data.length == projection.getSourceDimension()) {
+                projected.add(vectorId, projection.project(data, projected.getDimension()));
+            }
+        } catch (Exception e) {
+            log.warn("向量增量索引失败: vectorId={}", vectorId, e);
+        }
+    }
+
+    /**
+     * 向量删除后从向量存储和各索引中移除，HNSW 只记墓碑
+     * IVF-PQ 不支持删除，已删除的向量在重排时因存储中不存在而被丢弃
+     */
+    public void removeVector(Long vectorId) {
+        if (vectorId == null) {
+            return;
+        }
+        recordDuringBuild(new VectorChange(ChangeType.DELETE, vectorId, -1L, null));
+        vectorStoreService.remove(vectorId);
+        indexVersion.incrementAndGet();
+        HnswIndex index = hnswIndex;
+        if (index != null) {
+            index.remove(vectorId);
+        }
+        LshIndex lsh = lshIndex;
+        if (lsh != null) {
+            lsh.remove(vectorId);
+        }
+        BinaryQuantizedIndex binary = binaryIndex;
+        if (binary != null) {
+            binary.remove(vectorId);
+        }
+        ProjectedVectorIndex projected = projectedIndex;
+        if (projected != null) {
+            projected.remove(vectorId);
+        }
+        vectorDocumentIds.remove(vectorId);
+    }
+
+    /**
+     * 删除文档的全部向量，用于批量删除和文档级联删除这类拿不到向量ID的场景。
+     * 向量ID到文档ID的映射随每次写入存储登记，索引是否已构建都能找到
+     *
+     * @return 删除的向量数
+     */
+    public int removeDocumentVectors(long documentId) {
+        recordDuringBuild(new VectorChange(ChangeType.DELETE_DOCUMENT, -1L, documentId, null));
+        List<Long> vectorIds = new ArrayList<>();
+        for (Map.Entry<Long, Long> entry : vectorDocumentIds.entrySet()) {
+            if (entry.getValue() == documentId) {
+                vectorIds.add(entry.getKey());
+            }
+        }
+        for (Long vectorId : vectorIds) {
+            removeVector(vectorId);
+        }
+        return vectorIds.size();
+    }
+
+    /**
+     * 墓碑比例超过阈值时在索引构建线程上压缩HNSW，变更流线程不等待压缩完成。
+     * 压缩期间查询和变更继续使用旧索引，变更同时缓冲，替换后在新索引上重放
+     */
+    public void compactIfNeeded() {
+        HnswIndex index = hnswIndex;
+        if (index == null || building.get()) {
+            return;
+        }
+        int deleted = index.getDeletedCount();
+        if (deleted < compactionMinDeleted || deleted < compactionRatio * (index.size() + deleted)) {
+            return;
+        }
+        if (!building.compareAndSet(false, true)) {
+            return;
+        }
+        bufferChanges(true);
+        try {
+            indexBuildExecutor.execute(() -> compact(index, deleted));
+        } catch (RejectedExecutionException e) {
+            bufferChanges(false);
+            building.set(false);
+        }
+    }
+
+    /**
+     * 从数据库加载文档状态到属性位图索引
+     */
+    public void loadDocumentAttributes() {
+        try {
+            int loaded = 0;
+            for (Object[] row : documentRepository.findAllIdAndStatus()) {
+                if (row[0] instanceof Long documentId && row[1] instanceof Document.Status status) {
+                    attributeIndex.put(documentId, Attribute.STATUS, status.name());
+                    loaded++;
+                }
+            }
+            attributesLoaded = true;
+            attributeVersion.incrementAndGet();
+            log.info("文档属性位图加载完成: 文档数={}, 内存={}KB", loaded, attributeIndex.estimateMemoryBytes() / 1024);
+        } catch (Exception e) {
+            log.error("文档属性位图加载失败", e);
+        }
+    }
+
+    /**
+     * 更新文档的单个属性，value 为 null 时清除该属性
+     */
+    public void updateDocumentAttribute(Long documentId, Attribute attribute, String value) {
+        if (documentId == null || attribute == null) {
+            return;
+        }
+        attributeIndex.put(documentId, attribute, value);
+        attributeVersion.incrementAndGet();
+    }
+
+    /**
+     * 文档删除后移除其全部属性
+     */
+    public void removeDocumentAttributes(Long documentId) {
+        if (documentId == null) {
+            return;
+        }
+        attributeIndex.remove(documentId);
+        attributeVersion.incrementAndGet();
+    }
+
+    /**
+     * 求出满足过滤条件的文档集合
+     *
+     * @return 过滤条件为空或属性位图尚未加载完成时返回 null，表示不限制
+     */
+    public DocumentBitmap filterDocuments(AttributeBitmapIndex.Filter filter) {
+        if (!attributesLoaded) {
+            return null;
+        }
+        return attributeIndex.filter(filter);
+    }
+
+    /**
+     * 允许的文档占已登记文档的比例，用于在精确扫描和过滤图遍历之间选择
+     */
+    public double filterSelectivity(DocumentBitmap allowedDocuments) {
+        int total = attributeIndex.size();
+        if (allowedDocuments == null || total == 0) {
+            return 1.0;
+        }
+        return Math.min(1.0, (double) allowedDocuments.cardinality() / total);
+    }
+
+    /**
+     * 索引是否支持按文档集合过滤的检索
+     */
+    public boolean supportsFiltered(SimilarityAlgorithm algorithm) {
+        HnswIndex index = hnswIndex;
+        return isHnswReady() && algorithm != null && index.getMetric().name().equals(algorithm.name());
+    }
+
+    /**
+     * 索引是否可用于查询
+     */
+    public boolean isReady() {
+        return isHnswReady() || isIvfPqReady();
+    }
+
+    /**
+     * 索引是否支持指定的相似度算法
+     */
+    public boolean supports(SimilarityAlgorithm algorithm) {
+        if (algorithm == null) {
+            return false;
+        }
+        HnswIndex index = hnswIndex;
+        IvfPqIndex ivfPq = ivfPqIndex;
+        return (index != null && index.getMetric().name().equals(algorithm.name()))
+            || (ivfPq != null && ivfPq.getMetric().name().equals(algorithm.name()));
+    }
+
+    /**
+     * 检索最相似的文档，优先使用HNSW，未启用时使用IVF-PQ
+     */
+    public List<SimilarityResult> search(float[] queryVector, int topK, SimilarityAlgorithm algorithm, double threshold) {
+        if (isHnswReady()) {
+            return searchHnsw(queryVector, topK, algorithm, threshold);
+        }
+        if (isIvfPqReady()) {
+            return searchIvfPq(queryVector, topK, algorithm, threshold);
+        }
+        return Collections.emptyList();
+    }
+
+    /**
+     * 在HNSW索引上检索最相似的文档，同一文档的多个向量只保留最高分
+     */
+    public List<SimilarityResult> searchHnsw(float[] queryVector, int topK, SimilarityAlgorithm algorithm, double threshold) {
+        return searchHnsw(queryVector, topK, algorithm, threshold, null, 0);
+    }
+
+    /**
+     * 只在允许的文档集合内检索：过滤条件在HNSW遍历时判断，不满足条件的节点只用于导航，
+     * 因此返回结果数与不过滤时相同，不需要事后裁剪再补查
+     *
+     * @param allowedDocuments 允许的文档集合，为 null 时不过滤
+     */
+    public List<SimilarityResult> searchFiltered(float[] queryVector, int topK, SimilarityAlgorithm algorithm,
+                                                 double threshold, DocumentBitmap allowedDocuments) {
+        if (allowedDocuments == null) {
+            return search(queryVector, topK, algorithm, threshold);
+        }
+        if (allowedDocuments.isEmpty() || !isHnswReady()) {
+            return Collections.emptyList();
+        }
+        Map<Long, Long> documentIds = vectorDocumentIds;
+        return searchHnsw(queryVector, topK, algorithm, threshold, vectorId -> {
+            Long documentId = documentIds.get(vectorId);
+            return documentId != null && allowedDocuments.contains(documentId);
+        }, filteredMaxVisits);
+    }
+
+    private List<SimilarityResult> searchHnsw(float[] queryVector, int topK, SimilarityAlgorithm algorithm,
+                                              double threshold, LongPredicate filter, int maxVisits) {
+        HnswIndex index = hnswIndex;
+        if (index == null || queryVector == null || queryVector.length != index.getDimension() || topK <= 0) {
+            return Collections.emptyList();
+        }
+
+        Map<Long, Long> documentIds = vectorDocumentIds;
+        // 每个分块是独立节点，按平均分块数多取候选抵消同一文档的重复；倍数有上限，分块多也不会线性拖慢查询
+        int candidateCount = topK * Math.min(MAX_CHUNK_FANOUT, Math.max(2, chunksPerDocument));
+        List<SearchHit> hits = index.search(queryVector, candidateCount, Math.max(efSearch, candidateCount), filter,
+            maxVisits);
+
+        List<SimilarityResult> results = new ArrayList<>(topK);
+        Set<Long> seenDocuments = new HashSet<>();
+        for (SearchHit hit : hits) {
+            if (hit.score() < threshold) {
+                break;
+            }
+            Long documentId = documentIds.get(hit.id());
+            if (documentId == null || !seenDocuments.add(documentId)) {
+                continue;
+            }
+            // 同一文档最先出现的分块得分最高，即 max-sim 聚合
+            SimilarityResult result = new SimilarityResult(documentId, hit.score(), algorithm);
+            result.getMetadata().put("searchMode", filter != null ? "HNSW_FILTERED" : "HNSW");
+            result.getMetadata().put("chunkId", hit.id());
+            results.add(result);
+            if (results.size() >= topK) {
+                break;
+            }
+        }
+        return results;
+    }
+
+    /**
+     * 在IVF-PQ索引上召回候选，再用原始向量精确重排
+     */
+    public List<SimilarityResult> searchIvfPq(float[] queryVector, int topK, SimilarityAlgorithm algorithm, double threshold) {
+        IvfPqIndex index = ivfPqIndex;
+        if (index == null || queryVector == null || queryVector.length != index.getDimension() || topK <= 0) {
+            return Collections.emptyList();
+        }
+
+        List<SearchHit> hits = index.search(queryVector, topK * ivfPqRerankFactor, ivfPqNprobe);
+        if (hits.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        return rerank(queryVector, hits, index.getMetric() == Metric.COSINE, topK, algorithm, threshold, "IVF_PQ");
+    }
+
+    /**
+     * PCA降维索引是否可用于初筛
+     */
+    public boolean isProjectedReady() {
+        ProjectedVectorIndex projected = projectedIndex;
+        return pcaProjection != null && projected != null && projected.size() > 0;
+    }
+
+    /**
+     * 在PCA降维向量上初筛 topK * 重排倍数 个候选，再用原始维度的向量精确重排
+     */
+    public List<SimilarityResult> searchProjected(float[] queryVector, int topK, SimilarityAlgorithm algorithm,
+                                                  double threshold) {
+        PcaProjection projection = pcaProjection;
+        ProjectedVectorIndex projected = projectedIndex;
+        if (projection == null || projected == null || queryVector == null
+                || queryVector.length != projection.getSourceDimension() || topK <= 0) {
+            return Collections.emptyList();
+        }
+
+        float[] query = projection.project(queryVector, projected.getDimension());
+        int candidateCount = topK * Math.max(1, pcaRerankFactor) * Math.min(MAX_CHUNK_FANOUT, chunksPerDocument);
+        List<SearchHit> hits = projected.search(query, candidateCount, projected.getDimension());
+        if (hits.isEmpty()) {
+            return Collections.emptyList();
+        }
+        return rerank(queryVector, hits, algorithm != SimilarityAlgorithm.DOT_PRODUCT, topK, algorithm, threshold,
+            "PCA");
+    }
+
+    /**
+     * PCA各目标维度的召回率（初筛候选经原始维度重排后的 recall@10）
+     */
+    public Map<Integer, Double> getPcaRecallCurve() {
+        return pcaRecallCurve;
+    }
+
+    /**
+     * LSH索引是否可用于候选召回
+     */
+    public boolean isLshReady() {
+        LshIndex lsh = lshIndex;
+        return lsh != null && lsh.size() > 0;
+    }
+
+    /**
+     * 通过LSH召回候选文档，结果需由调用方精确重排
+     */
+    public List<Long> findLshCandidates(float[] queryVector, int candidateCount) {
+        LshIndex lsh = lshIndex;
+        if (lsh == null || queryVector == null || queryVector.length != lsh.getDimension()) {
+            return Collections.emptyList();
+        }
+        return lsh.candidates(queryVector, candidateCount);
+    }
+
+    /**
+     * 二值量化索引是否可用于候选召回
+     */
+    public boolean isBinaryReady() {
+        BinaryQuantizedIndex binary = binaryIndex;
+        return binary != null && binary.size() > 0;
+    }
+
+    /**
+     * 通过二值量化的汉明距离扫描召回候选文档，结果需由调用方精确重排
+     *
+     * @return 候选文档ID，按汉明距离升序排列，同一文档只保留一次
+     */
+    public List<Long> findBinaryCandidates(float[] queryVector, int candidateCount) {
+        BinaryQuantizedIndex binary = binaryIndex;
+        if (binary == null || queryVector == null || queryVector.length != binary.getDimension()
+                || candidateCount <= 0) {
+            return Collections.emptyList();
+        }
+
+        Map<Long, Long> documentIds = vectorDocumentIds;
+        Set<Long> candidates = new LinkedHashSet<>();
+        for (SearchHit hit : binary.search(queryVector, candidateCount)) {
+            Long documentId = documentIds.get(hit.id());
+            if (documentId != null) {
+                candidates.add(documentId);
+            }
+        }
+        return new ArrayList<>(candidates);
+    }
+
+    /**
+     * 记录二值量化检索相对精确检索的召回率，用于索引统计
+     */
+    public void recordBinaryRecall(double recall) {
+        this.binaryRecall = recall;
+    }
+
+    /**
+     * 当前索引中的向量数量
+     */
+    public int getIndexedVectorCount() {
+        HnswIndex index = hnswIndex;
+        return index != null ? index.size() : 0;
+    }
+
+    /**
+     * 各索引的内存占用和召回率统计
+     */
+    public List<SimilarityStatistics> getIndexStatistics() {
+        List<SimilarityStatistics> statistics = new ArrayList<>();
+        HnswIndex index = hnswIndex;
+        if (index != null) {
+            statistics.add(indexStatistics("HNSW", index.size(), index.getDimension(),
+                index.estimateMemoryBytes(), -1.0));
+        }
+        LshIndex lsh = lshIndex;
+        if (lsh != null) {
+            statistics.add(indexStatistics("LSH", lsh.size(), lsh.getDimension(),
+                lsh.estimateMemoryBytes(), -1.0));
+        }
+        IvfPqIndex ivfPq = ivfPqIndex;
+        if (ivfPq != null) {
+            statistics.add(indexStatistics("IVF_PQ", ivfPq.size(), ivfPq.getDimension(),
+                ivfPq.estimateMemoryBytes(), ivfPqRecall));
+        }
+        BinaryQuantizedIndex binary = binaryIndex;
+        if (binary != null) {
+            statistics.add(indexStatistics("BINARY", binary.size(), binary.getDimension(),
+                binary.estimateMemoryBytes(), binaryRecall));
+        }
+        PcaProjection projection = pcaProjection;
+        ProjectedVectorIndex projected = projectedIndex;
+        if (projection != null && projected != null) {
+            statistics.add(indexStatistics("PCA_" + projected.getDimension(), projected.size(),
+                projection.getSourceDimension(), projected.estimateMemoryBytes(),
+                pcaRecallCurve.getOrDefault(projected.getDimension(), -1.0)));
+        }
+        if (attributeIndex.size() > 0) {
+            // 位图按文档计数，没有对应的原始向量
+            statistics.add(indexStatistics("ATTRIBUTE_BITMAP", attributeIndex.size(), 0,
+                attributeIndex.estimateMemoryBytes(), -1.0));
+        }
+        return statistics;
+    }
+
+    /**
+     * 停机前写入最后一次快照
+     */
+    @PreDestroy
+    public void destroy() {
+        writeSnapshot();
+        indexBuildExecutor.shutdownNow();
+    }
+
+    /**
+     * 原子替换重建或恢复出的索引，并重放构建期间到达的变更。构建读取的可能是变更之前的数据，
+     * 重放连同向量存储一起重新应用；重放期间新到的变更等待，保证先后顺序
+     */
+    private void install(HnswIndex newIndex, LshIndex newLshIndex, BinaryQuantizedIndex newBinaryIndex,
+                         Map<Long, Long> newDocumentIds) {
+        synchronized (pendingLock) {
+            this.vectorDocumentIds = newDocumentIds;
+            long documentCount = newDocumentIds.values().stream().distinct().count();
+            this.chunksPerDocument = (int) Math.max(1, (newDocumentIds.size() + documentCount - 1) / Math.max(1, documentCount));
+            this.hnswIndex = newIndex;
+            this.lshIndex = newLshIndex;
+            this.binaryIndex = newBinaryIndex;
+            this.binaryRecall = -1.0;
+            indexVersion.incrementAndGet();
+            replayPendingChanges();
+        }
+    }
+
+    /**
+     * 由存活节点重建HNSW，替换后重放压缩期间的变更；期间索引已被重建替换时丢弃压缩结果
+     */
+    private void compact(HnswIndex index, int deleted) {
+        long startTime = System.currentTimeMillis();
+        try {
+            HnswIndex compacted = index.compact();
+            synchronized (pendingLock) {
+                if (hnswIndex != index) {
+                    return;
+                }
+                hnswIndex = compacted;
+                indexVersion.incrementAndGet();
+                replayPendingChanges();
+            }
+            log.info("HNSW索引压缩完成: 清理墓碑={}, 存活向量={}, 耗时={}ms",
+                deleted, compacted.size(), System.currentTimeMillis() - startTime);
+        } catch (Exception e) {
+            log.error("HNSW索引压缩失败", e);
+        } finally {
+            bufferChanges(false);
+            building.set(false);
+        }
+    }
+
+    /**
+     * 在 pendingLock 内调用：先停止缓冲再重放，重放产生的变更不会再次进入缓冲
+     */
+    private void replayPendingChanges() {
+        List<VectorChange> pending = pendingChanges;
+        pendingChanges = null;
+        if (pending != null && !pending.isEmpty()) {
+            pending.forEach(this::apply);
+            log.info("重放索引构建期间的变更: {}", pending.size());
+        }
+    }
+
+    private void apply(VectorChange change) {
+        switch (change.type()) {
+            case UPSERT -> upsertVector(change.vectorId(), change.documentId(), change.vector());
+            case DELETE -> removeVector(change.vectorId());
+            case DELETE_DOCUMENT -> removeDocumentVectors(change.documentId());
+        }
+    }
+
+    /**
+     * 开始或停止缓冲变更，构建结束时未安装的缓冲直接丢弃
+     */
+    private void bufferChanges(boolean enabled) {
+        synchronized (pendingLock) {
+            pendingChanges = enabled ? new ArrayList<>() : null;
+        }
+    }
+
+    /**
+     * 构建期间先记录变更再应用到当前索引，新索引安装时重放
+     */
+    private void recordDuringBuild(VectorChange change) {
+        synchronized (pendingLock) {
+            if (pendingChanges != null) {
+                pendingChanges.add(change);
+            }
+        }
+    }
+
+    private boolean isHnswReady() {
+        HnswIndex index = hnswIndex;
+        return index != null && index.size() > 0;
+    }
+
+    private boolean isIvfPqReady() {
+        IvfPqIndex index = ivfPqIndex;
+        return index != null && index.size() > 0;
+    }
+
+    /**
+     * 构建IVF-PQ索引：第一遍水塘抽样训练码本，第二遍编码全部向量，
+     * 同时对部分样本向量做全量精确Top-K，用于估算重排候选的召回率
+     */
+    private void buildIvfPqIndex(int dimension, int vectorCount) {
+        long startTime = System.currentTimeMillis();
+        try {
+            VectorSample training = sampleVectors(dimension, Math.min(ivfPqTrainingSample, vectorCount));
+            if (training.vectors().length == 0) {
+                return;
+            }
+            float[][] sample = training.vectors();
+            long[] sampleIds = training.ids();
+            int filled = sample.length;
+            int seen = training.seen();
+
+            int nlist = ivfPqNlist > 0 ? ivfPqNlist : Math.max(1, (int) Math.sqrt(seen));
+            // 每个聚类中心至少需要约39个训练样本
+            nlist = Math.max(1, Math.min(nlist, filled / 39));
+            IvfPqIndex newIndex = new IvfPqIndex(dimension, nlist, ivfPqSubspaces, metric);
+            newIndex.train(sample, ivfPqIterations, lshSeed);
+
+            int recallK = 10;
+            int queryCount = Math.min(ivfPqRecallQueries, filled);
+            float[][] recallQueries = new float[queryCount][];
+            long[] recallQueryIds = new long[queryCount];
+            List<PriorityQueue<SearchHit>> exactTopK = new ArrayList<>(queryCount);
+            for (int q = 0; q < queryCount; q++) {
+                recallQueries[q] = sample[q];
+                recallQueryIds[q] = sampleIds[q];
+                exactTopK.add(new PriorityQueue<>((a, b) -> Float.compare(a.score(), b.score())));
+            }
+            boolean cosine = metric == Metric.COSINE;
+
+            forEachVector(dimension, (data, vectorId) -> {
+                newIndex.add(vectorId, data);
+                offerExact(exactTopK, recallQueries, recallQueryIds, vectorId, data, cosine, recallK);
+            });
+
+            double recall = -1.0;
+            if (queryCount > 0) {
+                int found = 0;
+                int expected = 0;
+                for (int q = 0; q < queryCount; q++) {
+                    Set<Long> candidates = new HashSet<>();
+                    for (SearchHit hit : newIndex.search(recallQueries[q], recallK * ivfPqRerankFactor + 1, ivfPqNprobe)) {
+                        candidates.add(hit.id());
+                    }
+                    for (SearchHit hit : exactTopK.get(q)) {
+                        expected++;
+                        if (candidates.contains(hit.id())) {
+                            found++;
+                        }
+                    }
+                }
+                recall = expected > 0 ? (double) found / expected : -1.0;
+            }
+
+            this.ivfPqIndex = newIndex;
+            this.ivfPqRecall = recall;
+
+            long rawBytes = (long) newIndex.size() * dimension * 4L;
+            log.info("IVF-PQ索引构建完成: 向量数={}, nlist={}, 子空间={}, 内存={}KB (原始向量{}KB), 召回率@{}={}, 耗时={}ms",
+                newIndex.size(), newIndex.getNlist(), ivfPqSubspaces, newIndex.estimateMemoryBytes() / 1024,
+                rawBytes / 1024, recallK, String.format("%.3f", recall), System.currentTimeMillis() - startTime);
+
+        } catch (Exception e) {
+            log.error("IVF-PQ索引构建失败", e);
+        }
+    }
+
+    /**
+     * 构建PCA降维索引：抽样向量，模型文件与当前嵌入模型一致时直接复用投影，否则重新训练并持久化；
+     * 再把全部向量投影到目标维度，同时用部分样本测量各目标维度下初筛 + 重排的召回率
+     */
+    private void buildProjectedIndex(int dimension, int vectorCount) {
+        long startTime = System.currentTimeMillis();
+        try {
+            VectorSample sample = sampleVectors(dimension, Math.min(pcaTrainingSample, vectorCount));
+            if (sample.vectors().length < 2) {
+                return;
+            }
+            PcaProjection projection = loadOrFitProjection(sample);
+            int target = Math.min(pcaDimension, projection.getComponents());
+            ProjectedVectorIndex newIndex = new ProjectedVectorIndex(target);
+
+            int recallK = 10;
+            int queryCount = Math.min(pcaRecallQueries, sample.vectors().length);
+            float[][] recallQueries = Arrays.copyOf(sample.vectors(), queryCount);
+            long[] recallQueryIds = Arrays.copyOf(sample.ids(), queryCount);
+            List<PriorityQueue<SearchHit>> exactTopK = new ArrayList<>(queryCount);
+            for (int q = 0; q < queryCount; q++) {
+                exactTopK.add(new PriorityQueue<>((a, b) -> Float.compare(a.score(), b.score())));
+            }
+            forEachVector(dimension, (data, vectorId) -> {
+                newIndex.add(vectorId, projection.project(data, target));
+                offerExact(exactTopK, recallQueries, recallQueryIds, vectorId, data, true, recallK);
+            });
+
+            // 召回曲线：每个目标维度只用投影的前缀做初筛，候选数与线上查询相同
+            Map<Integer, Double> curve = new LinkedHashMap<>();
+            int[] dimensions = IntStream.concat(
+                    Arrays.stream(pcaRecallDimensions != null ? pcaRecallDimensions : new int[0])
+                        .filter(d -> d > 0 && d < target),
+                    IntStream.of(target))
+                .sorted()
+                .distinct()
+                .toArray();
+            for (int prefix : dimensions) {
+                int found = 0;
+                int expected = 0;
+                for (int q = 0; q < queryCount; q++) {
+                    Set<Long> candidates = new HashSet<>();
+                    float[] query = projection.project(recallQueries[q], target);
+                    for (SearchHit hit : newIndex.search(query, recallK * Math.max(1, pcaRerankFactor) + 1, prefix)) {
+                        candidates.add(hit.id());
+                    }
+                    for (SearchHit hit : exactTopK.get(q)) {
+                        expected++;
+                        if (candidates.contains(hit.id())) {
+                            found++;
+                        }
+                    }
+                }
+                curve.put(prefix, expected > 0 ? (double) found / expected : -1.0);
+            }
+
+            this.pcaProjection = projection;
+            this.projectedIndex = newIndex;
+            this.pcaRecallCurve = Collections.unmodifiableMap(curve);
+
+            long rawBytes = (long) newIndex.size() * dimension * 4L;
+            log.info("PCA降维索引构建完成: 向量数={}, 维度={}->{}, 解释方差={}, 内存={}KB (原始向量{}KB), 召回率@{}={}, 耗时={}ms",
+                newIndex.size(), dimension, target, String.format("%.3f", projection.explainedVarianceRatio(target)),
+                newIndex.estimateMemoryBytes() / 1024, rawBytes / 1024, recallK, curve,
+                System.currentTimeMillis() - startTime);
+
+        } catch (Exception e) {
+            log.error("PCA降维索引构建失败", e);
+        }
+    }
+
+    /**
+     * 读取与样本向量的模型名称、版本和维度一致的PCA模型，不存在或不一致时重新训练并写入模型文件
+     */
+    private PcaProjection loadOrFitProjection(VectorSample sample) throws IOException {
+        Path file = Paths.get(pcaModelPath);
+        int dimension = sample.vectors()[0].length;
+        if (Files.exists(file)) {
+            try {
+                PcaProjection existing = PcaProjection.read(file);
+                if (existing.isCompatible(dimension, sample.modelName(), sample.modelVersion())
+                        && existing.getComponents() >= Math.min(pcaDimension, dimension)) {
+                    log.info("加载PCA模型: 模型={}/{}, 维度={}->{}, 训练样本={}", existing.getModelName(),
+                        existing.getModelVersion(), dimension, existing.getComponents(), existing.getSampleCount());
+                    return existing;
+                }
+                log.info("PCA模型与当前向量不一致，重新训练: 模型={}/{}, 维度={}", existing.getModelName(),
+                    existing.getModelVersion(), existing.getSourceDimension());
+            } catch (IOException e) {
+                log.warn("PCA模型读取失败，重新训练: {}", file, e);
+            }
+        }
+
+        long startTime = System.currentTimeMillis();
+        PcaProjection fitted = PcaProjection.fit(sample.vectors(), pcaDimension, pcaIterations, lshSeed,
+            sample.modelName(), sample.modelVersion());
+        fitted.write(file);
+        log.info("PCA模型训练完成: 模型={}/{}, 样本={}, 维度={}->{}, 解释方差={}, 耗时={}ms",
+            fitted.getModelName(), fitted.getModelVersion(), fitted.getSampleCount(), dimension,
+            fitted.getComponents(), String.format("%.3f", fitted.explainedVarianceRatio(fitted.getComponents())),
+            System.currentTimeMillis() - startTime);
+        return fitted;
+    }
+
+    /**
+     * 水塘抽样：遍历全部向量，等概率抽取指定维度的 sampleSize 个向量，模型名称和版本取自第一个向量
+     */
+    private VectorSample sampleVectors(int dimension, int sampleSize) {
+        Random random = new Random(lshSeed);
+        float[][] sample = new float[sampleSize][];
+        long[] sampleIds = new long[sampleSize];
+        long firstId = -1L;
+        int seen = 0;
+
+        for (HydratedChunks page : vectorHydrationService.chunkPages(loadPageSize)) {
+            for (int i = 0; i < page.size(); i++) {
+                float[] data = page.restoreScale(i);
+                if (data.length != dimension) {
+                    continue;
+                }
+                if (seen == 0) {
+                    firstId = page.chunkIds()[i];
+                }
+                int slot = seen < sampleSize ? seen : random.nextInt(seen + 1);
+                if (slot < sampleSize) {
+                    sample[slot] = data;
+                    sampleIds[slot] = page.chunkIds()[i];
+                }
+                seen++;
+            }
+        }
+
+        DocumentVector first = firstId >= 0 ? documentVectorRepository.findById(firstId).orElse(null) : null;
+        String modelName = first != null ? first.getModelName() : null;
+        String modelVersion = first != null ? first.getModelVersion() : null;
+        int filled = Math.min(seen, sampleSize);
+        return new VectorSample(Arrays.copyOf(sample, filled), Arrays.copyOf(sampleIds, filled), seen,
+            modelName, modelVersion);
+    }
+
+    /**
+     * 按ID顺序分页遍历数据库中指定维度的全部向量
+     */
+    private void forEachVector(int dimension, ObjLongConsumer<float[]> consumer) {
+        for (HydratedChunks page : vectorHydrationService.chunkPages(loadPageSize)) {
+            for (int i = 0; i < page.size(); i++) {
+                float[] data = page.restoreScale(i);
+                if (data.length == dimension) {
+                    consumer.accept(data, page.chunkIds()[i]);
+                }
+            }
+        }
+    }
+
+    /**
+     * 把向量计入各召回查询的精确 Top-K 小顶堆，查询向量自身不计入
+     */
+    private static void offerExact(List<PriorityQueue<SearchHit>> exactTopK, float[][] queries, long[] queryIds,
+                                   long vectorId, float[] data, boolean cosine, int k) {
+        for (int q = 0; q < queries.length; q++) {
+            if (queryIds[q] == vectorId) {
+                continue;
+            }
+            float score = (float) (cosine ? cosine(queries[q], data) : dot(queries[q], data));
+            PriorityQueue<SearchHit> heap = exactTopK.get(q);
+            heap.offer(new SearchHit(vectorId, score));
+            if (heap.size() > k) {
+                heap.poll();
+            }
+        }
+    }
+
+    /**
+     * 用原始向量对候选精确重排，同一文档只保留得分最高的分块
+     */
+    private List<SimilarityResult> rerank(float[] queryVector, List<SearchHit> hits, boolean cosine, int topK,
+                                          SimilarityAlgorithm algorithm, double threshold, String searchMode) {
+        List<SimilarityResult> reranked = new ArrayList<>(hits.size());
+        List<Long> missingIds = new ArrayList<>();
+        // 优先在内存映射存储上批量计算，缺失的再回查数据库
+        long[] hitIds = new long[hits.size()];
+        for (int i = 0; i < hitIds.length; i++) {
+            hitIds[i] = hits.get(i).id();
+        }
+        float[] norms = cosine ? new float[hitIds.length] : null;
+        float[] dots = vectorStoreService.dots(queryVector, hitIds, norms);
+        float queryNorm = cosine ? SimilarityKernels.squaredNorm(queryVector) : 0f;
+        for (int i = 0; i < hitIds.length; i++) {
+            if (Float.isNaN(dots[i])) {
+                missingIds.add(hitIds[i]);
+                continue;
+            }
+            double score = cosine ? SimilarityKernels.cosine(dots[i], queryNorm, norms[i]) : dots[i];
+            addReranked(reranked, vectorStoreService.getDocumentId(hitIds[i]), hitIds[i], score, algorithm, threshold,
+                searchMode);
+        }
+        if (!missingIds.isEmpty()) {
+            for (DocumentVector docVector : documentVectorRepository.findAllById(missingIds)) {
+                float[] data = docVector.toFloatArray(true);
+                if (data == null || data.length != queryVector.length) {
+                    continue;
+                }
+                double score = cosine ? cosine(queryVector, data) : dot(queryVector, data);
+                addReranked(reranked, docVector.getDocumentId(), docVector.getId(), score, algorithm, threshold,
+                    searchMode);
+            }
+        }
+        reranked.sort((a, b) -> Double.compare(b.getSimilarity(), a.getSimilarity()));
+
+        List<SimilarityResult> results = new ArrayList<>(topK);
+        Set<Long> seenDocuments = new HashSet<>();
+        for (SimilarityResult result : reranked) {
+            if (seenDocuments.add(result.getDocumentId())) {
+                results.add(result);
+                if (results.size() >= topK) {
+                    break;
+                }
+            }
+        }
+        return results;
+    }
+
+    private static void addReranked(List<SimilarityResult> reranked, long documentId, long vectorId, double score,
+                                    SimilarityAlgorithm algorithm, double threshold, String searchMode) {
+        if (documentId < 0 || score < threshold) {
+            return;
+        }
+        SimilarityResult result = new SimilarityResult(documentId, score, algorithm);
+        result.getMetadata().put("searchMode", searchMode);
+        result.getMetadata().put("chunkId", vectorId);
+        reranked.add(result);
+    }
+
+    private static SimilarityStatistics indexStatistics(String indexType, int vectorCount, int dimension,
+                                                        long memoryBytes, double recall) {
+        SimilarityStatistics statistics = new SimilarityStatistics();
+        statistics.setIndexType(indexType);
+        statistics.setIndexedVectors(vectorCount);
+        statistics.setIndexMemoryBytes(memoryBytes);
+        statistics.setRawVectorBytes((long) vectorCount * dimension * 4L);
+        statistics.setEstimatedRecall(recall);
+        return statistics;
+    }
+
+    private static double dot(float[] a, float[] b) {
+        return SimilarityKernels.dot(a, b);
+    }
+
+    private static double cosine(float[] a, float[] b) {
+        return SimilarityKernels.cosine(a, b);
+    }
+
+    /**
+     * 抽样结果
+     *
+     * @param seen 参与抽样的向量总数
+     */
+    private record VectorSample(float[][] vectors, long[] ids, int seen, String modelName, String modelVersion) {
+    }
+}
@@ -1,12 +1,12 @@
 package com.deepsearch.service;
 
+import java.nio.FloatBuffer;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.Objects;
 import java.util.Set;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.Executor;
@@ -18,22 +18,37 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.cache.annotation.Cacheable;
 import org.springframework.stereotype.Service;
 
-import com.deepsearch.entity.DocumentVector;
-import com.deepsearch.repository.DocumentVectorRepository;
-
+import com.deepsearch.service.VectorHydrationService.ChunkText;
+import com.deepsearch.service.VectorHydrationService.HydratedChunks;
+import com.deepsearch.service.VectorHydrationService.HydratedVectors;
+import com.deepsearch.vector.index.AttributeBitmapIndex;
+import com.deepsearch.vector.index.ChunkAggregator;
+import com.deepsearch.vector.index.ChunkAggregator.DocumentMatch;
+import com.deepsearch.vector.index.DocumentBitmap;
+import com.deepsearch.vector.index.KMeans;
+import com.deepsearch.vector.index.SemanticResultCache;
+import com.deepsearch.vector.store.MappedVectorStore;
+import com.deepsearch.vector.store.ShardedScanner;
+import com.deepsearch.vector.util.SimilarityKernels;
+import com.deepsearch.vector.util.TopKSelector;
+
+import jakarta.annotation.PreDestroy;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
 /**
  * 向量相似度服务 - 提供高性能的向量相似度计算
  * 支持多种相似度算法、批量计算和异步处理
+ * 文档的每个分块都参与打分，按 max-sim 或 top-m 均值聚合为文档得分，并返回最相似分块的摘要
  */
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class VectorSimilarityService {
 
-    private final DocumentVectorRepository documentVectorRepository;
+    private final VectorIndexService vectorIndexService;
+    private final VectorStoreService vectorStoreService;
+    private final VectorHydrationService vectorHydrationService;
 
     // 异步执行器，用于并行计算
     private final Executor vectorComputeExecutor = Executors.newFixedThreadPool(
@@ -46,12 +61,77 @@ public class VectorSimilarityService {
     @Value("${vector.similarity.threshold:0.7}")
     private double defaultSimilarityThreshold;
 
+    // 语义结果缓存：按查询向量签名分桶，余弦相似度达到 min-cosine 的查询复用缓存的 Top-K
+    @Value("${vector.similarity.cache.enabled:true}")
+    private boolean resultCacheEnabled;
+
     @Value("${vector.similarity.cache.size:10000}")
     private int cacheSize;
 
+    @Value("${vector.similarity.cache.min-cosine:0.97}")
+    private double cacheMinCosine;
+
+    @Value("${vector.similarity.cache.hash-bits:12}")
+    private int cacheHashBits;
+
     @Value("${vector.similarity.batch.size:100}")
     private int batchSize;
 
+    @Value("${vector.similarity.binary.oversampling:10}")
+    private int binaryOversampling;
+
+    @Value("${vector.similarity.cluster.iterations:20}")
+    private int clusterIterations;
+
+    @Value("${vector.similarity.chunk.aggregation:MAX}")
+    private ChunkAggregator.Aggregation chunkAggregation;
+
+    // TOP_M_MEAN 聚合时参与平均的分块数
+    @Value("${vector.similarity.chunk.top-m:3}")
+    private int chunkTopM;
+
+    // 摘要最大长度，0 表示不截断
+    @Value("${vector.similarity.chunk.snippet-length:200}")
+    private int snippetLength;
+
+    // 过滤后的文档数不超过该值时直接精确打分，超过时在索引遍历中过滤
+    @Value("${vector.similarity.filter.exact-threshold:2000}")
+    private int filterExactThreshold;
+
+    // 允许的文档占比低于该值时满足条件的节点在图中过于稀疏，改为精确扫描
+    @Value("${vector.similarity.filter.min-graph-selectivity:0.05}")
+    private double filterMinGraphSelectivity;
+
+    // 精确扫描的分片工作线程数，0 表示CPU核数
+    @Value("${vector.similarity.scan.workers:0}")
+    private int scanWorkers;
+
+    // 单次查询的分片数（查询内并行度），0 表示与工作线程数相同
+    @Value("${vector.similarity.scan.parallelism:0}")
+    private int scanParallelism;
+
+    // 同时执行分片扫描的查询数上限（查询间并发），与查询内并行度分开配置
+    @Value("${vector.similarity.scan.max-concurrent-queries:4}")
+    private int scanMaxConcurrentQueries;
+
+    // 每个分片至少包含的记录数，数据量较小时在调用线程单线程扫描
+    @Value("${vector.similarity.scan.min-shard-records:8192}")
+    private int scanMinShardRecords;
+
+    // 向量存储不可用时从数据库分页扫描，每页读取的向量数
+    @Value("${vector.similarity.scan.page-size:50000}")
+    private int scanPageSize;
+
+    private volatile ShardedScanner shardedScanner;
+
+    private volatile SemanticResultCache<List<SimilarityResult>> resultCache;
+
+    // 聚类使用固定种子，相同结果集得到相同的簇
+    private static final long CLUSTER_SEED = 42L;
+
+    // 结果缓存的超平面种子，重启后签名保持一致
+    private static final long RESULT_CACHE_SEED = 7L;
+
     /**
      * 计算查询向量与文档集合的相似度
      */
@@ -61,40 +141,24 @@ public class VectorSimilarityService {
             SimilarityAlgorithm algorithm,
             double threshold) {
 
-        if (queryVector == null || queryVector.isEmpty() || documentIds == null || documentIds.isEmpty()) {
+        if (queryVector == null || queryVector.isEmpty()) {
             return Collections.emptyList();
         }
+        return computeSimilarities(SimilarityKernels.toFloatArray(queryVector), documentIds, algorithm, threshold);
+    }
 
-        try {
-            log.info("开始计算相似度，查询向量维度: {}, 文档数量: {}", queryVector.size(), documentIds.size());
-
-            // 分批处理大量文档
-            List<List<Long>> batches = createBatches(documentIds, batchSize);
-            List<CompletableFuture<List<SimilarityResult>>> futures = new ArrayList<>();
-
-            // 并行处理每个批次
-            for (List<Long> batch : batches) {
-                CompletableFuture<List<SimilarityResult>> future = CompletableFuture
-                    .supplyAsync(() -> processBatch(queryVector, batch, algorithm, threshold), vectorComputeExecutor);
-                futures.add(future);
-            }
-
-            // 等待所有批次完成并合并结果
-            List<SimilarityResult> allResults = futures.stream()
-                .map(CompletableFuture::join)
-                .flatMap(List::stream)
-                .collect(Collectors.toList());
-
-            // 按相似度排序
-            allResults.sort((a, b) -> Double.compare(b.getSimilarity(), a.getSimilarity()));
-
-            log.info("相似度计算完成，返回{}条结果", allResults.size());
-            return allResults;
+    /**
+     * 计算查询向量与文档集合的相似度（float[] 版本）
+     */
+    public List<SimilarityResult> computeSimilarities(
+            float[] queryVector,
+            List<Long> documentIds,
+            SimilarityAlgorithm algorithm,
+            double threshold) {
 
-        } catch (Exception e) {
-            log.error("相似度计算失败", e);
-            return Collections.emptyList();
-        }
+        List<SimilarityResult> results = scoreDocuments(queryVector, documentIds, algorithm, threshold);
+        attachSnippets(results);
+        return results;
     }
 
     /**
@@ -105,61 +169,436 @@ public class VectorSimilarityService {
         if (vector1 == null || vector2 == null || vector1.size() != vector2.size()) {
             return 0.0;
         }
+        return computeSimilarity(
+            SimilarityKernels.toFloatArray(vector1), SimilarityKernels.toFloatArray(vector2), algorithm);
+    }
+
+    /**
+     * 计算两个向量的相似度（float[] 版本，不装箱）
+     */
+    public double computeSimilarity(float[] vector1, float[] vector2, SimilarityAlgorithm algorithm) {
+        if (vector1 == null || vector2 == null || vector1.length != vector2.length) {
+            return 0.0;
+        }
 
         switch (algorithm) {
+            case EUCLIDEAN:
+                // 转换为相似度 (距离越小，相似度越高)
+                return 1.0 / (1.0 + Math.sqrt(SimilarityKernels.squaredEuclidean(vector1, vector2)));
+            case DOT_PRODUCT:
+                return SimilarityKernels.dot(vector1, vector2);
+            case MANHATTAN:
+                return 1.0 / (1.0 + SimilarityKernels.manhattan(vector1, vector2));
+            case JACCARD:
+                return SimilarityKernels.jaccard(vector1, vector2);
             case COSINE:
-                return calculateCosineSimilarity(vector1, vector2);
+            default:
+                return SimilarityKernels.cosine(vector1, vector2);
+        }
+    }
+
+    /**
+     * 计算查询向量与 FloatBuffer 中向量的相似度，用于直接读取内存映射存储
+     */
+    public double computeSimilarity(float[] queryVector, FloatBuffer vector, SimilarityAlgorithm algorithm) {
+        if (queryVector == null || vector == null || queryVector.length != vector.remaining()) {
+            return 0.0;
+        }
+
+        switch (algorithm) {
             case EUCLIDEAN:
-                return calculateEuclideanSimilarity(vector1, vector2);
+                return 1.0 / (1.0 + Math.sqrt(SimilarityKernels.squaredEuclidean(queryVector, vector)));
             case DOT_PRODUCT:
-                return calculateDotProductSimilarity(vector1, vector2);
+                return SimilarityKernels.dot(queryVector, vector);
             case MANHATTAN:
-                return calculateManhattanSimilarity(vector1, vector2);
+                return 1.0 / (1.0 + SimilarityKernels.manhattan(queryVector, vector));
             case JACCARD:
-                return calculateJaccardSimilarity(vector1, vector2);
+                return SimilarityKernels.jaccard(queryVector, vector);
+            case COSINE:
             default:
-                return calculateCosineSimilarity(vector1, vector2);
+                return SimilarityKernels.cosine(queryVector, vector);
         }
     }
 
     /**
      * 批量向量相似度搜索
+     * 索引可用时走HNSW或IVF-PQ近似检索，否则退化为全量精确计算
      */
     public List<SimilarityResult> batchSimilaritySearch(
             List<Float> queryVector,
             int topK,
             SimilarityAlgorithm algorithm,
             double threshold) {
+        return batchSimilaritySearch(queryVector, topK, algorithm, threshold, SearchMode.APPROXIMATE);
+    }
+
+    /**
+     * 批量向量相似度搜索，可指定检索模式
+     * EXACT模式始终全量计算，用于召回率校验
+     */
+    public List<SimilarityResult> batchSimilaritySearch(
+            List<Float> queryVector,
+            int topK,
+            SimilarityAlgorithm algorithm,
+            double threshold,
+            SearchMode searchMode) {
+
+        if (queryVector == null || queryVector.isEmpty()) {
+            return Collections.emptyList();
+        }
+        return searchSimilar(SimilarityKernels.toFloatArray(queryVector), topK, algorithm, threshold, searchMode);
+    }
+
+    /**
+     * 批量向量相似度搜索（float[] 版本）
+     */
+    public List<SimilarityResult> searchSimilar(
+            float[] queryVector,
+            int topK,
+            SimilarityAlgorithm algorithm,
+            double threshold) {
+        return searchSimilar(queryVector, topK, algorithm, threshold, SearchMode.APPROXIMATE);
+    }
+
+    /**
+     * 批量向量相似度搜索（float[] 版本），可指定检索模式
+     */
+    public List<SimilarityResult> searchSimilar(
+            float[] queryVector,
+            int topK,
+            SimilarityAlgorithm algorithm,
+            double threshold,
+            SearchMode searchMode) {
+
+        if (queryVector == null || queryVector.length == 0) {
+            return Collections.emptyList();
+        }
+
+        // EXACT 用于召回率校验，不走缓存
+        if (!resultCacheEnabled || searchMode == SearchMode.EXACT) {
+            return searchUncached(queryVector, topK, algorithm, threshold, searchMode);
+        }
+        String variant = algorithm + ":" + topK + ":" + threshold + ":" + searchMode;
+        long version = vectorIndexService.getResultVersion();
+        List<SimilarityResult> cached = resultCache().get(queryVector, variant, version);
+        if (cached != null) {
+            log.debug("语义结果缓存命中，返回{}条结果", cached.size());
+            return copyResults(cached);
+        }
+        List<SimilarityResult> results = searchUncached(queryVector, topK, algorithm, threshold, searchMode);
+        resultCache().put(queryVector, variant, version, copyResults(results));
+        return results;
+    }
+
+    private List<SimilarityResult> searchUncached(
+            float[] queryVector,
+            int topK,
+            SimilarityAlgorithm algorithm,
+            double threshold,
+            SearchMode searchMode) {
+
+        if (searchMode == SearchMode.BINARY) {
+            return binaryQuantizedSearch(queryVector, topK, binaryOversampling, threshold, algorithm);
+        }
+
+        if (searchMode == SearchMode.PROJECTED && vectorIndexService.isProjectedReady()
+                && (algorithm == SimilarityAlgorithm.COSINE || algorithm == SimilarityAlgorithm.DOT_PRODUCT)) {
+            try {
+                List<SimilarityResult> results = vectorIndexService.searchProjected(queryVector, topK, algorithm, threshold);
+                log.info("PCA降维搜索完成，返回{}条结果", results.size());
+                attachSnippets(results);
+                return results;
+            } catch (Exception e) {
+                log.warn("PCA降维搜索失败，退化为精确搜索", e);
+            }
+        }
+
+        if (searchMode == SearchMode.APPROXIMATE
+                && vectorIndexService.isReady() && vectorIndexService.supports(algorithm)) {
+            try {
+                List<SimilarityResult> results = vectorIndexService.search(queryVector, topK, algorithm, threshold);
+                log.info("索引近似搜索完成，返回{}条结果", results.size());
+                attachSnippets(results);
+                return results;
+            } catch (Exception e) {
+                log.warn("索引近似搜索失败，退化为精确搜索", e);
+            }
+        }
+
+        List<SimilarityResult> results = exactSimilaritySearch(queryVector, topK, algorithm, threshold);
+        attachSnippets(results);
+        return results;
+    }
+
+    /**
+     * 按 空间 / 渠道 / 状态 过滤的相似度搜索：先由属性位图求出允许的文档集合，
+     * 集合较小时直接对其精确打分；占比较低时扫描向量存储只对允许的文档打分；
+     * 其余情况在HNSW遍历中过滤，遍历规模有上限。
+     * 结果按过滤条件分别缓存，索引或属性位图变化后失效
+     */
+    public List<SimilarityResult> searchSimilar(
+            float[] queryVector,
+            int topK,
+            SimilarityAlgorithm algorithm,
+            double threshold,
+            AttributeBitmapIndex.Filter filter) {
+
+        if (queryVector == null || queryVector.length == 0 || topK <= 0) {
+            return Collections.emptyList();
+        }
+
+        // 先取版本再求文档集合，期间属性变化时结果记在旧版本下，不会被当作新版本的结果
+        long version = vectorIndexService.getResultVersion();
+        DocumentBitmap allowed = vectorIndexService.filterDocuments(filter);
+        if (allowed == null) {
+            return searchSimilar(queryVector, topK, algorithm, threshold);
+        }
+        if (allowed.isEmpty()) {
+            return Collections.emptyList();
+        }
+        if (!resultCacheEnabled) {
+            return searchFilteredUncached(queryVector, topK, algorithm, threshold, allowed);
+        }
+        String variant = algorithm + ":" + topK + ":" + threshold + ":FILTERED:" + filter;
+        List<SimilarityResult> cached = resultCache().get(queryVector, variant, version);
+        if (cached != null) {
+            log.debug("语义结果缓存命中，返回{}条结果", cached.size());
+            return copyResults(cached);
+        }
+        List<SimilarityResult> results = searchFilteredUncached(queryVector, topK, algorithm, threshold, allowed);
+        resultCache().put(queryVector, variant, version, copyResults(results));
+        return results;
+    }
+
+    private List<SimilarityResult> searchFilteredUncached(
+            float[] queryVector,
+            int topK,
+            SimilarityAlgorithm algorithm,
+            double threshold,
+            DocumentBitmap allowed) {
+
+        List<SimilarityResult> results = null;
+        boolean smallSet = allowed.cardinality() <= filterExactThreshold;
+        boolean sparse = vectorIndexService.filterSelectivity(allowed) < filterMinGraphSelectivity;
+        if (!smallSet && !sparse && vectorIndexService.supportsFiltered(algorithm)) {
+            try {
+                results = vectorIndexService.searchFiltered(queryVector, topK, algorithm, threshold, allowed);
+                log.info("过滤索引搜索完成，允许文档数{}，返回{}条结果", allowed.cardinality(), results.size());
+            } catch (Exception e) {
+                log.warn("过滤索引搜索失败，退化为精确搜索", e);
+            }
+        }
+        if (results == null) {
+            if (!smallSet && vectorStoreService.isAvailable() && vectorStoreService.getDimension() == queryVector.length) {
+                results = storeSimilaritySearch(queryVector, topK, algorithm, threshold, allowed);
+            } else {
+                List<Long> documentIds = IntStream.of(allowed.toArray())
+                    .mapToObj(Long::valueOf)
+                    .collect(Collectors.toList());
+                results = scoreDocuments(queryVector, documentIds, algorithm, threshold);
+                if (results.size() > topK) {
+                    results = new ArrayList<>(results.subList(0, topK));
+                }
+            }
+        }
+        attachSnippets(results);
+        return results;
+    }
+
+    /**
+     * 多查询检索：查询扩展产生的多个查询向量在同一次扫描中打分，每条向量只读取一次，
+     * 各查询分别按分块聚合出文档得分，再按 MAX 或 WEIGHTED_SUM 合并为文档得分。
+     * 向量扫描成本不再随扩展查询数成倍增加
+     *
+     * @param queryVectors 查询向量，维度一致
+     * @param weights 各查询的权重，为 null 时等权
+     */
+    public List<SimilarityResult> multiQuerySearch(
+            List<float[]> queryVectors,
+            float[] weights,
+            int topK,
+            SimilarityAlgorithm algorithm,
+            double threshold,
+            ChunkAggregator.Combination combination) {
+        return multiQuerySearch(queryVectors, weights, topK, algorithm, threshold, combination, null);
+    }
+
+    /**
+     * 按 空间 / 渠道 / 状态 过滤的多查询检索：扫描时只对属性位图允许的文档打分，
+     * 不满足条件的文档不会占用 topK 名额
+     *
+     * @param filter 过滤条件，为 null 或属性位图尚未加载时不过滤
+     */
+    public List<SimilarityResult> multiQuerySearch(
+            List<float[]> queryVectors,
+            float[] weights,
+            int topK,
+            SimilarityAlgorithm algorithm,
+            double threshold,
+            ChunkAggregator.Combination combination,
+            AttributeBitmapIndex.Filter filter) {
+
+        if (queryVectors == null || queryVectors.isEmpty() || topK <= 0) {
+            return Collections.emptyList();
+        }
+        if (weights != null && weights.length != queryVectors.size()) {
+            throw new IllegalArgumentException("查询权重数与查询数不一致");
+        }
+        if (queryVectors.size() == 1) {
+            return filter != null
+                ? searchSimilar(queryVectors.get(0), topK, algorithm, threshold, filter)
+                : searchSimilar(queryVectors.get(0), topK, algorithm, threshold);
+        }
+        DocumentBitmap allowed = filter != null ? vectorIndexService.filterDocuments(filter) : null;
+        if (allowed != null && allowed.isEmpty()) {
+            return Collections.emptyList();
+        }
 
         try {
-            // 获取所有文档向量
-            List<DocumentVector> allDocVectors = documentVectorRepository.findAll();
+            float[][] queries = queryVectors.toArray(new float[0][]);
+            ChunkAggregator[] perQuery = scoreQueries(queries, algorithm, allowed);
+            List<SimilarityResult> results = toResults(
+                ChunkAggregator.combine(perQuery, weights, combination, topK, threshold), algorithm);
+            for (SimilarityResult result : results) {
+                result.getMetadata().put("searchMode", "MULTI_QUERY");
+                result.getMetadata().put("queryCount", queries.length);
+            }
+            log.info("多查询搜索完成，查询数{}，返回{}条结果", queries.length, results.size());
+            attachSnippets(results);
+            return results;
+        } catch (Exception e) {
+            log.error("多查询搜索失败", e);
+            return Collections.emptyList();
+        }
+    }
 
-            if (allDocVectors.isEmpty()) {
-                log.warn("没有找到任何文档向量");
-                return Collections.emptyList();
+    /**
+     * 对全部向量计算每个查询的分块得分，按查询分别聚合。
+     * 内积类算法在向量存储上分块批量计算并分片并行，其余情况逐条计算
+     *
+     * @param allowed 允许打分的文档，为 null 时不过滤
+     */
+    private ChunkAggregator[] scoreQueries(float[][] queries, SimilarityAlgorithm algorithm, DocumentBitmap allowed) {
+        int dimension = queries[0].length;
+        for (float[] query : queries) {
+            if (query == null || query.length != dimension) {
+                throw new IllegalArgumentException("查询向量维度不一致");
+            }
+        }
+        boolean cosine = algorithm == SimilarityAlgorithm.COSINE;
+        boolean storeReady = vectorStoreService.isAvailable() && vectorStoreService.getDimension() == dimension;
+
+        if (storeReady && (cosine || algorithm == SimilarityAlgorithm.DOT_PRODUCT)) {
+            float[] queryNorms = new float[queries.length];
+            for (int q = 0; q < queries.length; q++) {
+                queryNorms[q] = SimilarityKernels.squaredNorm(queries[q]);
+            }
+            MappedVectorStore.View view = vectorStoreService.view();
+            List<ChunkAggregator[]> shards = shardedScanner().execute(view.recordCount(),
+                scanMinShardRecords, (shard, from, to) -> {
+                    ChunkAggregator[] aggregators = newChunkAggregators(queries.length);
+                    view.scanDots(queries, from, to, (vectorId, documentId, dots, squaredNorm) -> {
+                        if (allowed != null && !allowed.contains(documentId)) {
+                            return;
+                        }
+                        for (int q = 0; q < dots.length; q++) {
+                            double similarity = cosine
+                                ? SimilarityKernels.cosine(dots[q], queryNorms[q], squaredNorm) : dots[q];
+                            aggregators[q].offer(documentId, vectorId, (float) similarity);
+                        }
+                    });
+                    return aggregators;
+                });
+            ChunkAggregator[] merged = shards.get(0);
+            for (int i = 1; i < shards.size(); i++) {
+                for (int q = 0; q < merged.length; q++) {
+                    merged[q].merge(shards.get(i)[q]);
+                }
+            }
+            return merged;
+        }
+
+        ChunkAggregator[] aggregators = newChunkAggregators(queries.length);
+        if (storeReady) {
+            vectorStoreService.scan((vectorId, documentId, vector) -> {
+                if (allowed != null && !allowed.contains(documentId)) {
+                    return;
+                }
+                for (int q = 0; q < queries.length; q++) {
+                    aggregators[q].offer(documentId, vectorId, (float) computeSimilarity(queries[q], vector, algorithm));
+                }
+            });
+            return aggregators;
+        }
+
+        float[][] unitQueries = new float[queries.length][];
+        for (int q = 0; q < queries.length; q++) {
+            unitQueries[q] = unitQuery(queries[q], algorithm);
+        }
+        // 每条向量只解码一次，再与全部查询计算
+        for (HydratedChunks page : vectorHydrationService.chunkPages(scanPageSize)) {
+            for (int i = 0; i < page.size(); i++) {
+                if (allowed != null && !allowed.contains(page.documentIds()[i])) {
+                    continue;
+                }
+                try {
+                    for (int q = 0; q < queries.length; q++) {
+                        double score = scoreVector(queries[q], unitQueries[q], page.vectors()[i], page.norms()[i],
+                            algorithm);
+                        aggregators[q].offer(page.documentIds()[i], page.chunkIds()[i], (float) score);
+                    }
+                } catch (Exception e) {
+                    log.warn("计算文档向量相似度失败: documentId={}", page.documentIds()[i], e);
+                }
             }
+        }
+        return aggregators;
+    }
 
-            // 并行计算相似度
-            List<SimilarityResult> results = allDocVectors.parallelStream()
-                .map(docVector -> {
-                    try {
-                        List<Float> docVectorData = convertDoubleListToFloatList(docVector.getVectorData());
-                        double similarity = calculateSimilarity(queryVector, docVectorData, algorithm);
+    /**
+     * 全量精确相似度搜索
+     */
+    private List<SimilarityResult> exactSimilaritySearch(
+            float[] queryVector,
+            int topK,
+            SimilarityAlgorithm algorithm,
+            double threshold) {
+
+        if (vectorStoreService.isAvailable() && vectorStoreService.getDimension() == queryVector.length) {
+            return storeSimilaritySearch(queryVector, topK, algorithm, threshold, null);
+        }
 
-                        if (similarity >= threshold) {
-                            return new SimilarityResult(docVector.getDocumentId(), similarity, algorithm);
+        try {
+            float[] unitQuery = unitQuery(queryVector, algorithm);
+            ChunkAggregator aggregator = newChunkAggregator();
+            int scanned = 0;
+
+            // 分页读取向量，每页分片并行计算各分块相似度（无效数据记为 NaN），再按文档聚合、过滤阈值并选出 Top-K
+            for (HydratedChunks page : vectorHydrationService.chunkPages(scanPageSize)) {
+                float[] scores = new float[page.size()];
+                shardedScanner().execute(scores.length, scanMinShardRecords, (shard, from, to) -> {
+                    for (int i = (int) from; i < to; i++) {
+                        scores[i] = Float.NaN;
+                        try {
+                            scores[i] = (float) scoreVector(queryVector, unitQuery, page.vectors()[i], page.norms()[i],
+                                algorithm);
+                        } catch (Exception e) {
+                            log.warn("计算文档向量相似度失败: documentId={}", page.documentIds()[i], e);
                         }
-                        return null;
-                    } catch (Exception e) {
-                        log.warn("计算文档向量相似度失败: documentId={}", docVector.getDocumentId(), e);
-                        return null;
                     }
-                })
-                .filter(Objects::nonNull)
-                .sorted((a, b) -> Double.compare(b.getSimilarity(), a.getSimilarity()))
-                .limit(topK)
-                .collect(Collectors.toList());
+                    return null;
+                });
+                for (int i = 0; i < scores.length; i++) {
+                    aggregator.offer(page.documentIds()[i], page.chunkIds()[i], scores[i]);
+                }
+                scanned += scores.length;
+            }
+
+            if (scanned == 0) {
+                log.warn("没有找到任何文档向量");
+                return Collections.emptyList();
+            }
+            List<SimilarityResult> results = toResults(aggregator.top(topK, threshold), algorithm);
 
             log.info("批量相似度搜索完成，返回{}条结果", results.size());
             return results;
@@ -170,8 +609,167 @@ public class VectorSimilarityService {
         }
     }
 
+    /**
+     * 直接扫描内存映射向量存储的精确搜索，向量数据不经过JSON解析和装箱
+     *
+     * @param allowed 允许的文档集合，为 null 时不过滤
+     */
+    private List<SimilarityResult> storeSimilaritySearch(
+            float[] queryVector,
+            int topK,
+            SimilarityAlgorithm algorithm,
+            double threshold,
+            DocumentBitmap allowed) {
+
+        try {
+            boolean dotBased = algorithm == SimilarityAlgorithm.COSINE || algorithm == SimilarityAlgorithm.DOT_PRODUCT;
+            MappedVectorStore.View view = vectorStoreService.view();
+            long records = view != null ? view.recordCount() : 0L;
+            if (dotBased && shardedScanner().shardCount(records, scanMinShardRecords) > 1) {
+                return shardedStoreSearch(queryVector, topK, algorithm, threshold, allowed, view);
+            }
+
+            // 存储中每个分块是一条记录，扫描时按文档聚合
+            ChunkAggregator aggregator = newChunkAggregator();
+            if (dotBased) {
+                // 内积类算法走批量内核，直接在映射区上计算
+                vectorStoreService.scanDots(queryVector, dotVisitor(queryVector, algorithm, allowed, aggregator));
+            } else {
+                vectorStoreService.scan((vectorId, documentId, vector) -> {
+                    if (allowed != null && !allowed.contains(documentId)) {
+                        return;
+                    }
+                    double similarity = computeSimilarity(queryVector, vector, algorithm);
+                    aggregator.offer(documentId, vectorId, (float) similarity);
+                });
+            }
+
+            List<SimilarityResult> topResults = toResults(aggregator.top(topK, threshold), algorithm);
+
+            log.info("向量存储精确搜索完成，返回{}条结果", topResults.size());
+            return topResults;
+
+        } catch (Exception e) {
+            log.error("向量存储精确搜索失败", e);
+            return Collections.emptyList();
+        }
+    }
+
+    /**
+     * 分片并行扫描向量存储：每个分片扫描一段连续记录并在本地聚合、取 Top-K，
+     * MAX 聚合时对各分片的局部结果做多路归并，TOP_M_MEAN 时合并各分片的聚合器
+     */
+    private List<SimilarityResult> shardedStoreSearch(
+            float[] queryVector,
+            int topK,
+            SimilarityAlgorithm algorithm,
+            double threshold,
+            DocumentBitmap allowed,
+            MappedVectorStore.View view) {
+
+        List<ChunkAggregator> shards = shardedScanner().execute(view.recordCount(), scanMinShardRecords, (shard, from, to) -> {
+            ChunkAggregator aggregator = newChunkAggregator();
+            view.scanDots(queryVector, from, to, dotVisitor(queryVector, algorithm, allowed, aggregator));
+            return aggregator;
+        });
+
+        List<DocumentMatch> matches;
+        if (shards.get(0).getAggregation() == ChunkAggregator.Aggregation.MAX) {
+            List<List<DocumentMatch>> shardTops = new ArrayList<>(shards.size());
+            for (ChunkAggregator aggregator : shards) {
+                shardTops.add(aggregator.top(topK, threshold));
+            }
+            matches = ChunkAggregator.mergeTop(shardTops, topK);
+        } else {
+            ChunkAggregator merged = shards.get(0);
+            for (int i = 1; i < shards.size(); i++) {
+                merged.merge(shards.get(i));
+            }
+            matches = merged.top(topK, threshold);
+        }
+
+        List<SimilarityResult> topResults = toResults(matches, algorithm);
+        log.info("向量存储分片搜索完成，分片数: {}，返回{}条结果", shards.size(), topResults.size());
+        return topResults;
+    }
+
+    private static MappedVectorStore.DotVisitor dotVisitor(
+            float[] queryVector,
+            SimilarityAlgorithm algorithm,
+            DocumentBitmap allowed,
+            ChunkAggregator aggregator) {
+
+        float queryNorm = SimilarityKernels.squaredNorm(queryVector);
+        boolean cosine = algorithm == SimilarityAlgorithm.COSINE;
+        return (vectorId, documentId, dot, squaredNorm) -> {
+            if (allowed != null && !allowed.contains(documentId)) {
+                return;
+            }
+            double similarity = cosine ? SimilarityKernels.cosine(dot, queryNorm, squaredNorm) : dot;
+            aggregator.offer(documentId, vectorId, (float) similarity);
+        };
+    }
+
+    /**
+     * 分片扫描执行器，首次使用时按配置创建
+     */
+    private ShardedScanner shardedScanner() {
+        ShardedScanner scanner = shardedScanner;
+        if (scanner == null) {
+            synchronized (this) {
+                scanner = shardedScanner;
+                if (scanner == null) {
+                    scanner = new ShardedScanner(scanWorkers, scanParallelism, scanMaxConcurrentQueries);
+                    shardedScanner = scanner;
+                    log.info("分片扫描执行器已创建，工作线程: {}，单查询分片数: {}",
+                        scanner.getWorkerCount(), scanner.getParallelism());
+                }
+            }
+        }
+        return scanner;
+    }
+
+    /**
+     * 语义结果缓存，首次使用时按配置创建
+     */
+    private SemanticResultCache<List<SimilarityResult>> resultCache() {
+        SemanticResultCache<List<SimilarityResult>> cache = resultCache;
+        if (cache == null) {
+            synchronized (this) {
+                cache = resultCache;
+                if (cache == null) {
+                    cache = new SemanticResultCache<>(cacheHashBits, cacheSize, cacheMinCosine, RESULT_CACHE_SEED);
+                    resultCache = cache;
+                }
+            }
+        }
+        return cache;
+    }
+
+    /**
+     * 复制结果列表和元数据，缓存中的结果不会被调用方修改
+     */
+    private static List<SimilarityResult> copyResults(List<SimilarityResult> results) {
+        List<SimilarityResult> copies = new ArrayList<>(results.size());
+        for (SimilarityResult result : results) {
+            SimilarityResult copy = new SimilarityResult(result.getDocumentId(), result.getSimilarity(), result.getAlgorithm());
+            copy.getMetadata().putAll(result.getMetadata());
+            copies.add(copy);
+        }
+        return copies;
+    }
+
+    @PreDestroy
+    public void destroy() {
+        ShardedScanner scanner = shardedScanner;
+        if (scanner != null) {
+            scanner.close();
+        }
+    }
+
     /**
      * 近似最近邻搜索 (ANN)
+     * 先用LSH召回候选文档，再对候选做精确相似度重排；LSH索引未就绪时退化为批量搜索
      */
     public List<SimilarityResult> approximateNearestNeighborSearch(
             List<Float> queryVector,
@@ -179,18 +777,26 @@ public class VectorSimilarityService {
             double approximationFactor) {
 
         try {
-            // 使用局部敏感哈希 (LSH) 进行快速近似搜索
-            List<Long> candidateDocuments = findCandidatesWithLSH(queryVector, topK * 3);
+            float[] query = SimilarityKernels.toFloatArray(queryVector);
+            if (!vectorIndexService.isLshReady()) {
+                return searchSimilar(query, topK, SimilarityAlgorithm.COSINE, 0.0);
+            }
+
+            // 近似因子越大，召回的候选越多
+            int candidateCount = (int) Math.ceil(topK * 3 * Math.max(1.0, approximationFactor));
+            List<Long> candidateDocuments = findCandidatesWithLSH(query, candidateCount);
 
             // 对候选文档进行精确相似度计算
-            return calculateSimilarities(
-                queryVector,
+            List<SimilarityResult> results = scoreDocuments(
+                query,
                 candidateDocuments,
                 SimilarityAlgorithm.COSINE,
                 0.0
             ).stream()
                 .limit(topK)
                 .collect(Collectors.toList());
+            attachSnippets(results);
+            return results;
 
         } catch (Exception e) {
             log.error("ANN搜索失败", e);
@@ -198,6 +804,98 @@ public class VectorSimilarityService {
         }
     }
 
+    /**
+     * 二值量化检索：汉明距离扫描选出 topK * oversampling 个候选，再用余弦相似度精确重排。
+     * 二值索引不可用时退化为精确检索。
+     *
+     * @param oversampling 过采样倍数，越大召回越高、重排越慢；小于1时使用默认配置
+     */
+    public List<SimilarityResult> binaryQuantizedSearch(
+            float[] queryVector,
+            int topK,
+            int oversampling,
+            double threshold) {
+        return binaryQuantizedSearch(queryVector, topK, oversampling, threshold, SimilarityAlgorithm.COSINE);
+    }
+
+    /**
+     * 二值量化检索，候选按指定算法精确重排，阈值也按该算法的得分解释
+     */
+    public List<SimilarityResult> binaryQuantizedSearch(
+            float[] queryVector,
+            int topK,
+            int oversampling,
+            double threshold,
+            SimilarityAlgorithm algorithm) {
+
+        if (queryVector == null || queryVector.length == 0 || topK <= 0) {
+            return Collections.emptyList();
+        }
+        if (!vectorIndexService.isBinaryReady()) {
+            return exactSimilaritySearch(queryVector, topK, algorithm, threshold);
+        }
+
+        try {
+            int factor = oversampling >= 1 ? oversampling : binaryOversampling;
+            List<Long> candidateDocuments = vectorIndexService.findBinaryCandidates(queryVector, topK * factor);
+
+            List<SimilarityResult> results = scoreDocuments(
+                queryVector, candidateDocuments, algorithm, threshold);
+            if (results.size() > topK) {
+                results = new ArrayList<>(results.subList(0, topK));
+            }
+            for (SimilarityResult result : results) {
+                result.getMetadata().put("searchMode", "BINARY");
+                result.getMetadata().put("oversampling", factor);
+            }
+            attachSnippets(results);
+            return results;
+
+        } catch (Exception e) {
+            log.error("二值量化检索失败", e);
+            return Collections.emptyList();
+        }
+    }
+
+    /**
+     * 评估二值量化检索相对精确检索的 Top-K 召回率，并记录到索引统计中
+     *
+     * @return 召回率，二值索引不可用时返回 -1
+     */
+    public double evaluateBinaryRecall(float[] queryVector, int topK, int oversampling) {
+        if (!vectorIndexService.isBinaryReady()) {
+            return -1.0;
+        }
+
+        List<SimilarityResult> exact = exactSimilaritySearch(queryVector, topK, SimilarityAlgorithm.COSINE, -1.0);
+        if (exact.isEmpty()) {
+            return -1.0;
+        }
+        List<SimilarityResult> approximate = binaryQuantizedSearch(queryVector, topK, oversampling, -1.0);
+
+        Set<Long> found = new HashSet<>();
+        for (SimilarityResult result : approximate) {
+            found.add(result.getDocumentId());
+        }
+        int hits = 0;
+        for (SimilarityResult result : exact) {
+            if (found.contains(result.getDocumentId())) {
+                hits++;
+            }
+        }
+        double recall = (double) hits / exact.size();
+        vectorIndexService.recordBinaryRecall(recall);
+        log.info("二值量化召回率评估: topK={}, 过采样={}, 召回率={}", topK, oversampling, String.format("%.4f", recall));
+        return recall;
+    }
+
+    /**
+     * 近似索引的内存占用和召回率统计
+     */
+    public List<SimilarityStatistics> getIndexStatistics() {
+        return vectorIndexService.getIndexStatistics();
+    }
+
     /**
      * 向量聚类相似度分析
      */
@@ -217,8 +915,11 @@ public class VectorSimilarityService {
                 return result;
             }
 
-            // 简化的K-means聚类实现
-            return performKMeansClustering(similarDocs, clustersCount);
+            Map<String, List<SimilarityResult>> result = new HashMap<>();
+            for (DocumentCluster cluster : performKMeansClustering(similarDocs, clustersCount)) {
+                result.put("cluster_" + cluster.clusterId(), cluster.members());
+            }
+            return result;
 
         } catch (Exception e) {
             log.error("聚类相似度分析失败", e);
@@ -226,185 +927,281 @@ public class VectorSimilarityService {
         }
     }
 
+    /**
+     * 对相似文档做 k-means 聚类，返回各簇的中心和成员
+     */
+    public List<DocumentCluster> clusterSimilarDocuments(
+            List<Float> queryVector,
+            int clustersCount,
+            double threshold) {
+
+        try {
+            List<SimilarityResult> similarDocs = batchSimilaritySearch(
+                queryVector, 1000, SimilarityAlgorithm.COSINE, threshold);
+            if (similarDocs.isEmpty() || clustersCount <= 0) {
+                return Collections.emptyList();
+            }
+            return performKMeansClustering(similarDocs, clustersCount);
+
+        } catch (Exception e) {
+            log.error("相似文档聚类失败", e);
+            return Collections.emptyList();
+        }
+    }
+
     // ==================== 私有方法 ====================
 
     /**
-     * 处理单个批次
+     * 对指定文档的全部分块打分并按文档聚合，按相似度降序返回（不含摘要）
      */
-    private List<SimilarityResult> processBatch(
-            List<Float> queryVector,
+    private List<SimilarityResult> scoreDocuments(
+            float[] queryVector,
             List<Long> documentIds,
             SimilarityAlgorithm algorithm,
             double threshold) {
 
-        List<SimilarityResult> batchResults = new ArrayList<>();
-
-        for (Long documentId : documentIds) {
-            try {
-                List<DocumentVector> docVectors = documentVectorRepository.findByDocumentId(documentId);
-                if (!docVectors.isEmpty()) {
-                    DocumentVector docVector = docVectors.get(0); // 取第一个向量
-                    List<Float> docVectorData = convertDoubleListToFloatList(docVector.getVectorData());
+        if (queryVector == null || queryVector.length == 0 || documentIds == null || documentIds.isEmpty()) {
+            return Collections.emptyList();
+        }
 
-                    double similarity = calculateSimilarity(queryVector, docVectorData, algorithm);
+        try {
+            log.info("开始计算相似度，查询向量维度: {}, 文档数量: {}", queryVector.length, documentIds.size());
 
-                    if (similarity >= threshold) {
-                        batchResults.add(new SimilarityResult(documentId, similarity, algorithm));
-                    }
+            // 分批加载：当前批次打分的同时预取下一批，同一时刻只有一个数据库查询在进行
+            List<List<Long>> batches = createBatches(documentIds, batchSize);
+            float[] unitQuery = unitQuery(queryVector, algorithm);
+            ChunkAggregator aggregator = newChunkAggregator();
+
+            CompletableFuture<HydratedChunks> pending = hydrateAsync(batches.get(0));
+            for (int i = 0; i < batches.size(); i++) {
+                HydratedChunks current = pending.join();
+                if (i + 1 < batches.size()) {
+                    pending = hydrateAsync(batches.get(i + 1));
                 }
-            } catch (Exception e) {
-                log.warn("处理文档向量失败: documentId={}", documentId, e);
+                processBatch(queryVector, unitQuery, current, algorithm, aggregator);
             }
-        }
 
-        return batchResults;
+            List<SimilarityResult> results = toResults(aggregator.top(aggregator.size(), threshold), algorithm);
+            log.info("相似度计算完成，返回{}条结果", results.size());
+            return results;
+
+        } catch (Exception e) {
+            log.error("相似度计算失败", e);
+            return Collections.emptyList();
+        }
     }
 
     /**
-     * 创建批次
+     * 异步加载一个批次文档的分块向量
      */
-    private <T> List<List<T>> createBatches(List<T> items, int batchSize) {
-        return IntStream.range(0, (items.size() + batchSize - 1) / batchSize)
-            .mapToObj(i -> items.subList(i * batchSize, Math.min((i + 1) * batchSize, items.size())))
-            .collect(Collectors.toList());
+    private CompletableFuture<HydratedChunks> hydrateAsync(List<Long> documentIds) {
+        return CompletableFuture.supplyAsync(
+            () -> vectorHydrationService.hydrateChunks(documentIds), vectorComputeExecutor);
     }
 
     /**
-     * 余弦相似度计算
+     * 处理单个批次：逐个分块打分，写入文档聚合器
      */
-    private double calculateCosineSimilarity(List<Float> vector1, List<Float> vector2) {
-        double dotProduct = 0.0;
-        double norm1 = 0.0;
-        double norm2 = 0.0;
+    private void processBatch(
+            float[] queryVector,
+            float[] unitQuery,
+            HydratedChunks batch,
+            SimilarityAlgorithm algorithm,
+            ChunkAggregator aggregator) {
 
-        for (int i = 0; i < vector1.size(); i++) {
-            float v1 = vector1.get(i);
-            float v2 = vector2.get(i);
+        for (int i = 0; i < batch.size(); i++) {
+            float[] data = batch.vectors()[i];
+            if (data.length != queryVector.length) {
+                continue;
+            }
+            double similarity = scoreVector(queryVector, unitQuery, data, batch.norms()[i], algorithm);
+            aggregator.offer(batch.documentIds()[i], batch.chunkIds()[i], (float) similarity);
+        }
+    }
 
-            dotProduct += v1 * v2;
-            norm1 += v1 * v1;
-            norm2 += v2 * v2;
+    private ChunkAggregator newChunkAggregator() {
+        return new ChunkAggregator(chunkAggregation, chunkTopM);
+    }
+
+    private ChunkAggregator[] newChunkAggregators(int count) {
+        ChunkAggregator[] aggregators = new ChunkAggregator[count];
+        for (int i = 0; i < count; i++) {
+            aggregators[i] = newChunkAggregator();
         }
+        return aggregators;
+    }
 
-        double magnitude = Math.sqrt(norm1) * Math.sqrt(norm2);
-        return magnitude == 0 ? 0.0 : dotProduct / magnitude;
+    private static List<SimilarityResult> toResults(List<DocumentMatch> matches, SimilarityAlgorithm algorithm) {
+        List<SimilarityResult> results = new ArrayList<>(matches.size());
+        for (DocumentMatch match : matches) {
+            SimilarityResult result = new SimilarityResult(match.documentId(), match.score(), algorithm);
+            if (match.bestChunkId() >= 0) {
+                result.getMetadata().put("chunkId", match.bestChunkId());
+            }
+            result.getMetadata().put("matchedChunks", match.matchedChunks());
+            results.add(result);
+        }
+        return results;
     }
 
     /**
-     * 欧几里得相似度计算 (转换为相似度)
+     * 为结果补充最相似分块的序号和摘要，只查询最终返回的分块
      */
-    private double calculateEuclideanSimilarity(List<Float> vector1, List<Float> vector2) {
-        double sumSquaredDiffs = 0.0;
-
-        for (int i = 0; i < vector1.size(); i++) {
-            double diff = vector1.get(i) - vector2.get(i);
-            sumSquaredDiffs += diff * diff;
+    private void attachSnippets(List<SimilarityResult> results) {
+        if (results == null || results.isEmpty()) {
+            return;
         }
+        try {
+            List<Long> chunkIds = new ArrayList<>(results.size());
+            for (SimilarityResult result : results) {
+                if (result.getMetadata().get("chunkId") instanceof Long chunkId) {
+                    chunkIds.add(chunkId);
+                }
+            }
+            if (chunkIds.isEmpty()) {
+                return;
+            }
+            Map<Long, ChunkText> texts = new HashMap<>();
+            for (List<Long> batch : createBatches(chunkIds, batchSize)) {
+                texts.putAll(vectorHydrationService.loadChunkTexts(batch));
+            }
+            for (SimilarityResult result : results) {
+                ChunkText chunk = texts.get(result.getMetadata().get("chunkId"));
+                if (chunk == null) {
+                    continue;
+                }
+                result.getMetadata().put("chunkIndex", chunk.chunkIndex());
+                if (chunk.text() != null) {
+                    result.getMetadata().put("snippet", truncate(chunk.text(), snippetLength));
+                }
+            }
+        } catch (Exception e) {
+            log.warn("加载分块摘要失败", e);
+        }
+    }
 
-        double distance = Math.sqrt(sumSquaredDiffs);
-        // 转换为相似度 (距离越小，相似度越高)
-        return 1.0 / (1.0 + distance);
+    private static String truncate(String text, int maxLength) {
+        if (maxLength <= 0 || text.length() <= maxLength) {
+            return text;
+        }
+        return text.substring(0, maxLength) + "...";
     }
 
     /**
-     * 点积相似度计算
+     * 余弦相似度且文档向量已在写入时归一化，直接与归一化后的查询做一次点积；
+     * 依赖向量长度的算法按持久化的范数还原原始向量。
+     *
+     * @param data 文档向量，norm 不为 NaN 时是单位向量（不会被修改）
+     * @param norm 归一化前的范数，未归一化时为 NaN
      */
-    private double calculateDotProductSimilarity(List<Float> vector1, List<Float> vector2) {
-        double dotProduct = 0.0;
-
-        for (int i = 0; i < vector1.size(); i++) {
-            dotProduct += vector1.get(i) * vector2.get(i);
+    private double scoreVector(float[] queryVector, float[] unitQuery,
+                               float[] data, double norm, SimilarityAlgorithm algorithm) {
+        if (data == null || data.length == 0) {
+            return Double.NaN;
         }
-
-        return dotProduct;
+        boolean normalized = !Double.isNaN(norm);
+        if (unitQuery != null && normalized) {
+            if (data.length != unitQuery.length) {
+                return Double.NaN;
+            }
+            return SimilarityKernels.dot(unitQuery, data);
+        }
+        if (normalized) {
+            float scale = (float) norm;
+            float[] restored = new float[data.length];
+            for (int i = 0; i < data.length; i++) {
+                restored[i] = data[i] * scale;
+            }
+            data = restored;
+        }
+        return computeSimilarity(queryVector, data, algorithm);
     }
 
     /**
-     * 曼哈顿距离相似度计算
+     * 余弦相似度时返回归一化后的查询副本，其他算法返回 null
      */
-    private double calculateManhattanSimilarity(List<Float> vector1, List<Float> vector2) {
-        double manhattanDistance = 0.0;
-
-        for (int i = 0; i < vector1.size(); i++) {
-            manhattanDistance += Math.abs(vector1.get(i) - vector2.get(i));
+    private static float[] unitQuery(float[] queryVector, SimilarityAlgorithm algorithm) {
+        if (algorithm != SimilarityAlgorithm.COSINE || queryVector == null) {
+            return null;
         }
-
-        // 转换为相似度
-        return 1.0 / (1.0 + manhattanDistance);
+        float[] unit = queryVector.clone();
+        SimilarityKernels.normalize(unit);
+        return unit;
     }
 
     /**
-     * Jaccard相似度计算 (适用于稀疏向量)
+     * 用有界Top-K选择器按相似度降序取前 limit 个结果
      */
-    private double calculateJaccardSimilarity(List<Float> vector1, List<Float> vector2) {
-        Set<Integer> set1 = new HashSet<>();
-        Set<Integer> set2 = new HashSet<>();
-
-        // 找出非零元素的索引
-        for (int i = 0; i < vector1.size(); i++) {
-            if (vector1.get(i) != 0) set1.add(i);
-            if (vector2.get(i) != 0) set2.add(i);
+    private static List<SimilarityResult> rankBySimilarity(List<SimilarityResult> results, int limit) {
+        float[] scores = new float[results.size()];
+        for (int i = 0; i < scores.length; i++) {
+            scores[i] = (float) results.get(i).getSimilarity();
         }
+        int[] order = TopKSelector.parallelSelect(scores, limit);
+        List<SimilarityResult> ranked = new ArrayList<>(order.length);
+        for (int index : order) {
+            ranked.add(results.get(index));
+        }
+        return ranked;
+    }
 
-        Set<Integer> intersection = new HashSet<>(set1);
-        intersection.retainAll(set2);
-
-        Set<Integer> union = new HashSet<>(set1);
-        union.addAll(set2);
-
-        return union.isEmpty() ? 0.0 : (double) intersection.size() / union.size();
+    /**
+     * 创建批次
+     */
+    private <T> List<List<T>> createBatches(List<T> items, int batchSize) {
+        return IntStream.range(0, (items.size() + batchSize - 1) / batchSize)
+            .mapToObj(i -> items.subList(i * batchSize, Math.min((i + 1) * batchSize, items.size())))
+            .collect(Collectors.toList());
     }
 
     /**
      * 局部敏感哈希候选查找
      */
-    private List<Long> findCandidatesWithLSH(List<Float> queryVector, int candidateCount) {
-        // 简化的LSH实现
-        // 实际应用中应使用更专业的LSH算法
-        List<DocumentVector> allVectors = documentVectorRepository.findAll();
-
-        return allVectors.stream()
-            .map(DocumentVector::getDocumentId)
-            .limit(candidateCount)
-            .collect(Collectors.toList());
+    private List<Long> findCandidatesWithLSH(float[] queryVector, int candidateCount) {
+        return vectorIndexService.findLshCandidates(queryVector, candidateCount);
     }
 
     /**
-     * K-means聚类实现
+     * K-means聚类实现：批量加载结果向量，按方向（单位向量）聚类，簇内按相似度降序
      */
-    private Map<String, List<SimilarityResult>> performKMeansClustering(
+    private List<DocumentCluster> performKMeansClustering(
             List<SimilarityResult> documents,
             int clustersCount) {
 
-        // 简化的K-means聚类
-        Map<String, List<SimilarityResult>> clusters = new HashMap<>();
-
-        // 将文档按相似度分组
-        int docsPerCluster = Math.max(1, documents.size() / clustersCount);
-
-        for (int i = 0; i < clustersCount; i++) {
-            int startIndex = i * docsPerCluster;
-            int endIndex = Math.min(startIndex + docsPerCluster, documents.size());
+        Map<Long, SimilarityResult> resultsById = new HashMap<>();
+        for (SimilarityResult document : documents) {
+            resultsById.putIfAbsent(document.getDocumentId(), document);
+        }
+        HydratedVectors hydrated = vectorHydrationService.hydrate(new ArrayList<>(resultsById.keySet()));
+        if (hydrated == null || hydrated.size() == 0) {
+            return Collections.emptyList();
+        }
 
-            if (startIndex < documents.size()) {
-                clusters.put("cluster_" + i, documents.subList(startIndex, endIndex));
+        float[][] data = new float[hydrated.size()][];
+        for (int i = 0; i < data.length; i++) {
+            float[] vector = hydrated.vectors()[i];
+            if (Float.isNaN(hydrated.norms()[i])) {
+                vector = vector.clone();
+                SimilarityKernels.normalize(vector);
             }
+            data[i] = vector;
         }
 
-        return clusters;
-    }
-
-    /**
-     * 将List<Double>转换为List<Float>
-     */
-    private List<Float> convertDoubleListToFloatList(List<Double> doubleList) {
-        if (doubleList == null || doubleList.isEmpty()) {
-            return Collections.emptyList();
+        KMeans.Clustering clustering = KMeans.fit(data, clustersCount, clusterIterations, CLUSTER_SEED);
+        int[][] members = clustering.members();
+        List<DocumentCluster> clusters = new ArrayList<>();
+        for (int c = 0; c < members.length; c++) {
+            if (members[c].length == 0) {
+                continue;
+            }
+            List<SimilarityResult> clusterDocs = new ArrayList<>(members[c].length);
+            for (int member : members[c]) {
+                clusterDocs.add(resultsById.get(hydrated.documentIds()[member]));
+            }
+            clusters.add(new DocumentCluster(clusters.size(), clustering.centroids()[c],
+                rankBySimilarity(clusterDocs, clusterDocs.size())));
         }
-        
-        return doubleList.stream()
-            .map(Double::floatValue)
-            .collect(Collectors.toList());
+        return clusters;
     }
 
     // ==================== 内部类和枚举 ====================
@@ -420,6 +1217,22 @@ public class VectorSimilarityService {
         JACCARD        // Jaccard相似度
     }
 
+    /**
+     * 检索模式枚举
+     */
+    public enum SearchMode {
+        APPROXIMATE,   // 近似检索（HNSW索引，不可用时退化为精确检索）
+        EXACT,         // 精确检索（全量计算）
+        BINARY,        // 二值量化初筛 + 按指定算法精确重排
+        PROJECTED      // PCA降维初筛 + 原始维度精确重排（不可用时退化为精确检索）
+    }
+
+    /**
+     * 文档聚类结果：簇中心（单位向量空间）和按相似度降序的成员
+     */
+    public record DocumentCluster(int clusterId, float[] centroid, List<SimilarityResult> members) {
+    }
+
     /**
      * 相似度结果
      */
@@ -462,6 +1275,12 @@ public class VectorSimilarityService {
         private double minSimilarity;
         private double standardDeviation;
         private int totalComparisons;
+        // 索引统计：类型、向量数、内存占用、原始向量大小、估算召回率（-1表示未评估）
+        private String indexType;
+        private int indexedVectors;
+        private long indexMemoryBytes;
+        private long rawVectorBytes;
+        private double estimatedRecall = -1.0;
 
         // Getters and Setters
         public double getAverageSimilarity() { return averageSimilarity; }
@@ -474,5 +1293,15 @@ public class VectorSimilarityService {
         public void setStandardDeviation(double standardDeviation) { this.standardDeviation = standardDeviation; }
         public int getTotalComparisons() { return totalComparisons; }
         public void setTotalComparisons(int totalComparisons) { this.totalComparisons = totalComparisons; }
+        public String getIndexType() { return indexType; }
+        public void setIndexType(String indexType) { this.indexType = indexType; }
+        public int getIndexedVectors() { return indexedVectors; }
+        public void setIndexedVectors(int indexedVectors) { this.indexedVectors = indexedVectors; }
+        public long getIndexMemoryBytes() { return indexMemoryBytes; }
+        public void setIndexMemoryBytes(long indexMemoryBytes) { this.indexMemoryBytes = indexMemoryBytes; }
+        public long getRawVectorBytes() { return rawVectorBytes; }
+        public void setRawVectorBytes(long rawVectorBytes) { this.rawVectorBytes = rawVectorBytes; }
+        public double getEstimatedRecall() { return estimatedRecall; }
+        public void setEstimatedRecall(double estimatedRecall) { this.estimatedRecall = estimatedRecall; }
     }
 }
\ No newline at end of file
@@ -0,0 +1,249 @@
+package com.deepsearch.service;
+
+import java.nio.FloatBuffer;
+import java.nio.file.Paths;
+import java.util.Arrays;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.deepsearch.entity.DocumentVector;
+import com.deepsearch.vector.store.MappedVectorStore;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 向量存储服务 - 将文档向量以 float32（可选 int8）写入内存映射段文件
+ * 相似度计算直接读取堆外数据，避免反复解析JSON和装箱
+ */
+@Service
+@Slf4j
+public class VectorStoreService {
+
+    @Value("${vector.store.enabled:true}")
+    private boolean storeEnabled;
+
+    @Value("${vector.store.path:./data/vector-store}")
+    private String storePath;
+
+    @Value("${vector.store.segment-capacity:65536}")
+    private int segmentCapacity;
+
+    // INT8 时新写入的段按 int8 量化存储，向量数据占用约为 float32 的 1/4
+    @Value("${vector.store.encoding:FLOAT32}")
+    private MappedVectorStore.Encoding encoding;
+
+    // 已覆盖或删除的旧记录占全部记录的比例超过该值时压缩存储
+    @Value("${vector.store.compaction-ratio:0.3}")
+    private double compactionRatio;
+
+    // 旧记录少于该数量时不压缩，避免小存储频繁重写
+    @Value("${vector.store.compaction-min-garbage:10000}")
+    private long compactionMinGarbage;
+
+    private volatile MappedVectorStore store;
+    // 存储已与数据库完成一次全量同步；同步之前只有部分向量，读取方回退到数据库
+    private volatile boolean loaded;
+
+    @PostConstruct
+    public void init() {
+        if (!storeEnabled) {
+            log.info("向量存储未启用，相似度计算从数据库读取向量");
+            return;
+        }
+        try {
+            store = new MappedVectorStore(Paths.get(storePath), segmentCapacity, encoding);
+            log.info("向量存储已打开: 路径={}, 编码={}, 向量数={}, 维度={}",
+                storePath, store.getEncoding(), store.size(), store.getDimension());
+        } catch (Exception e) {
+            log.error("向量存储打开失败，相似度计算从数据库读取向量: {}", storePath, e);
+        }
+    }
+
+    /**
+     * 存储是否已打开，打开后即可写入
+     */
+    public boolean isOpen() {
+        return store != null;
+    }
+
+    /**
+     * 存储是否可用于读取：已打开且已与数据库完成全量同步
+     */
+    public boolean isAvailable() {
+        return store != null && loaded;
+    }
+
+    /**
+     * 与数据库全量同步完成后调用，之后的增量写入由变更流保持一致
+     */
+    public void markLoaded() {
+        MappedVectorStore current = store;
+        if (current != null && !loaded) {
+            loaded = true;
+            log.info("向量存储已与数据库同步: 向量数={}", current.size());
+        }
+    }
+
+    /**
+     * 写入或覆盖文档向量
+     */
+    public void put(DocumentVector docVector) {
+        MappedVectorStore current = store;
+        if (current == null || docVector == null || docVector.getId() == null || docVector.getDocumentId() == null) {
+            return;
+        }
+        float[] data = docVector.toFloatArray(true);
+        if (data == null) {
+            return;
+        }
+        put(docVector.getId(), docVector.getDocumentId(), data);
+    }
+
+    /**
+     * 写入或覆盖向量
+     */
+    public void put(long vectorId, long documentId, float[] data) {
+        MappedVectorStore current = store;
+        if (current == null) {
+            return;
+        }
+        try {
+            current.put(vectorId, documentId, data);
+        } catch (Exception e) {
+            log.warn("向量写入存储失败: vectorId={}", vectorId, e);
+        }
+    }
+
+    public boolean contains(long vectorId) {
+        MappedVectorStore current = store;
+        return current != null && current.contains(vectorId);
+    }
+
+    /**
+     * 存储中全部有效向量的ID，存储不可用时返回空数组
+     */
+    public long[] ids() {
+        MappedVectorStore current = store;
+        return current != null ? current.ids() : new long[0];
+    }
+
+    /**
+     * 删除向量，删除记录会持久化到段文件
+     */
+    public void remove(long vectorId) {
+        MappedVectorStore current = store;
+        if (current == null) {
+            return;
+        }
+        try {
+            current.remove(vectorId);
+        } catch (Exception e) {
+            log.warn("向量从存储删除失败: vectorId={}", vectorId, e);
+        }
+    }
+
+    /**
+     * 获取向量的只读视图，不存在时返回 null
+     */
+    public FloatBuffer get(long vectorId) {
+        MappedVectorStore current = store;
+        return current != null ? current.get(vectorId) : null;
+    }
+
+    /**
+     * 获取向量所属文档ID，不存在时返回 -1
+     */
+    public long getDocumentId(long vectorId) {
+        MappedVectorStore current = store;
+        return current != null ? current.getDocumentId(vectorId) : -1L;
+    }
+
+    /**
+     * 遍历存储中的全部向量
+     */
+    public void scan(MappedVectorStore.VectorVisitor visitor) {
+        MappedVectorStore current = store;
+        if (current != null) {
+            current.scan(visitor);
+        }
+    }
+
+    /**
+     * 批量计算查询向量与存储中全部向量的点积和平方范数
+     */
+    public void scanDots(float[] query, MappedVectorStore.DotVisitor visitor) {
+        MappedVectorStore current = store;
+        if (current != null) {
+            current.scanDots(query, visitor);
+        }
+    }
+
+    /**
+     * 固定当前版本的存储视图，供分片并行扫描按记录序号区间读取，存储不可用时返回 null
+     */
+    public MappedVectorStore.View view() {
+        MappedVectorStore current = store;
+        return current != null ? current.view() : null;
+    }
+
+    /**
+     * 计算查询向量与指定向量的点积，不存在的向量返回 NaN
+     */
+    public float[] dots(float[] query, long[] vectorIds, float[] normsOut) {
+        MappedVectorStore current = store;
+        if (current == null) {
+            float[] missing = new float[vectorIds.length];
+            Arrays.fill(missing, Float.NaN);
+            return missing;
+        }
+        return current.dots(query, vectorIds, normsOut);
+    }
+
+    public int size() {
+        MappedVectorStore current = store;
+        return current != null ? current.size() : 0;
+    }
+
+    public int getDimension() {
+        MappedVectorStore current = store;
+        return current != null ? current.getDimension() : -1;
+    }
+
+    /**
+     * 旧记录比例超过阈值时在后台压缩存储，压缩期间写入等待，读取和扫描不受影响
+     */
+    @Scheduled(fixedDelayString = "${vector.store.compaction-check-interval-ms:300000}",
+               initialDelayString = "${vector.store.compaction-check-interval-ms:300000}")
+    public void compactIfNeeded() {
+        MappedVectorStore current = store;
+        if (current == null) {
+            return;
+        }
+        long garbage = current.getGarbageRecords();
+        long records = current.recordCount();
+        if (garbage < compactionMinGarbage || records == 0 || (double) garbage / records < compactionRatio) {
+            return;
+        }
+        try {
+            long start = System.currentTimeMillis();
+            if (current.compact()) {
+                log.info("向量存储压缩完成: 清理旧记录={}, 剩余记录={}, 耗时={}ms",
+                    garbage, current.recordCount(), System.currentTimeMillis() - start);
+            }
+        } catch (Exception e) {
+            log.warn("向量存储压缩失败", e);
+        }
+    }
+
+    @PreDestroy
+    public void destroy() {
+        MappedVectorStore current = store;
+        if (current != null) {
+            current.close();
+        }
+    }
+}
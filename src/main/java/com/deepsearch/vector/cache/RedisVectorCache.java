@@ -1,6 +1,8 @@
 package com.deepsearch.vector.cache;
 
 import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
 import java.util.Collections;
 import java.util.Optional;
 import java.util.Set;
@@ -13,8 +15,13 @@ import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.data.redis.core.script.DefaultRedisScript;
 import org.springframework.stereotype.Component;
 
+import com.deepsearch.vector.model.ProcessingMode;
 import com.deepsearch.vector.model.Vector;
+import com.deepsearch.vector.model.VectorMetadata;
+import com.deepsearch.vector.util.QuantizedVector;
+import com.deepsearch.vector.util.VectorUtils;
 import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
 import lombok.extern.slf4j.Slf4j;
@@ -22,6 +29,8 @@ import lombok.extern.slf4j.Slf4j;
 /**
  * Redis向量缓存实现
  * 使用Redis作为向量缓存存储，支持TTL和性能监控
+ * 开启 int8 编码后向量数据按 int8 量化后以 Base64 存储，体积约为 JSON 浮点数组的 1/8，
+ * 读取时还原为 float 向量（有量化误差）；两种格式的缓存值都能读取。
  */
 @Component
 @Slf4j
@@ -36,6 +45,7 @@ public class RedisVectorCache implements VectorCache {
     private final RedisTemplate<String, String> redisTemplate;
     private final ObjectMapper objectMapper;
     private final Duration defaultTtl;
+    private final boolean int8Enabled;
 
     // 本地计数器，用于减少Redis操作
     private final AtomicLong localHits = new AtomicLong(0);
@@ -65,10 +75,12 @@ public class RedisVectorCache implements VectorCache {
 
     public RedisVectorCache(RedisTemplate<String, String> redisTemplate,
                            ObjectMapper objectMapper,
-                           @Value("${vector.cache.default-ttl:24h}") Duration defaultTtl) {
+                           @Value("${vector.cache.default-ttl:24h}") Duration defaultTtl,
+                           @Value("${vector.cache.int8.enabled:false}") boolean int8Enabled) {
         this.redisTemplate = redisTemplate;
         this.objectMapper = objectMapper;
         this.defaultTtl = defaultTtl;
+        this.int8Enabled = int8Enabled;
         this.getAndCountScript = new DefaultRedisScript<>(GET_AND_COUNT_SCRIPT, String.class);
     }
 
@@ -81,7 +93,7 @@ public class RedisVectorCache implements VectorCache {
 
         try {
             String fullKey = VECTOR_KEY_PREFIX + key;
-            String vectorJson = objectMapper.writeValueAsString(vector);
+            String vectorJson = objectMapper.writeValueAsString(int8Enabled ? Int8Payload.of(vector) : vector);
 
             if (ttl != null && !ttl.isZero() && !ttl.isNegative()) {
                 redisTemplate.opsForValue().set(fullKey, vectorJson, ttl);
@@ -120,7 +132,7 @@ public class RedisVectorCache implements VectorCache {
 
             if (vectorJson != null) {
                 localHits.incrementAndGet();
-                Vector vector = objectMapper.readValue(vectorJson, Vector.class);
+                Vector vector = decode(vectorJson);
                 log.debug("向量缓存命中: key={}, dimension={}", key, vector.getDimension());
                 return Optional.of(vector);
             } else {
@@ -260,4 +272,44 @@ public class RedisVectorCache implements VectorCache {
         Set<String> keys = redisTemplate.keys(VECTOR_KEY_PREFIX + pattern);
         return keys != null ? keys.size() : 0;
     }
+
+    /**
+     * 按缓存值的格式解析：含 codes 字段的是 int8 编码，否则是完整的 Vector JSON
+     */
+    private Vector decode(String json) throws JsonProcessingException {
+        JsonNode node = objectMapper.readTree(json);
+        if (node.has("codes")) {
+            return objectMapper.treeToValue(node, Int8Payload.class).toVector();
+        }
+        return objectMapper.treeToValue(node, Vector.class);
+    }
+
+    /**
+     * int8 编码的缓存值
+     */
+    private record Int8Payload(String codes,
+                               float offset,
+                               float scale,
+                               int dimension,
+                               String modelName,
+                               String modelVersion,
+                               ProcessingMode processingMode,
+                               long processingTimeMs,
+                               Instant createdAt,
+                               VectorMetadata metadata) {
+
+        static Int8Payload of(Vector vector) {
+            QuantizedVector quantized = VectorUtils.quantize(vector);
+            return new Int8Payload(Base64.getEncoder().encodeToString(quantized.codes()),
+                quantized.offset(), quantized.scale(), vector.getDimension(),
+                vector.getModelName(), vector.getModelVersion(), vector.getProcessingMode(),
+                vector.getProcessingTimeMs(), vector.getCreatedAt(), vector.getMetadata());
+        }
+
+        Vector toVector() {
+            QuantizedVector quantized = QuantizedVector.of(Base64.getDecoder().decode(codes), offset, scale);
+            return new Vector(quantized.dequantize(), dimension, modelName, modelVersion,
+                processingMode, processingTimeMs, createdAt, metadata);
+        }
+    }
 }
\ No newline at end of file
@@ -157,6 +157,17 @@ public class VectorProperties {
             private int batchSize = 32;
             @NotEmpty
             private String device = "cpu";
+            // 模型目录下的 ONNX 模型文件和 WordPiece 词表
+            @NotEmpty
+            private String modelFile = "model.onnx";
+            @NotEmpty
+            private String vocabFile = "vocab.txt";
+            private boolean doLowerCase = true;
+            // ONNX Runtime 算子内/算子间线程数，0 表示使用运行时默认值
+            @Min(0)
+            private int intraOpThreads = 0;
+            @Min(0)
+            private int interOpThreads = 1;
 
             public String getModelPath() { return modelPath; }
             public void setModelPath(String modelPath) { this.modelPath = modelPath; }
@@ -169,6 +180,21 @@ public class VectorProperties {
 
             public String getDevice() { return device; }
             public void setDevice(String device) { this.device = device; }
+
+            public String getModelFile() { return modelFile; }
+            public void setModelFile(String modelFile) { this.modelFile = modelFile; }
+
+            public String getVocabFile() { return vocabFile; }
+            public void setVocabFile(String vocabFile) { this.vocabFile = vocabFile; }
+
+            public boolean isDoLowerCase() { return doLowerCase; }
+            public void setDoLowerCase(boolean doLowerCase) { this.doLowerCase = doLowerCase; }
+
+            public int getIntraOpThreads() { return intraOpThreads; }
+            public void setIntraOpThreads(int intraOpThreads) { this.intraOpThreads = intraOpThreads; }
+
+            public int getInterOpThreads() { return interOpThreads; }
+            public void setInterOpThreads(int interOpThreads) { this.interOpThreads = interOpThreads; }
         }
     }
 
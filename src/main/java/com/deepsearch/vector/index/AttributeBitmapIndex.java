@@ -0,0 +1,204 @@
+package com.deepsearch.vector.index;
+
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 文档属性位图索引：为 空间 / 渠道 / 状态 的每个取值维护一个文档ID位图。
+ * 过滤条件在检索前求出允许的文档集合（同一属性的多个取值取并集，不同属性取交集），
+ * 再交给向量检索在遍历时判断，过滤结果不需要事后裁剪。
+ */
+public class AttributeBitmapIndex {
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Attribute, Map<String, DocumentBitmap>> bitmaps = new EnumMap<>(Attribute.class);
+    // 文档当前的属性值，更新时用于从旧取值的位图中移除
+    private final Map<Long, String[]> documentValues = new HashMap<>();
+
+    public AttributeBitmapIndex() {
+        for (Attribute attribute : Attribute.values()) {
+            bitmaps.put(attribute, new HashMap<>());
+        }
+    }
+
+    /**
+     * 设置文档的单个属性，value 为 null 时清除该属性
+     */
+    public void put(long documentId, Attribute attribute, String value) {
+        int id = checkDocumentId(documentId);
+        lock.writeLock().lock();
+        try {
+            String[] values = documentValues.get(documentId);
+            if (values == null) {
+                if (value == null) {
+                    return;
+                }
+                values = new String[Attribute.values().length];
+                documentValues.put(documentId, values);
+            }
+            String previous = values[attribute.ordinal()];
+            if (previous != null) {
+                if (previous.equals(value)) {
+                    return;
+                }
+                Map<String, DocumentBitmap> byValue = bitmaps.get(attribute);
+                DocumentBitmap bitmap = byValue.get(previous);
+                if (bitmap != null) {
+                    bitmap.remove(id);
+                    if (bitmap.isEmpty()) {
+                        byValue.remove(previous);
+                    }
+                }
+            }
+            values[attribute.ordinal()] = value;
+            if (value != null) {
+                bitmaps.get(attribute).computeIfAbsent(value, key -> new DocumentBitmap()).add(id);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 设置文档的全部属性，为 null 的属性会被清除
+     */
+    public void put(long documentId, String spaceId, String channel, String status) {
+        put(documentId, Attribute.SPACE_ID, spaceId);
+        put(documentId, Attribute.CHANNEL, channel);
+        put(documentId, Attribute.STATUS, status);
+    }
+
+    /**
+     * 移除文档的全部属性
+     */
+    public void remove(long documentId) {
+        lock.writeLock().lock();
+        try {
+            String[] values = documentValues.get(documentId);
+            if (values == null) {
+                return;
+            }
+            for (Attribute attribute : Attribute.values()) {
+                put(documentId, attribute, null);
+            }
+            documentValues.remove(documentId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 求出满足过滤条件的文档集合
+     *
+     * @return 新的位图；过滤条件为空时返回 null，表示不限制
+     */
+    public DocumentBitmap filter(Filter filter) {
+        if (filter == null || filter.isEmpty()) {
+            return null;
+        }
+        lock.readLock().lock();
+        try {
+            DocumentBitmap result = null;
+            if (filter.spaceId() != null && !filter.spaceId().isEmpty()) {
+                result = intersect(result, union(Attribute.SPACE_ID, List.of(filter.spaceId())));
+            }
+            if (filter.channels() != null && !filter.channels().isEmpty()) {
+                result = intersect(result, union(Attribute.CHANNEL, filter.channels()));
+            }
+            if (filter.statuses() != null && !filter.statuses().isEmpty()) {
+                result = intersect(result, union(Attribute.STATUS, filter.statuses()));
+            }
+            return result != null ? result : new DocumentBitmap();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 已登记属性的文档数
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return documentValues.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 估算位图占用的堆内存（字节），不含文档属性值映射
+     */
+    public long estimateMemoryBytes() {
+        lock.readLock().lock();
+        try {
+            long total = 0;
+            for (Map<String, DocumentBitmap> byValue : bitmaps.values()) {
+                for (DocumentBitmap bitmap : byValue.values()) {
+                    total += bitmap.estimateMemoryBytes();
+                }
+            }
+            return total;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // ==================== 私有方法 ====================
+
+    private DocumentBitmap union(Attribute attribute, Collection<String> values) {
+        Map<String, DocumentBitmap> byValue = bitmaps.get(attribute);
+        DocumentBitmap result = new DocumentBitmap();
+        for (String value : values) {
+            DocumentBitmap bitmap = byValue.get(value);
+            if (bitmap != null) {
+                result = result.or(bitmap);
+            }
+        }
+        return result;
+    }
+
+    private static DocumentBitmap intersect(DocumentBitmap current, DocumentBitmap next) {
+        return current == null ? next : current.and(next);
+    }
+
+    private static int checkDocumentId(long documentId) {
+        if (documentId < 0 || documentId > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("文档ID超出位图范围: " + documentId);
+        }
+        return (int) documentId;
+    }
+
+    /**
+     * 可过滤的文档属性
+     */
+    public enum Attribute {
+        SPACE_ID,    // 空间
+        CHANNEL,     // 渠道
+        STATUS       // 文档状态
+    }
+
+    /**
+     * 过滤条件，为 null 或空的字段不参与过滤
+     *
+     * @param spaceId 空间ID
+     * @param channels 允许的渠道，任一匹配即可
+     * @param statuses 允许的文档状态，任一匹配即可
+     */
+    public record Filter(String spaceId, Collection<String> channels, Collection<String> statuses) {
+
+        public static Filter of(String spaceId, Collection<String> channels) {
+            return new Filter(spaceId, channels, null);
+        }
+
+        public boolean isEmpty() {
+            return (spaceId == null || spaceId.isEmpty())
+                && (channels == null || channels.isEmpty())
+                && (statuses == null || statuses.isEmpty());
+        }
+    }
+}
@@ -0,0 +1,194 @@
+package com.deepsearch.vector.index;
+
+import com.deepsearch.vector.util.TopKSelector;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.IntStream;
+
+/**
+ * 1bit 符号量化索引：每个维度只保留符号位，按 64 维一组打包进 long[]，
+ * 1536 维向量只占 192 字节（float32 的 1/32）。
+ * 查询时对全部编码做异或 + Long.bitCount 的汉明距离扫描，汉明距离近似反映向量夹角，
+ * 只用于选出过采样的候选集，最终排序需要用原始向量精确重排。
+ */
+public class BinaryQuantizedIndex {
+
+    // 向量数超过该值时分区并行扫描
+    private static final int PARALLEL_THRESHOLD = 65536;
+
+    private final int dimension;
+    private final int words;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // 编码按 [position * words + w] 连续存放
+    private long[] codes = new long[0];
+    private long[] ids = new long[0];
+    private final Map<Long, Integer> positions = new HashMap<>();
+    private volatile int size;
+
+    public BinaryQuantizedIndex(int dimension) {
+        if (dimension <= 0) {
+            throw new IllegalArgumentException("向量维度必须大于0");
+        }
+        this.dimension = dimension;
+        this.words = (dimension + 63) >>> 6;
+    }
+
+    /**
+     * 写入或更新向量的符号编码
+     */
+    public void add(long id, float[] vector) {
+        if (vector == null || vector.length != dimension) {
+            throw new IllegalArgumentException("向量维度不匹配，期望: " + dimension);
+        }
+        long[] code = quantize(vector);
+
+        lock.writeLock().lock();
+        try {
+            Integer position = positions.get(id);
+            if (position == null) {
+                if (size == ids.length) {
+                    int capacity = Math.max(16, size + (size >> 1));
+                    ids = Arrays.copyOf(ids, capacity);
+                    codes = Arrays.copyOf(codes, capacity * words);
+                }
+                position = size;
+                ids[position] = id;
+                positions.put(id, position);
+                size++;
+            }
+            System.arraycopy(code, 0, codes, position * words, words);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 删除向量，用最后一个编码填补空位
+     *
+     * @return 向量是否存在
+     */
+    public boolean remove(long id) {
+        lock.writeLock().lock();
+        try {
+            Integer position = positions.remove(id);
+            if (position == null) {
+                return false;
+            }
+            int last = size - 1;
+            if (position != last) {
+                ids[position] = ids[last];
+                System.arraycopy(codes, last * words, codes, position * words, words);
+                positions.put(ids[position], position);
+            }
+            size--;
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 汉明距离扫描，返回距离最小的 k 个向量
+     *
+     * @return 按估算相似度降序排列的结果，得分为 cos(π·汉明距离/维度)
+     */
+    public List<SearchHit> search(float[] query, int k) {
+        if (query == null || query.length != dimension || k <= 0) {
+            return new ArrayList<>();
+        }
+        long[] queryCode = quantize(query);
+
+        lock.readLock().lock();
+        try {
+            int n = size;
+            TopKSelector selector;
+            if (n < PARALLEL_THRESHOLD) {
+                selector = scan(queryCode, 0, n, k);
+            } else {
+                int partitions = Math.min(Runtime.getRuntime().availableProcessors(), n / (PARALLEL_THRESHOLD / 4));
+                int chunk = (n + partitions - 1) / partitions;
+                selector = IntStream.range(0, partitions)
+                    .parallel()
+                    .mapToObj(p -> scan(queryCode, p * chunk, Math.min(n, (p + 1) * chunk), k))
+                    .reduce((left, right) -> {
+                        left.merge(right);
+                        return left;
+                    })
+                    .orElseGet(() -> new TopKSelector(0));
+            }
+
+            float[] negatedDistances = new float[selector.size()];
+            long[] topIds = selector.drain(negatedDistances);
+            List<SearchHit> result = new ArrayList<>(topIds.length);
+            for (int i = 0; i < topIds.length; i++) {
+                float score = (float) Math.cos(Math.PI * -negatedDistances[i] / dimension);
+                result.add(new SearchHit(topIds[i], score));
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int getDimension() {
+        return dimension;
+    }
+
+    /**
+     * 估算索引占用的堆内存（字节）
+     */
+    public long estimateMemoryBytes() {
+        return codes.length * 8L + ids.length * 8L + positions.size() * 48L;
+    }
+
+    /**
+     * 符号量化：维度值大于0时对应比特为1
+     */
+    public static long[] quantize(float[] vector) {
+        long[] code = new long[(vector.length + 63) >>> 6];
+        for (int d = 0; d < vector.length; d++) {
+            if (vector[d] > 0f) {
+                code[d >>> 6] |= 1L << (d & 63);
+            }
+        }
+        return code;
+    }
+
+    /**
+     * 两个编码的汉明距离
+     */
+    public static int hamming(long[] a, int aOffset, long[] b, int bOffset, int words) {
+        int distance = 0;
+        for (int w = 0; w < words; w++) {
+            distance += Long.bitCount(a[aOffset + w] ^ b[bOffset + w]);
+        }
+        return distance;
+    }
+
+    // ==================== 私有方法 ====================
+
+    /**
+     * 扫描 [from, to) 区间，以负汉明距离作为得分选 Top-K
+     */
+    private TopKSelector scan(long[] queryCode, int from, int to, int k) {
+        TopKSelector selector = new TopKSelector(Math.min(k, Math.max(0, to - from)));
+        for (int i = from; i < to; i++) {
+            int distance = hamming(queryCode, 0, codes, i * words, words);
+            if (!selector.isFull() || -distance >= selector.minScore()) {
+                selector.offer(ids[i], -distance);
+            }
+        }
+        return selector;
+    }
+}
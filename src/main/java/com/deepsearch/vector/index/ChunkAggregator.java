@@ -0,0 +1,290 @@
+package com.deepsearch.vector.index;
+
+import com.deepsearch.vector.util.LongLongHashMap;
+import com.deepsearch.vector.util.TopKSelector;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+/**
+ * 分块得分聚合器：把分块（向量）级得分按文档聚合，分块可以按任意顺序流式写入。
+ * MAX 取文档内最高的分块得分，TOP_M_MEAN 取最高 m 个分块得分的均值；同时记录得分最高的分块，用于返回摘要。
+ * 每个文档只占一个槽位，按分块扫描一遍即可得到文档得分，不需要先按文档分组或二次遍历。
+ * 非线程安全，并行扫描时每个线程使用独立实例再合并。
+ */
+public final class ChunkAggregator {
+
+    private static final long NO_SLOT = -1L;
+
+    private final Aggregation aggregation;
+    private final int m;
+
+    // 文档ID -> 槽位，原始类型哈希表，写入分块时不装箱
+    private final LongLongHashMap slots = new LongLongHashMap(16);
+    private long[] documentIds = new long[16];
+    private long[] bestChunkIds = new long[16];
+    private int[] chunkCounts = new int[16];
+    // 每个槽位 m 个得分，降序排列
+    private float[] topScores;
+    private int size;
+
+    /**
+     * @param m TOP_M_MEAN 参与平均的分块数，MAX 时忽略
+     */
+    public ChunkAggregator(Aggregation aggregation, int m) {
+        this.aggregation = aggregation != null ? aggregation : Aggregation.MAX;
+        this.m = this.aggregation == Aggregation.MAX ? 1 : Math.max(1, m);
+        this.topScores = new float[16 * this.m];
+    }
+
+    /**
+     * 写入一个分块的得分，NaN 得分会被忽略
+     */
+    public void offer(long documentId, long chunkId, float score) {
+        if (Float.isNaN(score)) {
+            return;
+        }
+        int slot = slotOf(documentId);
+        insert(slot, chunkId, score);
+        chunkCounts[slot]++;
+    }
+
+    /**
+     * 合并另一个聚合器的结果，两者的聚合方式必须一致
+     */
+    public void merge(ChunkAggregator other) {
+        if (other.aggregation != aggregation || other.m != m) {
+            throw new IllegalArgumentException("聚合方式不一致");
+        }
+        for (int slot = 0; slot < other.size; slot++) {
+            int target = slotOf(other.documentIds[slot]);
+            // 对方的最高分先插入，其余得分不会超过它，因此不会改变最佳分块
+            int filled = Math.min(other.chunkCounts[slot], m);
+            for (int i = 0; i < filled; i++) {
+                insert(target, other.bestChunkIds[slot], other.topScores[slot * m + i]);
+                chunkCounts[target]++;
+            }
+            chunkCounts[target] += other.chunkCounts[slot] - filled;
+        }
+    }
+
+    /**
+     * 已聚合的文档数
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * 按文档得分降序返回前 k 个达到阈值的文档
+     */
+    public List<DocumentMatch> top(int k, double threshold) {
+        TopKSelector selector = new TopKSelector(Math.max(0, Math.min(k, size)));
+        for (int slot = 0; slot < size; slot++) {
+            float score = score(slot);
+            if (score >= threshold) {
+                selector.offer(slot, score);
+            }
+        }
+        float[] scores = new float[selector.size()];
+        long[] order = selector.drain(scores);
+        List<DocumentMatch> matches = new ArrayList<>(order.length);
+        for (int i = 0; i < order.length; i++) {
+            int slot = (int) order[i];
+            matches.add(new DocumentMatch(documentIds[slot], scores[i], bestChunkIds[slot], chunkCounts[slot]));
+        }
+        return matches;
+    }
+
+    /**
+     * 多路归并各分片的局部 Top-K（均已按得分降序），返回全局前 k 个文档。
+     * 同一文档出现在多个分片时只保留得分最高的一次；对 MAX 聚合，文档得分等于其各分片得分的最大值，
+     * 因此各分片取局部 Top-K 后归并即可得到精确结果。TOP_M_MEAN 需要合并完整的聚合器。
+     */
+    public static List<DocumentMatch> mergeTop(List<List<DocumentMatch>> shardTops, int k) {
+        PriorityQueue<int[]> heads = new PriorityQueue<>(
+            (a, b) -> Float.compare(shardTops.get(b[0]).get(b[1]).score(), shardTops.get(a[0]).get(a[1]).score()));
+        for (int shard = 0; shard < shardTops.size(); shard++) {
+            if (!shardTops.get(shard).isEmpty()) {
+                heads.add(new int[]{shard, 0});
+            }
+        }
+        List<DocumentMatch> merged = new ArrayList<>(Math.max(0, k));
+        Set<Long> seen = new HashSet<>();
+        while (merged.size() < k && !heads.isEmpty()) {
+            int[] head = heads.poll();
+            List<DocumentMatch> shard = shardTops.get(head[0]);
+            DocumentMatch match = shard.get(head[1]);
+            if (seen.add(match.documentId())) {
+                merged.add(match);
+            }
+            if (++head[1] < shard.size()) {
+                heads.add(head);
+            }
+        }
+        return merged;
+    }
+
+    /**
+     * 合并多个查询各自聚合出的文档得分，返回前 k 个达到阈值的文档。
+     * MAX 取 权重×得分 的最大值；WEIGHTED_SUM 按权重和归一化后加权求和，未被某个查询打分的文档该项记 0。
+     * 最佳分块取加权得分最高的那个查询的最佳分块
+     *
+     * @param perQuery 每个查询一个聚合器
+     * @param weights 各查询的权重，为 null 时等权
+     */
+    public static List<DocumentMatch> combine(ChunkAggregator[] perQuery, float[] weights, Combination combination,
+                                              int k, double threshold) {
+        float weightSum = 0f;
+        for (int q = 0; q < perQuery.length; q++) {
+            weightSum += weights != null ? weights[q] : 1f;
+        }
+        boolean sum = combination == Combination.WEIGHTED_SUM;
+
+        Map<Long, Combined> byDocument = new HashMap<>();
+        List<Combined> documents = new ArrayList<>();
+        for (int q = 0; q < perQuery.length; q++) {
+            ChunkAggregator aggregator = perQuery[q];
+            float weight = weights != null ? weights[q] : 1f;
+            if (sum && weightSum > 0f) {
+                weight /= weightSum;
+            }
+            for (int slot = 0; slot < aggregator.size; slot++) {
+                float contribution = weight * aggregator.score(slot);
+                Combined combined = byDocument.get(aggregator.documentIds[slot]);
+                if (combined == null) {
+                    combined = new Combined(aggregator.documentIds[slot]);
+                    combined.score = sum ? 0f : Float.NEGATIVE_INFINITY;
+                    byDocument.put(combined.documentId, combined);
+                    documents.add(combined);
+                }
+                combined.score = sum ? combined.score + contribution : Math.max(combined.score, contribution);
+                if (contribution > combined.bestContribution) {
+                    combined.bestContribution = contribution;
+                    combined.bestChunkId = aggregator.bestChunkIds[slot];
+                }
+                combined.matchedChunks = Math.max(combined.matchedChunks, aggregator.chunkCounts[slot]);
+            }
+        }
+
+        TopKSelector selector = new TopKSelector(Math.max(0, Math.min(k, documents.size())));
+        for (int i = 0; i < documents.size(); i++) {
+            float score = documents.get(i).score;
+            if (score >= threshold) {
+                selector.offer(i, score);
+            }
+        }
+        float[] scores = new float[selector.size()];
+        long[] order = selector.drain(scores);
+        List<DocumentMatch> matches = new ArrayList<>(order.length);
+        for (int i = 0; i < order.length; i++) {
+            Combined combined = documents.get((int) order[i]);
+            matches.add(new DocumentMatch(combined.documentId, scores[i], combined.bestChunkId, combined.matchedChunks));
+        }
+        return matches;
+    }
+
+    public Aggregation getAggregation() {
+        return aggregation;
+    }
+
+    // ==================== 私有方法 ====================
+
+    /**
+     * 把得分插入槽位的降序得分列表（m 很小，直接插入排序），成为第一名时更新最佳分块
+     */
+    private void insert(int slot, long chunkId, float score) {
+        int base = slot * m;
+        int filled = Math.min(chunkCounts[slot], m);
+        if (filled == m && score <= topScores[base + m - 1]) {
+            return;
+        }
+        int position = Math.min(filled, m - 1);
+        while (position > 0 && topScores[base + position - 1] < score) {
+            topScores[base + position] = topScores[base + position - 1];
+            position--;
+        }
+        topScores[base + position] = score;
+        if (position == 0) {
+            bestChunkIds[slot] = chunkId;
+        }
+    }
+
+    private float score(int slot) {
+        int filled = Math.min(chunkCounts[slot], m);
+        if (aggregation == Aggregation.MAX || filled == 1) {
+            return topScores[slot * m];
+        }
+        float sum = 0f;
+        for (int i = 0; i < filled; i++) {
+            sum += topScores[slot * m + i];
+        }
+        return sum / filled;
+    }
+
+    private int slotOf(long documentId) {
+        long existing = slots.get(documentId, NO_SLOT);
+        if (existing != NO_SLOT) {
+            return (int) existing;
+        }
+        if (size == documentIds.length) {
+            int capacity = size + (size >> 1);
+            documentIds = Arrays.copyOf(documentIds, capacity);
+            bestChunkIds = Arrays.copyOf(bestChunkIds, capacity);
+            chunkCounts = Arrays.copyOf(chunkCounts, capacity);
+            topScores = Arrays.copyOf(topScores, capacity * m);
+        }
+        int slot = size++;
+        documentIds[slot] = documentId;
+        slots.put(documentId, slot, NO_SLOT);
+        return slot;
+    }
+
+    /**
+     * 文档得分的聚合方式
+     */
+    public enum Aggregation {
+        MAX,           // 最相似分块的得分
+        TOP_M_MEAN     // 最相似 m 个分块得分的均值
+    }
+
+    /**
+     * 多查询合并时单个文档的累计状态
+     */
+    private static final class Combined {
+        final long documentId;
+        float score;
+        float bestContribution = Float.NEGATIVE_INFINITY;
+        long bestChunkId;
+        int matchedChunks;
+
+        Combined(long documentId) {
+            this.documentId = documentId;
+        }
+    }
+
+    /**
+     * 多查询文档得分的合并方式
+     */
+    public enum Combination {
+        MAX,           // 各查询加权得分的最大值
+        WEIGHTED_SUM   // 各查询得分按归一化权重加权求和
+    }
+
+    /**
+     * 文档级匹配结果
+     *
+     * @param documentId 文档ID
+     * @param score 聚合后的文档得分
+     * @param bestChunkId 得分最高的分块（向量ID）
+     * @param matchedChunks 参与打分的分块数
+     */
+    public record DocumentMatch(long documentId, float score, long bestChunkId, int matchedChunks) {
+    }
+}
@@ -0,0 +1,664 @@
+package com.deepsearch.vector.index;
+
+import com.deepsearch.vector.util.QuantizedVector;
+import com.deepsearch.vector.util.SimilarityKernels;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongPredicate;
+
+/**
+ * HNSW (Hierarchical Navigable Small World) 图索引
+ * 常驻内存的近似最近邻索引，支持余弦和点积相似度的 top-K 查询。
+ * 写入串行执行，查询不加锁，可与写入并发进行。
+ * 删除只给节点打墓碑标记：墓碑节点仍参与图遍历但不进入结果，更新等于删除旧节点再插入新节点；
+ * 墓碑比例升高后由调用方在后台 compact() 出新索引再原子替换。
+ * 开启 int8 存储时节点向量按 QuantizedVector 保存，内存约为 float32 的 1/4，
+ * 图上的相似度直接在编码上计算，召回略有下降。
+ */
+public class HnswIndex {
+
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private final int dimension;
+    private final Metric metric;
+    private final int m;
+    private final int maxM0;
+    private final int efConstruction;
+    private final double levelMultiplier;
+    private final boolean int8;
+    private final long seed;
+
+    private final ReentrantLock writeLock = new ReentrantLock();
+    private final SplittableRandom random;
+    private final Map<Long, Integer> idToNode = new ConcurrentHashMap<>();
+    private final ThreadLocal<VisitedSet> visitedSets = ThreadLocal.withInitial(VisitedSet::new);
+
+    private volatile Node[] nodes = new Node[INITIAL_CAPACITY];
+    private volatile int size = 0;
+    private volatile int entryPoint = -1;
+    private volatile int maxLevel = -1;
+    private volatile int deleted = 0;
+
+    public HnswIndex(int dimension, Metric metric, int m, int efConstruction) {
+        this(dimension, metric, m, efConstruction, 42L);
+    }
+
+    public HnswIndex(int dimension, Metric metric, int m, int efConstruction, long seed) {
+        this(dimension, metric, m, efConstruction, seed, false);
+    }
+
+    /**
+     * @param int8 是否以 int8 量化形式保存节点向量
+     */
+    public HnswIndex(int dimension, Metric metric, int m, int efConstruction, long seed, boolean int8) {
+        if (dimension <= 0) {
+            throw new IllegalArgumentException("向量维度必须大于0");
+        }
+        if (m < 2) {
+            throw new IllegalArgumentException("M必须不小于2");
+        }
+        this.dimension = dimension;
+        this.metric = metric;
+        this.m = m;
+        this.maxM0 = m * 2;
+        this.efConstruction = Math.max(efConstruction, m);
+        this.levelMultiplier = 1.0 / Math.log(m);
+        this.random = new SplittableRandom(seed);
+        this.seed = seed;
+        this.int8 = int8;
+    }
+
+    /**
+     * 添加向量
+     *
+     * @param id 外部ID（向量ID）
+     * @param vector 向量数据
+     * @return 是否添加成功，ID已存在时返回false
+     */
+    public boolean add(long id, float[] vector) {
+        if (vector == null || vector.length != dimension) {
+            throw new IllegalArgumentException("向量维度不匹配，期望: " + dimension);
+        }
+
+        writeLock.lock();
+        try {
+            if (idToNode.containsKey(id)) {
+                return false;
+            }
+
+            float[] data = prepare(vector);
+            float dataSum = int8 ? QuantizedVector.sum(data) : 0f;
+            int level = randomLevel();
+            int nodeIndex = size;
+            Node node = int8
+                ? new Node(id, null, QuantizedVector.quantize(data), level)
+                : new Node(id, data, null, level);
+
+            Node[] current = ensureCapacity(nodeIndex + 1);
+            current[nodeIndex] = node;
+
+            int ep = entryPoint;
+            if (ep < 0) {
+                idToNode.put(id, nodeIndex);
+                maxLevel = level;
+                entryPoint = nodeIndex;
+                size = nodeIndex + 1;
+                return true;
+            }
+
+            int topLevel = maxLevel;
+            for (int l = topLevel; l > level; l--) {
+                ep = greedySearch(current, data, dataSum, ep, l);
+            }
+
+            for (int l = Math.min(level, topLevel); l >= 0; l--) {
+                NodeQueue candidates = searchLayer(current, data, dataSum, ep, efConstruction, l, null, false, 0);
+                int[] sortedIds = new int[candidates.size()];
+                float[] sortedScores = new float[candidates.size()];
+                drainDescending(candidates, sortedIds, sortedScores);
+
+                int[] selected = selectNeighbors(current, sortedIds, sortedScores, sortedIds.length, m);
+                node.neighbors[l] = selected;
+                for (int neighbor : selected) {
+                    connect(current, neighbor, nodeIndex, l);
+                }
+                ep = sortedIds[0];
+            }
+
+            idToNode.put(id, nodeIndex);
+            if (level > topLevel) {
+                maxLevel = level;
+                entryPoint = nodeIndex;
+            }
+            size = nodeIndex + 1;
+            return true;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * 写入或替换向量：ID已存在时先删除旧节点
+     */
+    public void put(long id, float[] vector) {
+        writeLock.lock();
+        try {
+            remove(id);
+            add(id, vector);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * 删除向量：只打墓碑标记，查询不受影响，节点在 compact() 时才真正移除
+     *
+     * @return 向量是否存在
+     */
+    public boolean remove(long id) {
+        writeLock.lock();
+        try {
+            Integer nodeIndex = idToNode.remove(id);
+            if (nodeIndex == null) {
+                return false;
+            }
+            nodes[nodeIndex].deleted = true;
+            deleted++;
+            return true;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * 用存活节点重建一个新索引，参数与当前索引相同。构建期间当前索引仍可查询，
+     * 调用方需保证构建期间不再写入当前索引，或在替换后重放这段时间的变更
+     */
+    public HnswIndex compact() {
+        HnswIndex compacted = new HnswIndex(dimension, metric, m, efConstruction, seed, int8);
+        Node[] current = nodes;
+        int count = size;
+        for (int i = 0; i < count; i++) {
+            Node node = current[i];
+            if (node != null && !node.deleted) {
+                compacted.add(node.id, node.quantized != null ? node.quantized.dequantize() : node.vector);
+            }
+        }
+        return compacted;
+    }
+
+    /**
+     * 查询最相似的K个向量
+     *
+     * @param query 查询向量
+     * @param k 返回数量
+     * @param ef 搜索时的候选队列大小，越大召回越高、速度越慢
+     * @return 按相似度降序排列的结果
+     */
+    public List<SearchHit> search(float[] query, int k, int ef) {
+        return search(query, k, ef, null);
+    }
+
+    /**
+     * 带过滤条件的查询：不满足条件的节点仍参与图遍历（保持连通），但不会进入结果，
+     * 因此只要图中可达的满足条件的节点足够，就能返回 k 个结果，不需要事后过滤再补足。
+     *
+     * @param filter 按向量ID判断是否可以作为结果，为 null 时不过滤
+     */
+    public List<SearchHit> search(float[] query, int k, int ef, LongPredicate filter) {
+        return search(query, k, ef, filter, 0);
+    }
+
+    /**
+     * 带过滤条件并限制遍历规模的查询。满足条件的节点稀疏时结果集迟迟填不满 ef，
+     * 遍历会扩展到大半个图，达到上限后返回已找到的结果
+     *
+     * @param maxVisits 底层最多计算的节点数，0 表示不限制
+     */
+    public List<SearchHit> search(float[] query, int k, int ef, LongPredicate filter, int maxVisits) {
+        if (query == null || query.length != dimension || k <= 0) {
+            return Collections.emptyList();
+        }
+
+        int ep = entryPoint;
+        if (ep < 0) {
+            return Collections.emptyList();
+        }
+
+        Node[] current = nodes;
+        float[] q = prepare(query);
+        float qSum = int8 ? QuantizedVector.sum(q) : 0f;
+
+        for (int l = maxLevel; l > 0; l--) {
+            ep = greedySearch(current, q, qSum, ep, l);
+        }
+
+        NodeQueue results = searchLayer(current, q, qSum, ep, Math.max(ef, k), 0, filter, true, maxVisits);
+        int count = results.size();
+        int[] ids = new int[count];
+        float[] scores = new float[count];
+        drainDescending(results, ids, scores);
+
+        int resultCount = Math.min(k, count);
+        List<SearchHit> hits = new ArrayList<>(resultCount);
+        for (int i = 0; i < resultCount; i++) {
+            hits.add(new SearchHit(current[ids[i]].id, scores[i]));
+        }
+        return hits;
+    }
+
+    public boolean contains(long id) {
+        return idToNode.containsKey(id);
+    }
+
+    /**
+     * 存活的向量数，不含墓碑节点
+     */
+    public int size() {
+        return size - deleted;
+    }
+
+    /**
+     * 已删除但尚未压缩的墓碑节点数
+     */
+    public int getDeletedCount() {
+        return deleted;
+    }
+
+    public int getDimension() {
+        return dimension;
+    }
+
+    public Metric getMetric() {
+        return metric;
+    }
+
+    public boolean isInt8() {
+        return int8;
+    }
+
+    /**
+     * 写出图结构（含墓碑节点）到快照，期间阻塞写入但不阻塞查询
+     */
+    void writeTo(SnapshotWriter writer) throws IOException {
+        writeLock.lock();
+        try {
+            writer.writeInt(dimension);
+            writer.writeInt(metric.ordinal());
+            writer.writeInt(m);
+            writer.writeInt(efConstruction);
+            writer.writeByte((byte) (int8 ? 1 : 0));
+            writer.writeLong(seed);
+            int count = size;
+            writer.writeInt(count);
+            writer.writeInt(entryPoint);
+            writer.writeInt(maxLevel);
+            Node[] current = nodes;
+            for (int i = 0; i < count; i++) {
+                Node node = current[i];
+                writer.writeLong(node.id);
+                writer.writeByte((byte) (node.deleted ? 1 : 0));
+                writer.writeInt(node.neighbors.length);
+                if (node.quantized != null) {
+                    writer.writeFloat(node.quantized.offset());
+                    writer.writeFloat(node.quantized.scale());
+                    writer.writeBytes(node.quantized.codes());
+                } else {
+                    writer.writeFloats(node.vector);
+                }
+                for (int[] neighbors : node.neighbors) {
+                    writer.writeInt(neighbors.length);
+                    writer.writeInts(neighbors);
+                }
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * 从快照恢复图结构，不重新计算任何相似度
+     */
+    static HnswIndex readFrom(SnapshotReader reader) throws IOException {
+        int dimension = reader.readInt();
+        int metricId = reader.readInt();
+        if (metricId < 0 || metricId >= Metric.values().length) {
+            throw new IOException("无法识别的相似度度量: " + metricId);
+        }
+        int m = reader.readInt();
+        int efConstruction = reader.readInt();
+        boolean int8 = reader.readByte() != 0;
+        long seed = reader.readLong();
+        HnswIndex index = new HnswIndex(dimension, Metric.values()[metricId], m, efConstruction, seed, int8);
+
+        int count = reader.readInt();
+        int entryPoint = reader.readInt();
+        int maxLevel = reader.readInt();
+        Node[] nodes = new Node[Math.max(INITIAL_CAPACITY, count)];
+        int deleted = 0;
+        for (int i = 0; i < count; i++) {
+            long id = reader.readLong();
+            boolean tombstone = reader.readByte() != 0;
+            int levels = reader.readInt();
+            Node node;
+            if (int8) {
+                float offset = reader.readFloat();
+                float scale = reader.readFloat();
+                byte[] codes = new byte[dimension];
+                reader.readBytes(codes);
+                node = new Node(id, null, QuantizedVector.of(codes, offset, scale), levels - 1);
+            } else {
+                float[] vector = new float[dimension];
+                reader.readFloats(vector);
+                node = new Node(id, vector, null, levels - 1);
+            }
+            for (int l = 0; l < levels; l++) {
+                int[] neighbors = new int[reader.readInt()];
+                reader.readInts(neighbors);
+                node.neighbors[l] = neighbors;
+            }
+            if (tombstone) {
+                node.deleted = true;
+                deleted++;
+            } else {
+                index.idToNode.put(id, i);
+            }
+            nodes[i] = node;
+        }
+        index.nodes = nodes;
+        index.deleted = deleted;
+        index.maxLevel = maxLevel;
+        index.entryPoint = entryPoint;
+        index.size = count;
+        return index;
+    }
+
+    /**
+     * 估算索引占用的堆内存（字节）
+     */
+    public long estimateMemoryBytes() {
+        long total = 0;
+        Node[] current = nodes;
+        int count = size;
+        for (int i = 0; i < count; i++) {
+            Node node = current[i];
+            if (node == null) {
+                continue;
+            }
+            total += (node.quantized != null ? node.quantized.memoryBytes() : 16L + dimension * 4L) + 48L;
+            for (int[] neighbors : node.neighbors) {
+                total += 16L + (neighbors != null ? neighbors.length * 4L : 0L);
+            }
+        }
+        return total + current.length * 8L;
+    }
+
+    // ==================== 私有方法 ====================
+
+    private float[] prepare(float[] vector) {
+        float[] data = Arrays.copyOf(vector, vector.length);
+        if (metric == Metric.COSINE) {
+            SimilarityKernels.normalize(data);
+        }
+        return data;
+    }
+
+    private int randomLevel() {
+        double r = random.nextDouble();
+        return (int) Math.floor(-Math.log(Math.max(r, Double.MIN_VALUE)) * levelMultiplier);
+    }
+
+    private Node[] ensureCapacity(int required) {
+        Node[] current = nodes;
+        if (required <= current.length) {
+            return current;
+        }
+        Node[] grown = Arrays.copyOf(current, Math.max(required, current.length * 2));
+        nodes = grown;
+        return grown;
+    }
+
+    /**
+     * 在上层图中贪心查找最近节点
+     */
+    private int greedySearch(Node[] current, float[] query, float querySum, int entry, int level) {
+        int best = entry;
+        float bestScore = score(query, querySum, current[entry]);
+        boolean changed = true;
+
+        while (changed) {
+            changed = false;
+            int[] neighbors = neighborsAt(current[best], level);
+            for (int neighbor : neighbors) {
+                if (neighbor >= current.length || current[neighbor] == null) {
+                    continue;
+                }
+                float s = score(query, querySum, current[neighbor]);
+                if (s > bestScore) {
+                    bestScore = s;
+                    best = neighbor;
+                    changed = true;
+                }
+            }
+        }
+        return best;
+    }
+
+    /**
+     * 在指定层进行束搜索，返回以最差结果为堆顶的候选集
+     *
+     * @param filter 不为 null 时只有满足条件的节点进入结果，其余节点只用于扩展候选
+     * @param liveOnly 墓碑节点是否排除在结果之外，插入时保留以免新节点找不到邻居
+     * @param maxVisits 最多计算的节点数，0 表示不限制
+     */
+    private NodeQueue searchLayer(Node[] current, float[] query, float querySum, int entry, int ef, int level,
+                                  LongPredicate filter, boolean liveOnly, int maxVisits) {
+        VisitedSet visited = visitedSets.get();
+        visited.reset(current.length);
+
+        NodeQueue candidates = new NodeQueue(ef * 2, true);
+        NodeQueue results = new NodeQueue(ef + 1, false);
+
+        float entryScore = score(query, querySum, current[entry]);
+        visited.visit(entry);
+        int visits = 1;
+        candidates.push(entry, entryScore);
+        if (accepts(current[entry], filter, liveOnly)) {
+            results.push(entry, entryScore);
+        }
+
+        while (candidates.size() > 0) {
+            float candidateScore = candidates.peekScore();
+            if (results.size() >= ef && candidateScore < results.peekScore()) {
+                break;
+            }
+            int candidate = candidates.pop();
+
+            int[] neighbors = neighborsAt(current[candidate], level);
+            for (int neighbor : neighbors) {
+                if (neighbor >= current.length || current[neighbor] == null || !visited.visit(neighbor)) {
+                    continue;
+                }
+                if (maxVisits > 0 && ++visits > maxVisits) {
+                    return results;
+                }
+                float s = score(query, querySum, current[neighbor]);
+                if (results.size() < ef || s > results.peekScore()) {
+                    candidates.push(neighbor, s);
+                    if (!accepts(current[neighbor], filter, liveOnly)) {
+                        continue;
+                    }
+                    results.push(neighbor, s);
+                    if (results.size() > ef) {
+                        results.pop();
+                    }
+                }
+            }
+        }
+        return results;
+    }
+
+    private static boolean accepts(Node node, LongPredicate filter, boolean liveOnly) {
+        return (!liveOnly || !node.deleted) && (filter == null || filter.test(node.id));
+    }
+
+    /**
+     * 启发式邻居选择：优先保留彼此分散的邻居，不足时用被裁剪的候选补齐
+     *
+     * @param sortedIds 按相似度降序排列的候选
+     */
+    private int[] selectNeighbors(Node[] current, int[] sortedIds, float[] sortedScores, int count, int maxNeighbors) {
+        if (count <= maxNeighbors) {
+            return Arrays.copyOf(sortedIds, count);
+        }
+
+        int[] selected = new int[maxNeighbors];
+        int selectedCount = 0;
+        int[] pruned = new int[count];
+        int prunedCount = 0;
+
+        for (int i = 0; i < count && selectedCount < maxNeighbors; i++) {
+            int candidate = sortedIds[i];
+            Node candidateNode = current[candidate];
+            boolean keep = true;
+            for (int j = 0; j < selectedCount; j++) {
+                if (score(candidateNode, current[selected[j]]) > sortedScores[i]) {
+                    keep = false;
+                    break;
+                }
+            }
+            if (keep) {
+                selected[selectedCount++] = candidate;
+            } else {
+                pruned[prunedCount++] = candidate;
+            }
+        }
+
+        for (int i = 0; i < prunedCount && selectedCount < maxNeighbors; i++) {
+            selected[selectedCount++] = pruned[i];
+        }
+        return selectedCount == maxNeighbors ? selected : Arrays.copyOf(selected, selectedCount);
+    }
+
+    /**
+     * 为已有节点添加反向连接，超出上限时重新裁剪（写时复制，读者看到的始终是完整数组）
+     */
+    private void connect(Node[] current, int target, int newNode, int level) {
+        Node node = current[target];
+        int[] existing = neighborsAt(node, level);
+        int maxNeighbors = level == 0 ? maxM0 : m;
+
+        if (existing.length < maxNeighbors) {
+            int[] updated = Arrays.copyOf(existing, existing.length + 1);
+            updated[existing.length] = newNode;
+            node.neighbors[level] = updated;
+            return;
+        }
+
+        NodeQueue queue = new NodeQueue(existing.length + 1, false);
+        queue.push(newNode, score(node, current[newNode]));
+        for (int neighbor : existing) {
+            queue.push(neighbor, score(node, current[neighbor]));
+        }
+        int[] ids = new int[queue.size()];
+        float[] scores = new float[queue.size()];
+        drainDescending(queue, ids, scores);
+        node.neighbors[level] = selectNeighbors(current, ids, scores, ids.length, maxNeighbors);
+    }
+
+    private static int[] neighborsAt(Node node, int level) {
+        if (level >= node.neighbors.length) {
+            return EMPTY;
+        }
+        int[] neighbors = node.neighbors[level];
+        return neighbors != null ? neighbors : EMPTY;
+    }
+
+    /**
+     * 将最小堆中的元素按相似度降序输出
+     */
+    private static void drainDescending(NodeQueue minHeap, int[] ids, float[] scores) {
+        for (int i = ids.length - 1; i >= 0; i--) {
+            scores[i] = minHeap.peekScore();
+            ids[i] = minHeap.pop();
+        }
+    }
+
+    /**
+     * 查询向量与节点的相似度
+     *
+     * @param querySum 查询向量各维度之和，仅 int8 节点使用
+     */
+    private static float score(float[] query, float querySum, Node node) {
+        return node.quantized != null ? node.quantized.dot(query, querySum) : SimilarityKernels.dot(query, node.vector);
+    }
+
+    private static float score(Node a, Node b) {
+        if (a.quantized != null && b.quantized != null) {
+            return a.quantized.dot(b.quantized);
+        }
+        return SimilarityKernels.dot(a.vector, b.vector);
+    }
+
+    private static final int[] EMPTY = new int[0];
+
+    // ==================== 内部类 ====================
+
+    /**
+     * 图节点，每层邻居数组整体替换，保证无锁读取的一致性
+     */
+    private static final class Node {
+        final long id;
+        // float32 与 int8 二选一
+        final float[] vector;
+        final QuantizedVector quantized;
+        final int[][] neighbors;
+        volatile boolean deleted;
+
+        Node(long id, float[] vector, QuantizedVector quantized, int level) {
+            this.id = id;
+            this.vector = vector;
+            this.quantized = quantized;
+            this.neighbors = new int[level + 1][];
+            for (int l = 0; l <= level; l++) {
+                this.neighbors[l] = EMPTY;
+            }
+        }
+    }
+
+    /**
+     * 线程本地的访问标记，使用代数计数避免每次查询清空数组
+     */
+    private static final class VisitedSet {
+        private int[] marks = new int[0];
+        private int epoch = 0;
+
+        void reset(int capacity) {
+            if (marks.length < capacity) {
+                marks = new int[capacity];
+                epoch = 0;
+            }
+            epoch++;
+            if (epoch == Integer.MAX_VALUE) {
+                Arrays.fill(marks, 0);
+                epoch = 1;
+            }
+        }
+
+        boolean visit(int index) {
+            if (marks[index] == epoch) {
+                return false;
+            }
+            marks[index] = epoch;
+            return true;
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package com.deepsearch.vector.index;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 向量索引快照：把HNSW图和 向量ID -> 文档ID 映射写成带版本号的二进制文件，
+ * 启动时按内存映射顺序读回，不需要从数据库解析JSON再逐个插入重建图。
+ * 文件布局为 [magic][version][watermark][createdAt][HNSW][映射数][向量ID, 文档ID]...，
+ * 先写临时文件再原子替换，写到一半中断不会破坏已有快照。
+ *
+ * @param index HNSW索引
+ * @param documentIds 向量ID -> 文档ID
+ * @param watermark 快照包含的最大 updated_at（毫秒），启动后只需重放此后的变更
+ * @param createdAt 快照写入时间（毫秒）
+ */
+public record IndexSnapshot(HnswIndex index, Map<Long, Long> documentIds, long watermark, long createdAt) {
+
+    private static final int MAGIC = 0x56494458;
+    private static final int VERSION = 1;
+
+    /**
+     * 写入快照
+     */
+    public static void write(Path file, HnswIndex index, Map<Long, Long> documentIds, long watermark)
+            throws IOException {
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        Map<Long, Long> mapping = new HashMap<>(documentIds);
+        try (SnapshotWriter writer = new SnapshotWriter(temp)) {
+            writer.writeInt(MAGIC);
+            writer.writeInt(VERSION);
+            writer.writeLong(watermark);
+            writer.writeLong(System.currentTimeMillis());
+            index.writeTo(writer);
+            writer.writeInt(mapping.size());
+            for (Map.Entry<Long, Long> entry : mapping.entrySet()) {
+                writer.writeLong(entry.getKey());
+                writer.writeLong(entry.getValue());
+            }
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * 读取快照
+     *
+     * @throws IOException 文件不存在、格式无法识别或版本不兼容
+     */
+    public static IndexSnapshot read(Path file) throws IOException {
+        try (SnapshotReader reader = new SnapshotReader(file)) {
+            if (reader.readInt() != MAGIC) {
+                throw new IOException("无法识别的索引快照: " + file);
+            }
+            int version = reader.readInt();
+            if (version != VERSION) {
+                throw new IOException("索引快照版本不兼容: " + version + ", 期望: " + VERSION);
+            }
+            long watermark = reader.readLong();
+            long createdAt = reader.readLong();
+            HnswIndex index = HnswIndex.readFrom(reader);
+            int count = reader.readInt();
+            Map<Long, Long> documentIds = new HashMap<>(Math.max(16, count * 4 / 3 + 1));
+            for (int i = 0; i < count; i++) {
+                documentIds.put(reader.readLong(), reader.readLong());
+            }
+            return new IndexSnapshot(index, documentIds, watermark, createdAt);
+        }
+    }
+}
@@ -0,0 +1,310 @@
+package com.deepsearch.vector.index;
+
+import com.deepsearch.vector.util.SimilarityKernels;
+import com.deepsearch.vector.util.TopKSelector;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 倒排文件 + 乘积量化索引 (IVF-PQ)
+ * 向量先按粗聚类中心分桶，再把与中心的残差切成 subspaces 段，每段用 8bit 码本编码。
+ * 每个向量只占 subspaces 字节 + 8 字节ID，查询时用非对称距离 (ADC) 查表估算内积，
+ * 估算结果需要用原始向量精确重排。
+ */
+public class IvfPqIndex {
+
+    private static final int MAX_CODEBOOK_SIZE = 256;
+
+    private final int dimension;
+    private final int nlist;
+    private final int subspaces;
+    private final int subDimension;
+    private final Metric metric;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private float[][] coarseCentroids;
+    private float[] centroidNorms;
+    // 码本按 [subspace][code * subDimension + d] 展平存储
+    private float[][] codebooks;
+    private int codebookSize;
+    private InvertedList[] lists;
+    private volatile int size;
+
+    public IvfPqIndex(int dimension, int nlist, int subspaces, Metric metric) {
+        if (dimension <= 0 || nlist <= 0 || subspaces <= 0) {
+            throw new IllegalArgumentException("索引参数必须大于0");
+        }
+        if (dimension % subspaces != 0) {
+            throw new IllegalArgumentException("向量维度必须能被子空间数整除: " + dimension + " % " + subspaces);
+        }
+        this.dimension = dimension;
+        this.nlist = nlist;
+        this.subspaces = subspaces;
+        this.subDimension = dimension / subspaces;
+        this.metric = metric;
+    }
+
+    /**
+     * 用样本训练粗聚类中心和各子空间码本
+     *
+     * @param sample 训练样本
+     * @param iterations k-means 迭代次数
+     * @param seed 随机种子
+     */
+    public void train(float[][] sample, int iterations, long seed) {
+        if (sample == null || sample.length == 0) {
+            throw new IllegalArgumentException("训练样本不能为空");
+        }
+
+        float[][] prepared = new float[sample.length][];
+        for (int i = 0; i < sample.length; i++) {
+            if (sample[i].length != dimension) {
+                throw new IllegalArgumentException("训练样本维度不匹配，期望: " + dimension);
+            }
+            prepared[i] = prepare(sample[i]);
+        }
+
+        KMeans.Clustering coarse = KMeans.fit(prepared, nlist, iterations, seed);
+        float[][] centroids = coarse.centroids();
+        int[] assignments = coarse.assignments();
+
+        // 残差码本：每个子空间独立训练
+        float[][][] residualSubvectors = new float[subspaces][prepared.length][subDimension];
+        for (int i = 0; i < prepared.length; i++) {
+            float[] centroid = centroids[assignments[i]];
+            for (int s = 0; s < subspaces; s++) {
+                int offset = s * subDimension;
+                for (int d = 0; d < subDimension; d++) {
+                    residualSubvectors[s][i][d] = prepared[i][offset + d] - centroid[offset + d];
+                }
+            }
+        }
+
+        int ksub = Math.min(MAX_CODEBOOK_SIZE, prepared.length);
+        float[][] newCodebooks = new float[subspaces][ksub * subDimension];
+        for (int s = 0; s < subspaces; s++) {
+            float[][] subCentroids = KMeans.train(residualSubvectors[s], ksub, iterations, seed + s + 1);
+            for (int c = 0; c < subCentroids.length; c++) {
+                System.arraycopy(subCentroids[c], 0, newCodebooks[s], c * subDimension, subDimension);
+            }
+        }
+
+        lock.writeLock().lock();
+        try {
+            this.coarseCentroids = centroids;
+            this.centroidNorms = new float[centroids.length];
+            for (int c = 0; c < centroids.length; c++) {
+                centroidNorms[c] = SimilarityKernels.dot(centroids[c], 0, centroids[c], 0, dimension);
+            }
+            this.codebooks = newCodebooks;
+            this.codebookSize = ksub;
+            this.lists = new InvertedList[centroids.length];
+            for (int c = 0; c < centroids.length; c++) {
+                lists[c] = new InvertedList(subspaces);
+            }
+            this.size = 0;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public boolean isTrained() {
+        return lists != null;
+    }
+
+    /**
+     * 编码并写入向量，调用方负责保证ID不重复
+     */
+    public void add(long id, float[] vector) {
+        if (!isTrained()) {
+            throw new IllegalStateException("索引尚未训练");
+        }
+        if (vector == null || vector.length != dimension) {
+            throw new IllegalArgumentException("向量维度不匹配，期望: " + dimension);
+        }
+
+        float[] data = prepare(vector);
+        lock.writeLock().lock();
+        try {
+            int list = KMeans.nearest(coarseCentroids, data);
+            float[] centroid = coarseCentroids[list];
+            byte[] code = new byte[subspaces];
+            float[] residual = new float[subDimension];
+            for (int s = 0; s < subspaces; s++) {
+                int offset = s * subDimension;
+                for (int d = 0; d < subDimension; d++) {
+                    residual[d] = data[offset + d] - centroid[offset + d];
+                }
+                code[s] = (byte) nearestCode(s, residual);
+            }
+            lists[list].append(id, code);
+            size++;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 近似检索：探查 nprobe 个最近的倒排桶，用 ADC 估算得分
+     *
+     * @return 按估算得分降序排列的结果
+     */
+    public List<SearchHit> search(float[] query, int k, int nprobe) {
+        if (query == null || query.length != dimension || k <= 0 || !isTrained()) {
+            return new ArrayList<>();
+        }
+
+        float[] q = prepare(query);
+        lock.readLock().lock();
+        try {
+            // 查表：每个子空间的查询段与所有码字的内积
+            float[] table = new float[subspaces * codebookSize];
+            for (int s = 0; s < subspaces; s++) {
+                float[] codebook = codebooks[s];
+                int offset = s * subDimension;
+                for (int c = 0; c < codebookSize; c++) {
+                    table[s * codebookSize + c] = SimilarityKernels.dot(q, offset, codebook, c * subDimension, subDimension);
+                }
+            }
+
+            float[] centroidScores = new float[coarseCentroids.length];
+            float[] centroidDistances = new float[coarseCentroids.length];
+            for (int c = 0; c < coarseCentroids.length; c++) {
+                centroidScores[c] = SimilarityKernels.dot(q, 0, coarseCentroids[c], 0, dimension);
+                centroidDistances[c] = centroidNorms[c] - 2 * centroidScores[c];
+            }
+
+            TopKSelector selector = new TopKSelector(k);
+            for (int list : nearestLists(centroidDistances, nprobe)) {
+                InvertedList invertedList = lists[list];
+                byte[] codes = invertedList.codes;
+                long[] ids = invertedList.ids;
+                float base = centroidScores[list];
+                for (int i = 0; i < invertedList.size; i++) {
+                    float score = base;
+                    int codeOffset = i * subspaces;
+                    for (int s = 0; s < subspaces; s++) {
+                        score += table[s * codebookSize + (codes[codeOffset + s] & 0xFF)];
+                    }
+                    selector.offer(ids[i], score);
+                }
+            }
+            float[] topScores = new float[selector.size()];
+            long[] topIds = selector.drain(topScores);
+            List<SearchHit> result = new ArrayList<>(topIds.length);
+            for (int i = 0; i < topIds.length; i++) {
+                result.add(new SearchHit(topIds[i], topScores[i]));
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int getDimension() {
+        return dimension;
+    }
+
+    public Metric getMetric() {
+        return metric;
+    }
+
+    public int getNlist() {
+        return coarseCentroids != null ? coarseCentroids.length : nlist;
+    }
+
+    public int getSubspaces() {
+        return subspaces;
+    }
+
+    /**
+     * 估算索引占用的堆内存（字节）
+     */
+    public long estimateMemoryBytes() {
+        long total = 0;
+        if (coarseCentroids != null) {
+            total += (long) coarseCentroids.length * dimension * 4L;
+        }
+        if (codebooks != null) {
+            total += (long) subspaces * codebookSize * subDimension * 4L;
+        }
+        if (lists != null) {
+            for (InvertedList list : lists) {
+                total += 32L + list.ids.length * 8L + list.codes.length;
+            }
+        }
+        return total;
+    }
+
+    // ==================== 私有方法 ====================
+
+    private float[] prepare(float[] vector) {
+        float[] data = Arrays.copyOf(vector, vector.length);
+        if (metric == Metric.COSINE) {
+            SimilarityKernels.normalize(data);
+        }
+        return data;
+    }
+
+    private int nearestCode(int subspace, float[] residual) {
+        float[] codebook = codebooks[subspace];
+        int best = 0;
+        float bestDistance = Float.MAX_VALUE;
+        for (int c = 0; c < codebookSize; c++) {
+            float distance = 0f;
+            int offset = c * subDimension;
+            for (int d = 0; d < subDimension; d++) {
+                float diff = residual[d] - codebook[offset + d];
+                distance += diff * diff;
+            }
+            if (distance < bestDistance) {
+                bestDistance = distance;
+                best = c;
+            }
+        }
+        return best;
+    }
+
+    private static int[] nearestLists(float[] distances, int nprobe) {
+        float[] negated = new float[distances.length];
+        for (int c = 0; c < distances.length; c++) {
+            negated[c] = -distances[c];
+        }
+        return TopKSelector.select(negated, Math.max(1, nprobe));
+    }
+
+    // ==================== 内部类 ====================
+
+    /**
+     * 倒排桶：ID 与 PQ 编码按写入顺序连续存放
+     */
+    private static final class InvertedList {
+        private final int codeSize;
+        long[] ids = new long[0];
+        byte[] codes = new byte[0];
+        int size;
+
+        InvertedList(int codeSize) {
+            this.codeSize = codeSize;
+        }
+
+        void append(long id, byte[] code) {
+            if (size == ids.length) {
+                int capacity = Math.max(16, size + (size >> 1));
+                ids = Arrays.copyOf(ids, capacity);
+                codes = Arrays.copyOf(codes, capacity * codeSize);
+            }
+            ids[size] = id;
+            System.arraycopy(code, 0, codes, size * codeSize, codeSize);
+            size++;
+        }
+    }
+}
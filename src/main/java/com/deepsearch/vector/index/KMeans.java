@@ -0,0 +1,336 @@
+package com.deepsearch.vector.index;
+
+import com.deepsearch.vector.util.SimilarityKernels;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+/**
+ * K-means 聚类（k-means++ 初始化，平方欧氏距离）
+ * 样本较少时做完整的 Lloyd 迭代，样本很多时改用 mini-batch 更新；
+ * 分配步骤在 fork-join 公共池上并行，距离用 ‖c‖² - 2·x·c 展开，内积走 SIMD 内核。
+ * 用于结果聚类分析，以及训练倒排索引的粗聚类中心和乘积量化码本。
+ */
+public final class KMeans {
+
+    // 样本数达到该值时 train 改用 mini-batch
+    static final int MINI_BATCH_THRESHOLD = 20000;
+
+    // 每个批次的最小样本数
+    private static final int MIN_BATCH_SIZE = 1024;
+
+    // 每轮 Lloyd 迭代折算的 mini-batch 步数
+    private static final int MINI_BATCH_STEPS_PER_ITERATION = 10;
+
+    // k-means++ 初始化最多在 k 的这个倍数个样本上进行
+    private static final int SEEDING_SAMPLES_PER_CLUSTER = 32;
+
+    // 聚类中心相对移动量低于该值时提前结束 mini-batch
+    private static final double MINI_BATCH_TOLERANCE = 1e-4;
+
+    // 样本数低于该值时串行计算
+    private static final int PARALLEL_THRESHOLD = 256;
+
+    private KMeans() {
+    }
+
+    /**
+     * 训练聚类中心，样本很多时自动使用 mini-batch
+     *
+     * @param data 训练样本，所有向量维度一致
+     * @param k 聚类数，超过样本数时取样本数
+     * @param maxIterations 最大迭代次数
+     * @param seed 随机种子
+     * @return 聚类中心 [k][dimension]
+     */
+    public static float[][] train(float[][] data, int k, int maxIterations, long seed) {
+        return fit(data, k, maxIterations, seed).centroids();
+    }
+
+    /**
+     * 聚类并返回中心和每个样本的归属，样本数达到 MINI_BATCH_THRESHOLD 时使用 mini-batch
+     */
+    public static Clustering fit(float[][] data, int k, int maxIterations, long seed) {
+        validate(data, k);
+        if (data.length >= MINI_BATCH_THRESHOLD) {
+            int batchSize = Math.max(MIN_BATCH_SIZE, 4 * Math.min(k, data.length));
+            return miniBatch(data, k, batchSize, maxIterations * MINI_BATCH_STEPS_PER_ITERATION, seed);
+        }
+        return lloyd(data, k, maxIterations, seed);
+    }
+
+    /**
+     * 完整 Lloyd 迭代：每轮把所有样本分配到最近中心，再按簇重新求均值
+     */
+    public static Clustering lloyd(float[][] data, int k, int maxIterations, long seed) {
+        validate(data, k);
+        int n = data.length;
+        int dimension = data[0].length;
+        k = Math.min(k, n);
+        Random random = new Random(seed);
+
+        float[][] centroids = initPlusPlus(data, k, random);
+        int[] assignments = new int[n];
+        Arrays.fill(assignments, -1);
+
+        for (int iteration = 0; iteration < maxIterations; iteration++) {
+            int changed = assign(data, centroids, assignments);
+            if (changed == 0 && iteration > 0) {
+                break;
+            }
+
+            int[][] members = groupByCluster(assignments, k);
+            IntStream.range(0, k).parallel().forEach(c -> {
+                if (members[c].length > 0) {
+                    centroids[c] = mean(data, members[c], dimension);
+                }
+            });
+            for (int c = 0; c < k; c++) {
+                if (members[c].length == 0) {
+                    // 空簇随机重新选一个样本作为中心
+                    centroids[c] = Arrays.copyOf(data[random.nextInt(n)], dimension);
+                }
+            }
+        }
+        assign(data, centroids, assignments);
+        return new Clustering(centroids, assignments);
+    }
+
+    /**
+     * Mini-batch k-means：每步随机抽取 batchSize 个样本，只用它们更新所属中心，
+     * 中心的学习率随累计样本数衰减；结束后把全部样本分配到最终中心。
+     *
+     * @param steps 最大更新步数，中心基本不再移动时提前结束
+     */
+    public static Clustering miniBatch(float[][] data, int k, int batchSize, int steps, long seed) {
+        validate(data, k);
+        int n = data.length;
+        int dimension = data[0].length;
+        k = Math.min(k, n);
+        batchSize = Math.max(1, Math.min(batchSize, n));
+        Random random = new Random(seed);
+
+        float[][] centroids = initPlusPlus(data, k, random);
+        long[] counts = new long[k];
+        int[] batchAssignments = new int[batchSize];
+        float[][] batchData = new float[batchSize][];
+        double[] shifts = new double[k];
+
+        for (int step = 0; step < steps; step++) {
+            for (int i = 0; i < batchSize; i++) {
+                batchData[i] = data[random.nextInt(n)];
+            }
+            Arrays.fill(batchAssignments, -1);
+            assign(batchData, centroids, batchAssignments);
+
+            int[][] members = groupByCluster(batchAssignments, k);
+            IntStream.range(0, k).parallel().forEach(c -> {
+                shifts[c] = 0.0;
+                if (members[c].length == 0) {
+                    return;
+                }
+                float[] centroid = centroids[c];
+                float[] before = centroid.clone();
+                for (int member : members[c]) {
+                    counts[c]++;
+                    float rate = 1.0f / counts[c];
+                    float[] point = batchData[member];
+                    for (int d = 0; d < dimension; d++) {
+                        centroid[d] += rate * (point[d] - centroid[d]);
+                    }
+                }
+                shifts[c] = SimilarityKernels.squaredEuclidean(before, centroid)
+                    / Math.max(SimilarityKernels.squaredNorm(before), Float.MIN_NORMAL);
+            });
+
+            if (step > 0 && Arrays.stream(shifts).max().orElse(0.0) < MINI_BATCH_TOLERANCE) {
+                break;
+            }
+        }
+
+        int[] assignments = new int[n];
+        Arrays.fill(assignments, -1);
+        assign(data, centroids, assignments);
+        return new Clustering(centroids, assignments);
+    }
+
+    /**
+     * 查找距离最近的聚类中心
+     */
+    public static int nearest(float[][] centroids, float[] vector) {
+        int best = 0;
+        float bestDistance = Float.MAX_VALUE;
+        for (int c = 0; c < centroids.length; c++) {
+            float distance = SimilarityKernels.squaredEuclidean(centroids[c], vector);
+            if (distance < bestDistance) {
+                bestDistance = distance;
+                best = c;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * 并行把样本分配到最近的中心
+     *
+     * @param assignments 输入为上一轮归属，输出为新归属
+     * @return 归属发生变化的样本数
+     */
+    public static int assign(float[][] data, float[][] centroids, int[] assignments) {
+        float[] centroidNorms = new float[centroids.length];
+        for (int c = 0; c < centroids.length; c++) {
+            centroidNorms[c] = SimilarityKernels.squaredNorm(centroids[c]);
+        }
+        return range(data.length, PARALLEL_THRESHOLD).map(i -> {
+            int nearest = nearest(centroids, centroidNorms, data[i]);
+            if (nearest == assignments[i]) {
+                return 0;
+            }
+            assignments[i] = nearest;
+            return 1;
+        }).sum();
+    }
+
+    // ==================== 私有方法 ====================
+
+    /**
+     * ‖x - c‖² = ‖x‖² - 2·x·c + ‖c‖²，‖x‖² 对所有中心相同，只比较后两项
+     */
+    private static int nearest(float[][] centroids, float[] centroidNorms, float[] vector) {
+        int best = 0;
+        float bestDistance = Float.MAX_VALUE;
+        for (int c = 0; c < centroids.length; c++) {
+            float distance = centroidNorms[c] - 2f * SimilarityKernels.dot(vector, centroids[c]);
+            if (distance < bestDistance) {
+                bestDistance = distance;
+                best = c;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * k-means++ 初始化：按到已选中心距离的平方加权抽样。
+     * 样本很多时只在随机子集上初始化，每轮距离更新并行计算。
+     */
+    private static float[][] initPlusPlus(float[][] data, int k, Random random) {
+        float[][] candidates = seedingSample(data, k, random);
+        int n = candidates.length;
+        int dimension = data[0].length;
+        float[][] centroids = new float[k][];
+        centroids[0] = Arrays.copyOf(candidates[random.nextInt(n)], dimension);
+
+        float[] minDistances = new float[n];
+        Arrays.fill(minDistances, Float.MAX_VALUE);
+
+        for (int c = 1; c < k; c++) {
+            float[] previous = centroids[c - 1];
+            range(n, PARALLEL_THRESHOLD).forEach(i -> {
+                float distance = SimilarityKernels.squaredEuclidean(previous, candidates[i]);
+                if (distance < minDistances[i]) {
+                    minDistances[i] = distance;
+                }
+            });
+            double total = 0.0;
+            for (int i = 0; i < n; i++) {
+                total += minDistances[i];
+            }
+
+            int chosen = random.nextInt(n);
+            if (total > 0) {
+                double target = random.nextDouble() * total;
+                for (int i = 0; i < n; i++) {
+                    target -= minDistances[i];
+                    if (target <= 0) {
+                        chosen = i;
+                        break;
+                    }
+                }
+            }
+            centroids[c] = Arrays.copyOf(candidates[chosen], dimension);
+        }
+        return centroids;
+    }
+
+    private static float[][] seedingSample(float[][] data, int k, Random random) {
+        long limit = (long) k * SEEDING_SAMPLES_PER_CLUSTER;
+        if (data.length <= limit) {
+            return data;
+        }
+        float[][] sample = new float[(int) limit][];
+        for (int i = 0; i < sample.length; i++) {
+            sample[i] = data[random.nextInt(data.length)];
+        }
+        return sample;
+    }
+
+    /**
+     * 按归属把样本下标分组（计数排序），组内保持下标升序
+     */
+    private static int[][] groupByCluster(int[] assignments, int k) {
+        int[] sizes = new int[k];
+        for (int assignment : assignments) {
+            sizes[assignment]++;
+        }
+        int[][] members = new int[k][];
+        for (int c = 0; c < k; c++) {
+            members[c] = new int[sizes[c]];
+        }
+        int[] fill = new int[k];
+        for (int i = 0; i < assignments.length; i++) {
+            int c = assignments[i];
+            members[c][fill[c]++] = i;
+        }
+        return members;
+    }
+
+    private static float[] mean(float[][] data, int[] members, int dimension) {
+        double[] sum = new double[dimension];
+        for (int member : members) {
+            float[] point = data[member];
+            for (int d = 0; d < dimension; d++) {
+                sum[d] += point[d];
+            }
+        }
+        float[] centroid = new float[dimension];
+        for (int d = 0; d < dimension; d++) {
+            centroid[d] = (float) (sum[d] / members.length);
+        }
+        return centroid;
+    }
+
+    private static IntStream range(int count, int parallelThreshold) {
+        IntStream stream = IntStream.range(0, count);
+        return count >= parallelThreshold ? stream.parallel() : stream;
+    }
+
+    private static void validate(float[][] data, int k) {
+        if (data == null || data.length == 0) {
+            throw new IllegalArgumentException("训练样本不能为空");
+        }
+        if (k <= 0) {
+            throw new IllegalArgumentException("聚类数必须大于0");
+        }
+    }
+
+    /**
+     * 聚类结果
+     *
+     * @param centroids 聚类中心 [k][dimension]
+     * @param assignments 每个样本所属的中心下标
+     */
+    public record Clustering(float[][] centroids, int[] assignments) {
+
+        public int size() {
+            return centroids.length;
+        }
+
+        /**
+         * 按簇分组的样本下标，组内保持下标升序
+         */
+        public int[][] members() {
+            return groupByCluster(assignments, centroids.length);
+        }
+    }
+}
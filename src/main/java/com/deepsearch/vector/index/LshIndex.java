@@ -0,0 +1,271 @@
+package com.deepsearch.vector.index;
+
+import com.deepsearch.vector.util.SimilarityKernels;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 多表随机超平面局部敏感哈希 (Signed Random Projection LSH)
+ * 每张表用 numBits 个随机超平面把向量映射成桶编号，只保存签名和ID，不保存原始向量，
+ * 适合内存受限时做低成本候选召回，召回结果需要再精确重排。
+ */
+public class LshIndex {
+
+    private static final int MAX_BITS = 30;
+
+    private final int dimension;
+    private final int numTables;
+    private final int numBits;
+    // 超平面按 [table][bit * dimension + d] 展平存储
+    private final float[][] hyperplanes;
+    private final List<Map<Integer, Bucket>> tables;
+    private final Map<Long, Entry> entries = new ConcurrentHashMap<>();
+
+    public LshIndex(int dimension, int numTables, int numBits, long seed) {
+        if (dimension <= 0) {
+            throw new IllegalArgumentException("向量维度必须大于0");
+        }
+        if (numTables <= 0) {
+            throw new IllegalArgumentException("哈希表数量必须大于0");
+        }
+        if (numBits <= 0 || numBits > MAX_BITS) {
+            throw new IllegalArgumentException("哈希位数必须在1-" + MAX_BITS + "之间");
+        }
+
+        this.dimension = dimension;
+        this.numTables = numTables;
+        this.numBits = numBits;
+        this.hyperplanes = new float[numTables][numBits * dimension];
+        this.tables = new ArrayList<>(numTables);
+
+        Random random = new Random(seed);
+        for (int t = 0; t < numTables; t++) {
+            for (int i = 0; i < numBits * dimension; i++) {
+                hyperplanes[t][i] = (float) random.nextGaussian();
+            }
+            tables.add(new ConcurrentHashMap<>());
+        }
+    }
+
+    /**
+     * 写入或更新向量的签名
+     *
+     * @param vectorId 向量ID
+     * @param documentId 所属文档ID
+     * @param vector 向量数据
+     */
+    public synchronized void add(long vectorId, long documentId, float[] vector) {
+        if (vector == null || vector.length != dimension) {
+            throw new IllegalArgumentException("向量维度不匹配，期望: " + dimension);
+        }
+
+        int[] keys = new int[numTables];
+        float[] projections = new float[numBits];
+        for (int t = 0; t < numTables; t++) {
+            keys[t] = hash(t, vector, projections);
+        }
+
+        Entry previous = entries.put(vectorId, new Entry(documentId, keys));
+        if (previous != null) {
+            removeFromBuckets(vectorId, previous.keys);
+        }
+        for (int t = 0; t < numTables; t++) {
+            tables.get(t).computeIfAbsent(keys[t], k -> new Bucket()).add(vectorId);
+        }
+    }
+
+    /**
+     * 删除向量
+     *
+     * @return 向量是否存在
+     */
+    public synchronized boolean remove(long vectorId) {
+        Entry entry = entries.remove(vectorId);
+        if (entry == null) {
+            return false;
+        }
+        removeFromBuckets(vectorId, entry.keys);
+        return true;
+    }
+
+    /**
+     * 查找候选文档，优先返回在更多哈希表中发生碰撞的文档；
+     * 精确桶不足时按投影绝对值从小到大依次翻转单个比特做多探针查询。
+     * 碰撞次数按分块统计，文档取其分块中的最大值，分块多的文档不会因此排得更靠前
+     *
+     * @param query 查询向量
+     * @param maxCandidates 最多返回的候选文档数
+     * @return 候选文档ID，按碰撞次数降序排列
+     */
+    public List<Long> candidates(float[] query, int maxCandidates) {
+        if (query == null || query.length != dimension || maxCandidates <= 0 || entries.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        int[] baseKeys = new int[numTables];
+        int[][] probeOrder = new int[numTables][];
+        float[] projections = new float[numBits];
+        for (int t = 0; t < numTables; t++) {
+            baseKeys[t] = hash(t, query, projections);
+            probeOrder[t] = bitsByMargin(projections);
+        }
+
+        Map<Long, Integer> chunkCollisions = new HashMap<>();
+        Map<Long, Integer> collisions = new HashMap<>();
+        for (int t = 0; t < numTables; t++) {
+            collect(t, baseKeys[t], chunkCollisions, collisions);
+        }
+
+        // 多探针：逐步翻转最接近超平面的比特，直到候选足够
+        for (int probe = 0; probe < numBits && collisions.size() < maxCandidates; probe++) {
+            for (int t = 0; t < numTables; t++) {
+                collect(t, baseKeys[t] ^ (1 << probeOrder[t][probe]), chunkCollisions, collisions);
+            }
+        }
+
+        List<Map.Entry<Long, Integer>> ranked = new ArrayList<>(collisions.entrySet());
+        ranked.sort((a, b) -> Integer.compare(b.getValue(), a.getValue()));
+
+        List<Long> result = new ArrayList<>(Math.min(maxCandidates, ranked.size()));
+        for (int i = 0; i < ranked.size() && result.size() < maxCandidates; i++) {
+            result.add(ranked.get(i).getKey());
+        }
+        return result;
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public int getDimension() {
+        return dimension;
+    }
+
+    public int getNumTables() {
+        return numTables;
+    }
+
+    public int getNumBits() {
+        return numBits;
+    }
+
+    /**
+     * 估算索引占用的堆内存（字节），不含原始向量
+     */
+    public long estimateMemoryBytes() {
+        long hyperplaneBytes = (long) numTables * numBits * dimension * 4L;
+        long entryBytes = entries.size() * (64L + numTables * 4L);
+        long bucketBytes = 0;
+        for (Map<Integer, Bucket> table : tables) {
+            bucketBytes += table.size() * 64L;
+        }
+        long idBytes = (long) entries.size() * numTables * 8L;
+        return hyperplaneBytes + entryBytes + bucketBytes + idBytes;
+    }
+
+    // ==================== 私有方法 ====================
+
+    private int hash(int table, float[] vector, float[] projections) {
+        float[] planes = hyperplanes[table];
+        int key = 0;
+        for (int b = 0; b < numBits; b++) {
+            float dot = SimilarityKernels.dot(planes, b * dimension, vector, 0, dimension);
+            projections[b] = dot;
+            if (dot >= 0f) {
+                key |= 1 << b;
+            }
+        }
+        return key;
+    }
+
+    private int[] bitsByMargin(float[] projections) {
+        Integer[] order = new Integer[numBits];
+        for (int b = 0; b < numBits; b++) {
+            order[b] = b;
+        }
+        Arrays.sort(order, (a, b) -> Float.compare(Math.abs(projections[a]), Math.abs(projections[b])));
+        int[] result = new int[numBits];
+        for (int b = 0; b < numBits; b++) {
+            result[b] = order[b];
+        }
+        return result;
+    }
+
+    private void collect(int table, int key, Map<Long, Integer> chunkCollisions, Map<Long, Integer> collisions) {
+        Bucket bucket = tables.get(table).get(key);
+        if (bucket == null) {
+            return;
+        }
+        Bucket.Slots slots = bucket.slots;
+        for (int i = 0; i < slots.size(); i++) {
+            long vectorId = slots.ids()[i];
+            Entry entry = entries.get(vectorId);
+            if (entry != null) {
+                int count = chunkCollisions.merge(vectorId, 1, Integer::sum);
+                collisions.merge(entry.documentId, count, Math::max);
+            }
+        }
+    }
+
+    private void removeFromBuckets(long vectorId, int[] keys) {
+        for (int t = 0; t < numTables; t++) {
+            Map<Integer, Bucket> table = tables.get(t);
+            Bucket bucket = table.get(keys[t]);
+            if (bucket != null && bucket.remove(vectorId)) {
+                table.remove(keys[t], bucket);
+            }
+        }
+    }
+
+    // ==================== 内部类 ====================
+
+    /**
+     * 向量签名条目
+     */
+    private record Entry(long documentId, int[] keys) {}
+
+    /**
+     * 哈希桶，读者无需加锁：追加写入快照之外的空闲槽位后发布新快照，均摊 O(1)；
+     * 删除时复制出新数组，已发布快照的 [0, size) 区间不会被改写
+     */
+    private static final class Bucket {
+        private static final int INITIAL_CAPACITY = 4;
+
+        private volatile Slots slots = new Slots(new long[INITIAL_CAPACITY], 0);
+
+        synchronized void add(long id) {
+            Slots current = slots;
+            long[] ids = current.ids;
+            if (current.size == ids.length) {
+                ids = Arrays.copyOf(ids, ids.length * 2);
+            }
+            ids[current.size] = id;
+            slots = new Slots(ids, current.size + 1);
+        }
+
+        /**
+         * @return 删除后桶是否为空
+         */
+        synchronized boolean remove(long id) {
+            Slots current = slots;
+            for (int i = 0; i < current.size; i++) {
+                if (current.ids[i] == id) {
+                    long[] updated = new long[Math.max(INITIAL_CAPACITY, current.ids.length)];
+                    System.arraycopy(current.ids, 0, updated, 0, i);
+                    System.arraycopy(current.ids, i + 1, updated, i, current.size - i - 1);
+                    slots = new Slots(updated, current.size - 1);
+                    return current.size == 1;
+                }
+            }
+            return current.size == 0;
+        }
+
+        private record Slots(long[] ids, int size) {}
+    }
+}
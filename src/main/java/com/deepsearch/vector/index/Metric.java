@@ -0,0 +1,9 @@
+package com.deepsearch.vector.index;
+
+/**
+ * 向量索引支持的相似度度量
+ */
+public enum Metric {
+    COSINE,       // 余弦相似度（写入和查询时归一化）
+    DOT_PRODUCT   // 点积
+}
@@ -0,0 +1,81 @@
+package com.deepsearch.vector.index;
+
+import java.util.Arrays;
+
+/**
+ * 基于并行 int/float 数组的二叉堆，供图搜索使用，避免装箱
+ * maxHeap=true 时堆顶为得分最高的节点，否则为得分最低的节点
+ */
+final class NodeQueue {
+
+    private int[] ids;
+    private float[] scores;
+    private int size;
+    private final boolean maxHeap;
+
+    NodeQueue(int initialCapacity, boolean maxHeap) {
+        int capacity = Math.max(4, initialCapacity);
+        this.ids = new int[capacity];
+        this.scores = new float[capacity];
+        this.maxHeap = maxHeap;
+    }
+
+    void push(int id, float score) {
+        if (size == ids.length) {
+            ids = Arrays.copyOf(ids, size * 2);
+            scores = Arrays.copyOf(scores, size * 2);
+        }
+        int i = size++;
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (!higherPriority(score, scores[parent])) {
+                break;
+            }
+            ids[i] = ids[parent];
+            scores[i] = scores[parent];
+            i = parent;
+        }
+        ids[i] = id;
+        scores[i] = score;
+    }
+
+    int pop() {
+        int top = ids[0];
+        int lastId = ids[--size];
+        float lastScore = scores[size];
+        int i = 0;
+        int half = size >>> 1;
+        while (i < half) {
+            int child = 2 * i + 1;
+            int right = child + 1;
+            if (right < size && higherPriority(scores[right], scores[child])) {
+                child = right;
+            }
+            if (!higherPriority(scores[child], lastScore)) {
+                break;
+            }
+            ids[i] = ids[child];
+            scores[i] = scores[child];
+            i = child;
+        }
+        ids[i] = lastId;
+        scores[i] = lastScore;
+        return top;
+    }
+
+    int peekId() {
+        return ids[0];
+    }
+
+    float peekScore() {
+        return scores[0];
+    }
+
+    int size() {
+        return size;
+    }
+
+    private boolean higherPriority(float a, float b) {
+        return maxHeap ? a > b : a < b;
+    }
+}
@@ -0,0 +1,441 @@
+package com.deepsearch.vector.index;
+
+import com.deepsearch.vector.util.SimilarityKernels;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+/**
+ * PCA 降维投影：在向量样本上求协方差矩阵的前 k 个主成分，按方差从大到小排列。
+ * 投影结果的前 t 维就是降到 t 维的最优线性投影（Matryoshka 式前缀），一个模型可服务任意不超过 k 的目标维度。
+ * 主成分用带过采样的子空间迭代求解，最后做 Rayleigh-Ritz 旋转保证前缀有序。
+ * 模型记录训练向量的模型名称和版本，文档向量和查询向量必须用同一个投影，嵌入模型变化后需要重新训练。
+ */
+public final class PcaProjection {
+
+    private static final int MAGIC = 0x50434131;
+    private static final int VERSION = 1;
+
+    // 子空间迭代多求的方向数，加快前 k 个主成分收敛
+    private static final int OVERSAMPLING = 8;
+
+    // 累加协方差时每块的样本数，块内样本留在缓存中
+    private static final int COVARIANCE_BLOCK = 64;
+
+    private final String modelName;
+    private final String modelVersion;
+    private final int sourceDimension;
+    private final int components;
+    private final float[] mean;
+    // 主成分按 [component * sourceDimension + i] 连续存放，均为单位向量
+    private final float[] basis;
+    // 各主成分方向上的样本方差，降序
+    private final float[] variances;
+    private final float totalVariance;
+    private final int sampleCount;
+
+    private PcaProjection(String modelName, String modelVersion, int sourceDimension, int components,
+                          float[] mean, float[] basis, float[] variances, float totalVariance, int sampleCount) {
+        this.modelName = modelName;
+        this.modelVersion = modelVersion;
+        this.sourceDimension = sourceDimension;
+        this.components = components;
+        this.mean = mean;
+        this.basis = basis;
+        this.variances = variances;
+        this.totalVariance = totalVariance;
+        this.sampleCount = sampleCount;
+    }
+
+    /**
+     * 训练投影
+     *
+     * @param sample 训练样本，维度一致
+     * @param components 主成分数，不超过维度和样本数
+     * @param iterations 子空间迭代次数
+     * @param modelName 样本向量的嵌入模型名称
+     * @param modelVersion 样本向量的嵌入模型版本
+     */
+    public static PcaProjection fit(float[][] sample, int components, int iterations, long seed,
+                                    String modelName, String modelVersion) {
+        if (sample == null || sample.length < 2) {
+            throw new IllegalArgumentException("PCA训练样本至少需要2个向量");
+        }
+        int n = sample.length;
+        int d = sample[0].length;
+        int k = Math.min(components, Math.min(d, n - 1));
+        if (k <= 0) {
+            throw new IllegalArgumentException("主成分数必须大于0");
+        }
+
+        double[] meanSum = new double[d];
+        for (float[] vector : sample) {
+            if (vector.length != d) {
+                throw new IllegalArgumentException("训练样本维度不一致，期望: " + d);
+            }
+            for (int i = 0; i < d; i++) {
+                meanSum[i] += vector[i];
+            }
+        }
+        float[] mean = new float[d];
+        for (int i = 0; i < d; i++) {
+            mean[i] = (float) (meanSum[i] / n);
+        }
+
+        double[] covariance = covariance(sample, mean);
+        double totalVariance = 0;
+        for (int i = 0; i < d; i++) {
+            totalVariance += covariance[i * d + i];
+        }
+
+        // 子空间迭代：Q <- orth(C·Q)
+        int width = Math.min(d, k + OVERSAMPLING);
+        Random random = new Random(seed);
+        double[][] q = new double[width][d];
+        for (double[] row : q) {
+            for (int i = 0; i < d; i++) {
+                row[i] = random.nextGaussian();
+            }
+        }
+        orthonormalize(q);
+        for (int iteration = 0; iteration < Math.max(1, iterations); iteration++) {
+            q = multiply(covariance, d, q);
+            orthonormalize(q);
+        }
+
+        // Rayleigh-Ritz：在子空间内对角化 QᵀCQ，得到按方差降序的主成分
+        double[][] cq = multiply(covariance, d, q);
+        double[][] projected = new double[width][width];
+        for (int a = 0; a < width; a++) {
+            for (int b = a; b < width; b++) {
+                double value = dot(q[a], cq[b]);
+                projected[a][b] = value;
+                projected[b][a] = value;
+            }
+        }
+        double[][] eigenvectors = new double[width][width];
+        double[] eigenvalues = jacobiEigen(projected, eigenvectors);
+        Integer[] order = new Integer[width];
+        for (int i = 0; i < width; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> Double.compare(eigenvalues[b], eigenvalues[a]));
+
+        float[] basis = new float[k * d];
+        float[] variances = new float[k];
+        for (int c = 0; c < k; c++) {
+            int column = order[c];
+            variances[c] = (float) Math.max(0, eigenvalues[column]);
+            for (int a = 0; a < width; a++) {
+                double weight = eigenvectors[a][column];
+                for (int i = 0; i < d; i++) {
+                    basis[c * d + i] += (float) (weight * q[a][i]);
+                }
+            }
+        }
+        return new PcaProjection(modelName, modelVersion, d, k, mean, basis, variances,
+            (float) totalVariance, n);
+    }
+
+    /**
+     * 投影到前 dimension 个主成分
+     */
+    public float[] project(float[] vector, int dimension) {
+        if (vector == null || vector.length != sourceDimension) {
+            throw new IllegalArgumentException("向量维度不匹配，期望: " + sourceDimension);
+        }
+        int target = Math.min(dimension, components);
+        float[] centered = new float[sourceDimension];
+        for (int i = 0; i < sourceDimension; i++) {
+            centered[i] = vector[i] - mean[i];
+        }
+        float[] result = new float[target];
+        for (int c = 0; c < target; c++) {
+            result[c] = SimilarityKernels.dot(centered, 0, basis, c * sourceDimension, sourceDimension);
+        }
+        return result;
+    }
+
+    public float[] project(float[] vector) {
+        return project(vector, components);
+    }
+
+    /**
+     * 前 dimension 个主成分解释的方差占比
+     */
+    public double explainedVarianceRatio(int dimension) {
+        if (totalVariance <= 0f) {
+            return 0.0;
+        }
+        double sum = 0;
+        for (int c = 0; c < Math.min(dimension, components); c++) {
+            sum += variances[c];
+        }
+        return Math.min(1.0, sum / totalVariance);
+    }
+
+    /**
+     * 是否可用于指定模型产生的向量
+     */
+    public boolean isCompatible(int dimension, String modelName, String modelVersion) {
+        return sourceDimension == dimension
+            && Objects.equals(this.modelName, modelName)
+            && Objects.equals(this.modelVersion, modelVersion);
+    }
+
+    public String getModelName() {
+        return modelName;
+    }
+
+    public String getModelVersion() {
+        return modelVersion;
+    }
+
+    public int getSourceDimension() {
+        return sourceDimension;
+    }
+
+    public int getComponents() {
+        return components;
+    }
+
+    public int getSampleCount() {
+        return sampleCount;
+    }
+
+    /**
+     * 写入模型文件，先写临时文件再原子替换
+     */
+    public void write(Path file) throws IOException {
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (SnapshotWriter writer = new SnapshotWriter(temp)) {
+            writer.writeInt(MAGIC);
+            writer.writeInt(VERSION);
+            writeString(writer, modelName);
+            writeString(writer, modelVersion);
+            writer.writeInt(sourceDimension);
+            writer.writeInt(components);
+            writer.writeInt(sampleCount);
+            writer.writeFloat(totalVariance);
+            writer.writeFloats(mean);
+            writer.writeFloats(variances);
+            writer.writeFloats(basis);
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * 读取模型文件
+     *
+     * @throws IOException 文件不存在、格式无法识别或版本不兼容
+     */
+    public static PcaProjection read(Path file) throws IOException {
+        try (SnapshotReader reader = new SnapshotReader(file)) {
+            if (reader.readInt() != MAGIC) {
+                throw new IOException("无法识别的PCA模型文件: " + file);
+            }
+            int version = reader.readInt();
+            if (version != VERSION) {
+                throw new IOException("PCA模型文件版本不兼容: " + version + ", 期望: " + VERSION);
+            }
+            String modelName = readString(reader);
+            String modelVersion = readString(reader);
+            int sourceDimension = reader.readInt();
+            int components = reader.readInt();
+            int sampleCount = reader.readInt();
+            float totalVariance = reader.readFloat();
+            float[] mean = new float[sourceDimension];
+            reader.readFloats(mean);
+            float[] variances = new float[components];
+            reader.readFloats(variances);
+            float[] basis = new float[components * sourceDimension];
+            reader.readFloats(basis);
+            return new PcaProjection(modelName, modelVersion, sourceDimension, components, mean, basis, variances,
+                totalVariance, sampleCount);
+        }
+    }
+
+    // ==================== 私有方法 ====================
+
+    /**
+     * 样本协方差矩阵（d×d，行主序）：样本按块处理，块内按行并行累加上三角，最后对称填充
+     */
+    private static double[] covariance(float[][] sample, float[] mean) {
+        int n = sample.length;
+        int d = mean.length;
+        double[] covariance = new double[d * d];
+        float[][] block = new float[Math.min(COVARIANCE_BLOCK, n)][d];
+        for (int start = 0; start < n; start += COVARIANCE_BLOCK) {
+            int rows = Math.min(COVARIANCE_BLOCK, n - start);
+            for (int s = 0; s < rows; s++) {
+                float[] vector = sample[start + s];
+                for (int i = 0; i < d; i++) {
+                    block[s][i] = vector[i] - mean[i];
+                }
+            }
+            IntStream.range(0, d).parallel().forEach(i -> {
+                int row = i * d;
+                for (int s = 0; s < rows; s++) {
+                    float[] vector = block[s];
+                    double xi = vector[i];
+                    for (int j = i; j < d; j++) {
+                        covariance[row + j] += xi * vector[j];
+                    }
+                }
+            });
+        }
+        for (int i = 0; i < d; i++) {
+            for (int j = i; j < d; j++) {
+                double value = covariance[i * d + j] / (n - 1);
+                covariance[i * d + j] = value;
+                covariance[j * d + i] = value;
+            }
+        }
+        return covariance;
+    }
+
+    private static double[][] multiply(double[] matrix, int d, double[][] vectors) {
+        double[][] result = new double[vectors.length][];
+        IntStream.range(0, vectors.length).parallel().forEach(r -> {
+            double[] vector = vectors[r];
+            double[] out = new double[d];
+            for (int i = 0; i < d; i++) {
+                double sum = 0;
+                int row = i * d;
+                for (int j = 0; j < d; j++) {
+                    sum += matrix[row + j] * vector[j];
+                }
+                out[i] = sum;
+            }
+            result[r] = out;
+        });
+        return result;
+    }
+
+    /**
+     * 修正 Gram-Schmidt 正交化，退化的方向用单位坐标向量补足
+     */
+    private static void orthonormalize(double[][] rows) {
+        int d = rows[0].length;
+        int fallback = 0;
+        for (int r = 0; r < rows.length; r++) {
+            double[] row = rows[r];
+            for (int p = 0; p < r; p++) {
+                double projection = dot(rows[p], row);
+                for (int i = 0; i < d; i++) {
+                    row[i] -= projection * rows[p][i];
+                }
+            }
+            double norm = Math.sqrt(dot(row, row));
+            if (norm < 1e-12) {
+                Arrays.fill(row, 0.0);
+                row[fallback++ % d] = 1.0;
+                r--;
+                continue;
+            }
+            for (int i = 0; i < d; i++) {
+                row[i] /= norm;
+            }
+        }
+    }
+
+    /**
+     * 对称矩阵的循环 Jacobi 特征分解，特征向量按列写入 eigenvectors
+     *
+     * @return 特征值
+     */
+    private static double[] jacobiEigen(double[][] a, double[][] eigenvectors) {
+        int n = a.length;
+        for (int i = 0; i < n; i++) {
+            Arrays.fill(eigenvectors[i], 0.0);
+            eigenvectors[i][i] = 1.0;
+        }
+        for (int sweep = 0; sweep < 50; sweep++) {
+            double offDiagonal = 0;
+            for (int p = 0; p < n; p++) {
+                for (int r = p + 1; r < n; r++) {
+                    offDiagonal += a[p][r] * a[p][r];
+                }
+            }
+            if (offDiagonal < 1e-22) {
+                break;
+            }
+            for (int p = 0; p < n; p++) {
+                for (int r = p + 1; r < n; r++) {
+                    if (Math.abs(a[p][r]) < 1e-300) {
+                        continue;
+                    }
+                    double theta = (a[r][r] - a[p][p]) / (2 * a[p][r]);
+                    double t = Math.signum(theta) / (Math.abs(theta) + Math.sqrt(theta * theta + 1));
+                    if (theta == 0) {
+                        t = 1;
+                    }
+                    double c = 1 / Math.sqrt(t * t + 1);
+                    double s = t * c;
+                    for (int i = 0; i < n; i++) {
+                        double aip = a[i][p];
+                        double air = a[i][r];
+                        a[i][p] = c * aip - s * air;
+                        a[i][r] = s * aip + c * air;
+                    }
+                    for (int i = 0; i < n; i++) {
+                        double api = a[p][i];
+                        double ari = a[r][i];
+                        a[p][i] = c * api - s * ari;
+                        a[r][i] = s * api + c * ari;
+                    }
+                    for (int i = 0; i < n; i++) {
+                        double vip = eigenvectors[i][p];
+                        double vir = eigenvectors[i][r];
+                        eigenvectors[i][p] = c * vip - s * vir;
+                        eigenvectors[i][r] = s * vip + c * vir;
+                    }
+                }
+            }
+        }
+        double[] eigenvalues = new double[n];
+        for (int i = 0; i < n; i++) {
+            eigenvalues[i] = a[i][i];
+        }
+        return eigenvalues;
+    }
+
+    private static double dot(double[] a, double[] b) {
+        double sum = 0;
+        for (int i = 0; i < a.length; i++) {
+            sum += a[i] * b[i];
+        }
+        return sum;
+    }
+
+    private static void writeString(SnapshotWriter writer, String value) throws IOException {
+        if (value == null) {
+            writer.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writer.writeInt(bytes.length);
+        writer.writeBytes(bytes);
+    }
+
+    private static String readString(SnapshotReader reader) throws IOException {
+        int length = reader.readInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        reader.readBytes(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
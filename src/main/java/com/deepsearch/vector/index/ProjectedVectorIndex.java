@@ -0,0 +1,144 @@
+package com.deepsearch.vector.index;
+
+import com.deepsearch.vector.util.SimilarityKernels;
+import com.deepsearch.vector.util.TopKSelector;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 降维向量索引：保存 PCA 投影后的低维向量，按行连续存放，查询时全量扫描余弦相似度选出候选。
+ * 256 维只占原始 1536 维的 1/6，扫描只需对应比例的内存带宽；候选需要用原始向量精确重排。
+ * 查询可以只使用前 t 维（主成分前缀），同一份数据可以测量不同目标维度的召回率。
+ */
+public class ProjectedVectorIndex {
+
+    private final int dimension;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // 向量按 [position * dimension + i] 连续存放
+    private float[] vectors = new float[0];
+    private long[] ids = new long[0];
+    private final Map<Long, Integer> positions = new HashMap<>();
+    private volatile int size;
+
+    public ProjectedVectorIndex(int dimension) {
+        if (dimension <= 0) {
+            throw new IllegalArgumentException("向量维度必须大于0");
+        }
+        this.dimension = dimension;
+    }
+
+    /**
+     * 写入或更新降维向量
+     */
+    public void add(long id, float[] projected) {
+        if (projected == null || projected.length != dimension) {
+            throw new IllegalArgumentException("向量维度不匹配，期望: " + dimension);
+        }
+
+        lock.writeLock().lock();
+        try {
+            Integer position = positions.get(id);
+            if (position == null) {
+                if (size == ids.length) {
+                    int capacity = Math.max(16, size + (size >> 1));
+                    ids = Arrays.copyOf(ids, capacity);
+                    vectors = Arrays.copyOf(vectors, capacity * dimension);
+                }
+                position = size;
+                ids[position] = id;
+                positions.put(id, position);
+                size++;
+            }
+            System.arraycopy(projected, 0, vectors, position * dimension, dimension);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 删除向量，用最后一个向量填补空位
+     *
+     * @return 向量是否存在
+     */
+    public boolean remove(long id) {
+        lock.writeLock().lock();
+        try {
+            Integer position = positions.remove(id);
+            if (position == null) {
+                return false;
+            }
+            int last = size - 1;
+            if (position != last) {
+                ids[position] = ids[last];
+                System.arraycopy(vectors, last * dimension, vectors, position * dimension, dimension);
+                positions.put(ids[position], position);
+            }
+            size--;
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 按前 prefix 维的余弦相似度扫描，返回最相似的 k 个向量
+     *
+     * @param query 投影后的查询向量，长度不小于 prefix
+     * @param prefix 使用的主成分数，超过索引维度时取索引维度
+     * @return 按相似度降序排列的结果
+     */
+    public List<SearchHit> search(float[] query, int k, int prefix) {
+        int length = Math.min(prefix, dimension);
+        if (query == null || query.length < length || length <= 0 || k <= 0) {
+            return new ArrayList<>();
+        }
+        float queryNorm = SimilarityKernels.dot(query, 0, query, 0, length);
+
+        lock.readLock().lock();
+        try {
+            int n = size;
+            TopKSelector selector = new TopKSelector(Math.min(k, n));
+            for (int i = 0; i < n; i++) {
+                int offset = i * dimension;
+                float dot = SimilarityKernels.dot(query, 0, vectors, offset, length);
+                float norm = SimilarityKernels.dot(vectors, offset, vectors, offset, length);
+                float score = (float) SimilarityKernels.cosine(dot, queryNorm, norm);
+                if (!selector.isFull() || score >= selector.minScore()) {
+                    selector.offer(ids[i], score);
+                }
+            }
+
+            float[] scores = new float[selector.size()];
+            long[] topIds = selector.drain(scores);
+            List<SearchHit> result = new ArrayList<>(topIds.length);
+            for (int i = 0; i < topIds.length; i++) {
+                result.add(new SearchHit(topIds[i], scores[i]));
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int getDimension() {
+        return dimension;
+    }
+
+    /**
+     * 估算索引占用的堆内存（字节）
+     */
+    public long estimateMemoryBytes() {
+        return vectors.length * 4L + ids.length * 8L + positions.size() * 48L;
+    }
+}
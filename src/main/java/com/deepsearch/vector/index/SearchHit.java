@@ -0,0 +1,9 @@
+package com.deepsearch.vector.index;
+
+/**
+ * 向量索引查询结果
+ *
+ * @param id 向量ID
+ * @param score 相似度得分，越大越相似
+ */
+public record SearchHit(long id, float score) {}
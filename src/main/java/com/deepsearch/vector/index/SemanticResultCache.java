@@ -0,0 +1,210 @@
+package com.deepsearch.vector.index;
+
+import com.deepsearch.vector.util.SimilarityKernels;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 语义查询结果缓存：按查询向量的随机超平面签名分桶，命中桶后再校验与缓存查询的余弦相似度，
+ * 改写后语义相同的查询（如“信用卡 年费”与“信用卡年费”）可以复用同一份 Top-K 结果。
+ * 查询落在超平面附近时额外探测翻转最小间隔比特的相邻桶。
+ * 条目记录写入时的索引版本，版本变化后整个缓存失效；按桶做 LRU 淘汰。
+ *
+ * @param <T> 缓存的结果类型
+ */
+public class SemanticResultCache<T> {
+
+    private static final int MAX_BITS = 30;
+    // 每个桶最多保留的查询数
+    private static final int MAX_ENTRIES_PER_BUCKET = 4;
+
+    private final int numBits;
+    private final int maxBuckets;
+    private final double minCosine;
+    private final long seed;
+
+    private final Map<BucketKey, List<Entry<T>>> buckets;
+    private float[] hyperplanes;
+    private int dimension;
+    private long version = Long.MIN_VALUE;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    /**
+     * @param numBits 签名位数，位数越多桶越细
+     * @param maxBuckets 最多保留的桶数
+     * @param minCosine 命中时与缓存查询的最小余弦相似度
+     */
+    public SemanticResultCache(int numBits, int maxBuckets, double minCosine, long seed) {
+        if (numBits <= 0 || numBits > MAX_BITS) {
+            throw new IllegalArgumentException("哈希位数必须在1-" + MAX_BITS + "之间");
+        }
+        if (maxBuckets <= 0) {
+            throw new IllegalArgumentException("缓存容量必须大于0");
+        }
+        this.numBits = numBits;
+        this.maxBuckets = maxBuckets;
+        this.minCosine = minCosine;
+        this.seed = seed;
+        this.buckets = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<BucketKey, List<Entry<T>>> eldest) {
+                return size() > SemanticResultCache.this.maxBuckets;
+            }
+        };
+    }
+
+    /**
+     * 查找语义相近查询的缓存结果
+     *
+     * @param variant 影响结果的其他查询参数（算法、topK、阈值等），只有相同取值的查询才能复用
+     * @param indexVersion 当前索引版本
+     * @return 相似度最高且达到阈值的缓存结果，未命中时返回 null
+     */
+    public synchronized T get(float[] query, String variant, long indexVersion) {
+        float[] unit = unitVector(query);
+        if (unit == null || !prepare(unit.length, indexVersion)) {
+            misses.incrementAndGet();
+            return null;
+        }
+
+        float[] projections = new float[numBits];
+        int key = signature(unit, projections);
+        Entry<T> best = null;
+        double bestCosine = minCosine;
+        for (int bucket : new int[]{key, key ^ (1 << nearestBit(projections))}) {
+            List<Entry<T>> entries = buckets.get(new BucketKey(bucket, variant));
+            if (entries == null) {
+                continue;
+            }
+            for (Entry<T> entry : entries) {
+                double cosine = SimilarityKernels.dot(unit, entry.query);
+                if (cosine >= bestCosine) {
+                    bestCosine = cosine;
+                    best = entry;
+                }
+            }
+        }
+
+        if (best == null) {
+            misses.incrementAndGet();
+            return null;
+        }
+        hits.incrementAndGet();
+        return best.value;
+    }
+
+    /**
+     * 写入查询结果
+     */
+    public synchronized void put(float[] query, String variant, long indexVersion, T value) {
+        float[] unit = unitVector(query);
+        if (unit == null || value == null || !prepare(unit.length, indexVersion)) {
+            return;
+        }
+        BucketKey key = new BucketKey(signature(unit, new float[numBits]), variant);
+        List<Entry<T>> entries = buckets.computeIfAbsent(key, k -> new ArrayList<>(2));
+        // 与已有条目几乎相同的查询直接替换，避免同一查询占满桶
+        Iterator<Entry<T>> iterator = entries.iterator();
+        while (iterator.hasNext()) {
+            if (SimilarityKernels.dot(unit, iterator.next().query) >= 1.0 - 1e-6) {
+                iterator.remove();
+            }
+        }
+        if (entries.size() >= MAX_ENTRIES_PER_BUCKET) {
+            entries.remove(0);
+        }
+        entries.add(new Entry<>(unit, value));
+    }
+
+    public synchronized void clear() {
+        buckets.clear();
+    }
+
+    public synchronized int size() {
+        int size = 0;
+        for (List<Entry<T>> entries : buckets.values()) {
+            size += entries.size();
+        }
+        return size;
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    // ==================== 私有方法 ====================
+
+    /**
+     * 索引版本变化时清空缓存；首次使用时按查询维度生成超平面，维度不一致的查询不缓存
+     */
+    private boolean prepare(int queryDimension, long indexVersion) {
+        if (indexVersion != version) {
+            buckets.clear();
+            version = indexVersion;
+        }
+        if (hyperplanes == null) {
+            dimension = queryDimension;
+            hyperplanes = new float[numBits * dimension];
+            Random random = new Random(seed);
+            for (int i = 0; i < hyperplanes.length; i++) {
+                hyperplanes[i] = (float) random.nextGaussian();
+            }
+        }
+        return queryDimension == dimension;
+    }
+
+    private int signature(float[] unit, float[] projections) {
+        int key = 0;
+        for (int b = 0; b < numBits; b++) {
+            float dot = SimilarityKernels.dot(hyperplanes, b * dimension, unit, 0, dimension);
+            projections[b] = dot;
+            if (dot >= 0f) {
+                key |= 1 << b;
+            }
+        }
+        return key;
+    }
+
+    private int nearestBit(float[] projections) {
+        int nearest = 0;
+        for (int b = 1; b < numBits; b++) {
+            if (Math.abs(projections[b]) < Math.abs(projections[nearest])) {
+                nearest = b;
+            }
+        }
+        return nearest;
+    }
+
+    private static float[] unitVector(float[] query) {
+        if (query == null || query.length == 0) {
+            return null;
+        }
+        double norm = Math.sqrt(SimilarityKernels.squaredNorm(query));
+        if (norm == 0.0 || Double.isNaN(norm) || Double.isInfinite(norm)) {
+            return null;
+        }
+        float[] unit = new float[query.length];
+        for (int i = 0; i < query.length; i++) {
+            unit[i] = (float) (query[i] / norm);
+        }
+        return unit;
+    }
+
+    private record BucketKey(int signature, String variant) {
+    }
+
+    private record Entry<T>(float[] query, T value) {
+    }
+}
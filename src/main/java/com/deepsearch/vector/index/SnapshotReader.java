@@ -0,0 +1,92 @@
+package com.deepsearch.vector.index;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * 快照顺序读取器：按窗口内存映射文件，单个映射不超过 1GB，超过时滑动窗口重新映射
+ */
+final class SnapshotReader implements Closeable {
+
+    private static final long WINDOW_BYTES = 1L << 30;
+
+    private final FileChannel channel;
+    private final long fileSize;
+    private MappedByteBuffer window;
+    private long windowStart;
+
+    SnapshotReader(Path file) throws IOException {
+        this.channel = FileChannel.open(file, StandardOpenOption.READ);
+        this.fileSize = channel.size();
+        map(0L);
+    }
+
+    byte readByte() throws IOException {
+        ensure(1);
+        return window.get();
+    }
+
+    int readInt() throws IOException {
+        ensure(4);
+        return window.getInt();
+    }
+
+    long readLong() throws IOException {
+        ensure(8);
+        return window.getLong();
+    }
+
+    float readFloat() throws IOException {
+        ensure(4);
+        return window.getFloat();
+    }
+
+    void readFloats(float[] values) throws IOException {
+        ensure(values.length * 4);
+        window.asFloatBuffer().get(values);
+        window.position(window.position() + values.length * 4);
+    }
+
+    void readInts(int[] values) throws IOException {
+        ensure(values.length * 4);
+        window.asIntBuffer().get(values);
+        window.position(window.position() + values.length * 4);
+    }
+
+    void readBytes(byte[] values) throws IOException {
+        ensure(values.length);
+        window.get(values);
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    /**
+     * 当前窗口剩余字节不足时从当前位置重新映射
+     */
+    private void ensure(int bytes) throws IOException {
+        if (window.remaining() >= bytes) {
+            return;
+        }
+        long position = windowStart + window.position();
+        if (fileSize - position < bytes) {
+            throw new EOFException("快照文件不完整");
+        }
+        map(position);
+    }
+
+    private void map(long position) throws IOException {
+        long length = Math.min(WINDOW_BYTES, fileSize - position);
+        window = channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+        window.order(ByteOrder.LITTLE_ENDIAN);
+        windowStart = position;
+    }
+}
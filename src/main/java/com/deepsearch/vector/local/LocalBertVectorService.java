@@ -3,6 +3,7 @@ package com.deepsearch.vector.local;
 import com.deepsearch.vector.VectorService;
 import com.deepsearch.vector.config.VectorProperties;
 import com.deepsearch.vector.model.*;
+import com.deepsearch.vector.model.Vector;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -36,7 +37,7 @@ public class LocalBertVectorService implements VectorService {
     private volatile ServiceHealth currentHealth = ServiceHealth.UNKNOWN;
     private volatile boolean modelLoaded = false;
 
-    // 模拟的模型接口（实际使用时需要集成真实的sentence-transformers或其他本地模型）
+    // 模型目录下有 ONNX 模型和词表且 ONNX Runtime 可用时为 ONNX 推理，否则为模拟实现
     private BertModelInterface bertModel;
 
     @Autowired
@@ -62,8 +63,7 @@ public class LocalBertVectorService implements VectorService {
             // 初始化可用模型
             initializeAvailableModels();
 
-            // 模拟模型加载（实际实现中需要加载真实模型）
-            this.bertModel = new MockBertModelInterface();
+            this.bertModel = loadModel(modelDir);
 
             currentHealth = ServiceHealth.HEALTHY;
             modelLoaded = true;
@@ -75,6 +75,43 @@ public class LocalBertVectorService implements VectorService {
         }
     }
 
+    /**
+     * 加载 ONNX 模型；模型文件、词表或 ONNX Runtime 缺失时回退到模拟模型
+     */
+    private BertModelInterface loadModel(File modelDir) throws Exception {
+        VectorProperties.LocalModels.Bert bert = vectorProperties.getLocalModels().getBert();
+        File modelFile = new File(modelDir, bert.getModelFile());
+        File vocabFile = new File(modelDir, bert.getVocabFile());
+
+        if (!modelFile.isFile() || !vocabFile.isFile()) {
+            logger.warn("模型目录缺少ONNX模型或词表，使用模拟模型: {}", modelDir);
+            return new MockBertModelInterface();
+        }
+        if (!isOnnxRuntimeAvailable()) {
+            logger.warn("classpath中没有ONNX Runtime，使用模拟模型");
+            return new MockBertModelInterface();
+        }
+
+        WordPieceTokenizer tokenizer = WordPieceTokenizer.load(vocabFile.toPath(), bert.isDoLowerCase());
+        OnnxRuntimeSession session = new OnnxRuntimeSession(
+                modelFile.toPath(), bert.getIntraOpThreads(), bert.getInterOpThreads());
+        logger.info("加载ONNX模型: {}, 词表大小: {}, 算子内线程: {}, 算子间线程: {}",
+                modelFile, tokenizer.getVocabularySize(), bert.getIntraOpThreads(), bert.getInterOpThreads());
+        return new OnnxBertModel(tokenizer, session, bert.getMaxSequenceLength(), bert.getBatchSize());
+    }
+
+    /**
+     * ONNX Runtime 是否在 classpath 上；只探测不初始化，避免未部署时加载 {@link OnnxRuntimeSession}
+     */
+    private static boolean isOnnxRuntimeAvailable() {
+        try {
+            Class.forName("ai.onnxruntime.OrtEnvironment", false, LocalBertVectorService.class.getClassLoader());
+            return true;
+        } catch (ClassNotFoundException | LinkageError e) {
+            return false;
+        }
+    }
+
     private void initializeAvailableModels() {
         // 注册常用的sentence-transformers模型
         availableModels.put("all-MiniLM-L6-v2", new ModelInfo("all-MiniLM-L6-v2", 384, 256));
@@ -185,38 +222,30 @@ public class LocalBertVectorService implements VectorService {
             try {
                 logger.debug("开始本地批量向量化请求 {} - 模型: {}, 批量大小: {}", requestId, modelName, texts.size());
 
-                // 批量处理配置
-                int batchSize = vectorProperties.getLocalModels().getBert().getBatchSize();
                 List<Vector> allVectors = new ArrayList<>();
 
-                // 分批处理
-                for (int i = 0; i < texts.size(); i += batchSize) {
-                    int endIndex = Math.min(i + batchSize, texts.size());
-                    List<String> batch = texts.subList(i, endIndex);
-
-                    // 预处理文本批次
-                    List<String> processedTexts = batch.stream()
-                            .map(this::preprocessText)
-                            .collect(Collectors.toList());
+                // 预处理文本
+                List<String> processedTexts = texts.stream()
+                        .map(this::preprocessText)
+                        .collect(Collectors.toList());
 
-                    // 批量编码
-                    float[][] batchVectors = bertModel.encodeBatch(processedTexts, modelName);
-
-                    // 创建Vector对象
-                    for (int j = 0; j < batch.size(); j++) {
-                        VectorMetadata metadata = VectorMetadata.create(batch.get(j));
-                        Vector vector = new Vector(
-                                batchVectors[j],
-                                batchVectors[j].length,
-                                modelName,
-                                "1.0",
-                                ProcessingMode.OFFLINE_BATCH,
-                                0L, // 批量处理时间单独计算
-                                Instant.now(),
-                                metadata
-                        );
-                        allVectors.add(vector);
-                    }
+                // 整体交给模型编码，由模型按长度排序后分批，减少填充
+                float[][] batchVectors = bertModel.encodeBatch(processedTexts, modelName);
+
+                // 创建Vector对象
+                for (int j = 0; j < texts.size(); j++) {
+                    VectorMetadata metadata = VectorMetadata.create(texts.get(j));
+                    Vector vector = new Vector(
+                            batchVectors[j],
+                            batchVectors[j].length,
+                            modelName,
+                            "1.0",
+                            ProcessingMode.OFFLINE_BATCH,
+                            0L, // 批量处理时间单独计算
+                            Instant.now(),
+                            metadata
+                    );
+                    allVectors.add(vector);
                 }
 
                 long totalProcessingTime = Duration.between(startTime, Instant.now()).toMillis();
@@ -460,10 +489,9 @@ public class LocalBertVectorService implements VectorService {
     }
 
     /**
-     * BERT模型接口（模拟实现）
-     * 实际使用时需要替换为真实的模型集成
+     * BERT模型接口
      */
-    private interface BertModelInterface {
+    interface BertModelInterface {
         float[] encode(String text, String modelName);
         float[][] encodeBatch(List<String> texts, String modelName);
         void close();
@@ -471,7 +499,7 @@ public class LocalBertVectorService implements VectorService {
 
     /**
      * 模拟的BERT模型实现
-     * 实际部署时需要替换为真实的sentence-transformers或其他本地模型
+     * 未部署ONNX模型或ONNX Runtime时使用
      */
     private class MockBertModelInterface implements BertModelInterface {
 
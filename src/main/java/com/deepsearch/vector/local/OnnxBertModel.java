@@ -0,0 +1,153 @@
+package com.deepsearch.vector.local;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.IntStream;
+
+/**
+ * 基于 ONNX 推理的 sentence-transformers 编码：WordPiece 分词后按 token 数排序分批，
+ * 每批只填充到批内最长序列（动态填充），对最后一层隐藏状态按 attention mask 做均值池化，再做 L2 归一化。
+ * 长度相近的文本在同一批，短文本不再为长文本付出填充的计算量。
+ */
+class OnnxBertModel implements LocalBertVectorService.BertModelInterface {
+
+    static final String INPUT_IDS = "input_ids";
+    static final String ATTENTION_MASK = "attention_mask";
+    static final String TOKEN_TYPE_IDS = "token_type_ids";
+
+    private final WordPieceTokenizer tokenizer;
+    private final InferenceSession session;
+    private final int maxSequenceLength;
+    private final int batchSize;
+
+    OnnxBertModel(WordPieceTokenizer tokenizer, InferenceSession session, int maxSequenceLength, int batchSize) {
+        this.tokenizer = tokenizer;
+        this.session = session;
+        this.maxSequenceLength = maxSequenceLength;
+        this.batchSize = Math.max(1, batchSize);
+    }
+
+    @Override
+    public float[] encode(String text, String modelName) {
+        return encodeBatch(List.of(text), modelName)[0];
+    }
+
+    /**
+     * 目录下只部署一个 ONNX 模型，modelName 不参与选择
+     */
+    @Override
+    public float[][] encodeBatch(List<String> texts, String modelName) {
+        int[][] ids = new int[texts.size()][];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = tokenizer.encode(texts.get(i), maxSequenceLength);
+        }
+        Integer[] order = IntStream.range(0, ids.length).boxed().toArray(Integer[]::new);
+        Arrays.sort(order, Comparator.comparingInt(i -> ids[i].length));
+
+        float[][] vectors = new float[ids.length][];
+        for (int start = 0; start < order.length; start += batchSize) {
+            int end = Math.min(start + batchSize, order.length);
+            int[][] batch = new int[end - start][];
+            for (int i = start; i < end; i++) {
+                batch[i - start] = ids[order[i]];
+            }
+            float[][] pooled = runBatch(batch);
+            for (int i = start; i < end; i++) {
+                vectors[order[i]] = pooled[i - start];
+            }
+        }
+        return vectors;
+    }
+
+    @Override
+    public void close() {
+        session.close();
+    }
+
+    /**
+     * 按 attention mask 对隐藏状态求均值，hidden 按 [batch, seqLen, hiddenSize] 连续存放
+     */
+    static float[][] meanPool(float[] hidden, long[] attentionMask, int batch, int seqLen, int hiddenSize) {
+        float[][] pooled = new float[batch][hiddenSize];
+        for (int b = 0; b < batch; b++) {
+            float[] sum = pooled[b];
+            int tokens = 0;
+            for (int t = 0; t < seqLen; t++) {
+                if (attentionMask[b * seqLen + t] == 0) {
+                    continue;
+                }
+                tokens++;
+                int offset = (b * seqLen + t) * hiddenSize;
+                for (int h = 0; h < hiddenSize; h++) {
+                    sum[h] += hidden[offset + h];
+                }
+            }
+            if (tokens > 0) {
+                for (int h = 0; h < hiddenSize; h++) {
+                    sum[h] /= tokens;
+                }
+            }
+        }
+        return pooled;
+    }
+
+    // ==================== 私有方法 ====================
+
+    /**
+     * 批内序列已按长度升序，最后一条即批内最长，所有序列填充到该长度
+     */
+    private float[][] runBatch(int[][] batch) {
+        int seqLen = batch[batch.length - 1].length;
+        long[] inputIds = new long[batch.length * seqLen];
+        long[] attentionMask = new long[batch.length * seqLen];
+        Arrays.fill(inputIds, tokenizer.getPadId());
+        for (int b = 0; b < batch.length; b++) {
+            for (int t = 0; t < batch[b].length; t++) {
+                inputIds[b * seqLen + t] = batch[b][t];
+                attentionMask[b * seqLen + t] = 1L;
+            }
+        }
+
+        Map<String, long[]> inputs = session.getInputNames().contains(TOKEN_TYPE_IDS)
+                ? Map.of(INPUT_IDS, inputIds, ATTENTION_MASK, attentionMask, TOKEN_TYPE_IDS, new long[inputIds.length])
+                : Map.of(INPUT_IDS, inputIds, ATTENTION_MASK, attentionMask);
+        float[] hidden = session.run(inputs, batch.length, seqLen);
+        if (hidden.length == 0 || hidden.length % (batch.length * seqLen) != 0) {
+            throw new IllegalStateException("模型输出形状不符合[batch, seqLen, hidden]: " + hidden.length);
+        }
+
+        float[][] pooled = meanPool(hidden, attentionMask, batch.length, seqLen, hidden.length / (batch.length * seqLen));
+        for (float[] vector : pooled) {
+            normalize(vector);
+        }
+        return pooled;
+    }
+
+    private static void normalize(float[] vector) {
+        double norm = 0.0;
+        for (float value : vector) {
+            norm += value * value;
+        }
+        if (norm == 0.0) {
+            return;
+        }
+        float scale = (float) (1.0 / Math.sqrt(norm));
+        for (int i = 0; i < vector.length; i++) {
+            vector[i] *= scale;
+        }
+    }
+
+    /**
+     * 推理会话：输入为按 [batch, seqLen] 连续存放的 int64 张量，返回第一个输出（最后一层隐藏状态）
+     */
+    interface InferenceSession {
+        Set<String> getInputNames();
+
+        float[] run(Map<String, long[]> inputs, int batch, int seqLen);
+
+        void close();
+    }
+}
@@ -0,0 +1,77 @@
+package com.deepsearch.vector.local;
+
+import ai.onnxruntime.OnnxTensor;
+import ai.onnxruntime.OrtEnvironment;
+import ai.onnxruntime.OrtException;
+import ai.onnxruntime.OrtSession;
+
+import java.nio.FloatBuffer;
+import java.nio.LongBuffer;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * ONNX Runtime CPU 推理会话。
+ * com.microsoft.onnxruntime:onnxruntime 是可选依赖，未部署时调用方不会加载本类，直接回退到模拟模型。
+ */
+final class OnnxRuntimeSession implements OnnxBertModel.InferenceSession {
+
+    private final OrtEnvironment environment;
+    private final OrtSession session;
+    private final Set<String> inputNames;
+
+    /**
+     * @param intraOpThreads 单个算子内的并行线程数，0 表示运行时默认值
+     * @param interOpThreads 算子间的并行线程数，0 表示运行时默认值
+     */
+    OnnxRuntimeSession(Path modelFile, int intraOpThreads, int interOpThreads) throws OrtException {
+        this.environment = OrtEnvironment.getEnvironment();
+        try (OrtSession.SessionOptions options = new OrtSession.SessionOptions()) {
+            if (intraOpThreads > 0) {
+                options.setIntraOpNumThreads(intraOpThreads);
+            }
+            if (interOpThreads > 0) {
+                options.setInterOpNumThreads(interOpThreads);
+            }
+            this.session = environment.createSession(modelFile.toString(), options);
+        }
+        this.inputNames = session.getInputNames();
+    }
+
+    @Override
+    public Set<String> getInputNames() {
+        return inputNames;
+    }
+
+    @Override
+    public float[] run(Map<String, long[]> inputs, int batch, int seqLen) {
+        long[] shape = {batch, seqLen};
+        Map<String, OnnxTensor> tensors = new HashMap<>();
+        try {
+            for (Map.Entry<String, long[]> input : inputs.entrySet()) {
+                tensors.put(input.getKey(), OnnxTensor.createTensor(environment, LongBuffer.wrap(input.getValue()), shape));
+            }
+            try (OrtSession.Result result = session.run(tensors)) {
+                FloatBuffer output = ((OnnxTensor) result.get(0)).getFloatBuffer();
+                float[] hidden = new float[output.remaining()];
+                output.get(hidden);
+                return hidden;
+            }
+        } catch (OrtException e) {
+            throw new IllegalStateException("ONNX推理失败: " + e.getMessage(), e);
+        } finally {
+            tensors.values().forEach(OnnxTensor::close);
+        }
+    }
+
+    @Override
+    public void close() {
+        try {
+            session.close();
+        } catch (OrtException ignored) {
+            // 释放本地内存失败不影响结果
+        }
+    }
+}
@@ -0,0 +1,241 @@
+package com.deepsearch.vector.local;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * BERT WordPiece 分词器，与 HuggingFace BertTokenizer 的切分规则一致：
+ * 先清理控制字符、在中日韩字符两侧切开、按空白和标点切词（可选小写并去除重音），
+ * 再对每个词按词表做最长前缀匹配，后续片段带 "##" 前缀，无法切分的词记为 [UNK]。
+ */
+public class WordPieceTokenizer {
+
+    public static final String CLS = "[CLS]";
+    public static final String SEP = "[SEP]";
+    public static final String PAD = "[PAD]";
+    public static final String UNK = "[UNK]";
+
+    private static final String CONTINUATION = "##";
+    private static final int MAX_CHARS_PER_WORD = 100;
+
+    private final Map<String, Integer> vocabulary;
+    private final boolean lowerCase;
+    private final int clsId;
+    private final int sepId;
+    private final int padId;
+    private final int unkId;
+
+    /**
+     * @param tokens 词表，下标即 token ID
+     * @param lowerCase 是否小写并去除重音（uncased 模型）
+     */
+    public WordPieceTokenizer(List<String> tokens, boolean lowerCase) {
+        this.vocabulary = new HashMap<>(tokens.size() * 2);
+        for (int i = 0; i < tokens.size(); i++) {
+            vocabulary.putIfAbsent(tokens.get(i), i);
+        }
+        this.lowerCase = lowerCase;
+        this.clsId = requireToken(CLS);
+        this.sepId = requireToken(SEP);
+        this.padId = requireToken(PAD);
+        this.unkId = requireToken(UNK);
+    }
+
+    /**
+     * 从 vocab.txt 加载词表，每行一个 token
+     */
+    public static WordPieceTokenizer load(Path vocabFile, boolean lowerCase) throws IOException {
+        List<String> tokens = new ArrayList<>();
+        for (String line : Files.readAllLines(vocabFile, StandardCharsets.UTF_8)) {
+            tokens.add(line.strip());
+        }
+        return new WordPieceTokenizer(tokens, lowerCase);
+    }
+
+    /**
+     * 切分为 WordPiece token，不含特殊 token
+     */
+    public List<String> tokenize(String text) {
+        List<String> pieces = new ArrayList<>();
+        for (String word : basicTokenize(text)) {
+            wordPiece(word, pieces);
+        }
+        return pieces;
+    }
+
+    /**
+     * 编码为 [CLS] ... [SEP] 形式的 token ID，超过 maxLength 时截断正文
+     */
+    public int[] encode(String text, int maxLength) {
+        if (maxLength < 2) {
+            throw new IllegalArgumentException("最大长度不能小于2");
+        }
+        List<String> pieces = tokenize(text);
+        int length = Math.min(pieces.size(), maxLength - 2);
+        int[] ids = new int[length + 2];
+        ids[0] = clsId;
+        for (int i = 0; i < length; i++) {
+            ids[i + 1] = vocabulary.getOrDefault(pieces.get(i), unkId);
+        }
+        ids[length + 1] = sepId;
+        return ids;
+    }
+
+    public int getPadId() {
+        return padId;
+    }
+
+    public int getVocabularySize() {
+        return vocabulary.size();
+    }
+
+    // ==================== 私有方法 ====================
+
+    private int requireToken(String token) {
+        Integer id = vocabulary.get(token);
+        if (id == null) {
+            throw new IllegalArgumentException("词表缺少特殊token: " + token);
+        }
+        return id;
+    }
+
+    private List<String> basicTokenize(String text) {
+        List<String> words = new ArrayList<>();
+        if (text == null) {
+            return words;
+        }
+        StringBuilder word = new StringBuilder();
+        for (int i = 0; i < text.length(); ) {
+            int codePoint = text.codePointAt(i);
+            i += Character.charCount(codePoint);
+            if (codePoint == 0 || codePoint == 0xFFFD || isControl(codePoint)) {
+                continue;
+            }
+            if (Character.isWhitespace(codePoint) || Character.isSpaceChar(codePoint)) {
+                flush(word, words);
+            } else if (isCjk(codePoint) || isPunctuation(codePoint)) {
+                // 中日韩字符和标点各自单独成词
+                flush(word, words);
+                words.add(new String(Character.toChars(codePoint)));
+            } else {
+                word.appendCodePoint(codePoint);
+            }
+        }
+        flush(word, words);
+        return words;
+    }
+
+    private void flush(StringBuilder word, List<String> words) {
+        if (word.length() == 0) {
+            return;
+        }
+        String text = word.toString();
+        word.setLength(0);
+        if (!lowerCase) {
+            words.add(text);
+            return;
+        }
+        // 小写后 NFD 分解并去掉组合附加符号；去重音后可能出现新的标点，再切一次
+        String stripped = Normalizer.normalize(text.toLowerCase(), Normalizer.Form.NFD);
+        StringBuilder part = new StringBuilder();
+        for (int i = 0; i < stripped.length(); ) {
+            int codePoint = stripped.codePointAt(i);
+            i += Character.charCount(codePoint);
+            if (Character.getType(codePoint) == Character.NON_SPACING_MARK) {
+                continue;
+            }
+            if (isPunctuation(codePoint)) {
+                if (part.length() > 0) {
+                    words.add(part.toString());
+                    part.setLength(0);
+                }
+                words.add(new String(Character.toChars(codePoint)));
+            } else {
+                part.appendCodePoint(codePoint);
+            }
+        }
+        if (part.length() > 0) {
+            words.add(part.toString());
+        }
+    }
+
+    /**
+     * 贪心最长前缀匹配，任何一段匹配失败则整个词记为 [UNK]
+     */
+    private void wordPiece(String word, List<String> pieces) {
+        if (word.codePointCount(0, word.length()) > MAX_CHARS_PER_WORD) {
+            pieces.add(UNK);
+            return;
+        }
+        int mark = pieces.size();
+        int start = 0;
+        while (start < word.length()) {
+            int end = word.length();
+            String match = null;
+            while (start < end) {
+                String candidate = word.substring(start, end);
+                if (start > 0) {
+                    candidate = CONTINUATION + candidate;
+                }
+                if (vocabulary.containsKey(candidate)) {
+                    match = candidate;
+                    break;
+                }
+                end = word.offsetByCodePoints(end, -1);
+            }
+            if (match == null) {
+                pieces.subList(mark, pieces.size()).clear();
+                pieces.add(UNK);
+                return;
+            }
+            pieces.add(match);
+            start = end;
+        }
+    }
+
+    private static boolean isControl(int codePoint) {
+        if (codePoint == '\t' || codePoint == '\n' || codePoint == '\r') {
+            return false;
+        }
+        int type = Character.getType(codePoint);
+        return type == Character.CONTROL || type == Character.FORMAT;
+    }
+
+    private static boolean isPunctuation(int codePoint) {
+        // BERT 把所有非字母数字的 ASCII 符号都视为标点
+        if ((codePoint >= 33 && codePoint <= 47) || (codePoint >= 58 && codePoint <= 64)
+                || (codePoint >= 91 && codePoint <= 96) || (codePoint >= 123 && codePoint <= 126)) {
+            return true;
+        }
+        switch (Character.getType(codePoint)) {
+            case Character.CONNECTOR_PUNCTUATION:
+            case Character.DASH_PUNCTUATION:
+            case Character.START_PUNCTUATION:
+            case Character.END_PUNCTUATION:
+            case Character.INITIAL_QUOTE_PUNCTUATION:
+            case Character.FINAL_QUOTE_PUNCTUATION:
+            case Character.OTHER_PUNCTUATION:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    private static boolean isCjk(int codePoint) {
+        return (codePoint >= 0x4E00 && codePoint <= 0x9FFF)
+                || (codePoint >= 0x3400 && codePoint <= 0x4DBF)
+                || (codePoint >= 0x20000 && codePoint <= 0x2A6DF)
+                || (codePoint >= 0x2A700 && codePoint <= 0x2B73F)
+                || (codePoint >= 0x2B740 && codePoint <= 0x2B81F)
+                || (codePoint >= 0x2B820 && codePoint <= 0x2CEAF)
+                || (codePoint >= 0xF900 && codePoint <= 0xFAFF)
+                || (codePoint >= 0x2F800 && codePoint <= 0x2FA1F);
+    }
+}
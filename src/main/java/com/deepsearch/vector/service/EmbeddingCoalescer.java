@@ -0,0 +1,196 @@
+package com.deepsearch.vector.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 向量化请求合并器：并发的单条请求先进入队列，收集到 maxBatchSize 条或等待满 maxWaitMillis 后
+ * 合并为一次批量 API 调用，再按顺序完成各调用方的 future。
+ * 收集由单个调度线程完成，批量调用是异步的，不占用线程等待响应；最多 concurrency 个批次同时在途。
+ * 调用方已取消或超时的请求不再发送，批次内的调用方全部放弃后取消在途的批量调用。
+ */
+public class EmbeddingCoalescer implements Closeable {
+
+    private static final Logger logger = LoggerFactory.getLogger(EmbeddingCoalescer.class);
+
+    private final BatchEmbedder embedder;
+    private final int maxBatchSize;
+    private final long maxWaitNanos;
+    private final Semaphore inFlight;
+
+    private final BlockingQueue<Pending> queue = new LinkedBlockingQueue<>();
+    private final Thread dispatcher;
+    private volatile boolean closed;
+
+    private final AtomicLong batches = new AtomicLong();
+    private final AtomicLong requests = new AtomicLong();
+
+    /**
+     * @param maxBatchSize 单批最多合并的请求数
+     * @param maxWaitMillis 第一条请求到达后最多等待的毫秒数
+     * @param concurrency 同时在途的批量调用数
+     */
+    public EmbeddingCoalescer(BatchEmbedder embedder, int maxBatchSize, long maxWaitMillis, int concurrency) {
+        if (maxBatchSize <= 0 || concurrency <= 0) {
+            throw new IllegalArgumentException("批量大小和并发数必须大于0");
+        }
+        this.embedder = embedder;
+        this.maxBatchSize = maxBatchSize;
+        this.maxWaitNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, maxWaitMillis));
+        this.inFlight = new Semaphore(concurrency);
+        this.dispatcher = new Thread(this::dispatchLoop, "embedding-batch-dispatcher");
+        this.dispatcher.setDaemon(true);
+        this.dispatcher.start();
+    }
+
+    /**
+     * 提交一条文本，返回的 future 在所在批次的调用完成后完成
+     */
+    public CompletableFuture<List<Float>> submit(String text) {
+        CompletableFuture<List<Float>> future = new CompletableFuture<>();
+        if (closed) {
+            future.completeExceptionally(new IllegalStateException("向量化请求合并器已关闭"));
+            return future;
+        }
+        queue.add(new Pending(text, future));
+        return future;
+    }
+
+    /**
+     * 已发送的批次数
+     */
+    public long getBatchCount() {
+        return batches.get();
+    }
+
+    /**
+     * 已合并发送的请求数
+     */
+    public long getRequestCount() {
+        return requests.get();
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        dispatcher.interrupt();
+        Pending pending;
+        while ((pending = queue.poll()) != null) {
+            pending.future.completeExceptionally(new IllegalStateException("向量化请求合并器已关闭"));
+        }
+    }
+
+    // ==================== 私有方法 ====================
+
+    private void dispatchLoop() {
+        while (!closed) {
+            List<Pending> batch = new ArrayList<>(maxBatchSize);
+            try {
+                batch.add(queue.take());
+                long deadline = System.nanoTime() + maxWaitNanos;
+                while (batch.size() < maxBatchSize) {
+                    long remaining = deadline - System.nanoTime();
+                    Pending next = remaining > 0 ? queue.poll(remaining, TimeUnit.NANOSECONDS) : queue.poll();
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                // 在途批次已满时在这里等待，期间到达的请求留在队列中进入下一批
+                inFlight.acquire();
+                send(batch);
+            } catch (InterruptedException e) {
+                // 关闭时已收集但未发送的请求直接失败
+                fail(batch, new IllegalStateException("向量化请求合并器已关闭"));
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private void send(List<Pending> batch) {
+        batch.removeIf(pending -> pending.future.isDone());
+        if (batch.isEmpty()) {
+            inFlight.release();
+            return;
+        }
+        List<String> texts = new ArrayList<>(batch.size());
+        for (Pending pending : batch) {
+            texts.add(pending.text);
+        }
+        CompletableFuture<List<List<Float>>> call;
+        try {
+            call = embedder.embed(texts);
+        } catch (RuntimeException e) {
+            call = CompletableFuture.failedFuture(e);
+        }
+        call.whenComplete((embeddings, error) -> {
+            try {
+                complete(batch, embeddings, error);
+            } finally {
+                inFlight.release();
+            }
+        });
+        CompletableFuture<List<List<Float>>> inFlightCall = call;
+        for (Pending pending : batch) {
+            pending.future.whenComplete((embedding, error) -> {
+                if (error != null && batch.stream().allMatch(other -> other.future.isDone())) {
+                    inFlightCall.cancel(false);
+                }
+            });
+        }
+    }
+
+    private void complete(List<Pending> batch, List<List<Float>> embeddings, Throwable error) {
+        try {
+            if (error != null) {
+                throw error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+            }
+            if (embeddings == null || embeddings.size() != batch.size()) {
+                throw new IOException("批量向量化返回数量不一致: 期望" + batch.size());
+            }
+            batches.incrementAndGet();
+            requests.addAndGet(batch.size());
+            for (int i = 0; i < batch.size(); i++) {
+                List<Float> embedding = embeddings.get(i);
+                if (embedding == null) {
+                    batch.get(i).future.completeExceptionally(new IOException("批量向量化缺少第" + i + "条结果"));
+                } else {
+                    batch.get(i).future.complete(embedding);
+                }
+            }
+        } catch (Throwable e) {
+            logger.warn("批量向量化失败，批次大小: {}", batch.size(), e);
+            fail(batch, e);
+        }
+    }
+
+    private static void fail(List<Pending> batch, Throwable cause) {
+        for (Pending pending : batch) {
+            pending.future.completeExceptionally(cause);
+        }
+    }
+
+    /**
+     * 异步批量向量化调用，结果与输入顺序一致
+     */
+    @FunctionalInterface
+    public interface BatchEmbedder {
+        CompletableFuture<List<List<Float>>> embed(List<String> texts);
+    }
+
+    private record Pending(String text, CompletableFuture<List<Float>> future) {
+    }
+}
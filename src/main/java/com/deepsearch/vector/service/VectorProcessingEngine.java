@@ -7,11 +7,15 @@ import org.springframework.stereotype.Service;
 import okhttp3.*;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.deepsearch.vector.util.SimilarityKernels;
+import jakarta.annotation.PreDestroy;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.TimeUnit;
 
 /**
@@ -34,11 +38,48 @@ public class VectorProcessingEngine {
     @Value("${vector.processing.enabled:false}")
     private boolean vectorProcessingEnabled;
 
+    // 并发的单条请求合并为批量调用：收集到 max-size 条或等待 max-wait-ms 后发送
+    @Value("${vector.processing.batch.enabled:true}")
+    private boolean batchEnabled;
+
+    @Value("${vector.processing.batch.max-size:64}")
+    private int batchMaxSize;
+
+    @Value("${vector.processing.batch.max-wait-ms:5}")
+    private long batchMaxWaitMs;
+
+    @Value("${vector.processing.batch.concurrency:4}")
+    private int batchConcurrency;
+
+    // 等待向量化结果的最长时间，应大于单次API调用的超时
+    @Value("${vector.processing.timeout-ms:120000}")
+    private long embeddingTimeoutMs;
+
+    // 单次API调用从发起到读完响应的总超时，超时后连接被关闭
+    @Value("${vector.processing.http.call-timeout-ms:90000}")
+    private long callTimeoutMs;
+
+    // 默认向量的维度（OpenAI text-embedding-ada-002的维度）
+    private static final int DEFAULT_DIMENSION = 1536;
+
     private final OkHttpClient httpClient;
     private final ObjectMapper objectMapper;
 
-    public VectorProcessingEngine() {
+    private volatile EmbeddingCoalescer coalescer;
+
+    /**
+     * 嵌入API只有一个主机，连接池保持长连接复用，单主机并发请求数与总并发数一致
+     */
+    public VectorProcessingEngine(
+            @Value("${vector.processing.http.max-idle-connections:32}") int maxIdleConnections,
+            @Value("${vector.processing.http.keep-alive-minutes:5}") long keepAliveMinutes,
+            @Value("${vector.processing.http.max-requests:64}") int maxRequests) {
+        Dispatcher dispatcher = new Dispatcher();
+        dispatcher.setMaxRequests(maxRequests);
+        dispatcher.setMaxRequestsPerHost(maxRequests);
         this.httpClient = new OkHttpClient.Builder()
+                .connectionPool(new ConnectionPool(maxIdleConnections, keepAliveMinutes, TimeUnit.MINUTES))
+                .dispatcher(dispatcher)
                 .connectTimeout(30, TimeUnit.SECONDS)
                 .readTimeout(60, TimeUnit.SECONDS)
                 .writeTimeout(30, TimeUnit.SECONDS)
@@ -55,21 +96,59 @@ public class VectorProcessingEngine {
             return generateDefaultVector();
         }
 
+        CompletableFuture<List<Float>> embedding = embedAsync(text);
         try {
-            return callEmbeddingAPI(text);
+            return embedding.get(embeddingTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            embedding.cancel(false);
+            Thread.currentThread().interrupt();
+            logger.error("生成向量嵌入被中断");
+            return generateDefaultVector();
         } catch (Exception e) {
+            embedding.cancel(false);
             logger.error("生成向量嵌入失败: {}", e.getMessage(), e);
             return generateDefaultVector();
         }
     }
 
     /**
-     * 批量生成文本嵌入向量
+     * 异步生成文本嵌入向量：请求由 OkHttp 调度线程发送，调用线程不等待网络；失败时返回默认向量。
+     * 等待超时或调用方取消返回的 future 时，一并取消尚未完成的网络请求
+     */
+    public CompletableFuture<float[]> generateEmbeddingAsync(String text) {
+        if (!vectorProcessingEnabled || apiKey.isEmpty()) {
+            logger.warn("向量处理未启用或API密钥未配置，返回空向量");
+            return CompletableFuture.completedFuture(new float[DEFAULT_DIMENSION]);
+        }
+
+        CompletableFuture<List<Float>> embedding = embedAsync(text)
+            .orTimeout(embeddingTimeoutMs, TimeUnit.MILLISECONDS);
+        return cancelSourceOnFailure(embedding
+            .thenApply(SimilarityKernels::toFloatArray)
+            .exceptionally(e -> {
+                logger.error("生成向量嵌入失败: {}", e.getMessage(), e);
+                return new float[DEFAULT_DIMENSION];
+            }), embedding);
+    }
+
+    /**
+     * 批量生成文本嵌入向量：一次API调用，结果与输入顺序一致
      */
     public List<List<Float>> generateEmbeddings(List<String> texts) {
-        List<List<Float>> embeddings = new ArrayList<>();
-        for (String text : texts) {
-            embeddings.add(generateEmbedding(text));
+        if (texts == null || texts.isEmpty()) {
+            return new ArrayList<>();
+        }
+        try {
+            if (vectorProcessingEnabled && !apiKey.isEmpty()) {
+                return callEmbeddingAPI(texts);
+            }
+            logger.warn("向量处理未启用或API密钥未配置，返回空向量");
+        } catch (Exception e) {
+            logger.error("批量生成向量嵌入失败: {}", e.getMessage(), e);
+        }
+        List<List<Float>> embeddings = new ArrayList<>(texts.size());
+        for (int i = 0; i < texts.size(); i++) {
+            embeddings.add(generateDefaultVector());
         }
         return embeddings;
     }
@@ -78,28 +157,126 @@ public class VectorProcessingEngine {
      * 计算向量相似度（余弦相似度）
      */
     public double calculateSimilarity(List<Float> vector1, List<Float> vector2) {
-        if (vector1.size() != vector2.size()) {
+        if (vector1 == null || vector2 == null || vector1.size() != vector2.size()) {
             return 0.0;
         }
+        return calculateSimilarity(SimilarityKernels.toFloatArray(vector1), SimilarityKernels.toFloatArray(vector2));
+    }
+
+    /**
+     * 计算向量相似度（余弦相似度，float[] 版本）
+     */
+    public double calculateSimilarity(float[] vector1, float[] vector2) {
+        if (vector1 == null || vector2 == null || vector1.length != vector2.length) {
+            return 0.0;
+        }
+        return SimilarityKernels.cosine(vector1, vector2);
+    }
+
+    /**
+     * 请求合并器，首次使用时按配置创建
+     */
+    private EmbeddingCoalescer coalescer() {
+        EmbeddingCoalescer current = coalescer;
+        if (current == null) {
+            synchronized (this) {
+                current = coalescer;
+                if (current == null) {
+                    current = new EmbeddingCoalescer(this::callEmbeddingAPIAsync,
+                        batchMaxSize, batchMaxWaitMs, batchConcurrency);
+                    coalescer = current;
+                    logger.info("向量化请求合并已启用: 批量上限={}, 等待={}ms, 并发批次={}",
+                        batchMaxSize, batchMaxWaitMs, batchConcurrency);
+                }
+            }
+        }
+        return current;
+    }
+
+    @PreDestroy
+    public void destroy() {
+        EmbeddingCoalescer current = coalescer;
+        if (current != null) {
+            current.close();
+        }
+    }
+
+    /**
+     * 单条文本的向量化，开启请求合并时进入合并队列，否则直接异步调用
+     */
+    private CompletableFuture<List<Float>> embedAsync(String text) {
+        if (batchEnabled) {
+            return coalescer().submit(text);
+        }
+        CompletableFuture<List<List<Float>>> call = callEmbeddingAPIAsync(text);
+        return cancelSourceOnFailure(call.thenApply(embeddings -> embeddings.get(0)), call);
+    }
+
+    /**
+     * 派生的 future 被取消或超时失败时取消上游 future，取消才能传到网络请求
+     */
+    private static <T> CompletableFuture<T> cancelSourceOnFailure(CompletableFuture<T> derived,
+                                                                  CompletableFuture<?> source) {
+        derived.whenComplete((value, error) -> {
+            if (error != null) {
+                source.cancel(false);
+            }
+        });
+        return derived;
+    }
 
-        double dotProduct = 0.0;
-        double norm1 = 0.0;
-        double norm2 = 0.0;
+    /**
+     * 同步调用嵌入API，input 为单个文本或文本列表，返回结果按 data[].index 排列
+     */
+    private List<List<Float>> callEmbeddingAPI(Object input) throws IOException {
+        Call call = httpClient.newCall(buildRequest(input));
+        call.timeout().timeout(callTimeoutMs, TimeUnit.MILLISECONDS);
+        try (Response response = call.execute()) {
+            return parseResponse(response);
+        }
+    }
 
-        for (int i = 0; i < vector1.size(); i++) {
-            dotProduct += vector1.get(i) * vector2.get(i);
-            norm1 += vector1.get(i) * vector1.get(i);
-            norm2 += vector2.get(i) * vector2.get(i);
+    /**
+     * 异步调用嵌入API：请求进入 OkHttp 调度队列，响应在调度线程上解析后完成 future
+     */
+    private CompletableFuture<List<List<Float>>> callEmbeddingAPIAsync(Object input) {
+        CompletableFuture<List<List<Float>>> future = new CompletableFuture<>();
+        Call call;
+        try {
+            call = httpClient.newCall(buildRequest(input));
+            call.timeout().timeout(callTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (IOException e) {
+            future.completeExceptionally(e);
+            return future;
         }
+        call.enqueue(new Callback() {
+            @Override
+            public void onFailure(Call failedCall, IOException e) {
+                future.completeExceptionally(e);
+            }
 
-        double magnitude = Math.sqrt(norm1) * Math.sqrt(norm2);
-        return magnitude == 0 ? 0.0 : dotProduct / magnitude;
+            @Override
+            public void onResponse(Call completedCall, Response response) {
+                try (response) {
+                    future.complete(parseResponse(response));
+                } catch (Exception e) {
+                    future.completeExceptionally(e);
+                }
+            }
+        });
+        // 调用方取消或超时失败时同时取消网络请求，请求已结束时取消不产生影响
+        future.whenComplete((embeddings, error) -> {
+            if (error != null) {
+                call.cancel();
+            }
+        });
+        return future;
     }
 
-    private List<Float> callEmbeddingAPI(String text) throws IOException {
+    private Request buildRequest(Object input) throws IOException {
         Map<String, Object> requestBody = Map.of(
             "model", embeddingModel,
-            "input", text
+            "input", input
         );
 
         RequestBody body = RequestBody.create(
@@ -107,29 +284,38 @@ public class VectorProcessingEngine {
             MediaType.get("application/json")
         );
 
-        Request request = new Request.Builder()
+        return new Request.Builder()
                 .url(apiUrl)
                 .addHeader("Authorization", "Bearer " + apiKey)
                 .addHeader("Content-Type", "application/json")
                 .post(body)
                 .build();
+    }
 
-        try (Response response = httpClient.newCall(request).execute()) {
-            if (!response.isSuccessful()) {
-                throw new IOException("API调用失败: " + response.code() + " " + response.message());
-            }
+    private List<List<Float>> parseResponse(Response response) throws IOException {
+        if (!response.isSuccessful()) {
+            throw new IOException("API调用失败: " + response.code() + " " + response.message());
+        }
 
-            String responseBody = response.body().string();
-            JsonNode jsonNode = objectMapper.readTree(responseBody);
-            JsonNode embeddingArray = jsonNode.get("data").get(0).get("embedding");
+        String responseBody = response.body().string();
+        JsonNode jsonNode = objectMapper.readTree(responseBody);
+        JsonNode data = jsonNode.get("data");
 
+        List<List<Float>> embeddings = new ArrayList<>(Collections.nCopies(data.size(), null));
+        for (int i = 0; i < data.size(); i++) {
+            JsonNode item = data.get(i);
             List<Float> embedding = new ArrayList<>();
-            for (JsonNode value : embeddingArray) {
+            for (JsonNode value : item.get("embedding")) {
                 embedding.add(value.floatValue());
             }
-
-            return embedding;
+            int index = item.has("index") ? item.get("index").asInt() : i;
+            if (index < 0 || index >= embeddings.size()) {
+                throw new IOException("API返回的向量序号无效: " + index);
+            }
+            embeddings.set(index, embedding);
         }
+
+        return embeddings;
     }
 
     /**
@@ -137,8 +323,8 @@ public class VectorProcessingEngine {
      */
     private List<Float> generateDefaultVector() {
         List<Float> defaultVector = new ArrayList<>();
-        // 生成1536维的零向量（OpenAI text-embedding-ada-002的维度）
-        for (int i = 0; i < 1536; i++) {
+        // 生成零向量
+        for (int i = 0; i < DEFAULT_DIMENSION; i++) {
             defaultVector.add(0.0f);
         }
         return defaultVector;
@@ -0,0 +1,828 @@
+package com.deepsearch.vector.store;
+
+import com.deepsearch.vector.util.LongLongHashMap;
+import com.deepsearch.vector.util.QuantizedVector;
+import com.deepsearch.vector.util.SimilarityKernels;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.StampedLock;
+import java.util.stream.Stream;
+
+/**
+ * 基于内存映射文件的向量存储
+ * 向量按追加顺序写入固定容量的段文件，每条记录为 [向量ID][文档ID][float32 x 维度]。
+ * 内存中只保留 向量ID -> (段号, 记录号) 的紧凑映射，读取时直接返回映射区的 FloatBuffer 视图，不拷贝数据。
+ * 同一向量ID重复写入时追加新记录并指向最新位置；删除时追加文档ID为 -1 的墓碑记录；
+ * 重启时按写入顺序扫描段文件恢复映射，遇到墓碑即移除该ID。
+ * INT8 编码的段每条记录为 [向量ID][文档ID][offset][scale][编码和][平方范数][int8 x 维度]，
+ * 向量数据只占 float32 的 1/4，点积直接在编码上计算，读取单个向量时才解码。
+ * 编码记录在段文件头中，切换编码后旧段仍按原编码读取。
+ * 读取映射使用乐观读，扫描时逐条校验记录是否有效也不需要加锁，只有与写入冲突时才退回读锁。
+ * 旧记录占比过高时由 {@link #compact()} 把有效记录重写到新的段文件并整体切换，读取和扫描不受影响。
+ */
+public class MappedVectorStore implements Closeable {
+
+    private static final int MAGIC = 0x56535447;
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 32;
+    private static final int COUNT_OFFSET = 16;
+    private static final int ENCODING_OFFSET = 20;
+    private static final int INT8_HEADER_BYTES = 16;
+    private static final long MISSING = -1L;
+    // 墓碑记录的文档ID
+    private static final long TOMBSTONE = -1L;
+    private static final String SEGMENT_PREFIX = "segment-";
+    private static final String SEGMENT_SUFFIX = ".vec";
+    private static final int SCAN_BLOCK_RECORDS = 256;
+
+    // 多查询扫描时每块的最少记录数
+    private static final int MIN_MULTI_SCAN_BLOCK_RECORDS = 32;
+
+    private final Path directory;
+    private final int segmentCapacity;
+    private final Encoding encoding;
+    // 保护ID映射的修改，读取方乐观读
+    private final StampedLock lock = new StampedLock();
+    // 串行化写入和压缩
+    private final ReentrantLock writeLock = new ReentrantLock();
+
+    private volatile Generation generation = new Generation(new Segment[0], new LongLongHashMap(1024));
+    private volatile int dimension = -1;
+    private volatile long garbageRecords;
+    // 下一个段文件的序号，压缩后继续递增，保证文件序号与写入顺序一致
+    private int nextSequence;
+
+    /**
+     * 打开或创建存储目录，已有段文件会被映射并重建ID索引
+     *
+     * @param directory 段文件目录
+     * @param segmentCapacity 每个段文件可容纳的记录数
+     */
+    public MappedVectorStore(Path directory, int segmentCapacity) throws IOException {
+        this(directory, segmentCapacity, Encoding.FLOAT32);
+    }
+
+    /**
+     * @param encoding 新写入段的向量编码
+     */
+    public MappedVectorStore(Path directory, int segmentCapacity, Encoding encoding) throws IOException {
+        if (segmentCapacity <= 0) {
+            throw new IllegalArgumentException("段容量必须大于0");
+        }
+        this.directory = directory;
+        this.segmentCapacity = segmentCapacity;
+        this.encoding = encoding != null ? encoding : Encoding.FLOAT32;
+        Files.createDirectories(directory);
+        loadSegments();
+    }
+
+    /**
+     * 写入向量，已存在的向量ID会被新记录覆盖
+     */
+    public void put(long vectorId, long documentId, float[] vector) throws IOException {
+        if (vector == null || vector.length == 0) {
+            throw new IllegalArgumentException("向量数据不能为空");
+        }
+
+        writeLock.lock();
+        try {
+            if (dimension < 0) {
+                dimension = vector.length;
+            }
+            if (vector.length != dimension) {
+                throw new IllegalArgumentException("向量维度不匹配，期望: " + dimension + ", 实际: " + vector.length);
+            }
+
+            Generation current = generation;
+            Segment segment = writableSegment(current);
+            int record = segment.count;
+            int position = segment.recordPosition(record);
+            MappedByteBuffer buffer = segment.buffer;
+            buffer.putLong(position, vectorId);
+            buffer.putLong(position + 8, documentId);
+            segment.write(position + 16, vector);
+            // 记录写完后再更新计数，进程中断时不会留下半条记录
+            segment.count = record + 1;
+            buffer.putInt(COUNT_OFFSET, segment.count);
+
+            long previous;
+            long stamp = lock.writeLock();
+            try {
+                previous = current.locations.put(vectorId, location(segment.index, record), MISSING);
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+            if (previous != MISSING) {
+                garbageRecords++;
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * 删除向量：移除内存映射并追加墓碑记录，重启后不会被恢复
+     *
+     * @return 向量是否存在
+     */
+    public boolean remove(long vectorId) throws IOException {
+        writeLock.lock();
+        try {
+            Generation current = generation;
+            long stamp = lock.writeLock();
+            try {
+                if (current.locations.remove(vectorId, MISSING) == MISSING) {
+                    return false;
+                }
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+            // 墓碑只写ID，向量区保持为0
+            Segment segment = writableSegment(current);
+            int record = segment.count;
+            int position = segment.recordPosition(record);
+            segment.buffer.putLong(position, vectorId);
+            segment.buffer.putLong(position + 8, TOMBSTONE);
+            segment.count = record + 1;
+            segment.buffer.putInt(COUNT_OFFSET, segment.count);
+            // 被删除的记录和墓碑本身都是垃圾记录
+            garbageRecords += 2;
+            return true;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * 获取向量的只读视图，不存在时返回 null
+     */
+    public FloatBuffer get(long vectorId) {
+        Generation current = generation;
+        long location = current.lookup(lock, vectorId);
+        if (location == MISSING) {
+            return null;
+        }
+        return current.segment(location).vector(recordOf(location), dimension);
+    }
+
+    /**
+     * 获取向量所属的文档ID，不存在时返回 -1
+     */
+    public long getDocumentId(long vectorId) {
+        Generation current = generation;
+        long location = current.lookup(lock, vectorId);
+        if (location == MISSING) {
+            return MISSING;
+        }
+        Segment segment = current.segment(location);
+        return segment.buffer.getLong(segment.recordPosition(recordOf(location)) + 8);
+    }
+
+    public boolean contains(long vectorId) {
+        return generation.lookup(lock, vectorId) != MISSING;
+    }
+
+    /**
+     * 按写入顺序遍历所有有效向量
+     */
+    public void scan(VectorVisitor visitor) {
+        Generation current = generation;
+        int dim = dimension;
+        for (Segment segment : current.segments) {
+            int count = segment.count;
+            for (int record = 0; record < count; record++) {
+                int position = segment.recordPosition(record);
+                long vectorId = segment.buffer.getLong(position);
+                if (current.lookup(lock, vectorId) != location(segment.index, record)) {
+                    // 已被覆盖或删除的旧记录
+                    continue;
+                }
+                long documentId = segment.buffer.getLong(position + 8);
+                visitor.visit(vectorId, documentId, segment.vector(record, dim));
+            }
+        }
+    }
+
+    /**
+     * 当前全部有效向量的ID，按写入顺序
+     */
+    public long[] ids() {
+        Generation current = generation;
+        long[] ids = new long[Math.max(16, size())];
+        int size = 0;
+        for (Segment segment : current.segments) {
+            int count = segment.count;
+            for (int record = 0; record < count; record++) {
+                long vectorId = segment.buffer.getLong(segment.recordPosition(record));
+                if (current.lookup(lock, vectorId) != location(segment.index, record)) {
+                    continue;
+                }
+                if (size == ids.length) {
+                    ids = Arrays.copyOf(ids, size * 2);
+                }
+                ids[size++] = vectorId;
+            }
+        }
+        return Arrays.copyOf(ids, size);
+    }
+
+    /**
+     * 按段批量计算查询向量与所有有效向量的点积和平方范数，
+     * 直接在映射区上运行批量内核，不为每条记录创建视图
+     */
+    public void scanDots(float[] query, DotVisitor visitor) {
+        scanDots(query, 0, Long.MAX_VALUE, visitor);
+    }
+
+    /**
+     * 只扫描记录序号在 [from, to) 内的记录，记录序号按段顺序连续编号（含已失效的旧记录），
+     * 用于把存储切成连续区间交给不同线程并行扫描
+     */
+    public void scanDots(float[] query, long from, long to, DotVisitor visitor) {
+        scanDots(new float[][]{query}, from, to, (vectorId, documentId, dots, squaredNorm) ->
+            visitor.visit(vectorId, documentId, dots[0], squaredNorm));
+    }
+
+    /**
+     * 多个查询向量一次扫描：按块读取记录，同一块在缓存中依次与全部查询计算点积，
+     * 相当于分块的矩阵乘法，映射区只遍历一遍，不随查询数成倍增加内存带宽
+     */
+    public void scanDots(float[][] queries, long from, long to, MultiDotVisitor visitor) {
+        scanDots(generation, queries, from, to, visitor);
+    }
+
+    /**
+     * 固定当前版本的段和映射，分片扫描的各个区间在同一版本上执行，
+     * 期间发生的压缩切换不会使区间错位；视图只看得到所固定的版本，
+     * 压缩切换之后的写入和删除落在新版本上，对视图不可见
+     */
+    public View view() {
+        return new View(generation);
+    }
+
+    /**
+     * 压缩：按写入顺序把有效记录重写到新的段文件，切换后删除旧段文件。
+     * 压缩期间写入等待，读取和扫描继续使用旧段；新段文件的序号接在旧段之后，
+     * 中途停机时重启按序号重放得到相同的映射；旧段文件按序号从小到大删除，
+     * 删除中断时剩下的是旧段的一段后缀，其中的墓碑总在对应记录之后，已删除的向量不会复活
+     *
+     * @return 是否执行了压缩
+     */
+    public boolean compact() throws IOException {
+        writeLock.lock();
+        try {
+            Generation old = generation;
+            if (garbageRecords == 0 || old.segments.length == 0) {
+                return false;
+            }
+            int dim = dimension;
+            LongLongHashMap compactedLocations = new LongLongHashMap(Math.max(1024, old.locations.size()));
+            List<Segment> compacted = new ArrayList<>();
+            Segment target = null;
+            float[] decoded = new float[dim];
+            for (Segment segment : old.segments) {
+                for (int record = 0; record < segment.count; record++) {
+                    int position = segment.recordPosition(record);
+                    long vectorId = segment.buffer.getLong(position);
+                    // 持有写锁期间映射不会变化，不需要乐观读
+                    if (old.locations.get(vectorId, MISSING) != location(segment.index, record)) {
+                        continue;
+                    }
+                    if (target == null || target.count == target.capacity) {
+                        target = Segment.create(nextSegmentFile(), compacted.size(), dim, segmentCapacity, encoding);
+                        compacted.add(target);
+                    }
+                    int targetRecord = target.count;
+                    int targetPosition = target.recordPosition(targetRecord);
+                    if (segment.encoding == target.encoding) {
+                        target.buffer.put(targetPosition, segment.buffer, position, segment.recordBytes);
+                    } else {
+                        // 编码不同的旧段解码后按新编码写入
+                        segment.vector(record, dim).get(decoded);
+                        target.buffer.putLong(targetPosition, vectorId);
+                        target.buffer.putLong(targetPosition + 8, segment.buffer.getLong(position + 8));
+                        target.write(targetPosition + 16, decoded);
+                    }
+                    target.count = targetRecord + 1;
+                    target.buffer.putInt(COUNT_OFFSET, target.count);
+                    compactedLocations.put(vectorId, location(target.index, targetRecord), MISSING);
+                }
+            }
+            // 新段落盘后才切换并删除旧段
+            for (Segment segment : compacted) {
+                segment.buffer.force();
+            }
+            generation = new Generation(compacted.toArray(new Segment[0]), compactedLocations);
+            garbageRecords = 0;
+
+            for (Segment segment : old.segments) {
+                try {
+                    Files.deleteIfExists(segment.file);
+                } catch (IOException e) {
+                    // 保留剩余的旧段后缀，重启时重放结果不变
+                    throw new IOException("旧段文件删除失败，剩余旧段将在重启后重放: " + segment.file, e);
+                }
+            }
+            return true;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * 计算查询向量与指定向量的点积，向量不存在时返回 NaN
+     *
+     * @param normsOut 不为 null 时写出对应向量的平方范数
+     */
+    public float[] dots(float[] query, long[] vectorIds, float[] normsOut) {
+        float[] result = new float[vectorIds.length];
+        Generation current = generation;
+        int dim = dimension;
+        float querySum = QuantizedVector.sum(query);
+        for (int i = 0; i < vectorIds.length; i++) {
+            long location = current.lookup(lock, vectorIds[i]);
+            if (location == MISSING || query.length != dim) {
+                result[i] = Float.NaN;
+                continue;
+            }
+            Segment segment = current.segment(location);
+            int record = recordOf(location);
+            result[i] = segment.dot(record, query, querySum);
+            if (normsOut != null) {
+                normsOut[i] = segment.squaredNorm(record);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 各段已写入的记录总数，包含已被覆盖或删除的旧记录，即区间扫描的记录序号上界
+     */
+    public long recordCount() {
+        return generation.recordCount();
+    }
+
+    public int size() {
+        Generation current = generation;
+        long stamp = lock.readLock();
+        try {
+            return current.locations.size();
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    public int getDimension() {
+        return dimension;
+    }
+
+    public Encoding getEncoding() {
+        return encoding;
+    }
+
+    /**
+     * 已被覆盖或删除、仍占用文件空间的记录数
+     */
+    public long getGarbageRecords() {
+        return garbageRecords;
+    }
+
+    /**
+     * ID映射占用的堆内存（字节），向量数据本身在堆外
+     */
+    public long estimateHeapBytes() {
+        Generation current = generation;
+        long stamp = lock.readLock();
+        try {
+            return current.locations.memoryBytes();
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * 将映射区的修改刷到磁盘
+     */
+    public void force() {
+        for (Segment segment : generation.segments) {
+            segment.buffer.force();
+        }
+    }
+
+    @Override
+    public void close() {
+        force();
+    }
+
+    // ==================== 私有方法 ====================
+
+    private void scanDots(Generation current, float[][] queries, long from, long to, MultiDotVisitor visitor) {
+        Segment[] segments = current.segments;
+        int dim = dimension;
+        if (segments.length == 0) {
+            return;
+        }
+        int queryCount = queries.length;
+        float[] querySums = new float[queryCount];
+        for (int q = 0; q < queryCount; q++) {
+            if (queries[q] == null || queries[q].length != dim) {
+                throw new IllegalArgumentException("查询向量维度不匹配，期望: " + dim);
+            }
+            querySums[q] = QuantizedVector.sum(queries[q]);
+        }
+
+        // 查询越多块越小，使一块记录在与全部查询计算期间留在缓存中
+        int blockRecords = Math.max(MIN_MULTI_SCAN_BLOCK_RECORDS, SCAN_BLOCK_RECORDS / Math.max(1, queryCount));
+        float[][] dots = new float[queryCount][blockRecords];
+        float[] norms = new float[blockRecords];
+        float[] rowDots = new float[queryCount];
+        long base = 0;
+        for (Segment segment : segments) {
+            int count = segment.count;
+            long segmentBase = base;
+            base += count;
+            if (segmentBase + count <= from) {
+                continue;
+            }
+            if (segmentBase >= to) {
+                break;
+            }
+            int first = (int) Math.max(0, from - segmentBase);
+            int end = (int) Math.min(count, to - segmentBase);
+            for (int start = first; start < end; start += blockRecords) {
+                int rows = Math.min(blockRecords, end - start);
+                if (segment.encoding == Encoding.INT8) {
+                    for (int i = 0; i < rows; i++) {
+                        norms[i] = segment.squaredNorm(start + i);
+                        for (int q = 0; q < queryCount; q++) {
+                            dots[q][i] = segment.dot(start + i, queries[q], querySums[q]);
+                        }
+                    }
+                } else {
+                    for (int q = 0; q < queryCount; q++) {
+                        SimilarityKernels.dotRows(queries[q], segment.buffer, segment.recordPosition(start) + 16,
+                            segment.recordBytes, rows, dots[q], norms);
+                    }
+                }
+                for (int i = 0; i < rows; i++) {
+                    int record = start + i;
+                    int position = segment.recordPosition(record);
+                    long vectorId = segment.buffer.getLong(position);
+                    if (current.lookup(lock, vectorId) != location(segment.index, record)) {
+                        continue;
+                    }
+                    for (int q = 0; q < queryCount; q++) {
+                        rowDots[q] = dots[q][i];
+                    }
+                    visitor.visit(vectorId, segment.buffer.getLong(position + 8), rowDots, norms[i]);
+                }
+            }
+        }
+    }
+
+    /**
+     * 按序号顺序打开段文件，序号即写入顺序
+     */
+    private void loadSegments() throws IOException {
+        List<Path> files;
+        try (Stream<Path> stream = Files.list(directory)) {
+            files = stream
+                .filter(path -> sequenceOf(path) >= 0)
+                .sorted(Comparator.comparingLong(MappedVectorStore::sequenceOf))
+                .toList();
+        }
+
+        LongLongHashMap locations = new LongLongHashMap(1024);
+        List<Segment> loaded = new ArrayList<>(files.size());
+        for (Path file : files) {
+            nextSequence = (int) sequenceOf(file) + 1;
+            Segment segment = Segment.open(file, loaded.size());
+            if (dimension < 0) {
+                dimension = segment.dimension;
+            } else if (segment.dimension != dimension) {
+                throw new IOException("段文件维度不一致: " + file);
+            }
+            for (int record = 0; record < segment.count; record++) {
+                int position = segment.recordPosition(record);
+                long vectorId = segment.buffer.getLong(position);
+                if (segment.buffer.getLong(position + 8) == TOMBSTONE) {
+                    garbageRecords += locations.remove(vectorId, MISSING) != MISSING ? 2 : 1;
+                    continue;
+                }
+                if (locations.put(vectorId, location(segment.index, record), MISSING) != MISSING) {
+                    garbageRecords++;
+                }
+            }
+            loaded.add(segment);
+        }
+        generation = new Generation(loaded.toArray(new Segment[0]), locations);
+    }
+
+    /**
+     * 当前段写满时新建段；新段先发布再写入映射，读取方查到的位置总能找到对应的段
+     */
+    private Segment writableSegment(Generation current) throws IOException {
+        Segment[] segments = current.segments;
+        if (segments.length > 0 && segments[segments.length - 1].count < segments[segments.length - 1].capacity) {
+            return segments[segments.length - 1];
+        }
+        Segment segment = Segment.create(nextSegmentFile(), segments.length, dimension, segmentCapacity, encoding);
+        Segment[] updated = Arrays.copyOf(segments, segments.length + 1);
+        updated[segments.length] = segment;
+        current.segments = updated;
+        return segment;
+    }
+
+    private Path nextSegmentFile() {
+        return directory.resolve(String.format("%s%05d%s", SEGMENT_PREFIX, nextSequence++, SEGMENT_SUFFIX));
+    }
+
+    /**
+     * 段文件名中的序号，不是段文件时返回 -1
+     */
+    private static long sequenceOf(Path path) {
+        String name = path.getFileName().toString();
+        if (!name.startsWith(SEGMENT_PREFIX) || !name.endsWith(SEGMENT_SUFFIX)) {
+            return -1;
+        }
+        try {
+            return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private static long location(int segment, int record) {
+        return ((long) segment << 32) | (record & 0xFFFFFFFFL);
+    }
+
+    private static int segmentOf(long location) {
+        return (int) (location >>> 32);
+    }
+
+    private static int recordOf(long location) {
+        return (int) location;
+    }
+
+    // ==================== 内部类 ====================
+
+    /**
+     * 段文件中的向量编码
+     */
+    public enum Encoding {
+        FLOAT32,   // 原始 float32，读取时零拷贝
+        INT8       // int8 标量量化，内存和磁盘占用约为 1/4
+    }
+
+    /**
+     * 向量遍历回调
+     */
+    @FunctionalInterface
+    public interface VectorVisitor {
+        void visit(long vectorId, long documentId, FloatBuffer vector);
+    }
+
+    /**
+     * 批量点积回调
+     */
+    @FunctionalInterface
+    public interface DotVisitor {
+        void visit(long vectorId, long documentId, float dot, float squaredNorm);
+    }
+
+    /**
+     * 多查询批量点积回调，dots 按查询顺序排列，只在回调期间有效
+     */
+    @FunctionalInterface
+    public interface MultiDotVisitor {
+        void visit(long vectorId, long documentId, float[] dots, float squaredNorm);
+    }
+
+    /**
+     * 固定版本的存储视图，记录序号区间在视图内保持稳定，只反映该版本上的写入和删除
+     */
+    public final class View {
+        private final Generation pinned;
+
+        private View(Generation pinned) {
+            this.pinned = pinned;
+        }
+
+        /**
+         * 视图内的记录总数，即区间扫描的记录序号上界
+         */
+        public long recordCount() {
+            return pinned.recordCount();
+        }
+
+        public void scanDots(float[] query, long from, long to, DotVisitor visitor) {
+            MappedVectorStore.this.scanDots(pinned, new float[][]{query}, from, to, (vectorId, documentId, dots, squaredNorm) ->
+                visitor.visit(vectorId, documentId, dots[0], squaredNorm));
+        }
+
+        public void scanDots(float[][] queries, long from, long to, MultiDotVisitor visitor) {
+            MappedVectorStore.this.scanDots(pinned, queries, from, to, visitor);
+        }
+    }
+
+    /**
+     * 一组段文件及其ID映射，压缩时整体替换；同一版本内段只追加，映射在写锁下修改
+     */
+    private static final class Generation {
+        final LongLongHashMap locations;
+        volatile Segment[] segments;
+
+        Generation(Segment[] segments, LongLongHashMap locations) {
+            this.segments = segments;
+            this.locations = locations;
+        }
+
+        /**
+         * 乐观读：期间没有写入时直接返回，否则加读锁重读
+         */
+        long lookup(StampedLock lock, long vectorId) {
+            long stamp = lock.tryOptimisticRead();
+            long location = locations.get(vectorId, MISSING);
+            if (lock.validate(stamp)) {
+                return location;
+            }
+            stamp = lock.readLock();
+            try {
+                return locations.get(vectorId, MISSING);
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+
+        /**
+         * 查到位置之后再读取段数组，新段总是先于映射发布
+         */
+        Segment segment(long location) {
+            return segments[segmentOf(location)];
+        }
+
+        long recordCount() {
+            long total = 0;
+            for (Segment segment : segments) {
+                total += segment.count;
+            }
+            return total;
+        }
+    }
+
+    /**
+     * 单个段文件
+     */
+    private static final class Segment {
+        final Path file;
+        final int index;
+        final int dimension;
+        final int capacity;
+        final Encoding encoding;
+        final int recordBytes;
+        final MappedByteBuffer buffer;
+        volatile int count;
+
+        private Segment(Path file, int index, int dimension, int capacity, Encoding encoding,
+                        MappedByteBuffer buffer, int count) {
+            this.file = file;
+            this.index = index;
+            this.dimension = dimension;
+            this.capacity = capacity;
+            this.encoding = encoding;
+            this.recordBytes = recordBytes(dimension, encoding);
+            this.buffer = buffer;
+            this.count = count;
+        }
+
+        static Segment create(Path file, int index, int dimension, int capacity, Encoding encoding) throws IOException {
+            long size = HEADER_BYTES + (long) capacity * recordBytes(dimension, encoding);
+            if (size > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("段文件过大，请减小段容量");
+            }
+            MappedByteBuffer buffer = map(file, size);
+            buffer.putInt(0, MAGIC);
+            buffer.putInt(4, VERSION);
+            buffer.putInt(8, dimension);
+            buffer.putInt(12, capacity);
+            buffer.putInt(COUNT_OFFSET, 0);
+            buffer.putInt(ENCODING_OFFSET, encoding.ordinal());
+            return new Segment(file, index, dimension, capacity, encoding, buffer, 0);
+        }
+
+        static Segment open(Path file, int index) throws IOException {
+            MappedByteBuffer buffer = map(file, Files.size(file));
+            if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+                throw new IOException("无法识别的段文件: " + file);
+            }
+            int dimension = buffer.getInt(8);
+            int capacity = buffer.getInt(12);
+            int count = Math.min(buffer.getInt(COUNT_OFFSET), capacity);
+            int encodingId = buffer.getInt(ENCODING_OFFSET);
+            if (encodingId < 0 || encodingId >= Encoding.values().length) {
+                throw new IOException("无法识别的向量编码: " + file);
+            }
+            return new Segment(file, index, dimension, capacity, Encoding.values()[encodingId], buffer, count);
+        }
+
+        static int recordBytes(int dimension, Encoding encoding) {
+            return encoding == Encoding.INT8
+                ? 16 + INT8_HEADER_BYTES + dimension
+                : 16 + dimension * 4;
+        }
+
+        int recordPosition(int record) {
+            return HEADER_BYTES + record * recordBytes;
+        }
+
+        /**
+         * 在 dataPosition 处写入向量数据
+         */
+        void write(int dataPosition, float[] vector) {
+            if (encoding == Encoding.INT8) {
+                QuantizedVector quantized = QuantizedVector.quantize(vector);
+                buffer.putFloat(dataPosition, quantized.offset());
+                buffer.putFloat(dataPosition + 4, quantized.scale());
+                buffer.putInt(dataPosition + 8, quantized.codeSum());
+                buffer.putFloat(dataPosition + 12, quantized.squaredNorm());
+                buffer.put(dataPosition + INT8_HEADER_BYTES, quantized.codes());
+                return;
+            }
+            for (int i = 0; i < vector.length; i++) {
+                buffer.putFloat(dataPosition + i * 4, vector[i]);
+            }
+        }
+
+        /**
+         * 读取向量：float32 段返回映射区视图，int8 段解码后返回堆内缓冲
+         */
+        FloatBuffer vector(int record, int dim) {
+            int dataPosition = recordPosition(record) + 16;
+            if (encoding == Encoding.INT8) {
+                float base = base(dataPosition);
+                float scale = buffer.getFloat(dataPosition + 4);
+                int codes = dataPosition + INT8_HEADER_BYTES;
+                float[] data = new float[dim];
+                for (int i = 0; i < dim; i++) {
+                    data[i] = base + scale * buffer.get(codes + i);
+                }
+                return FloatBuffer.wrap(data);
+            }
+            return buffer.slice(dataPosition, dim * 4)
+                .order(ByteOrder.LITTLE_ENDIAN)
+                .asFloatBuffer();
+        }
+
+        /**
+         * 查询向量与记录的点积
+         *
+         * @param querySum 查询向量各维度之和，int8 段展开点积时使用
+         */
+        float dot(int record, float[] query, float querySum) {
+            int dataPosition = recordPosition(record) + 16;
+            if (encoding == Encoding.INT8) {
+                float scale = buffer.getFloat(dataPosition + 4);
+                return base(dataPosition) * querySum
+                    + scale * SimilarityKernels.dotInt8(query, buffer, dataPosition + INT8_HEADER_BYTES);
+            }
+            return SimilarityKernels.dot(query, buffer, dataPosition);
+        }
+
+        float squaredNorm(int record) {
+            int dataPosition = recordPosition(record) + 16;
+            if (encoding == Encoding.INT8) {
+                return buffer.getFloat(dataPosition + 12);
+            }
+            return SimilarityKernels.squaredNorm(buffer, dataPosition, dimension);
+        }
+
+        /**
+         * int8 记录中编码 0 对应的值
+         */
+        private float base(int dataPosition) {
+            return buffer.getFloat(dataPosition) + QuantizedVector.ZERO_POINT * buffer.getFloat(dataPosition + 4);
+        }
+
+        private static MappedByteBuffer map(Path file, long size) throws IOException {
+            try (RandomAccessFile raf = new RandomAccessFile(file.toFile(), "rw");
+                 FileChannel channel = raf.getChannel()) {
+                MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+                buffer.order(ByteOrder.LITTLE_ENDIAN);
+                return buffer;
+            }
+        }
+    }
+}
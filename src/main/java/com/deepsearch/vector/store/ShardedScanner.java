@@ -0,0 +1,114 @@
+package com.deepsearch.vector.store;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+
+/**
+ * 分片扫描执行器：把 [0, total) 切成连续区间，第 i 个分片固定交给第 i 个专用工作线程，
+ * 同一区间的数据总由同一线程扫描，不与公共 ForkJoinPool 中的其他并行流争用。
+ * 单次查询使用的分片数（查询内并行度）与同时执行的查询数（查询间并发上限）分别配置。
+ */
+public final class ShardedScanner implements Closeable {
+
+    private final ExecutorService[] workers;
+    private final int parallelism;
+    private final Semaphore concurrentQueries;
+
+    /**
+     * @param workers 工作线程数，小于1时取CPU核数
+     * @param parallelism 单次查询最多使用的分片数，小于1或超过工作线程数时取工作线程数
+     * @param maxConcurrentQueries 同时执行分片扫描的查询数上限，超出的查询排队等待
+     */
+    public ShardedScanner(int workers, int parallelism, int maxConcurrentQueries) {
+        int workerCount = workers > 0 ? workers : Runtime.getRuntime().availableProcessors();
+        this.workers = new ExecutorService[workerCount];
+        for (int i = 0; i < workerCount; i++) {
+            String name = "vector-scan-" + i;
+            this.workers[i] = Executors.newSingleThreadExecutor(r -> {
+                Thread thread = new Thread(r, name);
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        this.parallelism = parallelism > 0 ? Math.min(parallelism, workerCount) : workerCount;
+        this.concurrentQueries = new Semaphore(Math.max(1, maxConcurrentQueries), true);
+    }
+
+    /**
+     * 分片执行区间任务，按分片顺序返回各分片的结果
+     *
+     * @param total 待扫描的记录总数
+     * @param minShardSize 每个分片至少包含的记录数，数据量小时减少分片，只有一个分片时在调用线程执行
+     */
+    public <T> List<T> execute(long total, long minShardSize, RangeTask<T> task) {
+        int shards = shardCount(total, minShardSize);
+        if (shards <= 1) {
+            List<T> results = new ArrayList<>(1);
+            results.add(task.run(0, 0, Math.max(0, total)));
+            return results;
+        }
+
+        try {
+            concurrentQueries.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("等待分片扫描被中断", e);
+        }
+        try {
+            long shardSize = (total + shards - 1) / shards;
+            List<CompletableFuture<T>> futures = new ArrayList<>(shards);
+            for (int shard = 0; shard < shards; shard++) {
+                int index = shard;
+                long from = shard * shardSize;
+                long to = Math.min(total, from + shardSize);
+                futures.add(CompletableFuture.supplyAsync(() -> task.run(index, from, to), workers[shard]));
+            }
+            List<T> results = new ArrayList<>(shards);
+            for (CompletableFuture<T> future : futures) {
+                results.add(future.join());
+            }
+            return results;
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException runtime ? runtime : e;
+        } finally {
+            concurrentQueries.release();
+        }
+    }
+
+    /**
+     * 给定数据量时实际使用的分片数
+     */
+    public int shardCount(long total, long minShardSize) {
+        long bySize = total / Math.max(1, minShardSize);
+        return (int) Math.max(1, Math.min(parallelism, bySize));
+    }
+
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    public int getWorkerCount() {
+        return workers.length;
+    }
+
+    @Override
+    public void close() {
+        for (ExecutorService worker : workers) {
+            worker.shutdownNow();
+        }
+    }
+
+    /**
+     * 区间任务，扫描 [from, to)
+     */
+    @FunctionalInterface
+    public interface RangeTask<T> {
+        T run(int shard, long from, long to);
+    }
+}
@@ -0,0 +1,49 @@
+package com.deepsearch.vector.util;
+
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * float[] 与小端 float32 字节串互转，对应 vector_blob 列
+ * 1536 维只占 6 KB，读取时按字节直接还原为 float[]，不经过 JSON 文本和 List&lt;Double&gt;
+ */
+@Converter
+public class Float32VectorConverter implements AttributeConverter<float[], byte[]> {
+
+    @Override
+    public byte[] convertToDatabaseColumn(float[] attribute) {
+        return encode(attribute);
+    }
+
+    @Override
+    public float[] convertToEntityAttribute(byte[] dbData) {
+        return decode(dbData);
+    }
+
+    /**
+     * 编码为小端 float32 字节串
+     */
+    public static byte[] encode(float[] vector) {
+        if (vector == null) {
+            return null;
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(vector.length * Float.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.asFloatBuffer().put(vector);
+        return buffer.array();
+    }
+
+    /**
+     * 解码小端 float32 字节串，长度不是 4 的倍数时返回 null
+     */
+    public static float[] decode(byte[] bytes) {
+        if (bytes == null || bytes.length % Float.BYTES != 0) {
+            return null;
+        }
+        float[] vector = new float[bytes.length / Float.BYTES];
+        ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN).asFloatBuffer().get(vector);
+        return vector;
+    }
+}
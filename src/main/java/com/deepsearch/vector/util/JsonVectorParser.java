@@ -0,0 +1,178 @@
+package com.deepsearch.vector.util;
+
+import java.util.Arrays;
+
+/**
+ * 把 JSON 数值数组（如 "[0.12,-3.5e-2]"）直接解析为 float[]
+ * 不经过 List&lt;Double&gt; 和装箱；常见的十进制写法在原字符串上就地解析，
+ * 有效数字过长时才退回 Double.parseDouble。
+ */
+public final class JsonVectorParser {
+
+    private static final double[] POWERS_OF_TEN = new double[23];
+
+    static {
+        POWERS_OF_TEN[0] = 1.0;
+        for (int i = 1; i < POWERS_OF_TEN.length; i++) {
+            POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10.0;
+        }
+    }
+
+    private JsonVectorParser() {
+    }
+
+    /**
+     * 解析 JSON 数组，格式错误或包含 null 元素时返回 null
+     */
+    public static float[] parse(CharSequence json) {
+        if (json == null) {
+            return null;
+        }
+        int length = json.length();
+        int position = skipWhitespace(json, 0);
+        if (position >= length || json.charAt(position) != '[') {
+            return null;
+        }
+
+        float[] values = new float[Math.max(16, length / 8)];
+        int count = 0;
+        position = skipWhitespace(json, position + 1);
+        if (position < length && json.charAt(position) == ']') {
+            return new float[0];
+        }
+
+        while (position < length) {
+            int end = position;
+            while (end < length && isNumberChar(json.charAt(end))) {
+                end++;
+            }
+            if (end == position) {
+                return null;
+            }
+            float value = parseNumber(json, position, end);
+            if (Float.isNaN(value)) {
+                return null;
+            }
+            if (count == values.length) {
+                values = Arrays.copyOf(values, count + (count >> 1));
+            }
+            values[count++] = value;
+
+            position = skipWhitespace(json, end);
+            if (position >= length) {
+                return null;
+            }
+            char separator = json.charAt(position);
+            if (separator == ']') {
+                return count == values.length ? values : Arrays.copyOf(values, count);
+            }
+            if (separator != ',') {
+                return null;
+            }
+            position = skipWhitespace(json, position + 1);
+        }
+        return null;
+    }
+
+    // ==================== 私有方法 ====================
+
+    /**
+     * 解析 [start, end) 区间内的数字，格式错误时返回 NaN
+     */
+    private static float parseNumber(CharSequence json, int start, int end) {
+        int i = start;
+        boolean negative = false;
+        if (json.charAt(i) == '-' || json.charAt(i) == '+') {
+            negative = json.charAt(i) == '-';
+            i++;
+        }
+
+        long mantissa = 0;
+        int digits = 0;
+        int scale = 0;
+        boolean seenDigit = false;
+        boolean seenPoint = false;
+        for (; i < end; i++) {
+            char c = json.charAt(i);
+            if (c >= '0' && c <= '9') {
+                seenDigit = true;
+                if (mantissa == 0 && c == '0') {
+                    // 前导零不计入有效数字
+                    if (seenPoint) {
+                        scale--;
+                    }
+                    continue;
+                }
+                if (digits >= 18) {
+                    return slowParse(json, start, end);
+                }
+                mantissa = mantissa * 10 + (c - '0');
+                digits++;
+                if (seenPoint) {
+                    scale--;
+                }
+            } else if (c == '.' && !seenPoint) {
+                seenPoint = true;
+            } else if (c == 'e' || c == 'E') {
+                break;
+            } else {
+                return Float.NaN;
+            }
+        }
+        if (!seenDigit) {
+            return Float.NaN;
+        }
+
+        if (i < end) {
+            i++;
+            boolean negativeExponent = false;
+            if (i < end && (json.charAt(i) == '-' || json.charAt(i) == '+')) {
+                negativeExponent = json.charAt(i) == '-';
+                i++;
+            }
+            if (i >= end) {
+                return Float.NaN;
+            }
+            int exponent = 0;
+            for (; i < end; i++) {
+                char c = json.charAt(i);
+                if (c < '0' || c > '9') {
+                    return Float.NaN;
+                }
+                exponent = Math.min(exponent * 10 + (c - '0'), 1000);
+            }
+            scale += negativeExponent ? -exponent : exponent;
+        }
+
+        double value;
+        if (mantissa == 0) {
+            value = 0.0;
+        } else if (scale >= 0 && scale < POWERS_OF_TEN.length) {
+            value = mantissa * POWERS_OF_TEN[scale];
+        } else if (scale < 0 && -scale < POWERS_OF_TEN.length) {
+            value = mantissa / POWERS_OF_TEN[-scale];
+        } else {
+            return slowParse(json, start, end);
+        }
+        return (float) (negative ? -value : value);
+    }
+
+    private static float slowParse(CharSequence json, int start, int end) {
+        try {
+            return (float) Double.parseDouble(json.subSequence(start, end).toString());
+        } catch (NumberFormatException e) {
+            return Float.NaN;
+        }
+    }
+
+    private static boolean isNumberChar(char c) {
+        return (c >= '0' && c <= '9') || c == '-' || c == '+' || c == '.' || c == 'e' || c == 'E';
+    }
+
+    private static int skipWhitespace(CharSequence json, int position) {
+        while (position < json.length() && Character.isWhitespace(json.charAt(position))) {
+            position++;
+        }
+        return position;
+    }
+}
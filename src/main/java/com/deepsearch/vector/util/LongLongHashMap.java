@@ -0,0 +1,156 @@
+package com.deepsearch.vector.util;
+
+import java.util.Arrays;
+
+/**
+ * long -> long 开放寻址哈希表（线性探测），避免装箱，
+ * 供向量ID到文件偏移、文档ID到聚合槽位这类热点路径上的映射使用
+ * 非线程安全，由调用方加锁；get 可以不加锁与单个写线程并发执行（乐观读），
+ * 此时不会抛出异常或死循环，但结果可能不一致，需由调用方校验后决定是否加锁重读
+ */
+public final class LongLongHashMap {
+
+    private static final long EMPTY_KEY = Long.MIN_VALUE;
+    private static final float LOAD_FACTOR = 0.6f;
+
+    private long[] keys;
+    private long[] values;
+    private int size;
+    private int mask;
+    private int resizeThreshold;
+
+    public LongLongHashMap(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(16, (int) (expectedSize / LOAD_FACTOR)) - 1) << 1;
+        allocate(capacity);
+    }
+
+    /**
+     * @return 旧值，不存在时返回 missingValue
+     */
+    public long put(long key, long value, long missingValue) {
+        checkKey(key);
+        int slot = slot(key);
+        while (keys[slot] != EMPTY_KEY) {
+            if (keys[slot] == key) {
+                long previous = values[slot];
+                values[slot] = value;
+                return previous;
+            }
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = key;
+        values[slot] = value;
+        if (++size > resizeThreshold) {
+            rehash(keys.length << 1);
+        }
+        return missingValue;
+    }
+
+    public long get(long key, long missingValue) {
+        if (key == EMPTY_KEY) {
+            return missingValue;
+        }
+        // 只读取同一代数组：与扩容并发时两个数组可能来自不同代，直接视为未命中，由调用方校验
+        long[] currentKeys = keys;
+        long[] currentValues = values;
+        if (currentValues.length != currentKeys.length) {
+            return missingValue;
+        }
+        int currentMask = currentKeys.length - 1;
+        int slot = slot(key, currentMask);
+        for (int probes = 0; probes < currentKeys.length && currentKeys[slot] != EMPTY_KEY; probes++) {
+            if (currentKeys[slot] == key) {
+                return currentValues[slot];
+            }
+            slot = (slot + 1) & currentMask;
+        }
+        return missingValue;
+    }
+
+    /**
+     * @return 被删除的值，不存在时返回 missingValue
+     */
+    public long remove(long key, long missingValue) {
+        if (key == EMPTY_KEY) {
+            return missingValue;
+        }
+        int slot = slot(key);
+        while (keys[slot] != EMPTY_KEY) {
+            if (keys[slot] == key) {
+                long previous = values[slot];
+                shiftDown(slot);
+                size--;
+                return previous;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return missingValue;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public long memoryBytes() {
+        return keys.length * 16L;
+    }
+
+    // ==================== 私有方法 ====================
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        values = new long[capacity];
+        Arrays.fill(keys, EMPTY_KEY);
+        mask = capacity - 1;
+        resizeThreshold = (int) (capacity * LOAD_FACTOR);
+    }
+
+    private void rehash(int capacity) {
+        long[] oldKeys = keys;
+        long[] oldValues = values;
+        allocate(capacity);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY_KEY) {
+                int slot = slot(oldKeys[i]);
+                while (keys[slot] != EMPTY_KEY) {
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = oldKeys[i];
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+
+    /**
+     * 删除后回填后续探测链，保持线性探测的正确性
+     */
+    private void shiftDown(int slot) {
+        int gap = slot;
+        int next = (gap + 1) & mask;
+        while (keys[next] != EMPTY_KEY) {
+            int ideal = slot(keys[next]);
+            if (((next - ideal) & mask) >= ((next - gap) & mask)) {
+                keys[gap] = keys[next];
+                values[gap] = values[next];
+                gap = next;
+            }
+            next = (next + 1) & mask;
+        }
+        keys[gap] = EMPTY_KEY;
+    }
+
+    private int slot(long key) {
+        return slot(key, mask);
+    }
+
+    private static int slot(long key, int mask) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32)) & mask;
+    }
+
+    private static void checkKey(long key) {
+        if (key == EMPTY_KEY) {
+            throw new IllegalArgumentException("不支持的键: " + key);
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package com.deepsearch.vector.util;
+
+/**
+ * 64 位 SimHash 文本指纹：特征取相邻两个字符（字母或数字，忽略空白和标点），
+ * 中文不依赖分词也能得到稳定的特征；近似重复的文本指纹之间的海明距离很小。
+ * 指纹切成 4 个 16 位分段，海明距离不超过 3 的两个指纹至少有一个分段完全相同，
+ * 按分段建哈希表即可在线性时间内找出近似重复。
+ */
+public final class SimHash {
+
+    /**
+     * 没有任何特征的文本的指纹，不参与近似重复判断
+     */
+    public static final long EMPTY = 0L;
+
+    public static final int BANDS = 4;
+    private static final int BAND_BITS = 64 / BANDS;
+
+    private SimHash() {
+    }
+
+    /**
+     * 计算多段文本的联合指纹，各段分别取特征，特征不跨段
+     */
+    public static long fingerprint(String... texts) {
+        int[] weights = new int[64];
+        boolean any = false;
+        for (String text : texts) {
+            if (text == null) {
+                continue;
+            }
+            int previous = -1;
+            int pairs = 0;
+            for (int i = 0; i < text.length(); ) {
+                int codePoint = text.codePointAt(i);
+                i += Character.charCount(codePoint);
+                if (!Character.isLetterOrDigit(codePoint)) {
+                    continue;
+                }
+                int current = Character.toLowerCase(codePoint);
+                // 单字符文本以自身为特征，否则取相邻字符对
+                if (previous >= 0) {
+                    accumulate(weights, mix(((long) previous << 32) | current));
+                    pairs++;
+                }
+                previous = current;
+            }
+            if (previous >= 0 && pairs == 0) {
+                accumulate(weights, mix(previous));
+            }
+            any |= previous >= 0;
+        }
+        if (!any) {
+            return EMPTY;
+        }
+
+        long fingerprint = 0L;
+        for (int bit = 0; bit < 64; bit++) {
+            if (weights[bit] > 0) {
+                fingerprint |= 1L << bit;
+            }
+        }
+        return fingerprint;
+    }
+
+    public static int distance(long a, long b) {
+        return Long.bitCount(a ^ b);
+    }
+
+    /**
+     * 指纹的第 band 个分段，与分段序号合并为哈希表的键
+     */
+    public static int bandKey(long fingerprint, int band) {
+        return (band << BAND_BITS) | (int) ((fingerprint >>> (band * BAND_BITS)) & 0xFFFF);
+    }
+
+    private static void accumulate(int[] weights, long hash) {
+        for (int bit = 0; bit < 64; bit++) {
+            weights[bit] += ((hash >>> bit) & 1L) != 0 ? 1 : -1;
+        }
+    }
+
+    /**
+     * SplitMix64 的终结函数，把特征打散为均匀的 64 位哈希
+     */
+    private static long mix(long value) {
+        long z = value + 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -0,0 +1,251 @@
+package com.deepsearch.vector.util;
+
+import jdk.incubator.vector.ByteVector;
+import jdk.incubator.vector.FloatVector;
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorShape;
+import jdk.incubator.vector.VectorSpecies;
+
+import java.nio.ByteBuffer;
+
+/**
+ * 基于 JDK Vector API (jdk.incubator.vector) 的 SIMD 相似度内核
+ * 只能在启动参数包含 --add-modules jdk.incubator.vector 时加载，由 SimilarityKernels 在运行时按需分派。
+ * 每次循环处理 SPECIES_PREFERRED 个通道（AVX2 为 8，AVX-512 为 16），尾部用标量补齐。
+ */
+final class SimdKernels {
+
+    private static final VectorSpecies<Float> SPECIES = FloatVector.SPECIES_PREFERRED;
+    // int8 编码一次至少加载 64 位：128 位平台上 float 只有 4 个通道，不存在对应的 32 位形状，
+    // 加载的字节数多于 float 通道数时分 BYTE_PARTS 段扩展为 float / int
+    private static final VectorSpecies<Byte> BYTE_SPECIES =
+        VectorSpecies.of(byte.class, VectorShape.forBitSize(Math.max(64, SPECIES.length() * Byte.SIZE)));
+    private static final VectorSpecies<Integer> INT_SPECIES = VectorSpecies.of(int.class, SPECIES.vectorShape());
+    private static final int BYTE_PARTS = BYTE_SPECIES.length() / SPECIES.length();
+
+    private SimdKernels() {
+    }
+
+    static int lanes() {
+        return SPECIES.length();
+    }
+
+    static float dot(float[] a, int aOffset, float[] b, int bOffset, int length) {
+        FloatVector acc = FloatVector.zero(SPECIES);
+        int i = 0;
+        int bound = SPECIES.loopBound(length);
+        for (; i < bound; i += SPECIES.length()) {
+            FloatVector va = FloatVector.fromArray(SPECIES, a, aOffset + i);
+            FloatVector vb = FloatVector.fromArray(SPECIES, b, bOffset + i);
+            acc = acc.add(va.mul(vb));
+        }
+        float sum = acc.reduceLanes(VectorOperators.ADD);
+        for (; i < length; i++) {
+            sum += a[aOffset + i] * b[bOffset + i];
+        }
+        return sum;
+    }
+
+    static float squaredEuclidean(float[] a, float[] b) {
+        FloatVector acc = FloatVector.zero(SPECIES);
+        int i = 0;
+        int bound = SPECIES.loopBound(a.length);
+        for (; i < bound; i += SPECIES.length()) {
+            FloatVector diff = FloatVector.fromArray(SPECIES, a, i).sub(FloatVector.fromArray(SPECIES, b, i));
+            acc = diff.fma(diff, acc);
+        }
+        float sum = acc.reduceLanes(VectorOperators.ADD);
+        for (; i < a.length; i++) {
+            float d = a[i] - b[i];
+            sum += d * d;
+        }
+        return sum;
+    }
+
+    static double cosine(float[] a, float[] b) {
+        FloatVector dotAcc = FloatVector.zero(SPECIES);
+        FloatVector normAAcc = FloatVector.zero(SPECIES);
+        FloatVector normBAcc = FloatVector.zero(SPECIES);
+        int i = 0;
+        int bound = SPECIES.loopBound(a.length);
+        for (; i < bound; i += SPECIES.length()) {
+            FloatVector va = FloatVector.fromArray(SPECIES, a, i);
+            FloatVector vb = FloatVector.fromArray(SPECIES, b, i);
+            dotAcc = va.fma(vb, dotAcc);
+            normAAcc = va.fma(va, normAAcc);
+            normBAcc = vb.fma(vb, normBAcc);
+        }
+        float dot = dotAcc.reduceLanes(VectorOperators.ADD);
+        float normA = normAAcc.reduceLanes(VectorOperators.ADD);
+        float normB = normBAcc.reduceLanes(VectorOperators.ADD);
+        for (; i < a.length; i++) {
+            dot += a[i] * b[i];
+            normA += a[i] * a[i];
+            normB += b[i] * b[i];
+        }
+        double magnitude = Math.sqrt(normA) * Math.sqrt(normB);
+        return magnitude == 0 ? 0.0 : dot / magnitude;
+    }
+
+    /**
+     * 查询向量与 ByteBuffer 中从 byteOffset 开始的 float32 向量的点积
+     */
+    static float dot(float[] a, ByteBuffer b, int byteOffset) {
+        FloatVector acc = FloatVector.zero(SPECIES);
+        int i = 0;
+        int bound = SPECIES.loopBound(a.length);
+        for (; i < bound; i += SPECIES.length()) {
+            FloatVector va = FloatVector.fromArray(SPECIES, a, i);
+            FloatVector vb = FloatVector.fromByteBuffer(SPECIES, b, byteOffset + i * 4, b.order());
+            acc = acc.add(va.mul(vb));
+        }
+        float sum = acc.reduceLanes(VectorOperators.ADD);
+        for (; i < a.length; i++) {
+            sum += a[i] * b.getFloat(byteOffset + i * 4);
+        }
+        return sum;
+    }
+
+    /**
+     * 一个查询对多行：按 stride 字节步长依次读取 rowCount 行，每两行共享一次查询向量加载。
+     * normsOut 不为 null 时同时写出每行的平方范数。
+     */
+    static void dotRows(float[] query, ByteBuffer rows, int byteOffset, int strideBytes, int rowCount,
+                        float[] dotsOut, float[] normsOut) {
+        int dimension = query.length;
+        int bound = SPECIES.loopBound(dimension);
+        int step = SPECIES.length();
+        boolean withNorms = normsOut != null;
+        int row = 0;
+        for (; row + 1 < rowCount; row += 2) {
+            int first = byteOffset + row * strideBytes;
+            int second = first + strideBytes;
+            FloatVector dot0 = FloatVector.zero(SPECIES);
+            FloatVector dot1 = FloatVector.zero(SPECIES);
+            FloatVector norm0 = FloatVector.zero(SPECIES);
+            FloatVector norm1 = FloatVector.zero(SPECIES);
+            int i = 0;
+            for (; i < bound; i += step) {
+                FloatVector q = FloatVector.fromArray(SPECIES, query, i);
+                FloatVector r0 = FloatVector.fromByteBuffer(SPECIES, rows, first + i * 4, rows.order());
+                FloatVector r1 = FloatVector.fromByteBuffer(SPECIES, rows, second + i * 4, rows.order());
+                dot0 = q.fma(r0, dot0);
+                dot1 = q.fma(r1, dot1);
+                if (withNorms) {
+                    norm0 = r0.fma(r0, norm0);
+                    norm1 = r1.fma(r1, norm1);
+                }
+            }
+            float d0 = dot0.reduceLanes(VectorOperators.ADD);
+            float d1 = dot1.reduceLanes(VectorOperators.ADD);
+            float n0 = withNorms ? norm0.reduceLanes(VectorOperators.ADD) : 0f;
+            float n1 = withNorms ? norm1.reduceLanes(VectorOperators.ADD) : 0f;
+            for (; i < dimension; i++) {
+                float v0 = rows.getFloat(first + i * 4);
+                float v1 = rows.getFloat(second + i * 4);
+                d0 += query[i] * v0;
+                d1 += query[i] * v1;
+                n0 += v0 * v0;
+                n1 += v1 * v1;
+            }
+            dotsOut[row] = d0;
+            dotsOut[row + 1] = d1;
+            if (withNorms) {
+                normsOut[row] = n0;
+                normsOut[row + 1] = n1;
+            }
+        }
+        if (row < rowCount) {
+            int offset = byteOffset + row * strideBytes;
+            dotsOut[row] = dot(query, rows, offset);
+            if (withNorms) {
+                normsOut[row] = squaredNorm(rows, offset, dimension);
+            }
+        }
+    }
+
+    static float squaredNorm(ByteBuffer b, int byteOffset, int length) {
+        FloatVector acc = FloatVector.zero(SPECIES);
+        int i = 0;
+        int bound = SPECIES.loopBound(length);
+        for (; i < bound; i += SPECIES.length()) {
+            FloatVector v = FloatVector.fromByteBuffer(SPECIES, b, byteOffset + i * 4, b.order());
+            acc = v.fma(v, acc);
+        }
+        float sum = acc.reduceLanes(VectorOperators.ADD);
+        for (; i < length; i++) {
+            float v = b.getFloat(byteOffset + i * 4);
+            sum += v * v;
+        }
+        return sum;
+    }
+
+    /**
+     * float32 查询与 int8 编码的点积
+     */
+    static float dotInt8(float[] query, byte[] codes, int offset) {
+        FloatVector acc = FloatVector.zero(SPECIES);
+        int i = 0;
+        int bound = BYTE_SPECIES.loopBound(query.length);
+        for (; i < bound; i += BYTE_SPECIES.length()) {
+            ByteVector c = ByteVector.fromArray(BYTE_SPECIES, codes, offset + i);
+            acc = fmaInt8(query, i, c, acc);
+        }
+        float sum = acc.reduceLanes(VectorOperators.ADD);
+        for (; i < query.length; i++) {
+            sum += query[i] * codes[offset + i];
+        }
+        return sum;
+    }
+
+    static float dotInt8(float[] query, ByteBuffer codes, int byteOffset) {
+        FloatVector acc = FloatVector.zero(SPECIES);
+        int i = 0;
+        int bound = BYTE_SPECIES.loopBound(query.length);
+        for (; i < bound; i += BYTE_SPECIES.length()) {
+            ByteVector c = ByteVector.fromByteBuffer(BYTE_SPECIES, codes, byteOffset + i, codes.order());
+            acc = fmaInt8(query, i, c, acc);
+        }
+        float sum = acc.reduceLanes(VectorOperators.ADD);
+        for (; i < query.length; i++) {
+            sum += query[i] * codes.get(byteOffset + i);
+        }
+        return sum;
+    }
+
+    /**
+     * 两个 int8 编码的整数点积，按 int 通道累加
+     */
+    static int dotInt8(byte[] a, int aOffset, byte[] b, int bOffset, int length) {
+        IntVector acc = IntVector.zero(INT_SPECIES);
+        int i = 0;
+        int bound = BYTE_SPECIES.loopBound(length);
+        for (; i < bound; i += BYTE_SPECIES.length()) {
+            ByteVector ba = ByteVector.fromArray(BYTE_SPECIES, a, aOffset + i);
+            ByteVector bb = ByteVector.fromArray(BYTE_SPECIES, b, bOffset + i);
+            for (int part = 0; part < BYTE_PARTS; part++) {
+                IntVector va = (IntVector) ba.convertShape(VectorOperators.B2I, INT_SPECIES, part);
+                IntVector vb = (IntVector) bb.convertShape(VectorOperators.B2I, INT_SPECIES, part);
+                acc = acc.add(va.mul(vb));
+            }
+        }
+        int sum = acc.reduceLanes(VectorOperators.ADD);
+        for (; i < length; i++) {
+            sum += a[aOffset + i] * b[bOffset + i];
+        }
+        return sum;
+    }
+
+    /**
+     * 把一次加载的 int8 编码分段扩展为 float，与 query 从 index 开始的对应通道相乘累加
+     */
+    private static FloatVector fmaInt8(float[] query, int index, ByteVector codes, FloatVector acc) {
+        for (int part = 0; part < BYTE_PARTS; part++) {
+            FloatVector q = FloatVector.fromArray(SPECIES, query, index + part * SPECIES.length());
+            FloatVector c = (FloatVector) codes.convertShape(VectorOperators.B2F, SPECIES, part);
+            acc = q.fma(c, acc);
+        }
+        return acc;
+    }
+}
@@ -0,0 +1,360 @@
+package com.deepsearch.vector.util;
+
+import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
+import java.util.List;
+
+/**
+ * 基于 float[] / FloatBuffer 的相似度计算内核
+ * 所有内循环不分配对象、不装箱；FloatBuffer 按绝对下标读取，不改变其 position。
+ * 启动参数包含 --add-modules jdk.incubator.vector 时自动切换到 SIMD 实现，
+ * 可用系统属性 -Dvector.simd.enabled=false 强制使用标量实现。
+ */
+public final class SimilarityKernels {
+
+    // 维度过小时 SIMD 的收尾开销大于收益
+    private static final int SIMD_MIN_LENGTH = 16;
+    private static final boolean SIMD = detectSimd();
+
+    private SimilarityKernels() {
+    }
+
+    /**
+     * 当前是否使用 SIMD 实现
+     */
+    public static boolean isSimdEnabled() {
+        return SIMD;
+    }
+
+    // ==================== 点积 ====================
+
+    public static float dot(float[] a, float[] b) {
+        return dot(a, 0, b, 0, a.length);
+    }
+
+    public static float dot(float[] a, int aOffset, float[] b, int bOffset, int length) {
+        if (SIMD && length >= SIMD_MIN_LENGTH) {
+            return SimdKernels.dot(a, aOffset, b, bOffset, length);
+        }
+        float s0 = 0f, s1 = 0f, s2 = 0f, s3 = 0f;
+        int i = 0;
+        int bound = length & ~3;
+        for (; i < bound; i += 4) {
+            s0 += a[aOffset + i] * b[bOffset + i];
+            s1 += a[aOffset + i + 1] * b[bOffset + i + 1];
+            s2 += a[aOffset + i + 2] * b[bOffset + i + 2];
+            s3 += a[aOffset + i + 3] * b[bOffset + i + 3];
+        }
+        for (; i < length; i++) {
+            s0 += a[aOffset + i] * b[bOffset + i];
+        }
+        return s0 + s1 + s2 + s3;
+    }
+
+    public static float dot(float[] a, FloatBuffer b) {
+        if (b.hasArray()) {
+            return dot(a, 0, b.array(), b.arrayOffset() + b.position(), a.length);
+        }
+        int base = b.position();
+        float sum = 0f;
+        for (int i = 0; i < a.length; i++) {
+            sum += a[i] * b.get(base + i);
+        }
+        return sum;
+    }
+
+    // ==================== 范数与距离 ====================
+
+    public static float squaredNorm(float[] a) {
+        return dot(a, a);
+    }
+
+    public static float squaredNorm(FloatBuffer a) {
+        int base = a.position();
+        int length = a.remaining();
+        float sum = 0f;
+        for (int i = 0; i < length; i++) {
+            float v = a.get(base + i);
+            sum += v * v;
+        }
+        return sum;
+    }
+
+    public static float squaredEuclidean(float[] a, float[] b) {
+        if (SIMD && a.length >= SIMD_MIN_LENGTH) {
+            return SimdKernels.squaredEuclidean(a, b);
+        }
+        float s0 = 0f, s1 = 0f;
+        int i = 0;
+        int bound = a.length & ~1;
+        for (; i < bound; i += 2) {
+            float d0 = a[i] - b[i];
+            float d1 = a[i + 1] - b[i + 1];
+            s0 += d0 * d0;
+            s1 += d1 * d1;
+        }
+        for (; i < a.length; i++) {
+            float d = a[i] - b[i];
+            s0 += d * d;
+        }
+        return s0 + s1;
+    }
+
+    public static float squaredEuclidean(float[] a, FloatBuffer b) {
+        int base = b.position();
+        float sum = 0f;
+        for (int i = 0; i < a.length; i++) {
+            float d = a[i] - b.get(base + i);
+            sum += d * d;
+        }
+        return sum;
+    }
+
+    public static float manhattan(float[] a, float[] b) {
+        float sum = 0f;
+        for (int i = 0; i < a.length; i++) {
+            sum += Math.abs(a[i] - b[i]);
+        }
+        return sum;
+    }
+
+    public static float manhattan(float[] a, FloatBuffer b) {
+        int base = b.position();
+        float sum = 0f;
+        for (int i = 0; i < a.length; i++) {
+            sum += Math.abs(a[i] - b.get(base + i));
+        }
+        return sum;
+    }
+
+    // ==================== ByteBuffer 行存储 ====================
+
+    /**
+     * 查询向量与 ByteBuffer 中从 byteOffset 开始的 float32 向量的点积，按缓冲区字节序读取
+     */
+    public static float dot(float[] a, ByteBuffer b, int byteOffset) {
+        if (SIMD && a.length >= SIMD_MIN_LENGTH) {
+            return SimdKernels.dot(a, b, byteOffset);
+        }
+        float sum = 0f;
+        for (int i = 0; i < a.length; i++) {
+            sum += a[i] * b.getFloat(byteOffset + i * 4);
+        }
+        return sum;
+    }
+
+    public static float squaredNorm(ByteBuffer b, int byteOffset, int length) {
+        if (SIMD && length >= SIMD_MIN_LENGTH) {
+            return SimdKernels.squaredNorm(b, byteOffset, length);
+        }
+        float sum = 0f;
+        for (int i = 0; i < length; i++) {
+            float v = b.getFloat(byteOffset + i * 4);
+            sum += v * v;
+        }
+        return sum;
+    }
+
+    /**
+     * 批量内核：一个查询向量对 rowCount 行按 strideBytes 等距存放的 float32 向量，
+     * 第 i 行从 byteOffset + i * strideBytes 开始。用于暴力扫描和精确重排。
+     *
+     * @param dotsOut 每行与查询的点积
+     * @param normsOut 每行的平方范数，传 null 时不计算
+     */
+    public static void dotRows(float[] query, ByteBuffer rows, int byteOffset, int strideBytes, int rowCount,
+                               float[] dotsOut, float[] normsOut) {
+        if (SIMD && query.length >= SIMD_MIN_LENGTH) {
+            SimdKernels.dotRows(query, rows, byteOffset, strideBytes, rowCount, dotsOut, normsOut);
+            return;
+        }
+        for (int row = 0; row < rowCount; row++) {
+            int offset = byteOffset + row * strideBytes;
+            float dot = 0f;
+            float norm = 0f;
+            for (int i = 0; i < query.length; i++) {
+                float v = rows.getFloat(offset + i * 4);
+                dot += query[i] * v;
+                norm += v * v;
+            }
+            dotsOut[row] = dot;
+            if (normsOut != null) {
+                normsOut[row] = norm;
+            }
+        }
+    }
+
+    // ==================== int8 编码 ====================
+
+    /**
+     * float32 查询与 int8 编码的点积：Σ query[i] * codes[offset + i]
+     */
+    public static float dotInt8(float[] query, byte[] codes, int offset) {
+        if (SIMD && query.length >= SIMD_MIN_LENGTH) {
+            return SimdKernels.dotInt8(query, codes, offset);
+        }
+        float s0 = 0f, s1 = 0f, s2 = 0f, s3 = 0f;
+        int i = 0;
+        int bound = query.length & ~3;
+        for (; i < bound; i += 4) {
+            s0 += query[i] * codes[offset + i];
+            s1 += query[i + 1] * codes[offset + i + 1];
+            s2 += query[i + 2] * codes[offset + i + 2];
+            s3 += query[i + 3] * codes[offset + i + 3];
+        }
+        for (; i < query.length; i++) {
+            s0 += query[i] * codes[offset + i];
+        }
+        return s0 + s1 + s2 + s3;
+    }
+
+    /**
+     * float32 查询与 ByteBuffer 中从 byteOffset 开始的 int8 编码的点积
+     */
+    public static float dotInt8(float[] query, ByteBuffer codes, int byteOffset) {
+        if (SIMD && query.length >= SIMD_MIN_LENGTH) {
+            return SimdKernels.dotInt8(query, codes, byteOffset);
+        }
+        float sum = 0f;
+        for (int i = 0; i < query.length; i++) {
+            sum += query[i] * codes.get(byteOffset + i);
+        }
+        return sum;
+    }
+
+    /**
+     * 两个 int8 编码的整数点积
+     */
+    public static int dotInt8(byte[] a, int aOffset, byte[] b, int bOffset, int length) {
+        if (SIMD && length >= SIMD_MIN_LENGTH) {
+            return SimdKernels.dotInt8(a, aOffset, b, bOffset, length);
+        }
+        int sum = 0;
+        for (int i = 0; i < length; i++) {
+            sum += a[aOffset + i] * b[bOffset + i];
+        }
+        return sum;
+    }
+
+    // ==================== 相似度 ====================
+
+    /**
+     * 余弦相似度，任一向量为零向量时返回 0
+     */
+    public static double cosine(float[] a, float[] b) {
+        if (SIMD && a.length >= SIMD_MIN_LENGTH) {
+            return SimdKernels.cosine(a, b);
+        }
+        float dot = 0f, normA = 0f, normB = 0f;
+        for (int i = 0; i < a.length; i++) {
+            dot += a[i] * b[i];
+            normA += a[i] * a[i];
+            normB += b[i] * b[i];
+        }
+        return cosine(dot, normA, normB);
+    }
+
+    public static double cosine(float[] a, FloatBuffer b) {
+        int base = b.position();
+        float dot = 0f, normA = 0f, normB = 0f;
+        for (int i = 0; i < a.length; i++) {
+            float bi = b.get(base + i);
+            dot += a[i] * bi;
+            normA += a[i] * a[i];
+            normB += bi * bi;
+        }
+        return cosine(dot, normA, normB);
+    }
+
+    /**
+     * Jaccard 相似度：非零维度集合的交集 / 并集
+     */
+    public static double jaccard(float[] a, float[] b) {
+        int intersection = 0;
+        int union = 0;
+        for (int i = 0; i < a.length; i++) {
+            boolean nonZeroA = a[i] != 0f;
+            boolean nonZeroB = b[i] != 0f;
+            if (nonZeroA || nonZeroB) {
+                union++;
+                if (nonZeroA && nonZeroB) {
+                    intersection++;
+                }
+            }
+        }
+        return union == 0 ? 0.0 : (double) intersection / union;
+    }
+
+    public static double jaccard(float[] a, FloatBuffer b) {
+        int base = b.position();
+        int intersection = 0;
+        int union = 0;
+        for (int i = 0; i < a.length; i++) {
+            boolean nonZeroA = a[i] != 0f;
+            boolean nonZeroB = b.get(base + i) != 0f;
+            if (nonZeroA || nonZeroB) {
+                union++;
+                if (nonZeroA && nonZeroB) {
+                    intersection++;
+                }
+            }
+        }
+        return union == 0 ? 0.0 : (double) intersection / union;
+    }
+
+    // ==================== 辅助方法 ====================
+
+    /**
+     * 原地归一化为单位向量，零向量保持不变
+     */
+    public static void normalize(float[] a) {
+        float norm = (float) Math.sqrt(squaredNorm(a));
+        if (norm > 0f) {
+            float inverse = 1f / norm;
+            for (int i = 0; i < a.length; i++) {
+                a[i] *= inverse;
+            }
+        }
+    }
+
+    /**
+     * 将装箱列表一次性转换为 float[]，包含 null 元素时返回 null
+     */
+    public static float[] toFloatArray(List<? extends Number> values) {
+        if (values == null) {
+            return null;
+        }
+        float[] result = new float[values.size()];
+        for (int i = 0; i < result.length; i++) {
+            Number value = values.get(i);
+            if (value == null) {
+                return null;
+            }
+            result[i] = value.floatValue();
+        }
+        return result;
+    }
+
+    /**
+     * 由点积和平方范数计算余弦相似度，任一范数为 0 时返回 0
+     */
+    public static double cosine(float dot, float normA, float normB) {
+        double magnitude = Math.sqrt(normA) * Math.sqrt(normB);
+        return magnitude == 0 ? 0.0 : dot / magnitude;
+    }
+
+    private static boolean detectSimd() {
+        if (!Boolean.parseBoolean(System.getProperty("vector.simd.enabled", "true"))) {
+            return false;
+        }
+        if (ModuleLayer.boot().findModule("jdk.incubator.vector").isEmpty()) {
+            return false;
+        }
+        try {
+            // 通道数不足 4 时（如不支持 AVX 的平台）标量实现更快
+            return SimdKernels.lanes() >= 4;
+        } catch (LinkageError e) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,183 @@
+package com.deepsearch.vector.util;
+
+import java.util.stream.IntStream;
+
+/**
+ * 有界 Top-K 选择器：容量为 k 的最小堆，ID 和得分分别存放在 long[] / float[] 中，不装箱。
+ * 每次插入 O(log k)，n 个候选总代价 O(n log k)。
+ * 得分相同时 ID 较小者优先，因此以下标为 ID 时结果顺序与稳定排序一致。NaN 得分会被忽略。
+ */
+public final class TopKSelector {
+
+    // 候选数超过该值时并行选择才划算
+    private static final int PARALLEL_THRESHOLD = 16384;
+
+    private final long[] ids;
+    private final float[] scores;
+    private int size;
+
+    public TopKSelector(int k) {
+        if (k < 0) {
+            throw new IllegalArgumentException("k不能小于0");
+        }
+        this.ids = new long[k];
+        this.scores = new float[k];
+    }
+
+    /**
+     * 插入候选，堆满时只有优于当前最差结果的候选才会替换它
+     */
+    public void offer(long id, float score) {
+        if (Float.isNaN(score) || ids.length == 0) {
+            return;
+        }
+        if (size < ids.length) {
+            siftUp(size++, id, score);
+        } else if (better(score, id, scores[0], ids[0])) {
+            siftDown(0, id, score);
+        }
+    }
+
+    /**
+     * 合并另一个选择器的结果
+     */
+    public void merge(TopKSelector other) {
+        for (int i = 0; i < other.size; i++) {
+            offer(other.ids[i], other.scores[i]);
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isFull() {
+        return size == ids.length;
+    }
+
+    /**
+     * 当前入选结果中的最低得分，未满时返回负无穷
+     */
+    public float minScore() {
+        return isFull() && size > 0 ? scores[0] : Float.NEGATIVE_INFINITY;
+    }
+
+    /**
+     * 按得分降序取出ID，取出后选择器被清空
+     */
+    public long[] drainIds() {
+        long[] resultIds = new long[size];
+        drain(resultIds, null);
+        return resultIds;
+    }
+
+    /**
+     * 按得分降序取出ID和得分，取出后选择器被清空
+     *
+     * @param scoresOut 长度不小于 size() 的数组，写入与返回ID一一对应的得分
+     */
+    public long[] drain(float[] scoresOut) {
+        long[] resultIds = new long[size];
+        drain(resultIds, scoresOut);
+        return resultIds;
+    }
+
+    /**
+     * 从得分数组中选出最高的 k 个下标，按得分降序返回
+     */
+    public static int[] select(float[] values, int k) {
+        return select(values, 0, values.length, k).toIndexes();
+    }
+
+    /**
+     * 并行版本：按分区各自选出 Top-K 再合并，候选较少时退化为串行
+     */
+    public static int[] parallelSelect(float[] values, int k) {
+        int n = values.length;
+        if (n < PARALLEL_THRESHOLD) {
+            return select(values, k);
+        }
+        int partitions = Math.min(Runtime.getRuntime().availableProcessors(), n / (PARALLEL_THRESHOLD / 4));
+        int chunk = (n + partitions - 1) / partitions;
+        return IntStream.range(0, partitions)
+            .parallel()
+            .mapToObj(p -> select(values, p * chunk, Math.min(n, (p + 1) * chunk), k))
+            .reduce((left, right) -> {
+                left.merge(right);
+                return left;
+            })
+            .orElseGet(() -> new TopKSelector(0))
+            .toIndexes();
+    }
+
+    // ==================== 私有方法 ====================
+
+    private static TopKSelector select(float[] values, int from, int to, int k) {
+        TopKSelector selector = new TopKSelector(Math.min(k, to - from));
+        for (int i = from; i < to; i++) {
+            selector.offer(i, values[i]);
+        }
+        return selector;
+    }
+
+    private int[] toIndexes() {
+        long[] resultIds = drainIds();
+        int[] indexes = new int[resultIds.length];
+        for (int i = 0; i < indexes.length; i++) {
+            indexes[i] = (int) resultIds[i];
+        }
+        return indexes;
+    }
+
+    private void drain(long[] idsOut, float[] scoresOut) {
+        for (int i = size - 1; i >= 0; i--) {
+            idsOut[i] = ids[0];
+            if (scoresOut != null) {
+                scoresOut[i] = scores[0];
+            }
+            size--;
+            if (size > 0) {
+                siftDown(0, ids[size], scores[size]);
+            }
+        }
+    }
+
+    /**
+     * a 是否排在 b 之前：得分更高，或得分相同且ID更小
+     */
+    private static boolean better(float scoreA, long idA, float scoreB, long idB) {
+        return scoreA > scoreB || (scoreA == scoreB && idA < idB);
+    }
+
+    private void siftUp(int index, long id, float score) {
+        while (index > 0) {
+            int parent = (index - 1) >>> 1;
+            if (!better(scores[parent], ids[parent], score, id)) {
+                break;
+            }
+            ids[index] = ids[parent];
+            scores[index] = scores[parent];
+            index = parent;
+        }
+        ids[index] = id;
+        scores[index] = score;
+    }
+
+    private void siftDown(int index, long id, float score) {
+        int half = size >>> 1;
+        while (index < half) {
+            int child = 2 * index + 1;
+            if (child + 1 < size && better(scores[child], ids[child], scores[child + 1], ids[child + 1])) {
+                child++;
+            }
+            if (!better(score, id, scores[child], ids[child])) {
+                break;
+            }
+            ids[index] = ids[child];
+            scores[index] = scores[child];
+            index = child;
+        }
+        ids[index] = id;
+        scores[index] = score;
+    }
+}
@@ -1,5 +1,6 @@
 package com.deepsearch.vector.util;
 
+import com.deepsearch.vector.index.PcaProjection;
 import com.deepsearch.vector.model.Vector;
 import lombok.extern.slf4j.Slf4j;
 
@@ -20,166 +21,126 @@ public class VectorUtils {
      * 计算两个向量的欧几里得距离
      */
     public static double euclideanDistance(Vector v1, Vector v2) {
-        if (!v1.isCompatibleWith(v2)) {
-            throw new IllegalArgumentException("向量不兼容: 维度或模型不匹配");
-        }
-
-        List<Double> data1 = v1.getData();
-        List<Double> data2 = v2.getData();
-
-        double sum = 0.0;
-        for (int i = 0; i < data1.size(); i++) {
-            double diff = data1.get(i) - data2.get(i);
-            sum += diff * diff;
-        }
-
-        return Math.sqrt(sum);
+        checkCompatible(v1, v2);
+        return Math.sqrt(SimilarityKernels.squaredEuclidean(v1.getData(), v2.getData()));
     }
 
     /**
      * 计算曼哈顿距离
      */
     public static double manhattanDistance(Vector v1, Vector v2) {
-        if (!v1.isCompatibleWith(v2)) {
-            throw new IllegalArgumentException("向量不兼容: 维度或模型不匹配");
-        }
-
-        List<Double> data1 = v1.getData();
-        List<Double> data2 = v2.getData();
-
-        double sum = 0.0;
-        for (int i = 0; i < data1.size(); i++) {
-            sum += Math.abs(data1.get(i) - data2.get(i));
-        }
-
-        return sum;
+        checkCompatible(v1, v2);
+        return SimilarityKernels.manhattan(v1.getData(), v2.getData());
     }
 
     /**
      * 向量归一化（单位向量）
      */
     public static Vector normalize(Vector vector) {
-        double magnitude = vector.getMagnitude();
-        if (magnitude < EPSILON) {
+        if (vector.magnitude() < EPSILON) {
             throw new IllegalArgumentException("无法归一化零向量");
         }
 
-        List<Double> normalizedData = vector.getData().stream()
-            .map(value -> value / magnitude)
-            .collect(Collectors.toList());
-
-        return new Vector(normalizedData, vector.getModelName());
+        float[] normalizedData = vector.getData();
+        SimilarityKernels.normalize(normalizedData);
+        return copyWithData(vector, normalizedData, vector.getModelName());
     }
 
     /**
      * 向量加法
      */
     public static Vector add(Vector v1, Vector v2) {
-        if (!v1.isCompatibleWith(v2)) {
-            throw new IllegalArgumentException("向量不兼容: 维度或模型不匹配");
-        }
+        checkCompatible(v1, v2);
 
-        List<Double> data1 = v1.getData();
-        List<Double> data2 = v2.getData();
-
-        List<Double> result = IntStream.range(0, data1.size())
-            .mapToObj(i -> data1.get(i) + data2.get(i))
-            .collect(Collectors.toList());
+        float[] result = v1.getData();
+        float[] data2 = v2.getData();
+        for (int i = 0; i < result.length; i++) {
+            result[i] += data2[i];
+        }
 
-        return new Vector(result, v1.getModelName());
+        return copyWithData(v1, result, v1.getModelName());
     }
 
     /**
      * 向量减法
      */
     public static Vector subtract(Vector v1, Vector v2) {
-        if (!v1.isCompatibleWith(v2)) {
-            throw new IllegalArgumentException("向量不兼容: 维度或模型不匹配");
-        }
-
-        List<Double> data1 = v1.getData();
-        List<Double> data2 = v2.getData();
+        checkCompatible(v1, v2);
 
-        List<Double> result = IntStream.range(0, data1.size())
-            .mapToObj(i -> data1.get(i) - data2.get(i))
-            .collect(Collectors.toList());
+        float[] result = v1.getData();
+        float[] data2 = v2.getData();
+        for (int i = 0; i < result.length; i++) {
+            result[i] -= data2[i];
+        }
 
-        return new Vector(result, v1.getModelName());
+        return copyWithData(v1, result, v1.getModelName());
     }
 
     /**
      * 标量乘法
      */
     public static Vector multiply(Vector vector, double scalar) {
-        List<Double> result = vector.getData().stream()
-            .map(value -> value * scalar)
-            .collect(Collectors.toList());
+        float[] result = vector.getData();
+        for (int i = 0; i < result.length; i++) {
+            result[i] = (float) (result[i] * scalar);
+        }
 
-        return new Vector(result, vector.getModelName());
+        return copyWithData(vector, result, vector.getModelName());
     }
 
     /**
      * 计算向量的点积
      */
     public static double dotProduct(Vector v1, Vector v2) {
-        if (!v1.isCompatibleWith(v2)) {
-            throw new IllegalArgumentException("向量不兼容: 维度或模型不匹配");
-        }
-
-        List<Double> data1 = v1.getData();
-        List<Double> data2 = v2.getData();
+        checkCompatible(v1, v2);
+        return SimilarityKernels.dot(v1.getData(), v2.getData());
+    }
 
-        return IntStream.range(0, data1.size())
-            .mapToDouble(i -> data1.get(i) * data2.get(i))
-            .sum();
+    /**
+     * 计算余弦相似度
+     */
+    public static double cosineSimilarity(Vector v1, Vector v2) {
+        checkCompatible(v1, v2);
+        return SimilarityKernels.cosine(v1.getData(), v2.getData());
     }
 
     /**
-     * 向量压缩 - 降维到指定维度
+     * 向量压缩 - 用训练好的PCA投影降维到指定维度，文档向量和查询向量需使用同一个投影
      */
-    public static Vector compress(Vector vector, int targetDimension) {
+    public static Vector compress(Vector vector, PcaProjection projection, int targetDimension) {
         if (targetDimension <= 0) {
             throw new IllegalArgumentException("目标维度必须大于0");
         }
-
-        List<Double> originalData = vector.getData();
-        int originalDimension = originalData.size();
-
-        if (targetDimension >= originalDimension) {
+        if (projection == null) {
+            throw new IllegalArgumentException("PCA投影不能为空");
+        }
+        if (targetDimension >= vector.getDimension()) {
             return vector; // 不需要压缩
         }
-
-        // 简单的降维策略：等间隔采样
-        List<Double> compressedData = new ArrayList<>(targetDimension);
-        double step = (double) originalDimension / targetDimension;
-
-        for (int i = 0; i < targetDimension; i++) {
-            int index = (int) Math.round(i * step);
-            if (index >= originalDimension) {
-                index = originalDimension - 1;
-            }
-            compressedData.add(originalData.get(index));
+        if (targetDimension > projection.getComponents()) {
+            throw new IllegalArgumentException("目标维度超过PCA主成分数: " + projection.getComponents());
         }
 
-        log.debug("向量压缩: {}维 -> {}维", originalDimension, targetDimension);
-        return new Vector(compressedData, vector.getModelName() + "_compressed");
+        float[] compressedData = projection.project(vector.getData(), targetDimension);
+        log.debug("向量压缩: {}维 -> {}维", vector.getDimension(), targetDimension);
+        return copyWithData(vector, compressedData, vector.getModelName() + "_pca" + targetDimension);
     }
 
     /**
-     * 向量量化 - 减少精度以节省存储空间
+     * 向量量化 - int8 标量量化，每个维度1字节，内存约为 float32 的 1/4
      */
-    public static Vector quantize(Vector vector, int precision) {
-        if (precision <= 0 || precision > 15) {
-            throw new IllegalArgumentException("精度必须在1-15之间");
-        }
-
-        double factor = Math.pow(10, precision);
-
-        List<Double> quantizedData = vector.getData().stream()
-            .map(value -> Math.round(value * factor) / factor)
-            .collect(Collectors.toList());
+    public static QuantizedVector quantize(Vector vector) {
+        return QuantizedVector.quantize(vector.getData());
+    }
 
-        return new Vector(quantizedData, vector.getModelName());
+    /**
+     * 还原量化向量，模型信息取自原向量
+     */
+    public static Vector dequantize(QuantizedVector quantized, Vector source) {
+        if (quantized.dimension() != source.getDimension()) {
+            throw new IllegalArgumentException("量化向量维度不匹配，期望: " + source.getDimension());
+        }
+        return copyWithData(source, quantized.dequantize(), source.getModelName());
     }
 
     /**
@@ -196,24 +157,26 @@ public class VectorUtils {
 
         // 检查所有向量兼容性
         for (Vector vector : vectors) {
-            if (!first.isCompatibleWith(vector)) {
+            if (!isCompatible(first, vector)) {
                 throw new IllegalArgumentException("向量集合包含不兼容的向量");
             }
         }
 
         // 计算平均值
-        List<Double> centroidData = new ArrayList<>(dimension);
+        double[] sums = new double[dimension];
+        for (Vector vector : vectors) {
+            float[] data = vector.getData();
+            for (int d = 0; d < dimension; d++) {
+                sums[d] += data[d];
+            }
+        }
+        float[] centroidData = new float[dimension];
         for (int d = 0; d < dimension; d++) {
-            final int dimension_index = d;
-            double average = vectors.stream()
-                .mapToDouble(v -> v.getData().get(dimension_index))
-                .average()
-                .orElse(0.0);
-            centroidData.add(average);
+            centroidData[d] = (float) (sums[d] / vectors.size());
         }
 
         log.debug("计算质心向量: 基于{}个{}维向量", vectors.size(), dimension);
-        return new Vector(centroidData, modelName + "_centroid");
+        return copyWithData(first, centroidData, modelName + "_centroid");
     }
 
     /**
@@ -224,10 +187,10 @@ public class VectorUtils {
             return 0.0;
         }
 
-        Vector centroid = calculateCentroid(vectors);
+        float[] centroid = calculateCentroid(vectors).getData();
 
         return vectors.stream()
-            .mapToDouble(v -> euclideanDistance(v, centroid))
+            .mapToDouble(v -> Math.sqrt(SimilarityKernels.squaredEuclidean(v.getData(), centroid)))
             .average()
             .orElse(0.0);
     }
@@ -242,10 +205,12 @@ public class VectorUtils {
             return List.of();
         }
 
+        float[] query = queryVector.getData();
+
         // 过滤兼容的向量并计算相似度
         List<VectorSimilarity> similarities = candidates.stream()
-            .filter(v -> queryVector.isCompatibleWith(v))
-            .map(v -> new VectorSimilarity(v, queryVector.cosineSimilarity(v)))
+            .filter(v -> isCompatible(queryVector, v))
+            .map(v -> new VectorSimilarity(v, SimilarityKernels.cosine(query, v.getData())))
             .sorted((a, b) -> Double.compare(b.similarity(), a.similarity())) // 降序排列
             .limit(k)
             .collect(Collectors.toList());
@@ -265,11 +230,13 @@ public class VectorUtils {
             return Map.of();
         }
 
+        float[] query = queryVector.getData();
+
         return candidates.parallelStream()
-            .filter(v -> queryVector.isCompatibleWith(v))
+            .filter(v -> isCompatible(queryVector, v))
             .collect(Collectors.toMap(
                 v -> v,
-                v -> queryVector.cosineSimilarity(v),
+                v -> SimilarityKernels.cosine(query, v.getData()),
                 (existing, replacement) -> existing, // 保留现有值
                 LinkedHashMap::new // 保持顺序
             ));
@@ -304,14 +271,15 @@ public class VectorUtils {
             clusters.put(i, new ArrayList<>());
         }
 
+        List<float[]> centroidData = centroids.stream().map(Vector::getData).collect(Collectors.toList());
         for (Vector vector : vectors) {
             int bestCluster = 0;
             double bestSimilarity = -1.0;
+            float[] data = vector.getData();
 
             for (int i = 0; i < centroids.size(); i++) {
-                Vector centroid = centroids.get(i);
-                if (vector.isCompatibleWith(centroid)) {
-                    double similarity = vector.cosineSimilarity(centroid);
+                if (isCompatible(vector, centroids.get(i))) {
+                    double similarity = SimilarityKernels.cosine(data, centroidData.get(i));
                     if (similarity > bestSimilarity) {
                         bestSimilarity = similarity;
                         bestCluster = i;
@@ -344,14 +312,42 @@ public class VectorUtils {
             return 0;
         }
 
-        // 每个double 8字节 + 对象开销
-        long dataSize = vector.getDimension() * 8L;
+        // 每个float 4字节 + 对象开销
+        long dataSize = vector.getDimension() * 4L;
         long metadataSize = vector.getModelName().length() * 2L; // Unicode字符
         long objectOverhead = 64L; // 估算的对象开销
 
         return dataSize + metadataSize + objectOverhead;
     }
 
+    /**
+     * 两个向量是否维度和模型一致
+     */
+    public static boolean isCompatible(Vector v1, Vector v2) {
+        return v1 != null && v2 != null
+            && v1.getDimension() == v2.getDimension()
+            && Objects.equals(v1.getModelName(), v2.getModelName());
+    }
+
+    private static void checkCompatible(Vector v1, Vector v2) {
+        if (!isCompatible(v1, v2)) {
+            throw new IllegalArgumentException("向量不兼容: 维度或模型不匹配");
+        }
+    }
+
+    private static Vector copyWithData(Vector source, float[] data, String modelName) {
+        return new Vector(
+            data,
+            data.length,
+            modelName,
+            source.getModelVersion(),
+            source.getProcessingMode(),
+            source.getProcessingTimeMs(),
+            source.getCreatedAt(),
+            source.getMetadata()
+        );
+    }
+
     /**
      * 向量相似度结果
      */
@@ -361,4 +357,4 @@ public class VectorUtils {
      * 向量聚类结果
      */
     public record VectorCluster(int clusterId, List<Vector> vectors, Vector centroid) {}
-}
\ No newline at end of file
+}
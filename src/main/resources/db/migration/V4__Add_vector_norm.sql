@@ -0,0 +1,3 @@
+-- 向量写入时归一化为单位向量，vector_norm 记录归一化前的L2范数
+-- 为空表示历史数据尚未归一化，由 VectorBackfillService 在启动后回填
+ALTER TABLE document_vectors ADD COLUMN vector_norm DOUBLE NULL AFTER vector_data;
@@ -0,0 +1,3 @@
+-- 向量以小端 float32 字节串存入 vector_blob，1536 维约 6 KB，JSON 文本约 30 KB
+-- 过渡期间 vector_data 与 vector_blob 双写，历史数据由 VectorBackfillService 在启动后回填
+ALTER TABLE document_vectors ADD COLUMN vector_blob MEDIUMBLOB NULL AFTER vector_norm;
@@ -0,0 +1,93 @@
+package com.deepsearch.elasticsearch.service;
+
+import co.elastic.clients.elasticsearch.ElasticsearchClient;
+import co.elastic.clients.elasticsearch.core.SearchRequest;
+import co.elastic.clients.elasticsearch.core.SearchResponse;
+import co.elastic.clients.elasticsearch.core.search.Hit;
+import co.elastic.clients.elasticsearch.core.search.HitsMetadata;
+import com.deepsearch.elasticsearch.config.ElasticsearchIndexConfig;
+import com.deepsearch.elasticsearch.dto.DocumentIndex;
+import com.deepsearch.vector.service.VectorProcessingEngine;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * ElasticsearchSearchService 单元测试：异步向量检索的降级行为
+ */
+@ExtendWith(MockitoExtension.class)
+class ElasticsearchSearchServiceTest {
+
+    @Mock
+    private ElasticsearchClient elasticsearchClient;
+
+    @Mock
+    private ElasticsearchIndexConfig indexConfig;
+
+    @Mock
+    private VectorProcessingEngine vectorProcessingEngine;
+
+    @InjectMocks
+    private ElasticsearchSearchService searchService;
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testVectorSearchAsync_EmbeddingTimeoutFallsBackToKeywordSearch() throws Exception {
+        // Given - 查询向量化超时
+        DocumentIndex document = new DocumentIndex();
+        document.setId("1");
+        Hit<DocumentIndex> hit = mock(Hit.class);
+        when(hit.source()).thenReturn(document);
+        HitsMetadata<DocumentIndex> hits = mock(HitsMetadata.class);
+        when(hits.hits()).thenReturn(List.of(hit));
+        SearchResponse<DocumentIndex> response = mock(SearchResponse.class);
+        when(response.hits()).thenReturn(hits);
+        when(indexConfig.getDocumentIndexName()).thenReturn("documents");
+        when(elasticsearchClient.search(any(SearchRequest.class), eq(DocumentIndex.class))).thenReturn(response);
+        when(vectorProcessingEngine.generateEmbeddingAsync("信用卡"))
+            .thenReturn(CompletableFuture.failedFuture(new TimeoutException("嵌入超时")));
+
+        // When
+        List<DocumentIndex> results = searchService
+            .vectorSearchAsync("信用卡", null, null, 0, 10, Runnable::run).join();
+
+        // Then - 与同步版本一致，改走关键词检索而不是返回空结果
+        assertEquals(1, results.size());
+        assertEquals("1", results.get(0).getId());
+        ArgumentCaptor<SearchRequest> request = ArgumentCaptor.forClass(SearchRequest.class);
+        verify(elasticsearchClient).search(request.capture(), eq(DocumentIndex.class));
+        assertNotNull(request.getValue().query());
+        assertTrue(request.getValue().knn().isEmpty());
+    }
+
+    @Test
+    void testVectorSearchAsync_CancellationIsNotSwallowed() throws Exception {
+        // Given
+        CompletableFuture<float[]> embedding = new CompletableFuture<>();
+        embedding.cancel(true);
+        when(vectorProcessingEngine.generateEmbeddingAsync("信用卡")).thenReturn(embedding);
+
+        // When
+        CompletableFuture<List<DocumentIndex>> future =
+            searchService.vectorSearchAsync("信用卡", null, null, 0, 10, Runnable::run);
+
+        // Then
+        CompletionException error = assertThrows(CompletionException.class, future::join);
+        assertInstanceOf(CancellationException.class, error.getCause());
+        verify(elasticsearchClient, never()).search(any(SearchRequest.class), eq(DocumentIndex.class));
+    }
+}
@@ -13,6 +13,7 @@ import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.io.IOException;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
 
 import static org.assertj.core.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.*;
@@ -89,14 +90,14 @@ class HybridSearchServiceIntegrationTest {
         when(elasticsearchSearchService.keywordSearch(eq("按揭贷款利率"), anyString(), anyList(), anyInt(), anyInt()))
             .thenReturn(Collections.emptyList());
 
-        when(elasticsearchSearchService.vectorSearch(anyString(), anyString(), anyList(), anyInt(), anyInt()))
-            .thenReturn(mockSemanticResults);
+        when(elasticsearchSearchService.vectorSearchAsync(anyString(), anyString(), anyList(), anyInt(), anyInt(), any()))
+            .thenReturn(CompletableFuture.completedFuture(mockSemanticResults));
 
         List<DocumentIndex> mergedResults = new ArrayList<>();
         mergedResults.addAll(mockKeywordResults);
         mergedResults.addAll(mockSemanticResults);
 
-        when(relevanceService.mergeAndRank(anyList(), anyList(), any())).thenReturn(mergedResults);
+        when(relevanceService.mergeAndRank(anyList(), anyList(), any(), anyInt())).thenReturn(mergedResults);
 
         // When
         SearchResult result = hybridSearchService.hybridSearch(testSearchRequest);
@@ -114,10 +115,10 @@ class HybridSearchServiceIntegrationTest {
 
         // 验证每个扩展查询都被搜索
         verify(elasticsearchSearchService, times(3)).keywordSearch(anyString(), anyString(), anyList(), anyInt(), anyInt());
-        verify(elasticsearchSearchService).vectorSearch(anyString(), anyString(), anyList(), anyInt(), anyInt());
+        verify(elasticsearchSearchService).vectorSearchAsync(anyString(), anyString(), anyList(), anyInt(), anyInt(), any());
 
         // 验证结果合并
-        verify(relevanceService).mergeAndRank(anyList(), anyList(), any());
+        verify(relevanceService).mergeAndRank(anyList(), anyList(), any(), anyInt());
     }
 
     @Test
@@ -155,10 +156,10 @@ class HybridSearchServiceIntegrationTest {
 
         when(elasticsearchSearchService.keywordSearch(eq("房贷利率"), anyString(), anyList(), anyInt(), anyInt()))
             .thenReturn(mockKeywordResults);
-        when(elasticsearchSearchService.vectorSearch(anyString(), anyString(), anyList(), anyInt(), anyInt()))
-            .thenReturn(mockSemanticResults);
+        when(elasticsearchSearchService.vectorSearchAsync(anyString(), anyString(), anyList(), anyInt(), anyInt(), any()))
+            .thenReturn(CompletableFuture.completedFuture(mockSemanticResults));
 
-        when(relevanceService.mergeAndRank(anyList(), anyList(), any())).thenReturn(mockKeywordResults);
+        when(relevanceService.mergeAndRank(anyList(), anyList(), any(), anyInt())).thenReturn(mockKeywordResults);
 
         // When
         SearchResult result = hybridSearchService.hybridSearch(testSearchRequest);
@@ -192,10 +193,10 @@ class HybridSearchServiceIntegrationTest {
 
         when(elasticsearchSearchService.keywordSearch(anyString(), anyString(), anyList(), anyInt(), anyInt()))
             .thenReturn(Collections.emptyList());
-        when(elasticsearchSearchService.vectorSearch(anyString(), anyString(), anyList(), anyInt(), anyInt()))
-            .thenReturn(mockSemanticResults);
+        when(elasticsearchSearchService.vectorSearchAsync(anyString(), anyString(), anyList(), anyInt(), anyInt(), any()))
+            .thenReturn(CompletableFuture.completedFuture(mockSemanticResults));
 
-        when(relevanceService.mergeAndRank(anyList(), anyList(), any())).thenReturn(mockSemanticResults);
+        when(relevanceService.mergeAndRank(anyList(), anyList(), any(), anyInt())).thenReturn(mockSemanticResults);
 
         // When
         SearchResult result = hybridSearchService.hybridSearch(testSearchRequest);
@@ -228,10 +229,10 @@ class HybridSearchServiceIntegrationTest {
         when(elasticsearchSearchService.keywordSearch(eq("住房贷款利率"), anyString(), anyList(), anyInt(), anyInt()))
             .thenReturn(Arrays.asList(duplicateDoc)); // 相同ID的文档
 
-        when(elasticsearchSearchService.vectorSearch(anyString(), anyString(), anyList(), anyInt(), anyInt()))
-            .thenReturn(Collections.emptyList());
+        when(elasticsearchSearchService.vectorSearchAsync(anyString(), anyString(), anyList(), anyInt(), anyInt(), any()))
+            .thenReturn(CompletableFuture.completedFuture(Collections.emptyList()));
 
-        when(relevanceService.mergeAndRank(anyList(), anyList(), any())).thenReturn(Arrays.asList(duplicateDoc));
+        when(relevanceService.mergeAndRank(anyList(), anyList(), any(), anyInt())).thenReturn(Arrays.asList(duplicateDoc));
 
         // When
         SearchResult result = hybridSearchService.hybridSearch(testSearchRequest);
@@ -263,10 +264,10 @@ class HybridSearchServiceIntegrationTest {
         when(elasticsearchSearchService.keywordSearch(eq("住房贷款利率"), anyString(), anyList(), anyInt(), anyInt()))
             .thenReturn(Arrays.asList(expandedDoc));
 
-        when(elasticsearchSearchService.vectorSearch(anyString(), anyString(), anyList(), anyInt(), anyInt()))
-            .thenReturn(Collections.emptyList());
+        when(elasticsearchSearchService.vectorSearchAsync(anyString(), anyString(), anyList(), anyInt(), anyInt(), any()))
+            .thenReturn(CompletableFuture.completedFuture(Collections.emptyList()));
 
-        when(relevanceService.mergeAndRank(anyList(), anyList(), any()))
+        when(relevanceService.mergeAndRank(anyList(), anyList(), any(), anyInt()))
             .thenReturn(Arrays.asList(originalDoc, expandedDoc));
 
         // When
@@ -300,9 +301,9 @@ class HybridSearchServiceIntegrationTest {
 
         when(elasticsearchSearchService.keywordSearch(anyString(), anyString(), anyList(), anyInt(), anyInt()))
             .thenReturn(mockKeywordResults);
-        when(elasticsearchSearchService.vectorSearch(anyString(), anyString(), anyList(), anyInt(), anyInt()))
-            .thenReturn(mockSemanticResults);
-        when(relevanceService.mergeAndRank(anyList(), anyList(), any())).thenReturn(mockKeywordResults);
+        when(elasticsearchSearchService.vectorSearchAsync(anyString(), anyString(), anyList(), anyInt(), anyInt(), any()))
+            .thenReturn(CompletableFuture.completedFuture(mockSemanticResults));
+        when(relevanceService.mergeAndRank(anyList(), anyList(), any(), anyInt())).thenReturn(mockKeywordResults);
 
         // When
         SearchResult result = hybridSearchService.hybridSearch(testSearchRequest);
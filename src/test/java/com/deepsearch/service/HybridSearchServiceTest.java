@@ -14,6 +14,7 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import java.io.IOException;
 import java.time.LocalDateTime;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.*;
@@ -96,11 +97,11 @@ class HybridSearchServiceTest {
     @Test
     void testHybridSearch_Success() throws IOException {
         // 准备mock
-        when(elasticsearchService.keywordSearch(anyString(), anyString(), anyList(), anyInt(), anyInt()))
+        when(elasticsearchService.keywordSearch(anyString(), any(), any(), anyInt(), anyInt()))
             .thenReturn(mockKeywordResults);
-        when(elasticsearchService.vectorSearch(anyString(), anyString(), anyList(), anyInt(), anyInt()))
-            .thenReturn(mockSemanticResults);
-        when(relevanceService.mergeAndRank(any(), any(), any()))
+        when(elasticsearchService.vectorSearchAsync(anyString(), any(), any(), anyInt(), anyInt(), any()))
+            .thenReturn(CompletableFuture.completedFuture(mockSemanticResults));
+        when(relevanceService.mergeAndRank(any(), any(), any(), anyInt()))
             .thenReturn(mockMergedResults);
 
         // 执行测试
@@ -119,8 +120,9 @@ class HybridSearchServiceTest {
         verify(searchSecurityService).getCurrentUserChannels();
         verify(queryExpansionService).expandQuery(eq("银行产品"), any());
         verify(elasticsearchService, atLeastOnce()).keywordSearch(anyString(), isNull(), isNull(), anyInt(), anyInt());
-        verify(elasticsearchService).vectorSearch(anyString(), isNull(), isNull(), anyInt(), anyInt());
-        verify(relevanceService).mergeAndRank(any(), any(), any());
+        verify(elasticsearchService).vectorSearchAsync(anyString(), isNull(), isNull(), anyInt(), anyInt(), any());
+        // 只需选出第一页：from + size
+        verify(relevanceService).mergeAndRank(any(), any(), any(), eq(10));
     }
 
     @Test
@@ -137,11 +139,11 @@ class HybridSearchServiceTest {
         searchRequest.setFrom(2);  // 从第3个结果开始
         searchRequest.setSize(2);  // 每页2个结果
 
-        when(elasticsearchService.keywordSearch(anyString(), anyString(), anyList(), anyInt(), anyInt()))
-            .thenReturn(mockKeywordResults);
-        when(elasticsearchService.vectorSearch(anyString(), anyString(), anyList(), anyInt(), anyInt()))
-            .thenReturn(mockSemanticResults);
-        when(relevanceService.mergeAndRank(any(), any(), any()))
+        when(elasticsearchService.keywordSearch(anyString(), any(), any(), anyInt(), anyInt()))
+            .thenReturn(largeResults);
+        when(elasticsearchService.vectorSearchAsync(anyString(), any(), any(), anyInt(), anyInt(), any()))
+            .thenReturn(CompletableFuture.completedFuture(mockSemanticResults));
+        when(relevanceService.mergeAndRank(any(), any(), any(), anyInt()))
             .thenReturn(largeResults);
 
         // 执行测试
@@ -160,9 +162,9 @@ class HybridSearchServiceTest {
         // 模拟关键词搜索失败
         when(elasticsearchService.keywordSearch(anyString(), anyString(), anyList(), anyInt(), anyInt()))
             .thenThrow(new IOException("Elasticsearch连接失败"));
-        when(elasticsearchService.vectorSearch(anyString(), anyString(), anyList(), anyInt(), anyInt()))
-            .thenReturn(mockSemanticResults);
-        when(relevanceService.mergeAndRank(any(), any(), any()))
+        when(elasticsearchService.vectorSearchAsync(anyString(), anyString(), anyList(), anyInt(), anyInt(), any()))
+            .thenReturn(CompletableFuture.completedFuture(mockSemanticResults));
+        when(relevanceService.mergeAndRank(any(), any(), any(), anyInt()))
             .thenReturn(mockSemanticResults);
 
         // 执行测试
@@ -174,7 +176,7 @@ class HybridSearchServiceTest {
 
         // 验证关键词搜索被调用但失败，语义搜索正常
         verify(elasticsearchService, atLeastOnce()).keywordSearch(anyString(), anyString(), anyList(), anyInt(), anyInt());
-        verify(elasticsearchService).vectorSearch(anyString(), anyString(), anyList(), anyInt(), anyInt());
+        verify(elasticsearchService).vectorSearchAsync(anyString(), anyString(), anyList(), anyInt(), anyInt(), any());
     }
 
     @Test
@@ -182,8 +184,8 @@ class HybridSearchServiceTest {
         // 模拟两种搜索都失败
         when(elasticsearchService.keywordSearch(anyString(), anyString(), anyList(), anyInt(), anyInt()))
             .thenThrow(new IOException("Elasticsearch连接失败"));
-        when(elasticsearchService.vectorSearch(anyString(), anyString(), anyList(), anyInt(), anyInt()))
-            .thenThrow(new IOException("向量搜索失败"));
+        when(elasticsearchService.vectorSearchAsync(anyString(), anyString(), anyList(), anyInt(), anyInt(), any()))
+            .thenReturn(CompletableFuture.failedFuture(new IOException("向量搜索失败")));
 
         // 模拟降级搜索也失败
         when(elasticsearchService.keywordSearch(eq("银行产品"), anyString(), anyList(), eq(0), eq(10)))
@@ -242,9 +244,9 @@ class HybridSearchServiceTest {
 
         when(elasticsearchService.keywordSearch(anyString(), anyString(), anyList(), anyInt(), anyInt()))
             .thenReturn(mockKeywordResults);
-        when(elasticsearchService.vectorSearch(anyString(), anyString(), anyList(), anyInt(), anyInt()))
-            .thenReturn(mockSemanticResults);
-        when(relevanceService.mergeAndRank(any(), any(), any()))
+        when(elasticsearchService.vectorSearchAsync(anyString(), anyString(), anyList(), anyInt(), anyInt(), any()))
+            .thenReturn(CompletableFuture.completedFuture(mockSemanticResults));
+        when(relevanceService.mergeAndRank(any(), any(), any(), anyInt()))
             .thenReturn(mockMergedResults);
 
         SearchResult result = hybridSearchService.hybridSearch(requestWithoutWeights);
@@ -252,7 +254,7 @@ class HybridSearchServiceTest {
         // 验证默认权重被应用
         assertThat(result).isNotNull();
         verify(relevanceService).mergeAndRank(any(), any(), argThat(weights ->
-            weights.getKeywordWeight() == 1.0f && weights.getVectorWeight() == 2.0f));
+            weights.getKeywordWeight() == 1.0f && weights.getVectorWeight() == 2.0f), anyInt());
     }
 
     @Test
@@ -260,9 +262,9 @@ class HybridSearchServiceTest {
         // 测试空结果
         when(elasticsearchService.keywordSearch(anyString(), anyString(), anyList(), anyInt(), anyInt()))
             .thenReturn(Collections.emptyList());
-        when(elasticsearchService.vectorSearch(anyString(), anyString(), anyList(), anyInt(), anyInt()))
-            .thenReturn(Collections.emptyList());
-        when(relevanceService.mergeAndRank(any(), any(), any()))
+        when(elasticsearchService.vectorSearchAsync(anyString(), anyString(), anyList(), anyInt(), anyInt(), any()))
+            .thenReturn(CompletableFuture.completedFuture(Collections.emptyList()));
+        when(relevanceService.mergeAndRank(any(), any(), any(), anyInt()))
             .thenReturn(Collections.emptyList());
 
         SearchResult result = hybridSearchService.hybridSearch(searchRequest);
@@ -109,6 +109,21 @@ class SearchRelevanceServiceTest {
         assertThat(result.stream().map(DocumentIndex::getId).distinct().count()).isEqualTo(2);
     }
 
+    @Test
+    void testDeduplicateResults_UsesIndexedSimhash() {
+        // 索引时写入的指纹相差2个比特视为近似重复，标题不同也会被去除
+        DocumentIndex first = createTestDocument("1", "信用卡年费说明", "普卡首年免年费", LocalDateTime.now());
+        DocumentIndex copy = createTestDocument("2", "转载：信用卡年费", "普卡首年免年费", LocalDateTime.now());
+        DocumentIndex other = createTestDocument("3", "理财产品", "稳健型理财", LocalDateTime.now());
+        first.setSimhash(0x0F0F_0F0F_0F0F_0F0FL);
+        copy.setSimhash(0x0F0F_0F0F_0F0F_0F0FL ^ 0x11L);
+        other.setSimhash(0x00FF_00FF_00FF_00FFL);
+
+        List<DocumentIndex> result = searchRelevanceService.deduplicateResults(Arrays.asList(first, copy, other));
+
+        assertThat(result).extracting(DocumentIndex::getId).containsExactly("1", "3");
+    }
+
     @Test
     void testFreshnessScoring() {
         // 测试时间新鲜度评分
@@ -9,10 +9,14 @@ import com.deepsearch.service.SemanticSearchService.SearchContext;
 import com.deepsearch.service.SemanticSearchService.SearchScene;
 import com.deepsearch.service.VectorSimilarityService.SimilarityAlgorithm;
 import com.deepsearch.service.VectorSimilarityService.SimilarityResult;
+import com.deepsearch.service.VectorHydrationService.HydratedChunks;
+import com.deepsearch.vector.index.AttributeBitmapIndex;
+import com.deepsearch.vector.index.DocumentBitmap;
 import com.deepsearch.vector.service.VectorProcessingEngine;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
@@ -44,6 +48,15 @@ class SemanticSearchServiceTest {
     @Mock
     private DocumentRepository documentRepository;
 
+    @Mock
+    private VectorIndexService vectorIndexService;
+
+    @Mock
+    private VectorStoreService vectorStoreService;
+
+    @Mock
+    private VectorHydrationService vectorHydrationService;
+
     @InjectMocks
     private SemanticSearchService semanticSearchService;
 
@@ -77,8 +90,9 @@ class SemanticSearchServiceTest {
         );
 
         when(vectorProcessingEngine.generateEmbedding(anyString())).thenReturn(testVector);
-        when(vectorSimilarityService.batchSimilaritySearch(
-            any(), anyInt(), any(SimilarityAlgorithm.class), anyDouble()))
+        when(vectorSimilarityService.searchSimilar(
+            any(float[].class), anyInt(), any(SimilarityAlgorithm.class), anyDouble(),
+            any(AttributeBitmapIndex.Filter.class)))
             .thenReturn(similarityResults);
         when(documentRepository.findById(1L)).thenReturn(Optional.of(testDocument));
         when(documentRepository.findById(2L)).thenReturn(Optional.of(createTestDocument(2L, "信用卡服务")));
@@ -92,10 +106,94 @@ class SemanticSearchServiceTest {
         assertEquals("测试文档", results.get(0).getTitle());
 
         verify(vectorProcessingEngine).generateEmbedding(anyString());
-        verify(vectorSimilarityService).batchSimilaritySearch(any(), anyInt(), any(), anyDouble());
+        verify(vectorSimilarityService).searchSimilar(any(float[].class), anyInt(), any(), anyDouble(),
+            eq(new AttributeBitmapIndex.Filter(null, null, List.of("INDEXED"))));
         verify(documentRepository, times(2)).findById(anyLong());
     }
 
+    @Test
+    @SuppressWarnings("unchecked")
+    void testSemanticSearch_MultiQuerySkipsZeroNormEmbeddings() {
+        // Given - 两个扩展查询中一个向量化失败返回零向量
+        ReflectionTestUtils.setField(semanticSearchService, "multiQueryEnabled", true);
+        ReflectionTestUtils.setField(semanticSearchService, "expansionWeight", 0.8f);
+        when(vectorProcessingEngine.generateEmbedding(anyString())).thenReturn(testVector);
+        when(vectorProcessingEngine.generateEmbeddings(anyList()))
+            .thenReturn(List.of(List.of(0f, 0f, 0f), List.of(0f, 3f, 4f)));
+        when(vectorSimilarityService.multiQuerySearch(
+            anyList(), any(float[].class), anyInt(), any(), anyDouble(), any(), any(AttributeBitmapIndex.Filter.class)))
+            .thenReturn(Collections.emptyList());
+
+        // When
+        semanticSearchService.semanticSearch("信用卡", new SearchContext());
+
+        // Then
+        ArgumentCaptor<List<float[]>> queries = ArgumentCaptor.forClass(List.class);
+        ArgumentCaptor<float[]> weights = ArgumentCaptor.forClass(float[].class);
+        verify(vectorSimilarityService).multiQuerySearch(
+            queries.capture(), weights.capture(), anyInt(), any(), anyDouble(), any(),
+            eq(new AttributeBitmapIndex.Filter(null, null, List.of("INDEXED"))));
+        assertEquals(2, queries.getValue().size());
+        assertArrayEquals(new float[]{0f, 0.6f, 0.8f}, queries.getValue().get(1), 1e-6f);
+        assertArrayEquals(new float[]{1.0f, 0.8f}, weights.getValue(), 1e-6f);
+    }
+
+    @Test
+    void testSemanticSearch_MultiQueryWithoutUsableVariantsUsesSingleSearch() {
+        // Given
+        ReflectionTestUtils.setField(semanticSearchService, "multiQueryEnabled", true);
+        when(vectorProcessingEngine.generateEmbedding(anyString())).thenReturn(testVector);
+        when(vectorProcessingEngine.generateEmbeddings(anyList()))
+            .thenReturn(List.of(List.of(0f, 0f, 0f), List.of(0f, 0f, 0f)));
+        when(vectorSimilarityService.searchSimilar(
+            any(float[].class), anyInt(), any(), anyDouble(), any(AttributeBitmapIndex.Filter.class)))
+            .thenReturn(Collections.emptyList());
+
+        // When
+        semanticSearchService.semanticSearch("信用卡", new SearchContext());
+
+        // Then
+        verify(vectorSimilarityService, never())
+            .multiQuerySearch(anyList(), any(), anyInt(), any(), anyDouble(), any(), any());
+    }
+
+    @Test
+    void testSemanticSearch_ParaphrasedQueryHitsFilteredResultCache() {
+        // Given - 真实的相似度服务开启结果缓存，两次查询向量方向几乎相同
+        VectorSimilarityService similarityService =
+            new VectorSimilarityService(vectorIndexService, vectorStoreService, vectorHydrationService);
+        ReflectionTestUtils.setField(similarityService, "resultCacheEnabled", true);
+        ReflectionTestUtils.setField(similarityService, "cacheSize", 100);
+        ReflectionTestUtils.setField(similarityService, "cacheMinCosine", 0.97);
+        ReflectionTestUtils.setField(similarityService, "cacheHashBits", 8);
+        ReflectionTestUtils.setField(similarityService, "filterExactThreshold", 10);
+        ReflectionTestUtils.setField(similarityService, "batchSize", 100);
+        SemanticSearchService service = new SemanticSearchService(
+            vectorProcessingEngine, similarityService, elasticsearchSearchService, documentRepository);
+        ReflectionTestUtils.setField(service, "similarityThreshold", 0.7);
+        ReflectionTestUtils.setField(service, "maxExpandedTerms", 10);
+        ReflectionTestUtils.setField(service, "defaultTopK", 100);
+
+        when(vectorProcessingEngine.generateEmbedding(anyString()))
+            .thenReturn(testVector, Arrays.asList(0.62f, 0.78f, 0.01f));
+        when(vectorIndexService.getResultVersion()).thenReturn(1L);
+        when(vectorIndexService.filterDocuments(new AttributeBitmapIndex.Filter(null, null, List.of("INDEXED"))))
+            .thenReturn(DocumentBitmap.of(1));
+        when(vectorHydrationService.hydrateChunks(anyCollection())).thenReturn(new HydratedChunks(
+            new long[]{1L}, new long[]{11L}, new float[][]{{0.6f, 0.8f, 0.0f}}, new float[]{1.0f}));
+        when(documentRepository.findById(1L)).thenReturn(Optional.of(testDocument));
+
+        // When
+        List<DocumentResponseDto> first = service.semanticSearch("信用卡 年费", new SearchContext());
+        List<DocumentResponseDto> second = service.semanticSearch("信用卡年费", new SearchContext());
+        similarityService.destroy();
+
+        // Then - 第二次由缓存返回，不再读取向量
+        assertEquals(1, first.size());
+        assertEquals(1, second.size());
+        verify(vectorHydrationService, times(1)).hydrateChunks(anyCollection());
+    }
+
     @Test
     void testSemanticSearch_EmptyVector() {
         // Given
@@ -280,7 +378,8 @@ class SemanticSearchServiceTest {
         when(elasticsearchSearchService.keywordSearch(anyString(), isNull(), isNull(), anyInt(), anyInt()))
             .thenReturn(keywordSearchResults);
         when(vectorProcessingEngine.generateEmbedding(anyString())).thenReturn(testVector);
-        when(vectorSimilarityService.batchSimilaritySearch(any(), anyInt(), any(), anyDouble()))
+        when(vectorSimilarityService.searchSimilar(
+            any(float[].class), anyInt(), any(), anyDouble(), any(AttributeBitmapIndex.Filter.class)))
             .thenReturn(similarityResults);
         when(documentRepository.findById(1L)).thenReturn(Optional.of(testDocument));
         when(documentRepository.findById(2L)).thenReturn(Optional.of(createTestDocument(2L, "信用卡服务")));
@@ -296,7 +395,8 @@ class SemanticSearchServiceTest {
 
         verify(elasticsearchSearchService).keywordSearch(anyString(), isNull(), isNull(), anyInt(), anyInt());
         verify(vectorProcessingEngine, times(2)).generateEmbedding(anyString()); // 一次在语义搜索，一次在hybridSemanticSearch调用semanticSearch
-        verify(vectorSimilarityService, times(2)).batchSimilaritySearch(any(), anyInt(), any(), anyDouble());
+        verify(vectorSimilarityService, times(2)).searchSimilar(
+            any(float[].class), anyInt(), any(), anyDouble(), any(AttributeBitmapIndex.Filter.class));
     }
 
     @Test
@@ -316,7 +416,8 @@ class SemanticSearchServiceTest {
             new SimilarityResult(1L, 0.95, SimilarityAlgorithm.COSINE)
         );
         when(vectorProcessingEngine.generateEmbedding(anyString())).thenReturn(testVector);
-        when(vectorSimilarityService.batchSimilaritySearch(any(), anyInt(), any(), anyDouble()))
+        when(vectorSimilarityService.searchSimilar(
+            any(float[].class), anyInt(), any(), anyDouble(), any(AttributeBitmapIndex.Filter.class)))
             .thenReturn(similarityResults);
         when(documentRepository.findById(1L)).thenReturn(Optional.of(testDocument));
 
@@ -373,7 +474,8 @@ class SemanticSearchServiceTest {
             new SimilarityResult(1L, 0.95, SimilarityAlgorithm.COSINE)
         );
         when(vectorProcessingEngine.generateEmbedding(anyString())).thenReturn(testVector);
-        when(vectorSimilarityService.batchSimilaritySearch(any(), anyInt(), any(), anyDouble()))
+        when(vectorSimilarityService.searchSimilar(
+            any(float[].class), anyInt(), any(), anyDouble(), any(AttributeBitmapIndex.Filter.class)))
             .thenReturn(similarityResults);
 
         List<DocumentResponseDto> results = semanticSearchService.hybridSemanticSearch(
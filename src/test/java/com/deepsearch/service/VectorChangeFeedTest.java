@@ -0,0 +1,104 @@
+package com.deepsearch.service;
+
+import com.deepsearch.entity.DocumentVector;
+import com.deepsearch.service.VectorChangeFeed.ChangeType;
+import com.deepsearch.service.VectorChangeFeed.VectorChange;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+/**
+ * VectorChangeFeed 单元测试
+ */
+class VectorChangeFeedTest {
+
+    private VectorIndexService vectorIndexService;
+    private VectorChangeFeed changeFeed;
+
+    @BeforeEach
+    void setUp() {
+        vectorIndexService = mock(VectorIndexService.class);
+        changeFeed = new VectorChangeFeed(vectorIndexService);
+        ReflectionTestUtils.setField(changeFeed, "batchSize", 16);
+    }
+
+    @AfterEach
+    void tearDown() {
+        changeFeed.destroy();
+    }
+
+    @Test
+    void testChangesAppliedInOrder() throws Exception {
+        List<VectorChange> applied = new ArrayList<>();
+        CountDownLatch latch = new CountDownLatch(3);
+        doAnswer(invocation -> {
+            List<VectorChange> batch = invocation.getArgument(0);
+            applied.addAll(batch);
+            batch.forEach(change -> latch.countDown());
+            return null;
+        }).when(vectorIndexService).applyChanges(anyList());
+
+        DocumentVector docVector = new DocumentVector();
+        docVector.setId(11L);
+        docVector.setDocumentId(1L);
+        docVector.setVectorData(List.of(0.6, 0.8));
+        changeFeed.publishUpsert(docVector);
+        changeFeed.publishDelete(11L);
+        changeFeed.publishDocumentDelete(1L);
+        changeFeed.start();
+
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+        assertEquals(List.of(ChangeType.UPSERT, ChangeType.DELETE, ChangeType.DELETE_DOCUMENT),
+            applied.stream().map(VectorChange::type).toList());
+        assertArrayEquals(new float[]{0.6f, 0.8f}, applied.get(0).vector(), 1e-6f);
+        assertEquals(1L, applied.get(2).documentId());
+    }
+
+    @Test
+    void testInvalidChangesIgnored() {
+        changeFeed.publishUpsert(new DocumentVector());
+        changeFeed.publishDelete(null);
+        changeFeed.publishDocumentDelete(null);
+
+        assertEquals(0, changeFeed.getPendingChanges());
+    }
+
+    @Test
+    void testFailedBatchDoesNotStopFeed() throws Exception {
+        CountDownLatch latch = new CountDownLatch(2);
+        doAnswer(invocation -> {
+            latch.countDown();
+            throw new IllegalStateException("boom");
+        }).when(vectorIndexService).applyChanges(anyList());
+        changeFeed.start();
+
+        changeFeed.publishDelete(1L);
+        Thread.sleep(100);
+        changeFeed.publishDelete(2L);
+
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+        verify(vectorIndexService, atLeast(2)).applyChanges(anyList());
+    }
+
+    @Test
+    void testAwaitDrained_WaitsForPublishedChanges() {
+        // 变更流未启动时无法排空，启动后等待此前发布的变更处理完
+        changeFeed.publishDelete(1L);
+        assertFalse(changeFeed.awaitDrained(50));
+
+        changeFeed.start();
+        assertTrue(changeFeed.awaitDrained(5000));
+        verify(vectorIndexService).applyChanges(anyList());
+        assertTrue(changeFeed.awaitDrained(0));
+    }
+}
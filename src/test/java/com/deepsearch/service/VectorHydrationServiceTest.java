@@ -0,0 +1,147 @@
+package com.deepsearch.service;
+
+import com.deepsearch.repository.DocumentVectorRepository;
+import com.deepsearch.service.VectorHydrationService.ChunkText;
+import com.deepsearch.service.VectorHydrationService.HydratedChunks;
+import com.deepsearch.service.VectorHydrationService.HydratedVectors;
+import com.deepsearch.vector.util.Float32VectorConverter;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Pageable;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * VectorHydrationService 单元测试
+ */
+@ExtendWith(MockitoExtension.class)
+class VectorHydrationServiceTest {
+
+    @Mock
+    private DocumentVectorRepository documentVectorRepository;
+
+    @InjectMocks
+    private VectorHydrationService vectorHydrationService;
+
+    @Test
+    void testHydrate_KeepsFirstVectorPerDocument() {
+        // Given
+        List<Long> documentIds = Arrays.asList(1L, 2L, 3L);
+        when(documentVectorRepository.findVectorRowsByDocumentIdIn(documentIds)).thenReturn(Arrays.asList(
+            new Object[]{1L, "[0.6,0.8]", 5.0},
+            new Object[]{1L, "[1.0,0.0]", null},
+            new Object[]{2L, "[3,4]".getBytes(StandardCharsets.UTF_8), null},
+            new Object[]{3L, "not a vector", null}
+        ));
+
+        // When
+        HydratedVectors hydrated = vectorHydrationService.hydrate(documentIds);
+
+        // Then
+        assertEquals(2, hydrated.size());
+        assertArrayEquals(new long[]{1L, 2L}, hydrated.documentIds());
+        assertArrayEquals(new float[]{0.6f, 0.8f}, hydrated.vectors()[0], 1e-6f);
+        assertArrayEquals(new float[]{3f, 4f}, hydrated.vectors()[1], 1e-6f);
+        assertEquals(5.0f, hydrated.norms()[0]);
+        assertTrue(Float.isNaN(hydrated.norms()[1]));
+        verify(documentVectorRepository, times(1)).findVectorRowsByDocumentIdIn(anyCollection());
+    }
+
+    @Test
+    void testHydrateChunks_KeepsEveryChunk() {
+        // Given
+        List<Long> documentIds = Arrays.asList(1L, 2L);
+        when(documentVectorRepository.findChunkRowsByDocumentIdIn(documentIds)).thenReturn(Arrays.asList(
+            new Object[]{1L, 10L, "[0.6,0.8]", 5.0},
+            new Object[]{1L, 11L, "[1.0,0.0]", null},
+            new Object[]{2L, 20L, "broken", null}
+        ));
+
+        // When
+        HydratedChunks chunks = vectorHydrationService.hydrateChunks(documentIds);
+
+        // Then
+        assertEquals(2, chunks.size());
+        assertArrayEquals(new long[]{1L, 1L}, chunks.documentIds());
+        assertArrayEquals(new long[]{10L, 11L}, chunks.chunkIds());
+        assertArrayEquals(new float[]{1f, 0f}, chunks.vectors()[1], 1e-6f);
+        assertEquals(5.0f, chunks.norms()[0]);
+        assertTrue(Float.isNaN(chunks.norms()[1]));
+    }
+
+    @Test
+    void testHydrateChunks_PrefersBinaryColumn() {
+        // Given - 已回填的行只返回二进制副本，未回填的行仍解析 JSON
+        List<Long> documentIds = List.of(1L);
+        when(documentVectorRepository.findChunkRowsByDocumentIdIn(documentIds)).thenReturn(Arrays.asList(
+            new Object[]{1L, 10L, null, 5.0, Float32VectorConverter.encode(new float[]{0.6f, 0.8f})},
+            new Object[]{1L, 11L, "[1.0,0.0]", null, null}
+        ));
+
+        // When
+        HydratedChunks chunks = vectorHydrationService.hydrateChunks(documentIds);
+
+        // Then
+        assertEquals(2, chunks.size());
+        assertArrayEquals(new float[]{0.6f, 0.8f}, chunks.vectors()[0]);
+        assertArrayEquals(new float[]{1f, 0f}, chunks.vectors()[1], 1e-6f);
+        assertEquals(5.0f, chunks.norms()[0]);
+    }
+
+    @Test
+    void testChunkPages_AdvancesCursorPastUnreadableRows() {
+        // Given - 第一页最后一行无法解析，游标仍要越过它
+        when(documentVectorRepository.findChunkRowsAfter(eq(0L), any(Pageable.class))).thenReturn(Arrays.asList(
+            new Object[]{1L, 10L, "[0.6,0.8]", 5.0, null},
+            new Object[]{2L, 20L, "broken", null, null}
+        ));
+        when(documentVectorRepository.findChunkRowsAfter(eq(20L), any(Pageable.class))).thenReturn(Collections.singletonList(
+            new Object[]{3L, 30L, null, null, Float32VectorConverter.encode(new float[]{3f, 4f})}));
+
+        // When
+        List<HydratedChunks> pages = new ArrayList<>();
+        vectorHydrationService.chunkPages(2).forEach(pages::add);
+
+        // Then
+        assertEquals(2, pages.size());
+        assertArrayEquals(new long[]{10L}, pages.get(0).chunkIds());
+        assertArrayEquals(new float[]{3f, 4f}, pages.get(0).restoreScale(0), 1e-6f);
+        assertArrayEquals(new long[]{3L}, pages.get(1).documentIds());
+        assertArrayEquals(new float[]{3f, 4f}, pages.get(1).restoreScale(0), 1e-6f);
+        verify(documentVectorRepository, times(2)).findChunkRowsAfter(anyLong(), any(Pageable.class));
+    }
+
+    @Test
+    void testLoadChunkTexts() {
+        // Given
+        when(documentVectorRepository.findChunkTextsByIdIn(List.of(10L, 11L))).thenReturn(Arrays.asList(
+            new Object[]{10L, 0, "第一段"},
+            new Object[]{11L, 1, null}
+        ));
+
+        // When
+        Map<Long, ChunkText> texts = vectorHydrationService.loadChunkTexts(List.of(10L, 11L));
+
+        // Then
+        assertEquals(new ChunkText(0, "第一段"), texts.get(10L));
+        assertEquals(new ChunkText(1, null), texts.get(11L));
+    }
+
+    @Test
+    void testHydrate_EmptyInput() {
+        assertEquals(0, vectorHydrationService.hydrate(Collections.emptyList()).size());
+        verifyNoInteractions(documentVectorRepository);
+    }
+}
@@ -1,10 +1,18 @@
 package com.deepsearch.service;
 
 import com.deepsearch.entity.DocumentVector;
-import com.deepsearch.repository.DocumentVectorRepository;
+import com.deepsearch.service.VectorHydrationService.ChunkText;
+import com.deepsearch.service.VectorHydrationService.HydratedChunks;
+import com.deepsearch.service.VectorHydrationService.HydratedVectors;
+import com.deepsearch.service.VectorSimilarityService.SearchMode;
 import com.deepsearch.service.VectorSimilarityService.SimilarityAlgorithm;
 import com.deepsearch.service.VectorSimilarityService.SimilarityResult;
+import com.deepsearch.vector.index.AttributeBitmapIndex;
+import com.deepsearch.vector.index.ChunkAggregator;
+import com.deepsearch.vector.index.DocumentBitmap;
 import com.deepsearch.vector.service.VectorProcessingEngine;
+import com.deepsearch.vector.store.MappedVectorStore;
+import com.deepsearch.vector.util.SimilarityKernels;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -32,7 +40,13 @@ class VectorSimilarityServiceTest {
     private VectorProcessingEngine vectorProcessingEngine;
 
     @Mock
-    private DocumentVectorRepository documentVectorRepository;
+    private VectorIndexService vectorIndexService;
+
+    @Mock
+    private VectorStoreService vectorStoreService;
+
+    @Mock
+    private VectorHydrationService vectorHydrationService;
 
     @InjectMocks
     private VectorSimilarityService vectorSimilarityService;
@@ -50,6 +64,7 @@ class VectorSimilarityServiceTest {
         ReflectionTestUtils.setField(vectorSimilarityService, "defaultSimilarityThreshold", 0.7);
         ReflectionTestUtils.setField(vectorSimilarityService, "cacheSize", 10000);
         ReflectionTestUtils.setField(vectorSimilarityService, "batchSize", 100);
+        ReflectionTestUtils.setField(vectorSimilarityService, "clusterIterations", 20);
 
         // 创建测试向量
         testVector1 = Arrays.asList(1.0f, 0.0f, 0.0f); // 单位向量
@@ -198,7 +213,7 @@ class VectorSimilarityServiceTest {
             testDocumentVector1, testDocumentVector2
         );
 
-        when(documentVectorRepository.findAll()).thenReturn(allDocVectors);
+        when(vectorHydrationService.chunkPages(anyInt())).thenReturn(pages(allDocVectors));
 
         // When
         List<SimilarityResult> results = vectorSimilarityService.batchSimilaritySearch(
@@ -213,14 +228,14 @@ class VectorSimilarityServiceTest {
         assertEquals(0.6, result.getSimilarity(), 0.001);
         assertEquals(SimilarityAlgorithm.COSINE, result.getAlgorithm());
 
-        verify(documentVectorRepository).findAll();
+        verify(vectorHydrationService).chunkPages(anyInt());
     }
 
     @Test
     void testBatchSimilaritySearch_EmptyRepository() {
         // Given
         List<Float> queryVector = testVector1;
-        when(documentVectorRepository.findAll()).thenReturn(Collections.emptyList());
+        when(vectorHydrationService.chunkPages(anyInt())).thenReturn(pages(Collections.emptyList()));
 
         // When
         List<SimilarityResult> results = vectorSimilarityService.batchSimilaritySearch(
@@ -243,7 +258,7 @@ class VectorSimilarityServiceTest {
             createTestDocumentVector(3L, Arrays.asList(0.7, 0.714, 0.0))  // 低相似度
         );
 
-        when(documentVectorRepository.findAll()).thenReturn(allDocVectors);
+        when(vectorHydrationService.chunkPages(anyInt())).thenReturn(pages(allDocVectors));
 
         // When
         List<SimilarityResult> results = vectorSimilarityService.batchSimilaritySearch(
@@ -255,18 +270,107 @@ class VectorSimilarityServiceTest {
         assertEquals(1L, results.get(0).getDocumentId()); // 应该是相似度最高的
     }
 
+    @Test
+    void testBatchSimilaritySearch_NormalizedVectorsKeepScores() {
+        // Given: 写入时归一化的向量与原始向量得分一致
+        DocumentVector normalized = createTestDocumentVector(1L, Arrays.asList(3.0, 4.0, 0.0));
+        normalized.normalizeVectorData();
+        DocumentVector raw = createTestDocumentVector(2L, Arrays.asList(3.0, 4.0, 0.0));
+        when(vectorHydrationService.chunkPages(anyInt())).thenReturn(pages(Arrays.asList(normalized, raw)));
+
+        assertTrue(normalized.isNormalized());
+        assertEquals(5.0, normalized.getVectorNorm(), 1e-9);
+        assertEquals(0.6, normalized.getVectorData().get(0), 1e-9);
+
+        // When
+        List<SimilarityResult> cosine = vectorSimilarityService.batchSimilaritySearch(
+            testVector1, 5, SimilarityAlgorithm.COSINE, 0.0, SearchMode.EXACT);
+        List<SimilarityResult> dot = vectorSimilarityService.batchSimilaritySearch(
+            testVector1, 5, SimilarityAlgorithm.DOT_PRODUCT, 0.0, SearchMode.EXACT);
+
+        // Then
+        assertEquals(2, cosine.size());
+        assertEquals(0.6, cosine.get(0).getSimilarity(), 1e-5);
+        assertEquals(cosine.get(0).getSimilarity(), cosine.get(1).getSimilarity(), 1e-5);
+        assertEquals(3.0, dot.get(0).getSimilarity(), 1e-5);
+        assertEquals(dot.get(0).getSimilarity(), dot.get(1).getSimilarity(), 1e-5);
+    }
+
+    @Test
+    void testBatchSimilaritySearch_UsesHnswIndexWhenReady() {
+        // Given
+        SimilarityResult indexed = new SimilarityResult(1L, 0.6, SimilarityAlgorithm.COSINE);
+        when(vectorIndexService.isReady()).thenReturn(true);
+        when(vectorIndexService.supports(SimilarityAlgorithm.COSINE)).thenReturn(true);
+        when(vectorIndexService.search(any(float[].class), eq(5), eq(SimilarityAlgorithm.COSINE), eq(0.5)))
+            .thenReturn(Arrays.asList(indexed));
+
+        // When
+        List<SimilarityResult> results = vectorSimilarityService.batchSimilaritySearch(
+            testVector1, 5, SimilarityAlgorithm.COSINE, 0.5);
+
+        // Then
+        assertEquals(1, results.size());
+        assertEquals(1L, results.get(0).getDocumentId());
+        verify(vectorHydrationService, never()).chunkPages(anyInt());
+    }
+
+    @Test
+    void testBatchSimilaritySearch_ResultCacheReusedUntilIndexVersionChanges() {
+        // Given - 方向相同的查询命中缓存，索引版本变化后重新检索
+        ReflectionTestUtils.setField(vectorSimilarityService, "resultCacheEnabled", true);
+        ReflectionTestUtils.setField(vectorSimilarityService, "cacheSize", 100);
+        ReflectionTestUtils.setField(vectorSimilarityService, "cacheMinCosine", 0.97);
+        ReflectionTestUtils.setField(vectorSimilarityService, "cacheHashBits", 8);
+        when(vectorIndexService.isReady()).thenReturn(true);
+        when(vectorIndexService.supports(SimilarityAlgorithm.COSINE)).thenReturn(true);
+        when(vectorIndexService.getResultVersion()).thenReturn(1L, 1L, 2L);
+        when(vectorIndexService.search(any(float[].class), eq(5), eq(SimilarityAlgorithm.COSINE), eq(0.5)))
+            .thenAnswer(invocation -> new ArrayList<>(List.of(new SimilarityResult(1L, 0.6, SimilarityAlgorithm.COSINE))));
+        List<Float> scaled = new ArrayList<>();
+        for (Float value : testVector1) {
+            scaled.add(value * 3f);
+        }
+
+        // When
+        List<SimilarityResult> first = vectorSimilarityService.batchSimilaritySearch(
+            testVector1, 5, SimilarityAlgorithm.COSINE, 0.5);
+        first.get(0).getMetadata().put("modified", true);
+        List<SimilarityResult> cached = vectorSimilarityService.batchSimilaritySearch(
+            scaled, 5, SimilarityAlgorithm.COSINE, 0.5);
+        vectorSimilarityService.batchSimilaritySearch(scaled, 5, SimilarityAlgorithm.COSINE, 0.5);
+
+        // Then
+        assertEquals(1L, cached.get(0).getDocumentId());
+        assertFalse(cached.get(0).getMetadata().containsKey("modified"));
+        verify(vectorIndexService, times(2)).search(any(float[].class), eq(5), eq(SimilarityAlgorithm.COSINE), eq(0.5));
+    }
+
+    @Test
+    void testBatchSimilaritySearch_ExactModeBypassesIndex() {
+        // Given
+        when(vectorHydrationService.chunkPages(anyInt()))
+            .thenReturn(pages(Arrays.asList(testDocumentVector1, testDocumentVector2)));
+
+        // When
+        List<SimilarityResult> results = vectorSimilarityService.batchSimilaritySearch(
+            testVector1, 5, SimilarityAlgorithm.COSINE, 0.5, SearchMode.EXACT);
+
+        // Then
+        assertEquals(1, results.size());
+        assertEquals(1L, results.get(0).getDocumentId());
+        verify(vectorIndexService, never()).search(any(float[].class), anyInt(), any(), anyDouble());
+    }
+
     @Test
     void testCalculateSimilarities_BatchProcessing() {
         // Given
         List<Float> queryVector = testVector1;
         List<Long> documentIds = Arrays.asList(1L, 2L, 3L);
 
-        when(documentVectorRepository.findByDocumentId(1L))
-            .thenReturn(Arrays.asList(testDocumentVector1));
-        when(documentVectorRepository.findByDocumentId(2L))
-            .thenReturn(Arrays.asList(testDocumentVector2));
-        when(documentVectorRepository.findByDocumentId(3L))
-            .thenReturn(Collections.emptyList()); // 模拟不存在的文档
+        // 文档3不存在，批量加载结果中没有它
+        when(vectorHydrationService.hydrateChunks(anyCollection()))
+            .thenReturn(chunks(testDocumentVector1, testDocumentVector2));
 
         // When
         List<SimilarityResult> results = vectorSimilarityService.calculateSimilarities(
@@ -276,9 +380,26 @@ class VectorSimilarityServiceTest {
         assertNotNull(results);
         assertEquals(1, results.size()); // 只有一个超过阈值0.5
 
-        verify(documentVectorRepository).findByDocumentId(1L);
-        verify(documentVectorRepository).findByDocumentId(2L);
-        verify(documentVectorRepository).findByDocumentId(3L);
+        verify(vectorHydrationService, times(1)).hydrateChunks(documentIds);
+    }
+
+    @Test
+    void testCalculateSimilarities_HydratesEachBatchOnce() {
+        // Given
+        ReflectionTestUtils.setField(vectorSimilarityService, "batchSize", 1);
+        when(vectorHydrationService.hydrateChunks(List.of(1L))).thenReturn(chunks(testDocumentVector1));
+        when(vectorHydrationService.hydrateChunks(List.of(2L))).thenReturn(chunks(testDocumentVector2));
+        when(vectorHydrationService.hydrateChunks(List.of(3L))).thenReturn(HydratedChunks.EMPTY);
+
+        // When
+        List<SimilarityResult> results = vectorSimilarityService.calculateSimilarities(
+            testVector1, Arrays.asList(1L, 2L, 3L), SimilarityAlgorithm.COSINE, 0.0);
+
+        // Then
+        assertEquals(2, results.size());
+        assertEquals(1L, results.get(0).getDocumentId());
+        assertEquals(0.6, results.get(0).getSimilarity(), 0.001);
+        verify(vectorHydrationService, times(3)).hydrateChunks(anyCollection());
     }
 
     @Test
@@ -297,6 +418,31 @@ class VectorSimilarityServiceTest {
             testVector1, Collections.emptyList(), SimilarityAlgorithm.COSINE, 0.5).isEmpty());
     }
 
+    @Test
+    void testBatchSimilaritySearch_ScansVectorStoreWhenAvailable() {
+        // Given
+        when(vectorStoreService.isAvailable()).thenReturn(true);
+        when(vectorStoreService.getDimension()).thenReturn(testVector1.size());
+        float[] query = toArray(testVector1);
+        float[] other = toArray(testVector2);
+        doAnswer(invocation -> {
+            MappedVectorStore.DotVisitor visitor = invocation.getArgument(1);
+            visitor.visit(11L, 1L, SimilarityKernels.dot(query, query), SimilarityKernels.squaredNorm(query));
+            visitor.visit(12L, 2L, SimilarityKernels.dot(query, other), SimilarityKernels.squaredNorm(other));
+            return null;
+        }).when(vectorStoreService).scanDots(any(float[].class), any());
+
+        // When
+        List<SimilarityResult> results = vectorSimilarityService.batchSimilaritySearch(
+            testVector1, 5, SimilarityAlgorithm.COSINE, 0.0, SearchMode.EXACT);
+
+        // Then
+        assertEquals(2, results.size());
+        assertEquals(1L, results.get(0).getDocumentId());
+        assertEquals(1.0, results.get(0).getSimilarity(), 0.001);
+        verify(vectorHydrationService, never()).chunkPages(anyInt());
+    }
+
     @Test
     void testApproximateNearestNeighborSearch() {
         // Given
@@ -305,15 +451,12 @@ class VectorSimilarityServiceTest {
         double approximationFactor = 1.1;
 
         // Mock LSH候选查找
-        List<DocumentVector> candidateVectors = Arrays.asList(
-            testDocumentVector1, testDocumentVector2
-        );
-        when(documentVectorRepository.findAll()).thenReturn(candidateVectors);
+        when(vectorIndexService.isLshReady()).thenReturn(true);
+        when(vectorIndexService.findLshCandidates(any(float[].class), anyInt()))
+            .thenReturn(Arrays.asList(1L, 2L));
 
-        when(documentVectorRepository.findByDocumentId(1L))
-            .thenReturn(Arrays.asList(testDocumentVector1));
-        when(documentVectorRepository.findByDocumentId(2L))
-            .thenReturn(Arrays.asList(testDocumentVector2));
+        when(vectorHydrationService.hydrateChunks(anyCollection()))
+            .thenReturn(chunks(testDocumentVector1, testDocumentVector2));
 
         // When
         List<SimilarityResult> results = vectorSimilarityService.approximateNearestNeighborSearch(
@@ -325,6 +468,413 @@ class VectorSimilarityServiceTest {
         assertTrue(results.size() <= topK);
     }
 
+    @Test
+    void testApproximateNearestNeighborSearch_FallsBackWhenLshNotReady() {
+        // Given
+        when(vectorIndexService.isLshReady()).thenReturn(false);
+        when(vectorHydrationService.chunkPages(anyInt()))
+            .thenReturn(pages(Arrays.asList(testDocumentVector1, testDocumentVector2)));
+
+        // When
+        List<SimilarityResult> results = vectorSimilarityService.approximateNearestNeighborSearch(
+            testVector1, 5, 1.0);
+
+        // Then
+        assertEquals(2, results.size());
+        assertEquals(1L, results.get(0).getDocumentId());
+        verify(vectorIndexService, never()).findLshCandidates(any(float[].class), anyInt());
+    }
+
+    @Test
+    void testBinaryQuantizedSearch_ReranksOversampledCandidates() {
+        // Given
+        when(vectorIndexService.isBinaryReady()).thenReturn(true);
+        when(vectorIndexService.findBinaryCandidates(any(float[].class), eq(6)))
+            .thenReturn(Arrays.asList(2L, 1L));
+        when(vectorHydrationService.hydrateChunks(anyCollection()))
+            .thenReturn(chunks(testDocumentVector1, testDocumentVector2));
+
+        // When
+        List<SimilarityResult> results = vectorSimilarityService.binaryQuantizedSearch(
+            toArray(testVector1), 2, 3, 0.0);
+
+        // Then - 精确重排后文档1（余弦0.6）排在文档2（余弦0）之前
+        assertEquals(2, results.size());
+        assertEquals(1L, results.get(0).getDocumentId());
+        assertEquals(0.6, results.get(0).getSimilarity(), 0.001);
+        assertEquals("BINARY", results.get(0).getMetadata().get("searchMode"));
+        assertEquals(3, results.get(0).getMetadata().get("oversampling"));
+    }
+
+    @Test
+    void testSearchSimilar_BinaryModeReranksWithRequestedAlgorithm() {
+        // Given
+        ReflectionTestUtils.setField(vectorSimilarityService, "binaryOversampling", 3);
+        when(vectorIndexService.isBinaryReady()).thenReturn(true);
+        when(vectorIndexService.findBinaryCandidates(any(float[].class), eq(6)))
+            .thenReturn(Arrays.asList(2L, 1L));
+        when(vectorHydrationService.hydrateChunks(anyCollection()))
+            .thenReturn(chunks(testDocumentVector1, testDocumentVector2));
+
+        // When
+        List<SimilarityResult> results = vectorSimilarityService.searchSimilar(
+            toArray(testVector1), 2, SimilarityAlgorithm.EUCLIDEAN, 0.0, SearchMode.BINARY);
+
+        // Then - 重排得分按欧氏距离计算，而不是余弦
+        assertEquals(2, results.size());
+        assertEquals(SimilarityAlgorithm.EUCLIDEAN, results.get(0).getAlgorithm());
+        double expected = vectorSimilarityService.computeSimilarity(
+            toArray(testVector1), new float[]{0.6f, 0.8f, 0.0f}, SimilarityAlgorithm.EUCLIDEAN);
+        assertEquals(1L, results.get(0).getDocumentId());
+        assertEquals(expected, results.get(0).getSimilarity(), 0.001);
+    }
+
+    @Test
+    void testSearchSimilar_ProjectedModeUsesPcaIndex() {
+        // Given
+        SimilarityResult projected = new SimilarityResult(2L, 0.9, SimilarityAlgorithm.COSINE);
+        when(vectorIndexService.isProjectedReady()).thenReturn(true);
+        when(vectorIndexService.searchProjected(any(float[].class), eq(5), eq(SimilarityAlgorithm.COSINE), eq(0.5)))
+            .thenReturn(new ArrayList<>(List.of(projected)));
+
+        // When
+        List<SimilarityResult> results = vectorSimilarityService.searchSimilar(
+            toArray(testVector1), 5, SimilarityAlgorithm.COSINE, 0.5, SearchMode.PROJECTED);
+
+        // Then
+        assertEquals(1, results.size());
+        assertEquals(2L, results.get(0).getDocumentId());
+        verify(vectorHydrationService, never()).chunkPages(anyInt());
+    }
+
+    @Test
+    void testSearchSimilar_ProjectedModeFallsBackToExact() {
+        // Given - 降维索引未就绪
+        when(vectorIndexService.isProjectedReady()).thenReturn(false);
+        when(vectorHydrationService.chunkPages(anyInt())).thenReturn(pages(Arrays.asList(testDocumentVector1)));
+
+        // When
+        List<SimilarityResult> results = vectorSimilarityService.searchSimilar(
+            toArray(testVector1), 5, SimilarityAlgorithm.COSINE, 0.5, SearchMode.PROJECTED);
+
+        // Then
+        assertEquals(1, results.size());
+        verify(vectorIndexService, never()).searchProjected(any(float[].class), anyInt(), any(), anyDouble());
+    }
+
+    @Test
+    void testEvaluateBinaryRecall_ComparesWithExactPath() {
+        // Given - 精确路径返回文档1和2，二值候选只召回文档1
+        when(vectorIndexService.isBinaryReady()).thenReturn(true);
+        when(vectorHydrationService.chunkPages(anyInt()))
+            .thenReturn(pages(Arrays.asList(testDocumentVector1, testDocumentVector2)));
+        when(vectorIndexService.findBinaryCandidates(any(float[].class), anyInt()))
+            .thenReturn(Arrays.asList(1L));
+        when(vectorHydrationService.hydrateChunks(anyCollection()))
+            .thenReturn(chunks(testDocumentVector1));
+
+        // When
+        double recall = vectorSimilarityService.evaluateBinaryRecall(toArray(testVector1), 2, 4);
+
+        // Then
+        assertEquals(0.5, recall, 1e-9);
+        verify(vectorIndexService).recordBinaryRecall(0.5);
+    }
+
+    @Test
+    void testCalculateSimilarities_MaxSimAcrossChunksWithSnippet() {
+        // Given - 文档1的第二个分块最相似，文档2只有一个分块
+        DocumentVector firstChunk = createTestDocumentVector(1L, Arrays.asList(0.0, 1.0, 0.0));
+        DocumentVector secondChunk = createTestDocumentVector(1L, Arrays.asList(0.6, 0.8, 0.0));
+        secondChunk.setId(11L);
+        DocumentVector otherDocument = createTestDocumentVector(2L, Arrays.asList(0.3, 0.954, 0.0));
+        when(vectorHydrationService.hydrateChunks(anyCollection()))
+            .thenReturn(chunks(firstChunk, secondChunk, otherDocument));
+        when(vectorHydrationService.loadChunkTexts(anyCollection()))
+            .thenReturn(Map.of(11L, new ChunkText(1, "第二段内容")));
+
+        // When
+        List<SimilarityResult> results = vectorSimilarityService.calculateSimilarities(
+            testVector1, Arrays.asList(1L, 2L), SimilarityAlgorithm.COSINE, 0.0);
+
+        // Then
+        assertEquals(2, results.size());
+        assertEquals(1L, results.get(0).getDocumentId());
+        assertEquals(0.6, results.get(0).getSimilarity(), 0.001);
+        assertEquals(11L, results.get(0).getMetadata().get("chunkId"));
+        assertEquals(2, results.get(0).getMetadata().get("matchedChunks"));
+        assertEquals(1, results.get(0).getMetadata().get("chunkIndex"));
+        assertEquals("第二段内容", results.get(0).getMetadata().get("snippet"));
+        assertNull(results.get(1).getMetadata().get("snippet"));
+    }
+
+    @Test
+    void testCalculateSimilarities_TopMMeanAggregation() {
+        // Given - 文档1一个分块完全匹配、一个正交；文档2两个分块都中等相似
+        ReflectionTestUtils.setField(vectorSimilarityService, "chunkAggregation", ChunkAggregator.Aggregation.TOP_M_MEAN);
+        ReflectionTestUtils.setField(vectorSimilarityService, "chunkTopM", 2);
+        DocumentVector exact = createTestDocumentVector(1L, Arrays.asList(1.0, 0.0, 0.0));
+        DocumentVector orthogonal = createTestDocumentVector(1L, Arrays.asList(0.0, 1.0, 0.0));
+        orthogonal.setId(11L);
+        DocumentVector partial = createTestDocumentVector(2L, Arrays.asList(0.6, 0.8, 0.0));
+        DocumentVector partialAgain = createTestDocumentVector(2L, Arrays.asList(0.6, 0.0, 0.8));
+        partialAgain.setId(21L);
+        when(vectorHydrationService.hydrateChunks(anyCollection()))
+            .thenReturn(chunks(exact, orthogonal, partial, partialAgain));
+
+        // When
+        List<SimilarityResult> results = vectorSimilarityService.calculateSimilarities(
+            testVector1, Arrays.asList(1L, 2L), SimilarityAlgorithm.COSINE, 0.0);
+
+        // Then
+        assertEquals(2L, results.get(0).getDocumentId());
+        assertEquals(0.6, results.get(0).getSimilarity(), 0.001);
+        assertEquals(0.5, results.get(1).getSimilarity(), 0.001);
+        assertEquals(1L, results.get(1).getMetadata().get("chunkId"));
+    }
+
+    @Test
+    void testBatchSimilaritySearch_StoreScanAggregatesChunks() {
+        // Given - 同一文档的两个分块只返回一条结果
+        when(vectorStoreService.isAvailable()).thenReturn(true);
+        when(vectorStoreService.getDimension()).thenReturn(testVector1.size());
+        float[] query = toArray(testVector1);
+        float[] other = toArray(testVector2);
+        doAnswer(invocation -> {
+            MappedVectorStore.DotVisitor visitor = invocation.getArgument(1);
+            visitor.visit(11L, 1L, SimilarityKernels.dot(query, other), SimilarityKernels.squaredNorm(other));
+            visitor.visit(12L, 1L, SimilarityKernels.dot(query, query), SimilarityKernels.squaredNorm(query));
+            visitor.visit(21L, 2L, SimilarityKernels.dot(query, other), SimilarityKernels.squaredNorm(other));
+            return null;
+        }).when(vectorStoreService).scanDots(any(float[].class), any());
+
+        // When
+        List<SimilarityResult> results = vectorSimilarityService.batchSimilaritySearch(
+            testVector1, 2, SimilarityAlgorithm.COSINE, 0.0, SearchMode.EXACT);
+
+        // Then
+        assertEquals(2, results.size());
+        assertEquals(1L, results.get(0).getDocumentId());
+        assertEquals(1.0, results.get(0).getSimilarity(), 0.001);
+        assertEquals(12L, results.get(0).getMetadata().get("chunkId"));
+        assertEquals(2L, results.get(1).getDocumentId());
+    }
+
+    @Test
+    void testBatchSimilaritySearch_ShardedStoreScanMergesShards() {
+        // Given - 两个分片各扫描一段记录，文档1的分块跨越两个分片
+        ReflectionTestUtils.setField(vectorSimilarityService, "scanWorkers", 2);
+        ReflectionTestUtils.setField(vectorSimilarityService, "scanParallelism", 2);
+        ReflectionTestUtils.setField(vectorSimilarityService, "scanMaxConcurrentQueries", 1);
+        ReflectionTestUtils.setField(vectorSimilarityService, "scanMinShardRecords", 1);
+        when(vectorStoreService.isAvailable()).thenReturn(true);
+        when(vectorStoreService.getDimension()).thenReturn(testVector1.size());
+        MappedVectorStore.View view = mock(MappedVectorStore.View.class);
+        when(vectorStoreService.view()).thenReturn(view);
+        when(view.recordCount()).thenReturn(4L);
+        float[] query = toArray(testVector1);
+        float[] other = toArray(testVector2);
+        doAnswer(invocation -> {
+            long from = invocation.getArgument(1);
+            MappedVectorStore.DotVisitor visitor = invocation.getArgument(3);
+            if (from == 0) {
+                visitor.visit(11L, 1L, SimilarityKernels.dot(query, other), SimilarityKernels.squaredNorm(other));
+                visitor.visit(21L, 2L, SimilarityKernels.dot(query, other), SimilarityKernels.squaredNorm(other));
+            } else {
+                visitor.visit(12L, 1L, SimilarityKernels.dot(query, query), SimilarityKernels.squaredNorm(query));
+                visitor.visit(31L, 3L, 0f, 1f);
+            }
+            return null;
+        }).when(view).scanDots(any(float[].class), anyLong(), anyLong(), any());
+
+        // When
+        List<SimilarityResult> results = vectorSimilarityService.batchSimilaritySearch(
+            testVector1, 2, SimilarityAlgorithm.COSINE, 0.0, SearchMode.EXACT);
+        vectorSimilarityService.destroy();
+
+        // Then
+        assertEquals(2, results.size());
+        assertEquals(1L, results.get(0).getDocumentId());
+        assertEquals(12L, results.get(0).getMetadata().get("chunkId"));
+        assertEquals(2L, results.get(1).getDocumentId());
+        verify(vectorStoreService, never()).scanDots(any(float[].class), any());
+    }
+
+    @Test
+    void testMultiQuerySearch_SingleScanCombinesQueries() {
+        // Given - 两个查询在同一次扫描中打分，文档2只与扩展查询相似
+        ReflectionTestUtils.setField(vectorSimilarityService, "scanMaxConcurrentQueries", 1);
+        ReflectionTestUtils.setField(vectorSimilarityService, "scanMinShardRecords", 8192);
+        when(vectorStoreService.isAvailable()).thenReturn(true);
+        when(vectorStoreService.getDimension()).thenReturn(2);
+        MappedVectorStore.View view = mock(MappedVectorStore.View.class);
+        when(vectorStoreService.view()).thenReturn(view);
+        when(view.recordCount()).thenReturn(2L);
+        doAnswer(invocation -> {
+            float[][] queries = invocation.getArgument(0);
+            MappedVectorStore.MultiDotVisitor visitor = invocation.getArgument(3);
+            float[] first = {1f, 0f};
+            float[] second = {0f, 1f};
+            float[] dots = new float[queries.length];
+            for (int q = 0; q < queries.length; q++) {
+                dots[q] = SimilarityKernels.dot(queries[q], first);
+            }
+            visitor.visit(11L, 1L, dots, 1f);
+            dots = new float[queries.length];
+            for (int q = 0; q < queries.length; q++) {
+                dots[q] = SimilarityKernels.dot(queries[q], second);
+            }
+            visitor.visit(21L, 2L, dots, 1f);
+            return null;
+        }).when(view).scanDots(any(float[][].class), anyLong(), anyLong(), any());
+
+        // When
+        List<SimilarityResult> results = vectorSimilarityService.multiQuerySearch(
+            List.of(new float[]{1f, 0f}, new float[]{0f, 1f}), new float[]{1.0f, 0.5f}, 10,
+            SimilarityAlgorithm.COSINE, 0.0, ChunkAggregator.Combination.MAX);
+        vectorSimilarityService.destroy();
+
+        // Then
+        assertEquals(2, results.size());
+        assertEquals(1L, results.get(0).getDocumentId());
+        assertEquals(1.0, results.get(0).getSimilarity(), 0.001);
+        assertEquals(2L, results.get(1).getDocumentId());
+        assertEquals(0.5, results.get(1).getSimilarity(), 0.001);
+        assertEquals(21L, results.get(1).getMetadata().get("chunkId"));
+        assertEquals("MULTI_QUERY", results.get(0).getMetadata().get("searchMode"));
+        verify(view, times(1)).scanDots(any(float[][].class), anyLong(), anyLong(), any());
+        assertThrows(IllegalArgumentException.class, () -> vectorSimilarityService.multiQuerySearch(
+            List.of(new float[]{1f, 0f}, new float[]{0f, 1f}), new float[]{1.0f}, 10,
+            SimilarityAlgorithm.COSINE, 0.0, ChunkAggregator.Combination.MAX));
+    }
+
+    @Test
+    void testMultiQuerySearch_FilterExcludesDocumentsBeforeTopK() {
+        // Given - 文档1得分最高但不满足过滤条件，不能占用唯一的名额
+        ReflectionTestUtils.setField(vectorSimilarityService, "scanMaxConcurrentQueries", 1);
+        ReflectionTestUtils.setField(vectorSimilarityService, "scanMinShardRecords", 8192);
+        AttributeBitmapIndex.Filter filter = new AttributeBitmapIndex.Filter(null, null, List.of("INDEXED"));
+        when(vectorIndexService.filterDocuments(filter)).thenReturn(DocumentBitmap.of(2));
+        when(vectorStoreService.isAvailable()).thenReturn(true);
+        when(vectorStoreService.getDimension()).thenReturn(2);
+        MappedVectorStore.View view = mock(MappedVectorStore.View.class);
+        when(vectorStoreService.view()).thenReturn(view);
+        when(view.recordCount()).thenReturn(2L);
+        doAnswer(invocation -> {
+            MappedVectorStore.MultiDotVisitor visitor = invocation.getArgument(3);
+            visitor.visit(11L, 1L, new float[]{1f, 1f}, 1f);
+            visitor.visit(21L, 2L, new float[]{0.5f, 0.5f}, 1f);
+            return null;
+        }).when(view).scanDots(any(float[][].class), anyLong(), anyLong(), any());
+
+        // When
+        List<SimilarityResult> results = vectorSimilarityService.multiQuerySearch(
+            List.of(new float[]{1f, 0f}, new float[]{0f, 1f}), null, 1,
+            SimilarityAlgorithm.COSINE, 0.0, ChunkAggregator.Combination.MAX, filter);
+        vectorSimilarityService.destroy();
+
+        // Then
+        assertEquals(1, results.size());
+        assertEquals(2L, results.get(0).getDocumentId());
+    }
+
+    @Test
+    void testSearchSimilar_SmallFilteredSetScoredExactly() {
+        // Given - 过滤后只剩文档2，直接精确打分，不走索引
+        ReflectionTestUtils.setField(vectorSimilarityService, "filterExactThreshold", 2000);
+        AttributeBitmapIndex.Filter filter = AttributeBitmapIndex.Filter.of("space-a", List.of("web"));
+        when(vectorIndexService.filterDocuments(filter)).thenReturn(DocumentBitmap.of(2));
+        when(vectorHydrationService.hydrateChunks(anyCollection())).thenReturn(chunks(testDocumentVector2));
+
+        // When
+        List<SimilarityResult> results = vectorSimilarityService.searchSimilar(
+            toArray(testVector3), 5, SimilarityAlgorithm.COSINE, 0.5, filter);
+
+        // Then
+        assertEquals(1, results.size());
+        assertEquals(2L, results.get(0).getDocumentId());
+        verify(vectorHydrationService).hydrateChunks(List.of(2L));
+        verify(vectorIndexService, never()).searchFiltered(any(float[].class), anyInt(), any(), anyDouble(), any());
+    }
+
+    @Test
+    void testSearchSimilar_LargeFilteredSetUsesFilteredIndex() {
+        // Given
+        ReflectionTestUtils.setField(vectorSimilarityService, "filterExactThreshold", 1);
+        AttributeBitmapIndex.Filter filter = AttributeBitmapIndex.Filter.of("space-a", null);
+        DocumentBitmap allowed = DocumentBitmap.of(1, 2);
+        when(vectorIndexService.filterDocuments(filter)).thenReturn(allowed);
+        when(vectorIndexService.filterSelectivity(allowed)).thenReturn(0.5);
+        when(vectorIndexService.supportsFiltered(SimilarityAlgorithm.COSINE)).thenReturn(true);
+        when(vectorIndexService.searchFiltered(any(float[].class), eq(5), eq(SimilarityAlgorithm.COSINE), eq(0.5), eq(allowed)))
+            .thenReturn(new ArrayList<>(List.of(new SimilarityResult(1L, 0.9, SimilarityAlgorithm.COSINE))));
+
+        // When
+        List<SimilarityResult> results = vectorSimilarityService.searchSimilar(
+            toArray(testVector1), 5, SimilarityAlgorithm.COSINE, 0.5, filter);
+
+        // Then
+        assertEquals(1, results.size());
+        assertEquals(1L, results.get(0).getDocumentId());
+        verify(vectorHydrationService, never()).hydrateChunks(anyCollection());
+    }
+
+    @Test
+    void testSearchSimilar_SparseFilterSkipsGraphTraversal() {
+        // Given - 允许的文档占比过低，即使索引可用也不走过滤图遍历
+        ReflectionTestUtils.setField(vectorSimilarityService, "filterExactThreshold", 1);
+        AttributeBitmapIndex.Filter filter = AttributeBitmapIndex.Filter.of("space-a", null);
+        DocumentBitmap allowed = DocumentBitmap.of(1, 2);
+        when(vectorIndexService.filterDocuments(filter)).thenReturn(allowed);
+        when(vectorIndexService.filterSelectivity(allowed)).thenReturn(0.01);
+        when(vectorStoreService.isAvailable()).thenReturn(true);
+        when(vectorStoreService.getDimension()).thenReturn(testVector1.size());
+
+        // When
+        vectorSimilarityService.searchSimilar(toArray(testVector1), 5, SimilarityAlgorithm.COSINE, 0.5, filter);
+
+        // Then
+        verify(vectorIndexService, never()).searchFiltered(any(float[].class), anyInt(), any(), anyDouble(), any());
+        verify(vectorStoreService).scanDots(any(float[].class), any());
+    }
+
+    @Test
+    void testSearchSimilar_FilteredStoreScanSkipsOtherDocuments() {
+        // Given - 索引不可用时扫描向量存储，只保留允许的文档
+        ReflectionTestUtils.setField(vectorSimilarityService, "filterExactThreshold", 1);
+        AttributeBitmapIndex.Filter filter = new AttributeBitmapIndex.Filter(null, null, List.of("INDEXED"));
+        when(vectorIndexService.filterDocuments(filter)).thenReturn(DocumentBitmap.of(2, 3));
+        when(vectorStoreService.isAvailable()).thenReturn(true);
+        when(vectorStoreService.getDimension()).thenReturn(testVector1.size());
+        float[] query = toArray(testVector1);
+        float[] other = toArray(testVector2);
+        doAnswer(invocation -> {
+            MappedVectorStore.DotVisitor visitor = invocation.getArgument(1);
+            visitor.visit(11L, 1L, SimilarityKernels.dot(query, query), SimilarityKernels.squaredNorm(query));
+            visitor.visit(21L, 2L, SimilarityKernels.dot(query, other), SimilarityKernels.squaredNorm(other));
+            return null;
+        }).when(vectorStoreService).scanDots(any(float[].class), any());
+
+        // When
+        List<SimilarityResult> results = vectorSimilarityService.searchSimilar(
+            query, 5, SimilarityAlgorithm.COSINE, 0.0, filter);
+
+        // Then
+        assertEquals(1, results.size());
+        assertEquals(2L, results.get(0).getDocumentId());
+        assertEquals(0.6, results.get(0).getSimilarity(), 0.001);
+    }
+
+    @Test
+    void testSearchSimilar_EmptyFilterResultReturnsNothing() {
+        AttributeBitmapIndex.Filter filter = AttributeBitmapIndex.Filter.of("space-x", null);
+        when(vectorIndexService.filterDocuments(filter)).thenReturn(new DocumentBitmap());
+
+        assertTrue(vectorSimilarityService.searchSimilar(
+            toArray(testVector1), 5, SimilarityAlgorithm.COSINE, 0.0, filter).isEmpty());
+        verifyNoInteractions(vectorStoreService, vectorHydrationService);
+    }
+
     @Test
     void testClusterSimilarityAnalysis() {
         // Given
@@ -339,7 +889,9 @@ class VectorSimilarityServiceTest {
             createTestDocumentVector(4L, Arrays.asList(0.6, 0.8, 0.0))
         );
 
-        when(documentVectorRepository.findAll()).thenReturn(allDocVectors);
+        when(vectorHydrationService.chunkPages(anyInt())).thenReturn(pages(allDocVectors));
+        when(vectorHydrationService.hydrate(anyCollection()))
+            .thenReturn(hydrated(allDocVectors.toArray(new DocumentVector[0])));
 
         // When
         Map<String, List<SimilarityResult>> clusters = vectorSimilarityService.clusterSimilarityAnalysis(
@@ -349,6 +901,36 @@ class VectorSimilarityServiceTest {
         assertNotNull(clusters);
         assertFalse(clusters.isEmpty());
         assertTrue(clusters.size() <= clustersCount);
+        assertEquals(4, clusters.values().stream().mapToInt(List::size).sum());
+    }
+
+    @Test
+    void testClusterSimilarDocuments_SeparatesDirections() {
+        // Given - 两组方向明显不同的文档
+        List<DocumentVector> allDocVectors = Arrays.asList(
+            createTestDocumentVector(1L, Arrays.asList(0.9, 0.1, 0.42)),
+            createTestDocumentVector(2L, Arrays.asList(0.85, 0.15, 0.5)),
+            createTestDocumentVector(3L, Arrays.asList(0.9, 0.42, 0.1)),
+            createTestDocumentVector(4L, Arrays.asList(0.85, 0.5, 0.15))
+        );
+        when(vectorHydrationService.chunkPages(anyInt())).thenReturn(pages(allDocVectors));
+        when(vectorHydrationService.hydrate(anyCollection()))
+            .thenReturn(hydrated(allDocVectors.toArray(new DocumentVector[0])));
+
+        // When
+        List<VectorSimilarityService.DocumentCluster> clusters =
+            vectorSimilarityService.clusterSimilarDocuments(testVector1, 2, 0.1);
+
+        // Then
+        assertEquals(2, clusters.size());
+        Set<Set<Long>> memberSets = new HashSet<>();
+        for (VectorSimilarityService.DocumentCluster cluster : clusters) {
+            assertEquals(3, cluster.centroid().length);
+            Set<Long> ids = new HashSet<>();
+            cluster.members().forEach(member -> ids.add(member.getDocumentId()));
+            memberSets.add(ids);
+        }
+        assertEquals(Set.of(Set.of(1L, 2L), Set.of(3L, 4L)), memberSets);
     }
 
     @Test
@@ -362,7 +944,7 @@ class VectorSimilarityServiceTest {
             testDocumentVector1, testDocumentVector2 // 只有2个文档
         );
 
-        when(documentVectorRepository.findAll()).thenReturn(allDocVectors);
+        when(vectorHydrationService.chunkPages(anyInt())).thenReturn(pages(allDocVectors));
 
         // When
         Map<String, List<SimilarityResult>> clusters = vectorSimilarityService.clusterSimilarityAnalysis(
@@ -380,7 +962,7 @@ class VectorSimilarityServiceTest {
         DocumentVector docVector = createTestDocumentVector(1L, Arrays.asList(1.0, 2.0, 3.0));
 
         // When - 通过batchSimilaritySearch间接测试反序列化
-        when(documentVectorRepository.findAll()).thenReturn(Arrays.asList(docVector));
+        when(vectorHydrationService.chunkPages(anyInt())).thenReturn(pages(Arrays.asList(docVector)));
 
         List<SimilarityResult> results = vectorSimilarityService.batchSimilaritySearch(
             Arrays.asList(1.0f, 2.0f, 3.0f), 10, SimilarityAlgorithm.DOT_PRODUCT, 0.0);
@@ -397,7 +979,7 @@ class VectorSimilarityServiceTest {
         DocumentVector docVector = createTestDocumentVector(1L, null);
 
         // When
-        when(documentVectorRepository.findAll()).thenReturn(Arrays.asList(docVector));
+        when(vectorHydrationService.chunkPages(anyInt())).thenReturn(pages(Arrays.asList(docVector)));
 
         List<SimilarityResult> results = vectorSimilarityService.batchSimilaritySearch(
             testVector1, 10, SimilarityAlgorithm.COSINE, 0.0);
@@ -445,4 +1027,42 @@ class VectorSimilarityServiceTest {
         docVector.setCreatedAt(LocalDateTime.now());
         return docVector;
     }
-}
\ No newline at end of file
+
+    private HydratedVectors hydrated(DocumentVector... docVectors) {
+        long[] ids = new long[docVectors.length];
+        float[][] vectors = new float[docVectors.length][];
+        float[] norms = new float[docVectors.length];
+        for (int i = 0; i < docVectors.length; i++) {
+            ids[i] = docVectors[i].getDocumentId();
+            vectors[i] = docVectors[i].toFloatArray(false);
+            norms[i] = docVectors[i].isNormalized() ? (float) docVectors[i].getVectorNorm() : Float.NaN;
+        }
+        return new HydratedVectors(ids, vectors, norms);
+    }
+
+    private List<HydratedChunks> pages(List<DocumentVector> docVectors) {
+        return docVectors.isEmpty() ? List.of() : List.of(chunks(docVectors.toArray(new DocumentVector[0])));
+    }
+
+    private HydratedChunks chunks(DocumentVector... docVectors) {
+        long[] documentIds = new long[docVectors.length];
+        long[] chunkIds = new long[docVectors.length];
+        float[][] vectors = new float[docVectors.length][];
+        float[] norms = new float[docVectors.length];
+        for (int i = 0; i < docVectors.length; i++) {
+            documentIds[i] = docVectors[i].getDocumentId();
+            chunkIds[i] = docVectors[i].getId();
+            vectors[i] = docVectors[i].toFloatArray(false);
+            norms[i] = docVectors[i].isNormalized() ? (float) docVectors[i].getVectorNorm() : Float.NaN;
+        }
+        return new HydratedChunks(documentIds, chunkIds, vectors, norms);
+    }
+
+    private float[] toArray(List<Float> values) {
+        float[] result = new float[values.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = values.get(i);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,72 @@
+package com.deepsearch.vector.index;
+
+import com.deepsearch.vector.index.AttributeBitmapIndex.Attribute;
+import com.deepsearch.vector.index.AttributeBitmapIndex.Filter;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * AttributeBitmapIndex 单元测试
+ */
+class AttributeBitmapIndexTest {
+
+    private AttributeBitmapIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new AttributeBitmapIndex();
+        index.put(1L, "space-a", "web", "INDEXED");
+        index.put(2L, "space-a", "app", "INDEXED");
+        index.put(3L, "space-b", "web", "INDEXED");
+        index.put(4L, "space-a", "web", "PENDING");
+    }
+
+    @Test
+    void testFilter_EmptyFilterMeansUnrestricted() {
+        assertNull(index.filter(null));
+        assertNull(index.filter(new Filter(null, List.of(), null)));
+    }
+
+    @Test
+    void testFilter_OrWithinAttributeAndAcrossAttributes() {
+        DocumentBitmap result = index.filter(new Filter("space-a", List.of("web", "app"), List.of("INDEXED")));
+
+        assertArrayEquals(new int[]{1, 2}, result.toArray());
+    }
+
+    @Test
+    void testFilter_UnknownValueReturnsEmpty() {
+        DocumentBitmap result = index.filter(Filter.of("space-c", null));
+
+        assertNotNull(result);
+        assertTrue(result.isEmpty());
+    }
+
+    @Test
+    void testPut_ReplacesPreviousValue() {
+        index.put(4L, Attribute.STATUS, "INDEXED");
+        index.put(3L, Attribute.SPACE_ID, "space-a");
+
+        DocumentBitmap result = index.filter(new Filter("space-a", List.of("web"), List.of("INDEXED")));
+
+        assertArrayEquals(new int[]{1, 3, 4}, result.toArray());
+        assertTrue(index.filter(new Filter(null, null, List.of("PENDING"))).isEmpty());
+    }
+
+    @Test
+    void testRemove_ClearsAllAttributes() {
+        index.remove(1L);
+
+        assertEquals(3, index.size());
+        assertArrayEquals(new int[]{4}, index.filter(Filter.of("space-a", List.of("web"))).toArray());
+    }
+
+    @Test
+    void testPut_DocumentIdOutOfRange() {
+        assertThrows(IllegalArgumentException.class, () -> index.put(Integer.MAX_VALUE + 1L, Attribute.CHANNEL, "web"));
+    }
+}
@@ -0,0 +1,122 @@
+package com.deepsearch.vector.index;
+
+import com.deepsearch.vector.util.SimilarityKernels;
+import com.deepsearch.vector.util.TopKSelector;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * BinaryQuantizedIndex 单元测试
+ */
+class BinaryQuantizedIndexTest {
+
+    private static final int DIMENSION = 128;
+
+    @Test
+    void testQuantizeAndHamming() {
+        float[] a = new float[70];
+        float[] b = new float[70];
+        a[0] = 1f;
+        a[69] = 0.5f;
+        b[0] = 1f;
+        b[64] = 2f;
+
+        long[] codeA = BinaryQuantizedIndex.quantize(a);
+        long[] codeB = BinaryQuantizedIndex.quantize(b);
+
+        assertEquals(2, codeA.length);
+        assertEquals(1L, codeA[0]);
+        assertEquals(1L << 5, codeA[1]);
+        assertEquals(2, BinaryQuantizedIndex.hamming(codeA, 0, codeB, 0, 2));
+    }
+
+    @Test
+    void testSearch_OversampledCandidatesContainExactTopK() {
+        Random random = new Random(17);
+        int count = 3000;
+        BinaryQuantizedIndex index = new BinaryQuantizedIndex(DIMENSION);
+        // 数据按主题成簇分布，更接近真实语义向量
+        float[][] topics = new float[30][];
+        for (int t = 0; t < topics.length; t++) {
+            topics[t] = randomVector(random);
+        }
+        float[][] vectors = new float[count][];
+        for (int i = 0; i < count; i++) {
+            vectors[i] = near(topics[i % topics.length], random);
+            index.add(i, vectors[i]);
+        }
+
+        int k = 10;
+        int found = 0;
+        int queries = 20;
+        for (int q = 0; q < queries; q++) {
+            float[] query = near(topics[random.nextInt(topics.length)], random);
+            Set<Long> candidates = new HashSet<>();
+            for (SearchHit hit : index.search(query, k * 20)) {
+                candidates.add(hit.id());
+            }
+            float[] scores = new float[count];
+            for (int i = 0; i < count; i++) {
+                scores[i] = (float) SimilarityKernels.cosine(query, vectors[i]);
+            }
+            for (int id : TopKSelector.select(scores, k)) {
+                if (candidates.contains((long) id)) {
+                    found++;
+                }
+            }
+        }
+        assertTrue(found / (double) (queries * k) >= 0.9, "过采样候选召回率过低: " + found);
+    }
+
+    @Test
+    void testSearch_RanksByHammingDistance() {
+        BinaryQuantizedIndex index = new BinaryQuantizedIndex(4);
+        index.add(1L, new float[]{1f, 1f, 1f, 1f});
+        index.add(2L, new float[]{1f, 1f, -1f, -1f});
+        index.add(3L, new float[]{-1f, -1f, -1f, -1f});
+
+        List<SearchHit> hits = index.search(new float[]{1f, 1f, 1f, -1f}, 3);
+
+        assertEquals(List.of(1L, 2L, 3L), hits.stream().map(SearchHit::id).toList());
+        assertEquals(Math.cos(Math.PI / 4), hits.get(0).score(), 1e-6);
+    }
+
+    @Test
+    void testAddAndRemove() {
+        BinaryQuantizedIndex index = new BinaryQuantizedIndex(4);
+        index.add(1L, new float[]{1f, 1f, 1f, 1f});
+        index.add(2L, new float[]{-1f, -1f, -1f, -1f});
+        index.add(1L, new float[]{-1f, -1f, -1f, 1f});
+
+        assertEquals(2, index.size());
+        assertTrue(index.remove(2L));
+        assertFalse(index.remove(2L));
+
+        List<SearchHit> hits = index.search(new float[]{-1f, -1f, -1f, 1f}, 5);
+        assertEquals(1, hits.size());
+        assertEquals(1L, hits.get(0).id());
+        assertEquals(1.0f, hits.get(0).score(), 1e-6);
+    }
+
+    private static float[] near(float[] center, Random random) {
+        float[] vector = randomVector(random);
+        for (int d = 0; d < DIMENSION; d++) {
+            vector[d] = center[d] + vector[d] * 0.5f;
+        }
+        return vector;
+    }
+
+    private static float[] randomVector(Random random) {
+        float[] vector = new float[DIMENSION];
+        for (int d = 0; d < DIMENSION; d++) {
+            vector[d] = (float) random.nextGaussian();
+        }
+        return vector;
+    }
+}
@@ -0,0 +1,117 @@
+package com.deepsearch.vector.index;
+
+import com.deepsearch.vector.index.ChunkAggregator.Aggregation;
+import com.deepsearch.vector.index.ChunkAggregator.DocumentMatch;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * ChunkAggregator 单元测试
+ */
+class ChunkAggregatorTest {
+
+    @Test
+    void testMax_KeepsBestChunkPerDocument() {
+        ChunkAggregator aggregator = new ChunkAggregator(Aggregation.MAX, 3);
+        aggregator.offer(1L, 10L, 0.2f);
+        aggregator.offer(2L, 20L, 0.7f);
+        aggregator.offer(1L, 11L, 0.9f);
+        aggregator.offer(1L, 12L, Float.NaN);
+
+        List<DocumentMatch> matches = aggregator.top(10, 0.0);
+
+        assertEquals(2, aggregator.size());
+        assertEquals(new DocumentMatch(1L, 0.9f, 11L, 2), matches.get(0));
+        assertEquals(new DocumentMatch(2L, 0.7f, 20L, 1), matches.get(1));
+    }
+
+    @Test
+    void testTopMMean_AveragesBestChunks() {
+        ChunkAggregator aggregator = new ChunkAggregator(Aggregation.TOP_M_MEAN, 2);
+        aggregator.offer(1L, 10L, 0.4f);
+        aggregator.offer(1L, 11L, 1.0f);
+        aggregator.offer(1L, 12L, 0.8f);
+        aggregator.offer(2L, 20L, 0.85f);
+
+        List<DocumentMatch> matches = aggregator.top(10, 0.0);
+
+        assertEquals(1L, matches.get(0).documentId());
+        assertEquals(0.9f, matches.get(0).score(), 1e-6);
+        assertEquals(11L, matches.get(0).bestChunkId());
+        assertEquals(3, matches.get(0).matchedChunks());
+        assertEquals(0.85f, matches.get(1).score(), 1e-6);
+    }
+
+    @Test
+    void testTop_AppliesThresholdAndLimit() {
+        ChunkAggregator aggregator = new ChunkAggregator(Aggregation.MAX, 1);
+        for (int i = 0; i < 100; i++) {
+            aggregator.offer(i % 10, i, i / 100f);
+        }
+
+        List<DocumentMatch> matches = aggregator.top(3, 0.95);
+
+        assertEquals(3, matches.size());
+        assertEquals(9L, matches.get(0).documentId());
+        assertEquals(99L, matches.get(0).bestChunkId());
+        assertEquals(2, aggregator.top(10, 0.975).size());
+    }
+
+    @Test
+    void testMerge_MatchesSinglePass() {
+        ChunkAggregator single = new ChunkAggregator(Aggregation.TOP_M_MEAN, 2);
+        ChunkAggregator left = new ChunkAggregator(Aggregation.TOP_M_MEAN, 2);
+        ChunkAggregator right = new ChunkAggregator(Aggregation.TOP_M_MEAN, 2);
+        float[] scores = {0.3f, 0.9f, 0.5f, 0.7f, 0.1f, 0.6f};
+        for (int i = 0; i < scores.length; i++) {
+            single.offer(i % 2, i, scores[i]);
+            (i < 3 ? left : right).offer(i % 2, i, scores[i]);
+        }
+
+        left.merge(right);
+
+        assertEquals(single.top(10, 0.0), left.top(10, 0.0));
+        assertThrows(IllegalArgumentException.class, () -> left.merge(new ChunkAggregator(Aggregation.MAX, 2)));
+    }
+
+    @Test
+    void testMergeTop_KWayMergeDeduplicatesDocuments() {
+        List<DocumentMatch> shard0 = List.of(new DocumentMatch(1L, 0.9f, 10L, 1), new DocumentMatch(3L, 0.5f, 30L, 1));
+        List<DocumentMatch> shard1 = List.of(new DocumentMatch(2L, 0.8f, 20L, 1), new DocumentMatch(1L, 0.6f, 11L, 1));
+
+        List<DocumentMatch> merged = ChunkAggregator.mergeTop(List.of(shard0, shard1, List.of()), 3);
+
+        assertEquals(List.of(1L, 2L, 3L), merged.stream().map(DocumentMatch::documentId).toList());
+        assertEquals(10L, merged.get(0).bestChunkId());
+        assertEquals(1, ChunkAggregator.mergeTop(List.of(shard0, shard1), 1).size());
+    }
+
+    @Test
+    void testCombine_MaxAndWeightedSum() {
+        ChunkAggregator original = new ChunkAggregator(Aggregation.MAX, 1);
+        ChunkAggregator expanded = new ChunkAggregator(Aggregation.MAX, 1);
+        original.offer(1L, 10L, 0.6f);
+        original.offer(2L, 20L, 0.5f);
+        expanded.offer(1L, 11L, 0.5f);
+        expanded.offer(2L, 21L, 1.0f);
+        ChunkAggregator[] perQuery = {original, expanded};
+        float[] weights = {1.0f, 0.8f};
+
+        List<DocumentMatch> max = ChunkAggregator.combine(perQuery, weights, ChunkAggregator.Combination.MAX, 10, 0.0);
+        List<DocumentMatch> sum = ChunkAggregator.combine(perQuery, weights, ChunkAggregator.Combination.WEIGHTED_SUM, 10, 0.0);
+
+        // 文档2：max(0.5, 0.8×1.0) = 0.8，最佳分块来自扩展查询
+        assertEquals(2L, max.get(0).documentId());
+        assertEquals(0.8f, max.get(0).score(), 1e-6);
+        assertEquals(21L, max.get(0).bestChunkId());
+        assertEquals(0.6f, max.get(1).score(), 1e-6);
+        // 文档1：(0.6 + 0.8×0.5) / 1.8，文档2：(0.5 + 0.8×1.0) / 1.8
+        assertEquals(2L, sum.get(0).documentId());
+        assertEquals(1.3f / 1.8f, sum.get(0).score(), 1e-6);
+        assertEquals(1.0f / 1.8f, sum.get(1).score(), 1e-6);
+        assertEquals(1, ChunkAggregator.combine(perQuery, weights, ChunkAggregator.Combination.MAX, 10, 0.7).size());
+    }
+}
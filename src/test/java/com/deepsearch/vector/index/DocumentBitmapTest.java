@@ -0,0 +1,84 @@
+package com.deepsearch.vector.index;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.BitSet;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * DocumentBitmap 单元测试
+ */
+class DocumentBitmapTest {
+
+    @Test
+    void testAddRemoveContains() {
+        DocumentBitmap bitmap = DocumentBitmap.of(1, 70000, 5);
+
+        assertTrue(bitmap.contains(1));
+        assertTrue(bitmap.contains(70000L));
+        assertFalse(bitmap.contains(2));
+        assertFalse(bitmap.contains(-1L));
+        assertFalse(bitmap.add(5));
+        assertEquals(3, bitmap.cardinality());
+
+        assertTrue(bitmap.remove(70000));
+        assertFalse(bitmap.remove(70000));
+        assertArrayEquals(new int[]{1, 5}, bitmap.toArray());
+    }
+
+    @Test
+    void testDenseContainer_AboveArrayLimit() {
+        DocumentBitmap bitmap = new DocumentBitmap();
+        for (int i = 0; i < 10000; i += 2) {
+            bitmap.add(i);
+        }
+
+        assertEquals(5000, bitmap.cardinality());
+        assertTrue(bitmap.contains(9998));
+        assertFalse(bitmap.contains(9999));
+
+        for (int i = 0; i < 10000; i += 4) {
+            bitmap.remove(i);
+        }
+        assertEquals(2500, bitmap.cardinality());
+        assertTrue(bitmap.contains(2));
+        assertFalse(bitmap.contains(4));
+    }
+
+    @Test
+    void testAndOr_MatchBitSetReference() {
+        Random random = new Random(3);
+        DocumentBitmap left = new DocumentBitmap();
+        DocumentBitmap right = new DocumentBitmap();
+        BitSet leftReference = new BitSet();
+        BitSet rightReference = new BitSet();
+        // 一侧稠密一侧稀疏，覆盖两种容器的组合
+        for (int i = 0; i < 20000; i++) {
+            int dense = random.nextInt(150000);
+            left.add(dense);
+            leftReference.set(dense);
+            if (i % 10 == 0) {
+                int sparse = random.nextInt(150000);
+                right.add(sparse);
+                rightReference.set(sparse);
+            }
+        }
+
+        BitSet and = (BitSet) leftReference.clone();
+        and.and(rightReference);
+        BitSet or = (BitSet) leftReference.clone();
+        or.or(rightReference);
+
+        assertArrayEquals(and.stream().toArray(), left.and(right).toArray());
+        assertArrayEquals(or.stream().toArray(), left.or(right).toArray());
+        assertArrayEquals(and.stream().toArray(), right.and(left).toArray());
+        assertEquals(leftReference.cardinality(), left.cardinality());
+    }
+
+    @Test
+    void testNegativeValueRejected() {
+        assertThrows(IllegalArgumentException.class, () -> new DocumentBitmap().add(-1));
+    }
+}
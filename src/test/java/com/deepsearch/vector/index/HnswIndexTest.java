@@ -0,0 +1,263 @@
+package com.deepsearch.vector.index;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongPredicate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * HnswIndex 单元测试
+ */
+class HnswIndexTest {
+
+    private static final int DIMENSION = 32;
+    private static final int VECTOR_COUNT = 2000;
+
+    private float[][] vectors;
+    private HnswIndex index;
+
+    @BeforeEach
+    void setUp() {
+        Random random = new Random(7);
+        vectors = new float[VECTOR_COUNT][DIMENSION];
+        index = new HnswIndex(DIMENSION, Metric.COSINE, 16, 100);
+        for (int i = 0; i < VECTOR_COUNT; i++) {
+            for (int d = 0; d < DIMENSION; d++) {
+                vectors[i][d] = (float) random.nextGaussian();
+            }
+            index.add(i, vectors[i]);
+        }
+    }
+
+    @Test
+    void testSearch_EmptyIndex() {
+        HnswIndex empty = new HnswIndex(DIMENSION, Metric.COSINE, 16, 100);
+
+        assertTrue(empty.search(vectors[0], 10, 50).isEmpty());
+    }
+
+    @Test
+    void testSearch_FindsExactMatchFirst() {
+        List<SearchHit> hits = index.search(vectors[42], 5, 64);
+
+        assertEquals(5, hits.size());
+        assertEquals(42L, hits.get(0).id());
+        assertEquals(1.0, hits.get(0).score(), 0.001);
+        for (int i = 1; i < hits.size(); i++) {
+            assertTrue(hits.get(i - 1).score() >= hits.get(i).score());
+        }
+    }
+
+    @Test
+    void testSearch_RecallAgainstBruteForce() {
+        Random random = new Random(11);
+        int k = 10;
+        int queries = 50;
+        int found = 0;
+
+        for (int q = 0; q < queries; q++) {
+            float[] query = new float[DIMENSION];
+            for (int d = 0; d < DIMENSION; d++) {
+                query[d] = (float) random.nextGaussian();
+            }
+
+            Set<Long> expected = bruteForceTopK(query, k);
+            for (SearchHit hit : index.search(query, k, 100)) {
+                if (expected.contains(hit.id())) {
+                    found++;
+                }
+            }
+        }
+
+        double recall = (double) found / (queries * k);
+        assertTrue(recall >= 0.9, "recall=" + recall);
+    }
+
+    @Test
+    void testSearch_Int8Recall() {
+        HnswIndex quantized = new HnswIndex(DIMENSION, Metric.COSINE, 16, 100, 42L, true);
+        for (int i = 0; i < VECTOR_COUNT; i++) {
+            quantized.add(i, vectors[i]);
+        }
+        Random random = new Random(11);
+        int k = 10;
+        int queries = 50;
+        int found = 0;
+
+        for (int q = 0; q < queries; q++) {
+            float[] query = new float[DIMENSION];
+            for (int d = 0; d < DIMENSION; d++) {
+                query[d] = (float) random.nextGaussian();
+            }
+
+            Set<Long> expected = bruteForceTopK(query, k);
+            for (SearchHit hit : quantized.search(query, k, 100)) {
+                if (expected.contains(hit.id())) {
+                    found++;
+                }
+            }
+        }
+
+        double recall = (double) found / (queries * k);
+        assertTrue(quantized.isInt8());
+        assertTrue(recall >= 0.85, "recall=" + recall);
+        assertTrue(quantized.estimateMemoryBytes() < index.estimateMemoryBytes());
+    }
+
+    @Test
+    void testSearch_FilterReturnsKAcceptedResults() {
+        // 只允许 10% 的节点进入结果
+        LongPredicate filter = id -> id % 10 == 3;
+        Random random = new Random(13);
+        int k = 10;
+        int queries = 30;
+        int found = 0;
+
+        for (int q = 0; q < queries; q++) {
+            float[] query = new float[DIMENSION];
+            for (int d = 0; d < DIMENSION; d++) {
+                query[d] = (float) random.nextGaussian();
+            }
+
+            List<SearchHit> hits = index.search(query, k, 100, filter);
+            assertEquals(k, hits.size());
+            Set<Long> expected = bruteForceTopK(query, k, filter);
+            for (SearchHit hit : hits) {
+                assertTrue(filter.test(hit.id()));
+                if (expected.contains(hit.id())) {
+                    found++;
+                }
+            }
+        }
+
+        double recall = (double) found / (queries * k);
+        assertTrue(recall >= 0.9, "recall=" + recall);
+    }
+
+    @Test
+    void testSearch_FilterRejectingAllReturnsEmpty() {
+        assertTrue(index.search(vectors[0], 10, 64, id -> false).isEmpty());
+    }
+
+    @Test
+    void testSearch_FilterVisitBudgetBoundsTraversal() {
+        // 条件全部不满足时结果集始终填不满，不设上限会遍历整个图
+        AtomicInteger tested = new AtomicInteger();
+        LongPredicate rejectAll = id -> {
+            tested.incrementAndGet();
+            return false;
+        };
+
+        assertTrue(index.search(vectors[0], 10, 64, rejectAll, 200).isEmpty());
+        assertTrue(tested.get() <= 200, "tested=" + tested.get());
+
+        tested.set(0);
+        index.search(vectors[0], 10, 64, rejectAll);
+        assertTrue(tested.get() > 200, "tested=" + tested.get());
+    }
+
+    @Test
+    void testAdd_DuplicateIdRejected() {
+        assertFalse(index.add(1, vectors[2]));
+        assertEquals(VECTOR_COUNT, index.size());
+        assertTrue(index.contains(1));
+    }
+
+    @Test
+    void testRemove_TombstonedNodeNotReturned() {
+        assertTrue(index.remove(42));
+        assertFalse(index.remove(42));
+
+        List<SearchHit> hits = index.search(vectors[42], 5, 64);
+
+        assertEquals(5, hits.size());
+        assertTrue(hits.stream().noneMatch(hit -> hit.id() == 42L));
+        assertFalse(index.contains(42));
+        assertEquals(VECTOR_COUNT - 1, index.size());
+        assertEquals(1, index.getDeletedCount());
+    }
+
+    @Test
+    void testPut_ReplacesExistingVector() {
+        index.put(7, vectors[8]);
+
+        List<SearchHit> hits = index.search(vectors[8], 2, 64);
+
+        assertEquals(VECTOR_COUNT, index.size());
+        assertEquals(1.0, hits.get(0).score(), 0.001);
+        assertEquals(1.0, hits.get(1).score(), 0.001);
+        assertEquals(Set.of(7L, 8L), Set.of(hits.get(0).id(), hits.get(1).id()));
+        assertTrue(index.search(vectors[7], 1, 64).get(0).score() < 0.999);
+    }
+
+    @Test
+    void testCompact_DropsTombstonesAndKeepsRecall() {
+        for (int i = 0; i < VECTOR_COUNT; i += 2) {
+            index.remove(i);
+        }
+
+        HnswIndex compacted = index.compact();
+
+        assertEquals(VECTOR_COUNT / 2, compacted.size());
+        assertEquals(0, compacted.getDeletedCount());
+        assertFalse(compacted.contains(0));
+        assertEquals(43L, compacted.search(vectors[43], 1, 64).get(0).id());
+        assertTrue(compacted.estimateMemoryBytes() < index.estimateMemoryBytes());
+    }
+
+    @Test
+    void testAdd_DimensionMismatch() {
+        assertThrows(IllegalArgumentException.class, () -> index.add(VECTOR_COUNT, new float[DIMENSION + 1]));
+    }
+
+    @Test
+    void testSearch_DotProductMetric() {
+        HnswIndex dotIndex = new HnswIndex(3, Metric.DOT_PRODUCT, 4, 20);
+        dotIndex.add(1, new float[]{1.0f, 2.0f, 3.0f});
+        dotIndex.add(2, new float[]{0.0f, 1.0f, 0.0f});
+
+        List<SearchHit> hits = dotIndex.search(new float[]{1.0f, 2.0f, 3.0f}, 1, 10);
+
+        assertEquals(1L, hits.get(0).id());
+        assertEquals(14.0, hits.get(0).score(), 0.001);
+    }
+
+    private Set<Long> bruteForceTopK(float[] query, int k) {
+        return bruteForceTopK(query, k, id -> true);
+    }
+
+    private Set<Long> bruteForceTopK(float[] query, int k, LongPredicate filter) {
+        double[] scores = new double[VECTOR_COUNT];
+        for (int i = 0; i < VECTOR_COUNT; i++) {
+            scores[i] = cosine(query, vectors[i]);
+        }
+        Set<Long> result = new HashSet<>();
+        for (int n = 0; n < k; n++) {
+            int best = -1;
+            for (int i = 0; i < VECTOR_COUNT; i++) {
+                if (filter.test(i) && !result.contains((long) i) && (best < 0 || scores[i] > scores[best])) {
+                    best = i;
+                }
+            }
+            result.add((long) best);
+        }
+        return result;
+    }
+
+    private double cosine(float[] a, float[] b) {
+        double dot = 0, na = 0, nb = 0;
+        for (int i = 0; i < a.length; i++) {
+            dot += a[i] * b[i];
+            na += a[i] * a[i];
+            nb += b[i] * b[i];
+        }
+        return dot / (Math.sqrt(na) * Math.sqrt(nb));
+    }
+}
@@ -0,0 +1,106 @@
+package com.deepsearch.vector.index;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * IndexSnapshot 单元测试
+ */
+class IndexSnapshotTest {
+
+    private static final int DIMENSION = 16;
+    private static final int VECTOR_COUNT = 500;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void testRoundTrip_SearchResultsIdentical() throws Exception {
+        assertRoundTrip(false);
+    }
+
+    @Test
+    void testRoundTrip_Int8() throws Exception {
+        assertRoundTrip(true);
+    }
+
+    @Test
+    void testRead_RejectsUnknownFile() throws Exception {
+        Path file = directory.resolve("broken.snapshot");
+        Files.write(file, new byte[]{1, 2, 3, 4, 5, 6, 7, 8});
+
+        assertThrows(IOException.class, () -> IndexSnapshot.read(file));
+    }
+
+    @Test
+    void testRead_RejectsTruncatedFile() throws Exception {
+        Path file = directory.resolve("hnsw.snapshot");
+        HnswIndex index = new HnswIndex(DIMENSION, Metric.COSINE, 8, 50);
+        float[][] vectors = randomVectors(new Random(5), 50);
+        for (int i = 0; i < vectors.length; i++) {
+            index.add(i, vectors[i]);
+        }
+        IndexSnapshot.write(file, index, Map.of(), 0L);
+        byte[] content = Files.readAllBytes(file);
+        Files.write(file, Arrays.copyOf(content, content.length / 2));
+
+        assertThrows(IOException.class, () -> IndexSnapshot.read(file));
+    }
+
+    private void assertRoundTrip(boolean int8) throws Exception {
+        Random random = new Random(3);
+        float[][] vectors = randomVectors(random, VECTOR_COUNT);
+        HnswIndex index = new HnswIndex(DIMENSION, Metric.COSINE, 8, 50, 42L, int8);
+        Map<Long, Long> documentIds = new HashMap<>();
+        for (int i = 0; i < VECTOR_COUNT; i++) {
+            index.add(i, vectors[i]);
+            documentIds.put((long) i, i / 4L);
+        }
+        index.remove(10);
+        documentIds.remove(10L);
+
+        Path file = directory.resolve("nested").resolve("hnsw.snapshot");
+        IndexSnapshot.write(file, index, documentIds, 123456789L);
+        IndexSnapshot snapshot = IndexSnapshot.read(file);
+        HnswIndex restored = snapshot.index();
+
+        assertEquals(123456789L, snapshot.watermark());
+        assertEquals(documentIds, snapshot.documentIds());
+        assertEquals(index.size(), restored.size());
+        assertEquals(1, restored.getDeletedCount());
+        assertFalse(restored.contains(10));
+        assertEquals(int8, restored.isInt8());
+        assertFalse(Files.exists(file.resolveSibling("hnsw.snapshot.tmp")));
+        for (int q = 0; q < 20; q++) {
+            float[] query = randomVectors(random, 1)[0];
+            List<SearchHit> expected = index.search(query, 10, 64);
+            List<SearchHit> actual = restored.search(query, 10, 64);
+            assertEquals(expected, actual);
+        }
+
+        // 恢复后的索引可以继续写入
+        assertTrue(restored.add(VECTOR_COUNT, vectors[0]));
+        assertEquals(index.size() + 1, restored.size());
+    }
+
+    private static float[][] randomVectors(Random random, int count) {
+        float[][] vectors = new float[count][DIMENSION];
+        for (int i = 0; i < count; i++) {
+            for (int d = 0; d < DIMENSION; d++) {
+                vectors[i][d] = (float) random.nextGaussian();
+            }
+        }
+        return vectors;
+    }
+}
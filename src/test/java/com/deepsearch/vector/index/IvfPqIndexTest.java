@@ -0,0 +1,127 @@
+package com.deepsearch.vector.index;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * IvfPqIndex 单元测试
+ */
+class IvfPqIndexTest {
+
+    private static final int DIMENSION = 32;
+    private static final int VECTOR_COUNT = 2000;
+
+    private float[][] vectors;
+    private IvfPqIndex index;
+
+    @BeforeEach
+    void setUp() {
+        Random random = new Random(7);
+        vectors = new float[VECTOR_COUNT][DIMENSION];
+        for (int i = 0; i < VECTOR_COUNT; i++) {
+            for (int d = 0; d < DIMENSION; d++) {
+                vectors[i][d] = (float) random.nextGaussian();
+            }
+        }
+        index = new IvfPqIndex(DIMENSION, 16, 8, Metric.COSINE);
+        index.train(vectors, 10, 42L);
+        for (int i = 0; i < VECTOR_COUNT; i++) {
+            index.add(i, vectors[i]);
+        }
+    }
+
+    @Test
+    void testSearch_CandidateRecallAgainstBruteForce() {
+        Random random = new Random(11);
+        int k = 10;
+        int queries = 30;
+        int found = 0;
+
+        for (int q = 0; q < queries; q++) {
+            float[] query = new float[DIMENSION];
+            for (int d = 0; d < DIMENSION; d++) {
+                query[d] = (float) random.nextGaussian();
+            }
+
+            Set<Long> candidates = new HashSet<>();
+            for (SearchHit hit : index.search(query, k * 4, 8)) {
+                candidates.add(hit.id());
+            }
+            for (long id : bruteForceTopK(query, k)) {
+                if (candidates.contains(id)) {
+                    found++;
+                }
+            }
+        }
+
+        double recall = (double) found / (queries * k);
+        assertTrue(recall >= 0.85, "recall=" + recall);
+    }
+
+    @Test
+    void testSearch_ScoresDescending() {
+        List<SearchHit> hits = index.search(vectors[3], 20, 4);
+
+        assertEquals(20, hits.size());
+        for (int i = 1; i < hits.size(); i++) {
+            assertTrue(hits.get(i - 1).score() >= hits.get(i).score());
+        }
+    }
+
+    @Test
+    void testEstimateMemory_SmallerThanRawVectors() {
+        long rawBytes = (long) VECTOR_COUNT * DIMENSION * 4L;
+
+        assertEquals(VECTOR_COUNT, index.size());
+        assertTrue(index.estimateMemoryBytes() < rawBytes);
+    }
+
+    @Test
+    void testAdd_BeforeTrainRejected() {
+        IvfPqIndex untrained = new IvfPqIndex(DIMENSION, 4, 8, Metric.COSINE);
+
+        assertFalse(untrained.isTrained());
+        assertThrows(IllegalStateException.class, () -> untrained.add(1, vectors[0]));
+        assertTrue(untrained.search(vectors[0], 5, 2).isEmpty());
+    }
+
+    @Test
+    void testConstructor_DimensionNotDivisible() {
+        assertThrows(IllegalArgumentException.class, () -> new IvfPqIndex(30, 4, 8, Metric.COSINE));
+    }
+
+    private Set<Long> bruteForceTopK(float[] query, int k) {
+        double[] scores = new double[VECTOR_COUNT];
+        for (int i = 0; i < VECTOR_COUNT; i++) {
+            scores[i] = cosine(query, vectors[i]);
+        }
+        Set<Long> result = new HashSet<>();
+        for (int n = 0; n < k; n++) {
+            int best = -1;
+            for (int i = 0; i < VECTOR_COUNT; i++) {
+                if (!result.contains((long) i) && (best < 0 || scores[i] > scores[best])) {
+                    best = i;
+                }
+            }
+            result.add((long) best);
+        }
+        return result;
+    }
+
+    private double cosine(float[] a, float[] b) {
+        double dot = 0, na = 0, nb = 0;
+        for (int i = 0; i < a.length; i++) {
+            dot += a[i] * b[i];
+            na += a[i] * a[i];
+            nb += b[i] * b[i];
+        }
+        return dot / (Math.sqrt(na) * Math.sqrt(nb));
+    }
+}
@@ -0,0 +1,83 @@
+package com.deepsearch.vector.index;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * KMeans 单元测试
+ */
+class KMeansTest {
+
+    private static final int DIMENSION = 24;
+    private static final int CLUSTERS = 5;
+
+    @Test
+    void testLloyd_RecoversSeparatedBlobs() {
+        float[][] data = blobs(100, new Random(3));
+
+        KMeans.Clustering clustering = KMeans.lloyd(data, CLUSTERS, 20, 42L);
+
+        assertEquals(CLUSTERS, clustering.size());
+        assertBlobsRecovered(clustering, 100);
+    }
+
+    @Test
+    void testMiniBatch_RecoversSeparatedBlobs() {
+        float[][] data = blobs(2000, new Random(5));
+
+        KMeans.Clustering clustering = KMeans.miniBatch(data, CLUSTERS, 256, 100, 42L);
+
+        assertEquals(CLUSTERS, clustering.size());
+        assertBlobsRecovered(clustering, 2000);
+    }
+
+    @Test
+    void testFit_KLargerThanSampleCount() {
+        float[][] data = {{1f, 0f}, {0f, 1f}};
+
+        KMeans.Clustering clustering = KMeans.fit(data, 5, 10, 1L);
+
+        assertEquals(2, clustering.size());
+        assertNotEquals(clustering.assignments()[0], clustering.assignments()[1]);
+        assertThrows(IllegalArgumentException.class, () -> KMeans.fit(new float[0][], 2, 10, 1L));
+    }
+
+    /**
+     * 每个 blob 的点必须落在同一个簇里，且不同 blob 不共用簇
+     */
+    private void assertBlobsRecovered(KMeans.Clustering clustering, int perBlob) {
+        int[] assignments = clustering.assignments();
+        boolean[] used = new boolean[clustering.size()];
+        for (int blob = 0; blob < CLUSTERS; blob++) {
+            int cluster = assignments[blob * perBlob];
+            assertFalse(used[cluster], "多个 blob 被分到同一个簇");
+            used[cluster] = true;
+            for (int i = 0; i < perBlob; i++) {
+                assertEquals(cluster, assignments[blob * perBlob + i]);
+            }
+        }
+        int[][] members = clustering.members();
+        for (int[] group : members) {
+            assertEquals(perBlob, group.length);
+        }
+    }
+
+    private float[][] blobs(int perBlob, Random random) {
+        float[][] data = new float[CLUSTERS * perBlob][DIMENSION];
+        for (int blob = 0; blob < CLUSTERS; blob++) {
+            float[] center = new float[DIMENSION];
+            for (int d = 0; d < DIMENSION; d++) {
+                center[d] = (float) random.nextGaussian() * 10f;
+            }
+            for (int i = 0; i < perBlob; i++) {
+                for (int d = 0; d < DIMENSION; d++) {
+                    data[blob * perBlob + i][d] = center[d] + (float) random.nextGaussian() * 0.1f;
+                }
+            }
+        }
+        return data;
+    }
+}
@@ -0,0 +1,120 @@
+package com.deepsearch.vector.index;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * LshIndex 单元测试
+ */
+class LshIndexTest {
+
+    private static final int DIMENSION = 32;
+    private static final int VECTOR_COUNT = 1000;
+
+    private float[][] vectors;
+    private LshIndex index;
+
+    @BeforeEach
+    void setUp() {
+        Random random = new Random(7);
+        vectors = new float[VECTOR_COUNT][DIMENSION];
+        index = new LshIndex(DIMENSION, 8, 10, 42L);
+        for (int i = 0; i < VECTOR_COUNT; i++) {
+            for (int d = 0; d < DIMENSION; d++) {
+                vectors[i][d] = (float) random.nextGaussian();
+            }
+            // 每个文档两个分块
+            index.add(i, i / 2, vectors[i]);
+        }
+    }
+
+    @Test
+    void testCandidates_ExactVectorCollidesInEveryTable() {
+        List<Long> candidates = index.candidates(vectors[10], 20);
+
+        assertFalse(candidates.isEmpty());
+        assertEquals(5L, candidates.get(0));
+        assertTrue(candidates.size() <= 20);
+        assertEquals(candidates.size(), candidates.stream().distinct().count());
+    }
+
+    @Test
+    void testCandidates_NearbyVectorIsRecalled() {
+        Random random = new Random(3);
+        int hits = 0;
+        for (int q = 0; q < 50; q++) {
+            int target = random.nextInt(VECTOR_COUNT);
+            float[] query = vectors[target].clone();
+            for (int d = 0; d < DIMENSION; d++) {
+                query[d] += (float) (random.nextGaussian() * 0.1);
+            }
+            if (index.candidates(query, 30).contains((long) target / 2)) {
+                hits++;
+            }
+        }
+
+        assertTrue(hits >= 45, "hits=" + hits);
+    }
+
+    @Test
+    void testAdd_UpdateReplacesSignature() {
+        index.add(0, 0, vectors[500]);
+
+        assertEquals(VECTOR_COUNT, index.size());
+        List<Long> candidates = index.candidates(vectors[500], 5);
+        assertTrue(candidates.subList(0, 2).containsAll(List.of(0L, 250L)));
+    }
+
+    @Test
+    void testRemove() {
+        assertTrue(index.remove(20));
+        assertTrue(index.remove(21));
+        assertFalse(index.remove(20));
+
+        assertEquals(VECTOR_COUNT - 2, index.size());
+        assertFalse(index.candidates(vectors[20], 50).contains(10L));
+    }
+
+    @Test
+    void testCandidates_ManyChunksDoNotOutrankExactMatch() {
+        Random random = new Random(11);
+        LshIndex chunked = new LshIndex(DIMENSION, 8, 10, 42L);
+        float[] query = vectors[0];
+        chunked.add(1, 1L, query);
+        // 文档 2 有 8 个与查询相近但不相同的分块，按分块累加会排到精确匹配之前
+        for (int c = 0; c < 8; c++) {
+            float[] near = query.clone();
+            for (int d = 0; d < DIMENSION; d++) {
+                near[d] += (float) (random.nextGaussian() * 0.3);
+            }
+            chunked.add(100 + c, 2L, near);
+        }
+
+        assertEquals(1L, chunked.candidates(query, 2).get(0));
+    }
+
+    @Test
+    void testAdd_SkewedBucketKeepsAllIds() {
+        LshIndex skewed = new LshIndex(DIMENSION, 2, 4, 42L);
+        for (int i = 0; i < 100; i++) {
+            skewed.add(i, i, vectors[0]);
+        }
+        assertTrue(skewed.remove(50));
+
+        List<Long> candidates = skewed.candidates(vectors[0], 200);
+        assertEquals(99, candidates.size());
+        assertFalse(candidates.contains(50L));
+    }
+
+    @Test
+    void testInvalidArguments() {
+        assertThrows(IllegalArgumentException.class, () -> new LshIndex(DIMENSION, 4, 31, 1L));
+        assertThrows(IllegalArgumentException.class, () -> index.add(1, 1, new float[DIMENSION + 1]));
+        assertTrue(index.candidates(new float[DIMENSION + 1], 10).isEmpty());
+    }
+}
@@ -0,0 +1,98 @@
+package com.deepsearch.vector.index;
+
+import com.deepsearch.vector.util.SimilarityKernels;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * PcaProjection 单元测试
+ */
+class PcaProjectionTest {
+
+    private static final int DIMENSION = 64;
+    private static final int RANK = 6;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void testFit_LowRankDataConcentratesVarianceInPrefix() {
+        float[][] sample = lowRankSample(400, 1L);
+
+        PcaProjection projection = PcaProjection.fit(sample, 16, 10, 42L, "bge", "v1");
+
+        assertEquals(16, projection.getComponents());
+        assertEquals(DIMENSION, projection.getSourceDimension());
+        assertTrue(projection.explainedVarianceRatio(RANK) > 0.98);
+        assertTrue(projection.explainedVarianceRatio(1) < projection.explainedVarianceRatio(2));
+        assertEquals(1.0, projection.explainedVarianceRatio(16), 1e-3);
+    }
+
+    @Test
+    void testProject_PrefixPreservesNeighbourDistances() {
+        float[][] sample = lowRankSample(400, 2L);
+        PcaProjection projection = PcaProjection.fit(sample, 16, 10, 42L, "bge", "v1");
+
+        float[] a = projection.project(sample[0], RANK);
+        float[] b = projection.project(sample[1], RANK);
+
+        assertEquals(RANK, a.length);
+        assertArrayEquals(a, Arrays.copyOf(projection.project(sample[0]), RANK), 1e-4f);
+        // 数据位于低维子空间，投影后的距离与原始距离基本一致
+        assertEquals(SimilarityKernels.squaredEuclidean(sample[0], sample[1]),
+            SimilarityKernels.squaredEuclidean(a, b), 1e-2 * SimilarityKernels.squaredEuclidean(sample[0], sample[1]));
+        assertThrows(IllegalArgumentException.class, () -> projection.project(new float[3], RANK));
+    }
+
+    @Test
+    void testWriteAndRead_RoundTripsModel() throws Exception {
+        float[][] sample = lowRankSample(200, 3L);
+        PcaProjection projection = PcaProjection.fit(sample, 8, 8, 42L, "bge", "v1");
+        Path file = directory.resolve("pca.model");
+
+        projection.write(file);
+        PcaProjection loaded = PcaProjection.read(file);
+
+        assertEquals("bge", loaded.getModelName());
+        assertEquals("v1", loaded.getModelVersion());
+        assertEquals(200, loaded.getSampleCount());
+        assertTrue(loaded.isCompatible(DIMENSION, "bge", "v1"));
+        assertFalse(loaded.isCompatible(DIMENSION, "bge", "v2"));
+        assertFalse(loaded.isCompatible(32, "bge", "v1"));
+        assertArrayEquals(projection.project(sample[5]), loaded.project(sample[5]), 1e-6f);
+        assertEquals(projection.explainedVarianceRatio(4), loaded.explainedVarianceRatio(4), 1e-6);
+    }
+
+    /**
+     * 生成位于 RANK 维子空间内、各方向方差递减、带少量噪声的样本
+     */
+    private static float[][] lowRankSample(int count, long seed) {
+        Random random = new Random(seed);
+        float[][] directions = new float[RANK][DIMENSION];
+        for (float[] direction : directions) {
+            for (int i = 0; i < DIMENSION; i++) {
+                direction[i] = (float) random.nextGaussian();
+            }
+            SimilarityKernels.normalize(direction);
+        }
+        float[][] sample = new float[count][DIMENSION];
+        for (float[] vector : sample) {
+            for (int r = 0; r < RANK; r++) {
+                float weight = (float) (random.nextGaussian() * (RANK - r));
+                for (int i = 0; i < DIMENSION; i++) {
+                    vector[i] += weight * directions[r][i];
+                }
+            }
+            for (int i = 0; i < DIMENSION; i++) {
+                vector[i] += 0.3f + (float) random.nextGaussian() * 0.01f;
+            }
+        }
+        return sample;
+    }
+}
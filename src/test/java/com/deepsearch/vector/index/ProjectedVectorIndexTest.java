@@ -0,0 +1,55 @@
+package com.deepsearch.vector.index;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * ProjectedVectorIndex 单元测试
+ */
+class ProjectedVectorIndexTest {
+
+    @Test
+    void testSearch_RanksByCosine() {
+        ProjectedVectorIndex index = new ProjectedVectorIndex(3);
+        index.add(1L, new float[]{1f, 0f, 0f});
+        index.add(2L, new float[]{0.8f, 0.6f, 0f});
+        index.add(3L, new float[]{0f, 0f, 1f});
+
+        List<SearchHit> hits = index.search(new float[]{1f, 0.1f, 0f}, 2, 3);
+
+        assertEquals(2, hits.size());
+        assertEquals(1L, hits.get(0).id());
+        assertEquals(2L, hits.get(1).id());
+        assertThrows(IllegalArgumentException.class, () -> index.add(4L, new float[2]));
+    }
+
+    @Test
+    void testSearch_PrefixIgnoresTrailingComponents() {
+        ProjectedVectorIndex index = new ProjectedVectorIndex(2);
+        index.add(1L, new float[]{1f, 5f});
+        index.add(2L, new float[]{-1f, 5f});
+
+        assertEquals(1L, index.search(new float[]{1f, -5f}, 1, 1).get(0).id());
+        assertEquals(2L, index.search(new float[]{-1f, 0f}, 1, 1).get(0).id());
+        assertEquals(0, index.search(new float[]{1f, 0f}, 1, 0).size());
+    }
+
+    @Test
+    void testAddAndRemove_UpdatesInPlace() {
+        ProjectedVectorIndex index = new ProjectedVectorIndex(2);
+        index.add(1L, new float[]{1f, 0f});
+        index.add(2L, new float[]{0f, 1f});
+        index.add(1L, new float[]{0f, -1f});
+
+        assertEquals(2, index.size());
+        assertEquals(2L, index.search(new float[]{0f, 1f}, 1, 2).get(0).id());
+
+        assertTrue(index.remove(2L));
+        assertFalse(index.remove(2L));
+        assertEquals(1, index.size());
+        assertEquals(1L, index.search(new float[]{0f, 1f}, 5, 2).get(0).id());
+    }
+}
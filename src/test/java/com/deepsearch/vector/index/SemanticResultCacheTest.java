@@ -0,0 +1,68 @@
+package com.deepsearch.vector.index;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * SemanticResultCache 单元测试
+ */
+class SemanticResultCacheTest {
+
+    private static final int DIMENSION = 32;
+
+    @Test
+    void testGet_NearDuplicateQueryHits() {
+        SemanticResultCache<String> cache = new SemanticResultCache<>(8, 100, 0.98, 42L);
+        Random random = new Random(7);
+        float[] query = randomVector(random);
+        float[] paraphrase = query.clone();
+        for (int d = 0; d < DIMENSION; d++) {
+            paraphrase[d] = paraphrase[d] * 2f + (float) random.nextGaussian() * 1e-3f;
+        }
+
+        cache.put(query, "COSINE:10", 1L, "top-10");
+
+        // 缩放不影响命中，只比较方向
+        assertEquals("top-10", cache.get(paraphrase, "COSINE:10", 1L));
+        assertNull(cache.get(randomVector(random), "COSINE:10", 1L));
+        assertNull(cache.get(query, "COSINE:20", 1L));
+        assertEquals(1, cache.getHits());
+        assertEquals(2, cache.getMisses());
+    }
+
+    @Test
+    void testGet_IndexVersionChangeInvalidates() {
+        SemanticResultCache<String> cache = new SemanticResultCache<>(8, 100, 0.98, 42L);
+        float[] query = randomVector(new Random(1));
+        cache.put(query, "v", 1L, "old");
+
+        assertNull(cache.get(query, "v", 2L));
+        assertEquals(0, cache.size());
+
+        cache.put(query, "v", 2L, "new");
+        assertEquals("new", cache.get(query, "v", 2L));
+        assertNull(cache.get(new float[DIMENSION], "v", 2L));
+    }
+
+    @Test
+    void testPut_EvictsLeastRecentlyUsedBuckets() {
+        SemanticResultCache<Integer> cache = new SemanticResultCache<>(8, 2, 0.98, 42L);
+        Random random = new Random(3);
+        for (int i = 0; i < 10; i++) {
+            cache.put(randomVector(random), "v" + i, 1L, i);
+        }
+
+        assertEquals(2, cache.size());
+    }
+
+    private static float[] randomVector(Random random) {
+        float[] vector = new float[DIMENSION];
+        for (int d = 0; d < DIMENSION; d++) {
+            vector[d] = (float) random.nextGaussian();
+        }
+        return vector;
+    }
+}
@@ -0,0 +1,85 @@
+package com.deepsearch.vector.local;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * ONNX 编码流程（动态填充、均值池化）单元测试，推理会话用桩实现
+ */
+class OnnxBertModelTest {
+
+    private static final List<String> VOCAB = List.of("[PAD]", "[UNK]", "[CLS]", "[SEP]", "a", "b", "c");
+
+    /**
+     * 每个 token 的隐藏状态为 (token ID, 1)，记录每批的序列长度
+     */
+    private static class RecordingSession implements OnnxBertModel.InferenceSession {
+        final List<Integer> seqLens = new ArrayList<>();
+        Set<String> inputNames = Set.of(OnnxBertModel.INPUT_IDS, OnnxBertModel.ATTENTION_MASK);
+
+        @Override
+        public Set<String> getInputNames() {
+            return inputNames;
+        }
+
+        @Override
+        public float[] run(Map<String, long[]> inputs, int batch, int seqLen) {
+            seqLens.add(seqLen);
+            assertEquals(inputNames, inputs.keySet());
+            long[] ids = inputs.get(OnnxBertModel.INPUT_IDS);
+            float[] hidden = new float[ids.length * 2];
+            for (int i = 0; i < ids.length; i++) {
+                hidden[i * 2] = ids[i];
+                hidden[i * 2 + 1] = 1f;
+            }
+            return hidden;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    @Test
+    void testEncodeBatch_SortsByLengthAndPadsPerBatch() {
+        RecordingSession session = new RecordingSession();
+        OnnxBertModel model = new OnnxBertModel(new WordPieceTokenizer(VOCAB, true), session, 128, 2);
+
+        float[][] vectors = model.encodeBatch(List.of("a b c a b c", "a", "b c", "c"), "any");
+
+        // 排序后 [a]、[c] 一批填充到 3，[b c]、[a b c a b c] 一批填充到 8
+        assertEquals(List.of(3, 8), session.seqLens);
+        assertEquals(4, vectors.length);
+        // "a" 的 token 为 [CLS]=2、a=4、[SEP]=3，均值 (3, 1) 归一化
+        float norm = (float) Math.sqrt(10);
+        assertArrayEquals(new float[]{3 / norm, 1 / norm}, vectors[1], 1e-6f);
+        // 填充位不参与均值：[CLS] b c [SEP] = (2+5+6+3)/4 = 4
+        float norm2 = (float) Math.sqrt(17);
+        assertArrayEquals(new float[]{4 / norm2, 1 / norm2}, vectors[2], 1e-6f);
+    }
+
+    @Test
+    void testEncodeBatch_PassesTokenTypeIdsWhenModelDeclaresThem() {
+        RecordingSession session = new RecordingSession();
+        session.inputNames = Set.of(OnnxBertModel.INPUT_IDS, OnnxBertModel.ATTENTION_MASK, OnnxBertModel.TOKEN_TYPE_IDS);
+        OnnxBertModel model = new OnnxBertModel(new WordPieceTokenizer(VOCAB, true), session, 128, 8);
+
+        assertEquals(2, model.encode("a b", "any").length);
+    }
+
+    @Test
+    void testMeanPool_IgnoresMaskedTokens() {
+        float[] hidden = {1f, 2f, 3f, 4f, 100f, 100f};
+        long[] mask = {1, 1, 0};
+
+        float[][] pooled = OnnxBertModel.meanPool(hidden, mask, 1, 3, 2);
+
+        assertArrayEquals(new float[]{2f, 3f}, pooled[0], 1e-6f);
+    }
+}
@@ -0,0 +1,43 @@
+package com.deepsearch.vector.local;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * WordPiece 分词器单元测试
+ */
+class WordPieceTokenizerTest {
+
+    private static final List<String> VOCAB = List.of(
+        "[PAD]", "[UNK]", "[CLS]", "[SEP]", "un", "##aff", "##able", "cafe", "信", "用", "卡", ",", "!", "runs");
+
+    private final WordPieceTokenizer tokenizer = new WordPieceTokenizer(VOCAB, true);
+
+    @Test
+    void testTokenize_LongestMatchWithContinuationPieces() {
+        assertEquals(List.of("un", "##aff", "##able", ",", "runs", "!"), tokenizer.tokenize("Unaffable,  RUNS!"));
+        // 无法完整切分的词整体记为 [UNK]
+        assertEquals(List.of("[UNK]", "runs"), tokenizer.tokenize("unxyz runs"));
+    }
+
+    @Test
+    void testTokenize_SplitsCjkAndStripsAccents() {
+        assertEquals(List.of("信", "用", "卡", "cafe"), tokenizer.tokenize("信用卡Café\u0000"));
+    }
+
+    @Test
+    void testEncode_AddsSpecialTokensAndTruncates() {
+        assertArrayEquals(new int[]{2, 4, 5, 6, 3}, tokenizer.encode("unaffable", 16));
+        assertArrayEquals(new int[]{2, 8, 9, 3}, tokenizer.encode("信用卡", 4));
+        assertArrayEquals(new int[]{2, 3}, tokenizer.encode("", 16));
+        assertEquals(0, tokenizer.getPadId());
+    }
+
+    @Test
+    void testConstructor_RequiresSpecialTokens() {
+        assertThrows(IllegalArgumentException.class, () -> new WordPieceTokenizer(List.of("[PAD]", "a"), true));
+    }
+}
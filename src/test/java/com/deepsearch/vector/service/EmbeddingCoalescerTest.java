@@ -0,0 +1,145 @@
+package com.deepsearch.vector.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * EmbeddingCoalescer 单元测试
+ */
+class EmbeddingCoalescerTest {
+
+    @Test
+    void testSubmit_ConcurrentRequestsShareOneBatch() throws Exception {
+        List<List<String>> calls = Collections.synchronizedList(new ArrayList<>());
+        try (EmbeddingCoalescer coalescer = new EmbeddingCoalescer(texts -> {
+            calls.add(texts);
+            List<List<Float>> embeddings = new ArrayList<>();
+            for (String text : texts) {
+                embeddings.add(List.of((float) text.length()));
+            }
+            return CompletableFuture.completedFuture(embeddings);
+        }, 8, 200, 1)) {
+
+            List<CompletableFuture<List<Float>>> futures = new ArrayList<>();
+            for (int i = 1; i <= 5; i++) {
+                futures.add(coalescer.submit("x".repeat(i)));
+            }
+
+            for (int i = 0; i < futures.size(); i++) {
+                assertEquals(List.of((float) (i + 1)), futures.get(i).get(5, TimeUnit.SECONDS));
+            }
+            assertEquals(1, calls.size());
+            assertEquals(5, calls.get(0).size());
+            assertEquals(1, coalescer.getBatchCount());
+        }
+    }
+
+    @Test
+    void testSubmit_SizeCapSplitsBatches() throws Exception {
+        List<Integer> batchSizes = Collections.synchronizedList(new ArrayList<>());
+        try (EmbeddingCoalescer coalescer = new EmbeddingCoalescer(texts -> {
+            batchSizes.add(texts.size());
+            return CompletableFuture.completedFuture(Collections.nCopies(texts.size(), List.of(1f)));
+        }, 3, 200, 2)) {
+
+            List<CompletableFuture<List<Float>>> futures = new ArrayList<>();
+            for (int i = 0; i < 7; i++) {
+                futures.add(coalescer.submit("t" + i));
+            }
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0])).get(5, TimeUnit.SECONDS);
+
+            assertTrue(batchSizes.stream().allMatch(size -> size <= 3));
+            assertEquals(7, batchSizes.stream().mapToInt(Integer::intValue).sum());
+            assertEquals(7, coalescer.getRequestCount());
+        }
+    }
+
+    @Test
+    void testSubmit_InFlightLimitHoldsNextBatch() throws Exception {
+        // 第一批未完成时在途批次已满，之后收集满的一批在调度线程中等待，第一批完成后才发送
+        List<CompletableFuture<List<List<Float>>>> calls = Collections.synchronizedList(new ArrayList<>());
+        try (EmbeddingCoalescer coalescer = new EmbeddingCoalescer(texts -> {
+            CompletableFuture<List<List<Float>>> call = new CompletableFuture<>();
+            calls.add(call);
+            return call;
+        }, 2, 5000, 1)) {
+
+            CompletableFuture<List<Float>> first = coalescer.submit("a");
+            coalescer.submit("b");
+            CompletableFuture<List<Float>> third = coalescer.submit("c");
+            CompletableFuture<List<Float>> fourth = coalescer.submit("d");
+            while (calls.isEmpty()) {
+                Thread.sleep(5);
+            }
+            Thread.sleep(50);
+            assertEquals(1, calls.size());
+
+            calls.get(0).complete(List.of(List.of(1f), List.of(2f)));
+            assertEquals(List.of(1f), first.get(5, TimeUnit.SECONDS));
+            while (calls.size() < 2) {
+                Thread.sleep(5);
+            }
+            calls.get(1).complete(List.of(List.of(3f), List.of(4f)));
+            assertEquals(List.of(4f), fourth.get(5, TimeUnit.SECONDS));
+            assertEquals(List.of(3f), third.get(5, TimeUnit.SECONDS));
+        }
+    }
+
+    @Test
+    void testSubmit_FailurePropagatesToEveryCaller() {
+        try (EmbeddingCoalescer coalescer = new EmbeddingCoalescer(
+                texts -> CompletableFuture.failedFuture(new IOException("API调用失败")), 4, 50, 1)) {
+
+            CompletableFuture<List<Float>> first = coalescer.submit("a");
+            CompletableFuture<List<Float>> second = coalescer.submit("b");
+
+            ExecutionException error = assertThrows(ExecutionException.class, () -> first.get(5, TimeUnit.SECONDS));
+            assertInstanceOf(IOException.class, error.getCause());
+            assertThrows(ExecutionException.class, () -> second.get(5, TimeUnit.SECONDS));
+        }
+    }
+
+    @Test
+    void testSubmit_CancellationReachesBatchCall() throws Exception {
+        // 在途批次的调用方全部取消后取消批量调用；等待期间已取消的请求不再发送
+        List<CompletableFuture<List<List<Float>>>> calls = Collections.synchronizedList(new ArrayList<>());
+        List<List<String>> sent = Collections.synchronizedList(new ArrayList<>());
+        try (EmbeddingCoalescer coalescer = new EmbeddingCoalescer(texts -> {
+            CompletableFuture<List<List<Float>>> call = new CompletableFuture<>();
+            sent.add(texts);
+            calls.add(call);
+            return call;
+        }, 2, 5000, 1)) {
+
+            CompletableFuture<List<Float>> first = coalescer.submit("a");
+            CompletableFuture<List<Float>> second = coalescer.submit("b");
+            CompletableFuture<List<Float>> third = coalescer.submit("c");
+            CompletableFuture<List<Float>> fourth = coalescer.submit("d");
+            while (calls.isEmpty()) {
+                Thread.sleep(5);
+            }
+            third.cancel(false);
+
+            first.cancel(false);
+            assertFalse(calls.get(0).isDone());
+            second.cancel(false);
+            assertTrue(calls.get(0).isCancelled());
+
+            while (calls.size() < 2) {
+                Thread.sleep(5);
+            }
+            assertEquals(List.of("d"), sent.get(1));
+            calls.get(1).complete(List.of(List.of(4f)));
+            assertEquals(List.of(4f), fourth.get(5, TimeUnit.SECONDS));
+        }
+    }
+}
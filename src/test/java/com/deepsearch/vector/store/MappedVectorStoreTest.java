@@ -0,0 +1,344 @@
+package com.deepsearch.vector.store;
+
+import com.deepsearch.vector.util.SimilarityKernels;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.FloatBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * MappedVectorStore 单元测试
+ */
+class MappedVectorStoreTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void testPutAndGet() throws Exception {
+        try (MappedVectorStore store = new MappedVectorStore(directory, 16)) {
+            store.put(7L, 70L, new float[]{0.1f, 0.2f, 0.3f});
+
+            FloatBuffer vector = store.get(7L);
+            assertNotNull(vector);
+            assertEquals(3, vector.remaining());
+            assertEquals(0.2f, vector.get(1), 1e-6);
+            assertEquals(70L, store.getDocumentId(7L));
+            assertNull(store.get(8L));
+            assertEquals(-1L, store.getDocumentId(8L));
+        }
+    }
+
+    @Test
+    void testReopen_RestoresVectorsAcrossSegments() throws Exception {
+        try (MappedVectorStore store = new MappedVectorStore(directory, 4)) {
+            for (int i = 0; i < 10; i++) {
+                store.put(i, i * 10L, new float[]{i, i + 1, i + 2});
+            }
+        }
+        try (var files = Files.list(directory)) {
+            assertEquals(3, files.count());
+        }
+
+        try (MappedVectorStore reopened = new MappedVectorStore(directory, 4)) {
+            assertEquals(10, reopened.size());
+            assertEquals(3, reopened.getDimension());
+            assertEquals(9f, reopened.get(8L).get(1), 1e-6);
+            assertEquals(50L, reopened.getDocumentId(5L));
+
+            reopened.put(10L, 100L, new float[]{1f, 2f, 3f});
+            assertEquals(11, reopened.size());
+        }
+    }
+
+    @Test
+    void testPut_OverwriteKeepsLatestAfterReopen() throws Exception {
+        try (MappedVectorStore store = new MappedVectorStore(directory, 8)) {
+            store.put(1L, 10L, new float[]{1f, 1f});
+            store.put(1L, 10L, new float[]{2f, 2f});
+
+            assertEquals(1, store.size());
+            assertEquals(1, store.getGarbageRecords());
+        }
+
+        try (MappedVectorStore reopened = new MappedVectorStore(directory, 8)) {
+            assertEquals(1, reopened.size());
+            assertEquals(2f, reopened.get(1L).get(0), 1e-6);
+
+            List<Long> scanned = new ArrayList<>();
+            reopened.scan((vectorId, documentId, vector) -> scanned.add(vectorId));
+            assertEquals(List.of(1L), scanned);
+        }
+    }
+
+    @Test
+    void testScanDots_MatchesPerVectorScores() throws Exception {
+        int dimension = 37;
+        Random random = new Random(7);
+        float[] query = new float[dimension];
+        for (int d = 0; d < dimension; d++) {
+            query[d] = random.nextFloat() - 0.5f;
+        }
+
+        try (MappedVectorStore store = new MappedVectorStore(directory, 128)) {
+            for (int i = 0; i < 301; i++) {
+                float[] vector = new float[dimension];
+                for (int d = 0; d < dimension; d++) {
+                    vector[d] = random.nextFloat() - 0.5f;
+                }
+                store.put(i, i + 1000L, vector);
+            }
+            store.remove(5L);
+
+            Map<Long, float[]> scanned = new HashMap<>();
+            store.scanDots(query, (vectorId, documentId, dot, squaredNorm) -> {
+                assertEquals(vectorId + 1000L, documentId);
+                scanned.put(vectorId, new float[]{dot, squaredNorm});
+            });
+
+            assertEquals(300, scanned.size());
+            assertFalse(scanned.containsKey(5L));
+            long[] ids = {0L, 5L, 130L, 300L};
+            float[] norms = new float[ids.length];
+            float[] dots = store.dots(query, ids, norms);
+            assertTrue(Float.isNaN(dots[1]));
+            for (int i : new int[]{0, 2, 3}) {
+                FloatBuffer vector = store.get(ids[i]);
+                float expectedDot = 0f;
+                float expectedNorm = 0f;
+                for (int d = 0; d < dimension; d++) {
+                    expectedDot += query[d] * vector.get(d);
+                    expectedNorm += vector.get(d) * vector.get(d);
+                }
+                assertEquals(expectedDot, scanned.get(ids[i])[0], 1e-4);
+                assertEquals(expectedNorm, scanned.get(ids[i])[1], 1e-4);
+                assertEquals(expectedDot, dots[i], 1e-4);
+                assertEquals(expectedNorm, norms[i], 1e-4);
+            }
+        }
+    }
+
+    @Test
+    void testInt8Encoding_ScoresCloseToFloat32() throws Exception {
+        int dimension = 64;
+        Random random = new Random(19);
+        float[] query = new float[dimension];
+        for (int d = 0; d < dimension; d++) {
+            query[d] = random.nextFloat() - 0.5f;
+        }
+        float[][] vectors = new float[50][dimension];
+
+        try (MappedVectorStore store = new MappedVectorStore(directory, 16, MappedVectorStore.Encoding.INT8)) {
+            for (int i = 0; i < vectors.length; i++) {
+                for (int d = 0; d < dimension; d++) {
+                    vectors[i][d] = random.nextFloat() - 0.5f;
+                }
+                store.put(i, i, vectors[i]);
+            }
+
+            Map<Long, Float> scanned = new HashMap<>();
+            store.scanDots(query, (vectorId, documentId, dot, squaredNorm) -> scanned.put(vectorId, dot));
+            float[] dots = store.dots(query, new long[]{7L}, null);
+
+            assertEquals(50, scanned.size());
+            for (int i = 0; i < vectors.length; i++) {
+                assertEquals(SimilarityKernels.dot(query, vectors[i]), scanned.get((long) i), 2e-2);
+            }
+            assertEquals(scanned.get(7L), dots[0], 1e-5);
+        }
+
+        // 切换回 float32 后，已有的 int8 段仍可读取；未写满的 int8 段写满后，新段使用 float32
+        try (MappedVectorStore reopened = new MappedVectorStore(directory, 16, MappedVectorStore.Encoding.FLOAT32)) {
+            assertEquals(50, reopened.size());
+            assertEquals(vectors[3][5], reopened.get(3L).get(5), 5e-3);
+
+            for (int i = 0; i < 16; i++) {
+                reopened.put(100L + i, 100L + i, vectors[i]);
+            }
+            assertEquals(vectors[13][2], reopened.get(113L).get(2), 5e-3);
+            assertEquals(vectors[15][2], reopened.get(115L).get(2), 1e-6);
+        }
+    }
+
+    @Test
+    void testRemove() throws Exception {
+        try (MappedVectorStore store = new MappedVectorStore(directory, 8)) {
+            store.put(1L, 10L, new float[]{1f, 1f});
+            store.put(2L, 20L, new float[]{2f, 2f});
+
+            assertTrue(store.remove(1L));
+            assertFalse(store.remove(1L));
+            assertFalse(store.contains(1L));
+
+            List<Long> scanned = new ArrayList<>();
+            store.scan((vectorId, documentId, vector) -> scanned.add(documentId));
+            assertEquals(List.of(20L), scanned);
+        }
+    }
+
+    @Test
+    void testRemove_PersistsAcrossReopen() throws Exception {
+        try (MappedVectorStore store = new MappedVectorStore(directory, 8)) {
+            store.put(1L, 10L, new float[]{1f, 1f});
+            store.put(2L, 20L, new float[]{2f, 2f});
+            store.put(3L, 30L, new float[]{3f, 3f});
+            store.remove(1L);
+            store.remove(3L);
+            // 删除后重新写入的向量应当恢复
+            store.put(3L, 31L, new float[]{4f, 4f});
+        }
+
+        try (MappedVectorStore reopened = new MappedVectorStore(directory, 8)) {
+            assertFalse(reopened.contains(1L));
+            assertEquals(2, reopened.size());
+            assertEquals(31L, reopened.getDocumentId(3L));
+            assertEquals(4L, reopened.getGarbageRecords());
+            assertArrayEquals(new long[]{2L, 3L}, reopened.ids());
+
+            List<Long> scanned = new ArrayList<>();
+            reopened.scan((vectorId, documentId, vector) -> scanned.add(documentId));
+            assertEquals(List.of(20L, 31L), scanned);
+        }
+    }
+
+    @Test
+    void testScan_ConcurrentWritesDoNotHideStableVectors() throws Exception {
+        try (MappedVectorStore store = new MappedVectorStore(directory, 64)) {
+            for (long id = 0; id < 200; id++) {
+                store.put(id, id, new float[]{1f, 0f});
+            }
+            // 写线程不断覆盖和删除 1000 以上的ID，触发扩容、墓碑和压缩；0-199 始终有效
+            Thread writer = new Thread(() -> {
+                try {
+                    for (long id = 1000; id < 5000; id++) {
+                        store.put(id, id, new float[]{0f, 1f});
+                        if (id % 3 == 0) {
+                            store.remove(id - 1);
+                        }
+                        if (id % 500 == 0) {
+                            store.compact();
+                        }
+                    }
+                } catch (Exception e) {
+                    throw new IllegalStateException(e);
+                }
+            });
+            writer.start();
+            while (writer.isAlive()) {
+                int[] stable = new int[1];
+                store.scanDots(new float[]{1f, 0f}, (vectorId, documentId, dot, squaredNorm) -> {
+                    if (vectorId < 200) {
+                        stable[0]++;
+                    }
+                });
+                assertEquals(200, stable[0]);
+                assertNotNull(store.get(17L));
+            }
+            writer.join();
+        }
+    }
+
+    @Test
+    void testCompact_RewritesLiveRecordsAndSurvivesReopen() throws Exception {
+        try (MappedVectorStore store = new MappedVectorStore(directory, 4)) {
+            for (int i = 0; i < 10; i++) {
+                store.put(i, i * 10L, new float[]{i, 1f});
+            }
+            store.put(2L, 21L, new float[]{5f, 5f});
+            store.remove(4L);
+            store.remove(7L);
+            MappedVectorStore.View before = store.view();
+
+            assertTrue(store.compact());
+            assertFalse(store.compact());
+
+            assertEquals(0, store.getGarbageRecords());
+            assertEquals(8, store.size());
+            assertEquals(8, store.recordCount());
+            assertEquals(21L, store.getDocumentId(2L));
+            assertEquals(5f, store.get(2L).get(0), 1e-6);
+            assertNull(store.get(4L));
+            // 压缩前取得的视图仍按旧版本扫描
+            int[] pinned = new int[1];
+            before.scanDots(new float[]{1f, 0f}, 0, before.recordCount(), (vectorId, documentId, dot, squaredNorm) ->
+                pinned[0]++);
+            assertEquals(8, pinned[0]);
+
+            store.put(4L, 41L, new float[]{4f, 1f});
+        }
+        try (var files = Files.list(directory)) {
+            assertEquals(3, files.count());
+        }
+
+        try (MappedVectorStore reopened = new MappedVectorStore(directory, 4)) {
+            assertEquals(9, reopened.size());
+            assertEquals(0, reopened.getGarbageRecords());
+            assertEquals(41L, reopened.getDocumentId(4L));
+            assertEquals(21L, reopened.getDocumentId(2L));
+            assertFalse(reopened.contains(7L));
+        }
+    }
+
+    @Test
+    void testPut_DimensionMismatch() throws Exception {
+        try (MappedVectorStore store = new MappedVectorStore(directory, 8)) {
+            store.put(1L, 10L, new float[]{1f, 1f});
+
+            assertThrows(IllegalArgumentException.class, () -> store.put(2L, 20L, new float[]{1f, 1f, 1f}));
+        }
+    }
+
+    @Test
+    void testScanDots_RangesAcrossSegmentsCoverStore() throws Exception {
+        try (MappedVectorStore store = new MappedVectorStore(directory, 4)) {
+            for (int i = 0; i < 10; i++) {
+                store.put(i, i, new float[]{i, 1f});
+            }
+            store.put(3L, 3L, new float[]{0f, 1f});
+            assertEquals(11, store.recordCount());
+
+            float[] query = {1f, 0f};
+            Map<Long, Float> ranged = new HashMap<>();
+            for (long from = 0; from < store.recordCount(); from += 3) {
+                store.scanDots(query, from, from + 3, (vectorId, documentId, dot, squaredNorm) ->
+                    assertNull(ranged.put(vectorId, dot)));
+            }
+
+            assertEquals(10, ranged.size());
+            assertEquals(0f, ranged.get(3L), 1e-6);
+            assertEquals(9f, ranged.get(9L), 1e-6);
+        }
+    }
+
+    @Test
+    void testScanDots_MultiQueryMatchesSingleQueryScans() throws Exception {
+        try (MappedVectorStore store = new MappedVectorStore(directory, 16)) {
+            for (int i = 0; i < 40; i++) {
+                store.put(i, i / 4, new float[]{i, 1f, -i});
+            }
+            float[][] queries = {{1f, 0f, 0f}, {0f, 1f, 0f}, {0.5f, 0.5f, 0.5f}};
+
+            Map<Long, float[]> multi = new HashMap<>();
+            store.scanDots(queries, 0, store.recordCount(), (vectorId, documentId, dots, squaredNorm) -> {
+                assertEquals(vectorId / 4, documentId);
+                multi.put(vectorId, dots.clone());
+            });
+
+            assertEquals(40, multi.size());
+            for (int q = 0; q < queries.length; q++) {
+                int query = q;
+                store.scanDots(queries[q], 0, store.recordCount(), (vectorId, documentId, dot, squaredNorm) ->
+                    assertEquals(dot, multi.get(vectorId)[query], 1e-5));
+            }
+        }
+    }
+}
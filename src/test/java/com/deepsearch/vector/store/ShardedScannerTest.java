@@ -0,0 +1,91 @@
+package com.deepsearch.vector.store;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * ShardedScanner 单元测试
+ */
+class ShardedScannerTest {
+
+    @Test
+    void testExecute_SplitsContiguousRangesInShardOrder() {
+        try (ShardedScanner scanner = new ShardedScanner(3, 3, 1)) {
+            List<long[]> ranges = scanner.execute(10, 1, (shard, from, to) -> new long[]{shard, from, to});
+
+            assertEquals(3, ranges.size());
+            assertArrayEquals(new long[]{0, 0, 4}, ranges.get(0));
+            assertArrayEquals(new long[]{1, 4, 8}, ranges.get(1));
+            assertArrayEquals(new long[]{2, 8, 10}, ranges.get(2));
+        }
+    }
+
+    @Test
+    void testExecute_SmallInputRunsOnCallerThread() {
+        try (ShardedScanner scanner = new ShardedScanner(4, 0, 1)) {
+            assertEquals(4, scanner.getParallelism());
+            assertEquals(1, scanner.shardCount(100, 64));
+
+            Thread caller = Thread.currentThread();
+            List<Boolean> onCaller = scanner.execute(100, 64, (shard, from, to) -> Thread.currentThread() == caller);
+            assertEquals(List.of(true), onCaller);
+        }
+    }
+
+    @Test
+    void testExecute_PinsShardToSameWorker() {
+        try (ShardedScanner scanner = new ShardedScanner(2, 2, 2)) {
+            List<String> first = scanner.execute(8, 1, (shard, from, to) -> Thread.currentThread().getName());
+            List<String> second = scanner.execute(8, 1, (shard, from, to) -> Thread.currentThread().getName());
+
+            assertEquals(List.of("vector-scan-0", "vector-scan-1"), first);
+            assertEquals(first, second);
+        }
+    }
+
+    @Test
+    void testExecute_LimitsConcurrentQueries() throws Exception {
+        try (ShardedScanner scanner = new ShardedScanner(4, 2, 1)) {
+            AtomicInteger running = new AtomicInteger();
+            AtomicInteger maxRunning = new AtomicInteger();
+            CountDownLatch done = new CountDownLatch(2);
+            Runnable query = () -> {
+                scanner.execute(2, 1, (shard, from, to) -> {
+                    maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                    try {
+                        Thread.sleep(50);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    running.decrementAndGet();
+                    return null;
+                });
+                done.countDown();
+            };
+            new Thread(query).start();
+            new Thread(query).start();
+
+            assertTrue(done.await(5, TimeUnit.SECONDS));
+            // 每个查询占两个分片，同一时刻只允许一个查询执行
+            assertTrue(maxRunning.get() <= 2);
+        }
+    }
+
+    @Test
+    void testExecute_PropagatesShardFailure() {
+        try (ShardedScanner scanner = new ShardedScanner(2, 2, 1)) {
+            assertThrows(IllegalStateException.class, () -> scanner.execute(4, 1, (shard, from, to) -> {
+                if (shard == 1) {
+                    throw new IllegalStateException("boom");
+                }
+                return null;
+            }));
+        }
+    }
+}
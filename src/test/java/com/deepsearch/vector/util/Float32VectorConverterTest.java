@@ -0,0 +1,35 @@
+package com.deepsearch.vector.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Float32VectorConverter 单元测试
+ */
+class Float32VectorConverterTest {
+
+    private final Float32VectorConverter converter = new Float32VectorConverter();
+
+    @Test
+    void testRoundTrip_LittleEndianFloat32() {
+        float[] vector = {1.0f, -0.5f, 3.25e-3f, Float.MIN_VALUE};
+
+        byte[] bytes = converter.convertToDatabaseColumn(vector);
+
+        assertEquals(vector.length * 4, bytes.length);
+        // 1.0f = 0x3F800000，小端存放
+        assertArrayEquals(new byte[]{0x00, 0x00, (byte) 0x80, 0x3F}, Arrays.copyOf(bytes, 4));
+        assertArrayEquals(vector, converter.convertToEntityAttribute(bytes));
+    }
+
+    @Test
+    void testDecode_InvalidInput() {
+        assertNull(Float32VectorConverter.decode(null));
+        assertNull(Float32VectorConverter.decode(new byte[]{1, 2, 3}));
+        assertNull(Float32VectorConverter.encode(null));
+        assertArrayEquals(new float[0], Float32VectorConverter.decode(new byte[0]));
+    }
+}
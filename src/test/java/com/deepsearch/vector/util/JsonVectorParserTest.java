@@ -0,0 +1,54 @@
+package com.deepsearch.vector.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * JsonVectorParser 单元测试
+ */
+class JsonVectorParserTest {
+
+    @Test
+    void testParse_CommonFormats() {
+        assertArrayEquals(new float[]{0.12f, -3.5f, 0f, 100f},
+            JsonVectorParser.parse("[0.12,-3.5,0,100]"));
+        assertArrayEquals(new float[]{1.5e-3f, -2.0E2f, 0.05f},
+            JsonVectorParser.parse(" [ 1.5e-3 , -2.0E2,\n0.05 ] "));
+        assertArrayEquals(new float[0], JsonVectorParser.parse("[]"));
+    }
+
+    @Test
+    void testParse_InvalidInputReturnsNull() {
+        assertNull(JsonVectorParser.parse(null));
+        assertNull(JsonVectorParser.parse(""));
+        assertNull(JsonVectorParser.parse("{\"a\":1}"));
+        assertNull(JsonVectorParser.parse("[1.0,null]"));
+        assertNull(JsonVectorParser.parse("[1.0,2.0"));
+        assertNull(JsonVectorParser.parse("[1-2]"));
+    }
+
+    @Test
+    void testParse_MatchesDoubleParse() {
+        Random random = new Random(5);
+        StringBuilder json = new StringBuilder("[");
+        double[] expected = new double[1536];
+        for (int i = 0; i < expected.length; i++) {
+            expected[i] = random.nextGaussian() * Math.pow(10, random.nextInt(6) - 4);
+            if (i > 0) {
+                json.append(',');
+            }
+            json.append(expected[i]);
+        }
+        json.append(']');
+
+        float[] parsed = JsonVectorParser.parse(json);
+        assertNotNull(parsed);
+        assertEquals(expected.length, parsed.length);
+        for (int i = 0; i < expected.length; i++) {
+            assertEquals((float) expected[i], parsed[i], Math.ulp((float) expected[i]));
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.deepsearch.vector.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * QuantizedVector 单元测试
+ */
+class QuantizedVectorTest {
+
+    @Test
+    void testQuantize_RoundTripWithinHalfStep() {
+        float[] vector = unitVector(new Random(3), 384);
+
+        QuantizedVector quantized = QuantizedVector.quantize(vector);
+        float[] restored = quantized.dequantize();
+
+        assertEquals(384, quantized.dimension());
+        for (int i = 0; i < vector.length; i++) {
+            assertEquals(vector[i], restored[i], quantized.scale() * 0.5f + 1e-6f);
+        }
+    }
+
+    @Test
+    void testDot_CloseToExactCosine() {
+        Random random = new Random(5);
+        float[] a = unitVector(random, 1536);
+        float[] b = unitVector(random, 1536);
+        float exact = SimilarityKernels.dot(a, b);
+
+        QuantizedVector qa = QuantizedVector.quantize(a);
+        QuantizedVector qb = QuantizedVector.quantize(b);
+
+        assertEquals(exact, qa.dot(b), 2e-3);
+        assertEquals(exact, qa.dot(qb), 2e-3);
+        assertEquals(1.0, qa.squaredNorm(), 5e-3);
+        assertEquals(qa.dot(b), qa.dot(b, QuantizedVector.sum(b)), 1e-6);
+    }
+
+    @Test
+    void testOf_RestoresCodeSum() {
+        QuantizedVector quantized = QuantizedVector.quantize(unitVector(new Random(9), 64));
+
+        QuantizedVector restored = QuantizedVector.of(quantized.codes(), quantized.offset(), quantized.scale());
+
+        assertEquals(quantized.codeSum(), restored.codeSum());
+    }
+
+    @Test
+    void testQuantize_ConstantVector() {
+        QuantizedVector quantized = QuantizedVector.quantize(new float[]{0.5f, 0.5f, 0.5f});
+
+        assertEquals(0f, quantized.scale());
+        assertArrayEquals(new float[]{0.5f, 0.5f, 0.5f}, quantized.dequantize(), 1e-6f);
+        assertThrows(IllegalArgumentException.class, () -> QuantizedVector.quantize(new float[0]));
+    }
+
+    private static float[] unitVector(Random random, int dimension) {
+        float[] vector = new float[dimension];
+        for (int i = 0; i < dimension; i++) {
+            vector[i] = (float) random.nextGaussian();
+        }
+        SimilarityKernels.normalize(vector);
+        return vector;
+    }
+}
@@ -0,0 +1,45 @@
+package com.deepsearch.vector.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * SimHash 单元测试
+ */
+class SimHashTest {
+
+    private static final String CONTENT = "信用卡年费政策说明：普卡首年免年费，当年刷卡满五次即可免除次年年费，"
+        + "金卡及以上卡种年费标准请参考官网公布的最新收费标准，附属卡年费减半收取。";
+
+    @Test
+    void testFingerprint_IgnoresWhitespaceCaseAndPunctuation() {
+        assertEquals(SimHash.fingerprint("信用卡 年费", CONTENT),
+            SimHash.fingerprint("信用卡年费", CONTENT.replace("，", " ")));
+        assertEquals(SimHash.fingerprint("Credit Card"), SimHash.fingerprint("credit-card"));
+        assertEquals(SimHash.EMPTY, SimHash.fingerprint(null, " ，。"));
+        assertNotEquals(SimHash.EMPTY, SimHash.fingerprint("卡"));
+    }
+
+    @Test
+    void testDistance_NearDuplicatesCloserThanUnrelatedText() {
+        long original = SimHash.fingerprint("信用卡年费", CONTENT);
+        long edited = SimHash.fingerprint("信用卡年费", CONTENT.replace("五次", "六次"));
+        long unrelated = SimHash.fingerprint("理财产品", "稳健型理财产品的风险等级为二级，适合保守型投资者长期持有，赎回后资金实时到账。");
+
+        assertTrue(SimHash.distance(original, edited) <= 3);
+        assertTrue(SimHash.distance(original, unrelated) > 10);
+    }
+
+    @Test
+    void testBandKey_SharedBandWithinThreeBits() {
+        long fingerprint = SimHash.fingerprint("信用卡年费", CONTENT);
+        // 翻转3个比特最多改变3个分段，至少一个分段保持不变
+        long flipped = fingerprint ^ (1L) ^ (1L << 20) ^ (1L << 40);
+
+        assertEquals(SimHash.bandKey(fingerprint, 3), SimHash.bandKey(flipped, 3));
+        assertNotEquals(SimHash.bandKey(fingerprint, 0), SimHash.bandKey(flipped, 0));
+        // 不同分段的键不会冲突
+        assertNotEquals(SimHash.bandKey(0L, 0), SimHash.bandKey(0L, 1));
+    }
+}
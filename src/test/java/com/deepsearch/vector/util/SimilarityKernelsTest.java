@@ -0,0 +1,154 @@
+package com.deepsearch.vector.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * SimilarityKernels 单元测试
+ */
+class SimilarityKernelsTest {
+
+    private final float[] a = {1f, 2f, 3f, 4f, 5f};
+    private final float[] b = {5f, 0f, 3f, 0f, 1f};
+
+    @Test
+    void testDot() {
+        assertEquals(19f, SimilarityKernels.dot(a, b), 1e-6);
+        assertEquals(9f + 0f, SimilarityKernels.dot(a, 2, b, 2, 1), 1e-6);
+    }
+
+    @Test
+    void testBufferVariants_MatchArrayVariants() {
+        FloatBuffer heap = FloatBuffer.wrap(b);
+        FloatBuffer direct = ByteBuffer.allocateDirect(b.length * 4).order(ByteOrder.LITTLE_ENDIAN).asFloatBuffer();
+        direct.put(b).flip();
+
+        for (FloatBuffer buffer : List.of(heap, direct)) {
+            assertEquals(SimilarityKernels.dot(a, b), SimilarityKernels.dot(a, buffer), 1e-6);
+            assertEquals(SimilarityKernels.cosine(a, b), SimilarityKernels.cosine(a, buffer), 1e-6);
+            assertEquals(SimilarityKernels.squaredEuclidean(a, b), SimilarityKernels.squaredEuclidean(a, buffer), 1e-6);
+            assertEquals(SimilarityKernels.manhattan(a, b), SimilarityKernels.manhattan(a, buffer), 1e-6);
+            assertEquals(SimilarityKernels.jaccard(a, b), SimilarityKernels.jaccard(a, buffer), 1e-9);
+            assertEquals(0, buffer.position());
+        }
+    }
+
+    @Test
+    void testDistancesAndJaccard() {
+        assertEquals(16f + 4f + 0f + 16f + 16f, SimilarityKernels.squaredEuclidean(a, b), 1e-6);
+        assertEquals(4f + 2f + 0f + 4f + 4f, SimilarityKernels.manhattan(a, b), 1e-6);
+        assertEquals(3.0 / 5.0, SimilarityKernels.jaccard(a, b), 1e-9);
+    }
+
+    @Test
+    void testCosine_ZeroVectorReturnsZero() {
+        assertEquals(1.0, SimilarityKernels.cosine(a, a), 1e-6);
+        assertEquals(0.0, SimilarityKernels.cosine(a, new float[5]));
+    }
+
+    @Test
+    void testNormalize() {
+        float[] vector = {3f, 4f};
+        SimilarityKernels.normalize(vector);
+        assertArrayEquals(new float[]{0.6f, 0.8f}, vector, 1e-6f);
+
+        float[] zero = new float[3];
+        SimilarityKernels.normalize(zero);
+        assertArrayEquals(new float[3], zero);
+    }
+
+    @Test
+    void testLongVectors_MatchScalarReference() {
+        Random random = new Random(11);
+        float[] x = randomVector(random, 131);
+        float[] y = randomVector(random, 131);
+
+        float dot = 0f, normX = 0f, normY = 0f, distance = 0f;
+        for (int i = 0; i < x.length; i++) {
+            dot += x[i] * y[i];
+            normX += x[i] * x[i];
+            normY += y[i] * y[i];
+            distance += (x[i] - y[i]) * (x[i] - y[i]);
+        }
+
+        assertEquals(dot, SimilarityKernels.dot(x, y), 1e-4);
+        assertEquals(distance, SimilarityKernels.squaredEuclidean(x, y), 1e-4);
+        assertEquals(dot / Math.sqrt(normX * normY), SimilarityKernels.cosine(x, y), 1e-5);
+        assertEquals(dot, SimilarityKernels.dot(x, FloatBuffer.wrap(y)), 1e-4);
+    }
+
+    @Test
+    void testDotRows_StridedBuffer() {
+        Random random = new Random(13);
+        int dimension = 50;
+        int rows = 5;
+        int header = 16;
+        int stride = header + dimension * 4;
+        float[] query = randomVector(random, dimension);
+        float[][] data = new float[rows][];
+        ByteBuffer buffer = ByteBuffer.allocateDirect(8 + rows * stride).order(ByteOrder.LITTLE_ENDIAN);
+        for (int r = 0; r < rows; r++) {
+            data[r] = randomVector(random, dimension);
+            for (int d = 0; d < dimension; d++) {
+                buffer.putFloat(8 + r * stride + header + d * 4, data[r][d]);
+            }
+        }
+
+        float[] dots = new float[rows];
+        float[] norms = new float[rows];
+        SimilarityKernels.dotRows(query, buffer, 8 + header, stride, rows, dots, norms);
+
+        for (int r = 0; r < rows; r++) {
+            assertEquals(SimilarityKernels.dot(query, data[r]), dots[r], 1e-4);
+            assertEquals(SimilarityKernels.squaredNorm(data[r]), norms[r], 1e-4);
+            assertEquals(dots[r], SimilarityKernels.dot(query, buffer, 8 + r * stride + header), 1e-4);
+        }
+    }
+
+    @Test
+    void testDotInt8_MatchesScalarReference() {
+        Random random = new Random(17);
+        int dimension = 131;
+        float[] query = randomVector(random, dimension);
+        byte[] a = new byte[dimension + 3];
+        byte[] b = new byte[dimension];
+        random.nextBytes(a);
+        random.nextBytes(b);
+
+        float floatDot = 0f;
+        int codeDot = 0;
+        for (int i = 0; i < dimension; i++) {
+            floatDot += query[i] * a[i + 3];
+            codeDot += a[i + 3] * b[i];
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocateDirect(a.length);
+        buffer.put(a);
+        assertEquals(floatDot, SimilarityKernels.dotInt8(query, a, 3), 1e-2);
+        assertEquals(floatDot, SimilarityKernels.dotInt8(query, buffer, 3), 1e-2);
+        assertEquals(codeDot, SimilarityKernels.dotInt8(a, 3, b, 0, dimension));
+    }
+
+    @Test
+    void testToFloatArray() {
+        assertArrayEquals(new float[]{0.5f, 1.5f}, SimilarityKernels.toFloatArray(List.of(0.5, 1.5)));
+        assertNull(SimilarityKernels.toFloatArray(null));
+        assertNull(SimilarityKernels.toFloatArray(Arrays.asList(0.5, null)));
+    }
+
+    private static float[] randomVector(Random random, int dimension) {
+        float[] vector = new float[dimension];
+        for (int i = 0; i < dimension; i++) {
+            vector[i] = random.nextFloat() * 2 - 1;
+        }
+        return vector;
+    }
+}
@@ -0,0 +1,74 @@
+package com.deepsearch.vector.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * TopKSelector 单元测试
+ */
+class TopKSelectorTest {
+
+    @Test
+    void testSelect_MatchesStableSort() {
+        Random random = new Random(3);
+        float[] scores = new float[1000];
+        for (int i = 0; i < scores.length; i++) {
+            // 取值范围小，制造大量同分
+            scores[i] = random.nextInt(50);
+        }
+
+        int[] expected = IntStream.range(0, scores.length).boxed()
+            .sorted(Comparator.comparingDouble(i -> -scores[i]))
+            .limit(10)
+            .mapToInt(Integer::intValue)
+            .toArray();
+
+        assertArrayEquals(expected, TopKSelector.select(scores, 10));
+    }
+
+    @Test
+    void testParallelSelect_MatchesSerial() {
+        Random random = new Random(5);
+        float[] scores = new float[100_000];
+        for (int i = 0; i < scores.length; i++) {
+            scores[i] = random.nextFloat();
+        }
+
+        assertArrayEquals(TopKSelector.select(scores, 25), TopKSelector.parallelSelect(scores, 25));
+    }
+
+    @Test
+    void testOffer_IgnoresNaNAndDrainsDescending() {
+        TopKSelector selector = new TopKSelector(3);
+        selector.offer(1L, 0.2f);
+        selector.offer(2L, Float.NaN);
+        selector.offer(3L, 0.9f);
+        assertFalse(selector.isFull());
+        assertEquals(Float.NEGATIVE_INFINITY, selector.minScore());
+
+        selector.offer(4L, 0.5f);
+        selector.offer(5L, 0.1f);
+        assertTrue(selector.isFull());
+        assertEquals(0.2f, selector.minScore());
+
+        float[] scores = new float[3];
+        long[] ids = selector.drain(scores);
+        assertArrayEquals(new long[]{3L, 4L, 1L}, ids);
+        assertArrayEquals(new float[]{0.9f, 0.5f, 0.2f}, scores);
+        assertEquals(0, selector.size());
+    }
+
+    @Test
+    void testSelect_KLargerThanInput() {
+        int[] order = TopKSelector.select(new float[]{1f, 3f, 2f}, 10);
+        assertArrayEquals(new int[]{1, 2, 0}, order);
+        assertEquals(0, TopKSelector.select(new float[0], 5).length);
+        assertTrue(Arrays.stream(TopKSelector.select(new float[]{1f}, 0)).findAny().isEmpty());
+    }
+}